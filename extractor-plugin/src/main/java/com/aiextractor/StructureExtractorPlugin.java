@@ -5,18 +5,23 @@ import com.aiextractor.commands.BuildCommand;
 import com.aiextractor.commands.CaptureCommand;
 import com.aiextractor.commands.ExtractorCommand;
 import com.aiextractor.commands.ScanCommand;
+import com.aiextractor.detection.ParallelStructureDetector;
 import com.aiextractor.detection.StructureDetector;
+import com.aiextractor.detection.StructureTracker;
 import com.aiextractor.export.StructureExporter;
 import com.aiextractor.scanner.WorldScanner;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
+import java.util.concurrent.Executor;
 
 public class StructureExtractorPlugin extends JavaPlugin {
 
     private static StructureExtractorPlugin instance;
     
     private StructureDetector structureDetector;
+    private ParallelStructureDetector parallelDetector;
+    private StructureTracker structureTracker;
     private StructureExporter structureExporter;
     private WorldScanner worldScanner;
     private StructureBuilder structureBuilder;
@@ -38,9 +43,12 @@ public class StructureExtractorPlugin extends JavaPlugin {
         
         // Initialize components
         structureDetector = new StructureDetector(this);
+        parallelDetector = new ParallelStructureDetector(this);
         structureExporter = new StructureExporter(this);
         worldScanner = new WorldScanner(this);
         structureBuilder = new StructureBuilder(this);
+        structureTracker = new StructureTracker();
+        getServer().getPluginManager().registerEvents(structureTracker, this);
         
         // Register commands with tab completion
         ScanCommand scanCommand = new ScanCommand(this);
@@ -67,7 +75,19 @@ public class StructureExtractorPlugin extends JavaPlugin {
     public void onDisable() {
         // Stop any running scans
         if (worldScanner != null && worldScanner.isScanning()) {
-            worldScanner.stopScan();
+            worldScanner.stopAllScans();
+        }
+        if (worldScanner != null) {
+            worldScanner.stopOfflineScan();
+        }
+        if (parallelDetector != null) {
+            parallelDetector.shutdown();
+        }
+        if (structureBuilder != null) {
+            structureBuilder.shutdown();
+        }
+        if (structureExporter != null) {
+            structureExporter.shutdown();
         }
         
         getLogger().info("StructureExtractor has been disabled!");
@@ -81,6 +101,14 @@ public class StructureExtractorPlugin extends JavaPlugin {
         return structureDetector;
     }
     
+    public ParallelStructureDetector getParallelDetector() {
+        return parallelDetector;
+    }
+    
+    public StructureTracker getStructureTracker() {
+        return structureTracker;
+    }
+    
     public StructureExporter getStructureExporter() {
         return structureExporter;
     }
@@ -96,4 +124,11 @@ public class StructureExtractorPlugin extends JavaPlugin {
     public File getExportDirectory() {
         return exportDirectory;
     }
+    
+    /**
+     * Executor that runs tasks on the server's async scheduler
+     */
+    public Executor getAsyncExecutor() {
+        return task -> getServer().getScheduler().runTaskAsynchronously(this, task);
+    }
 }
@@ -1,8 +1,9 @@
 package com.aiextractor.commands;
 
+import com.aibuild.placement.PlacementJob;
 import com.aiextractor.StructureExtractorPlugin;
 import com.aiextractor.builder.StructureBuilder;
-import com.aiextractor.builder.StructureBuilder.BuildResult;
+import com.aiextractor.export.ExportIndex;
 import com.aiextractor.models.ExtractedStructure;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -16,7 +17,6 @@ import org.bukkit.entity.Player;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Command to build structures from exported JSON files
@@ -24,9 +24,13 @@ import java.util.stream.Collectors;
  *        /build list - List available structure files
  *        /build info <filename> - Show structure info
  *        /build undo - Undo last built structure
+ *        /build cancel - Stop a running build or undo
  */
 public class BuildCommand implements CommandExecutor, TabCompleter {
 
+    // Structure names offered per tab completion
+    private static final int MAX_COMPLETIONS = 100;
+
     private final StructureExtractorPlugin plugin;
     private final StructureBuilder builder;
 
@@ -67,6 +71,8 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
                 return handleInfo(player, args[1]);
             case "undo":
                 return handleUndo(player);
+            case "cancel":
+                return handleCancel(player);
             case "help":
                 sendUsage(player);
                 return true;
@@ -88,19 +94,45 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        try {
-            ExtractedStructure structure = builder.loadStructure(structureFile);
-            
-            player.sendMessage(Component.text("Building structure: ", NamedTextColor.YELLOW)
-                .append(Component.text(structure.getName(), NamedTextColor.WHITE)));
-            player.sendMessage(Component.text("Size: " + structure.getSizeX() + "x" + 
-                structure.getSizeY() + "x" + structure.getSizeZ() + 
-                " (" + structure.getBlockCount() + " blocks)", NamedTextColor.GRAY));
+        // Read and decode off the main thread, then build at where the player stood
+        Location origin = player.getLocation().getBlock().getLocation();
+        builder.loadStructureAsync(structureFile).whenComplete((structure, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    player.sendMessage(Component.text("Failed to load structure: " + cause.getMessage(), NamedTextColor.RED));
+                    plugin.getLogger().severe("Error loading structure: " + cause.getMessage());
+                    return;
+                }
+                build(player, origin, structure);
+            });
+        });
+
+        return true;
+    }
 
-            Location origin = player.getLocation().getBlock().getLocation();
-            BuildResult result = builder.buildStructure(player, origin, structure);
+    private void build(Player player, Location origin, ExtractedStructure structure) {
+        player.sendMessage(Component.text("Building structure: ", NamedTextColor.YELLOW)
+            .append(Component.text(structure.getName(), NamedTextColor.WHITE)));
+        player.sendMessage(Component.text("Size: " + structure.getSizeX() + "x" + 
+            structure.getSizeY() + "x" + structure.getSizeZ() + 
+            " (" + structure.getBlockCount() + " blocks)", NamedTextColor.GRAY));
 
-            if (result.isSuccess()) {
+        boolean started = builder.startBuild(player, origin, structure, result -> {
+            if (!player.isOnline()) {
+                return;
+            }
+            if (result.isCancelled()) {
+                player.sendMessage(Component.text("Build cancelled. ", NamedTextColor.YELLOW)
+                    .append(Component.text(result.getBlocksPlaced() + " blocks placed.", NamedTextColor.GRAY)));
+                player.sendMessage(Component.text("Use /build undo to remove them.", NamedTextColor.GRAY));
+            } else if (result.isSuccess()) {
                 player.sendMessage(Component.text("Structure built successfully! ", NamedTextColor.GREEN)
                     .append(Component.text(result.getBlocksPlaced() + " blocks placed.", NamedTextColor.GRAY)));
                 player.sendMessage(Component.text("Use /build undo to remove it.", NamedTextColor.GRAY));
@@ -111,41 +143,39 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
                     player.sendMessage(Component.text("Errors: " + result.getError(), NamedTextColor.RED));
                 }
             }
+        });
 
-        } catch (Exception e) {
-            player.sendMessage(Component.text("Failed to load structure: " + e.getMessage(), NamedTextColor.RED));
-            plugin.getLogger().severe("Error loading structure: " + e.getMessage());
+        if (!started) {
+            player.sendMessage(Component.text("You already have a build running. Use /build cancel to stop it.", NamedTextColor.RED));
         }
-
-        return true;
     }
 
     /**
      * List available structure files
      */
     private boolean handleList(Player player) {
-        List<File> files = builder.listStructureFiles();
+        ExportIndex index = builder.getIndex();
+        int total = index.size();
         
-        if (files.isEmpty()) {
+        if (total == 0) {
             player.sendMessage(Component.text("No structure files found.", NamedTextColor.YELLOW));
             player.sendMessage(Component.text("Use /capture to export structures first.", NamedTextColor.GRAY));
             return true;
         }
 
-        player.sendMessage(Component.text("=== Available Structures (" + files.size() + ") ===", NamedTextColor.GOLD));
+        player.sendMessage(Component.text("=== Available Structures (" + total + ") ===", NamedTextColor.GOLD));
         
         int count = 0;
-        for (File file : files) {
+        for (ExportIndex.Entry entry : index.entries()) {
             if (count >= 20) {
-                player.sendMessage(Component.text("... and " + (files.size() - 20) + " more", NamedTextColor.GRAY));
+                player.sendMessage(Component.text("... and " + (total - 20) + " more", NamedTextColor.GRAY));
                 break;
             }
             
-            String worldName = file.getParentFile().getName();
-            String displayName = file.getName().replace(".json", "");
+            String worldName = entry.getWorld().isEmpty() ? plugin.getExportDirectory().getName() : entry.getWorld();
             
-            player.sendMessage(Component.text("  " + displayName, NamedTextColor.WHITE)
-                .append(Component.text(" (" + worldName + ")", NamedTextColor.GRAY)));
+            player.sendMessage(Component.text("  " + entry.getName(), NamedTextColor.WHITE)
+                .append(Component.text(" (" + worldName + ", " + entry.getBlockCount() + " blocks)", NamedTextColor.GRAY)));
             count++;
         }
 
@@ -154,46 +184,41 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
     }
 
     /**
-     * Show info about a structure file
+     * Show info about a structure file, from the index without reading the file
      */
     private boolean handleInfo(Player player, String filename) {
-        File structureFile = builder.findStructureFile(filename);
+        ExportIndex.Entry entry = builder.getIndex().find(filename);
         
-        if (structureFile == null) {
+        if (entry == null) {
             player.sendMessage(Component.text("Structure file not found: " + filename, NamedTextColor.RED));
             return true;
         }
 
-        try {
-            ExtractedStructure structure = builder.loadStructure(structureFile);
-            
-            player.sendMessage(Component.text("=== Structure Info ===", NamedTextColor.GOLD));
-            player.sendMessage(Component.text("Name: ", NamedTextColor.GRAY)
-                .append(Component.text(structure.getName(), NamedTextColor.WHITE)));
-            player.sendMessage(Component.text("Size: ", NamedTextColor.GRAY)
-                .append(Component.text(structure.getSizeX() + " x " + structure.getSizeY() + " x " + structure.getSizeZ(), NamedTextColor.WHITE)));
-            player.sendMessage(Component.text("Blocks: ", NamedTextColor.GRAY)
-                .append(Component.text(String.valueOf(structure.getBlockCount()), NamedTextColor.WHITE)));
-            player.sendMessage(Component.text("File: ", NamedTextColor.GRAY)
-                .append(Component.text(structureFile.getName(), NamedTextColor.WHITE)));
-            
-            if (structure.getMetadata() != null) {
-                if (structure.getMetadata().getSourceWorld() != null) {
-                    player.sendMessage(Component.text("Source World: ", NamedTextColor.GRAY)
-                        .append(Component.text(structure.getMetadata().getSourceWorld(), NamedTextColor.WHITE)));
-                }
-                if (structure.getMetadata().getCaptureMode() != null) {
-                    player.sendMessage(Component.text("Capture Mode: ", NamedTextColor.GRAY)
-                        .append(Component.text(structure.getMetadata().getCaptureMode(), NamedTextColor.WHITE)));
-                }
-                if (structure.getMetadata().getCapturedBy() != null) {
-                    player.sendMessage(Component.text("Captured By: ", NamedTextColor.GRAY)
-                        .append(Component.text(structure.getMetadata().getCapturedBy(), NamedTextColor.WHITE)));
-                }
-            }
-
-        } catch (Exception e) {
-            player.sendMessage(Component.text("Failed to read structure: " + e.getMessage(), NamedTextColor.RED));
+        player.sendMessage(Component.text("=== Structure Info ===", NamedTextColor.GOLD));
+        player.sendMessage(Component.text("Name: ", NamedTextColor.GRAY)
+            .append(Component.text(entry.getName(), NamedTextColor.WHITE)));
+        player.sendMessage(Component.text("Size: ", NamedTextColor.GRAY)
+            .append(Component.text(entry.getSizeX() + " x " + entry.getSizeY() + " x " + entry.getSizeZ(), NamedTextColor.WHITE)));
+        player.sendMessage(Component.text("Blocks: ", NamedTextColor.GRAY)
+            .append(Component.text(entry.getBlockCount() + " (" + entry.getPaletteSize() + " distinct states)", NamedTextColor.WHITE)));
+        if (!entry.getTopBlocks().isEmpty()) {
+            player.sendMessage(Component.text("Mostly: ", NamedTextColor.GRAY)
+                .append(Component.text(String.join(", ", entry.getTopBlocks()), NamedTextColor.WHITE)));
+        }
+        player.sendMessage(Component.text("File: ", NamedTextColor.GRAY)
+            .append(Component.text(entry.getFile().getName() + " (" + (entry.getLength() + 1023) / 1024 + " KB)", NamedTextColor.WHITE)));
+        
+        if (entry.getSourceWorld() != null) {
+            player.sendMessage(Component.text("Source World: ", NamedTextColor.GRAY)
+                .append(Component.text(entry.getSourceWorld(), NamedTextColor.WHITE)));
+        }
+        if (entry.getCaptureMode() != null) {
+            player.sendMessage(Component.text("Capture Mode: ", NamedTextColor.GRAY)
+                .append(Component.text(entry.getCaptureMode(), NamedTextColor.WHITE)));
+        }
+        if (entry.getCapturedBy() != null) {
+            player.sendMessage(Component.text("Captured By: ", NamedTextColor.GRAY)
+                .append(Component.text(entry.getCapturedBy(), NamedTextColor.WHITE)));
         }
 
         return true;
@@ -203,18 +228,46 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
      * Undo the last built structure
      */
     private boolean handleUndo(Player player) {
+        if (builder.getJob(player) != null) {
+            player.sendMessage(Component.text("Wait for your build to finish or use /build cancel first.", NamedTextColor.RED));
+            return true;
+        }
         if (!builder.hasUndo(player)) {
             player.sendMessage(Component.text("Nothing to undo.", NamedTextColor.YELLOW));
             return true;
         }
 
-        int restored = builder.undoLastBuild(player);
-        player.sendMessage(Component.text("Undo successful! ", NamedTextColor.GREEN)
-            .append(Component.text(restored + " blocks restored.", NamedTextColor.GRAY)));
+        boolean started = builder.startUndo(player, restored -> {
+            if (player.isOnline()) {
+                player.sendMessage(Component.text("Undo finished! ", NamedTextColor.GREEN)
+                    .append(Component.text(restored + " blocks restored.", NamedTextColor.GRAY)));
+                int levels = builder.getUndoLevels(player);
+                if (levels > 0) {
+                    player.sendMessage(Component.text(levels + " earlier build" + (levels == 1 ? "" : "s") + " can still be undone.", NamedTextColor.GRAY));
+                }
+            }
+        });
+        if (!started) {
+            // The previous undo is still reading its data back from disk
+            player.sendMessage(Component.text("Wait for your undo to start first.", NamedTextColor.RED));
+        }
 
         return true;
     }
 
+    /**
+     * Stop the running build or undo
+     */
+    private boolean handleCancel(Player player) {
+        PlacementJob job = builder.getJob(player);
+        if (job == null || !builder.cancel(player)) {
+            player.sendMessage(Component.text("Nothing to cancel.", NamedTextColor.YELLOW));
+            return true;
+        }
+        player.sendMessage(Component.text("Cancelled after " + job.getCompleted() + " of " + job.getTotal() + " blocks.", NamedTextColor.YELLOW));
+        return true;
+    }
+
     private void sendUsage(Player player) {
         player.sendMessage(Component.text("=== Build Commands ===", NamedTextColor.GOLD));
         player.sendMessage(Component.text("/build <filename>", NamedTextColor.YELLOW)
@@ -224,7 +277,9 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(Component.text("/build info <filename>", NamedTextColor.YELLOW)
             .append(Component.text(" - Show structure info", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("/build undo", NamedTextColor.YELLOW)
-            .append(Component.text(" - Undo last built structure", NamedTextColor.GRAY)));
+            .append(Component.text(" - Undo your last build (repeat for earlier ones)", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("/build cancel", NamedTextColor.YELLOW)
+            .append(Component.text(" - Stop a running build or undo", NamedTextColor.GRAY)));
     }
 
     @Override
@@ -232,30 +287,34 @@ public class BuildCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> options = new ArrayList<>();
-            options.add("list");
-            options.add("info");
-            options.add("undo");
-            options.add("help");
-            
-            // Add structure filenames
-            for (File file : builder.listStructureFiles()) {
-                options.add(file.getName().replace(".json", ""));
+            String prefix = args[0].toLowerCase();
+            for (String option : new String[]{"list", "info", "undo", "cancel", "help"}) {
+                if (option.startsWith(prefix)) {
+                    completions.add(option);
+                }
             }
             
-            String prefix = args[0].toLowerCase();
-            completions = options.stream()
-                .filter(s -> s.toLowerCase().startsWith(prefix))
-                .collect(Collectors.toList());
+            // Add structure names
+            completeStructureNames(prefix, completions);
                 
         } else if (args.length == 2 && args[0].equalsIgnoreCase("info")) {
-            String prefix = args[1].toLowerCase();
-            completions = builder.listStructureFiles().stream()
-                .map(f -> f.getName().replace(".json", ""))
-                .filter(s -> s.toLowerCase().startsWith(prefix))
-                .collect(Collectors.toList());
+            completeStructureNames(args[1], completions);
         }
 
         return completions;
     }
+
+    /**
+     * Add the structure names starting with a prefix, served from the export index
+     */
+    private void completeStructureNames(String prefix, List<String> completions) {
+        String previous = null;
+        for (ExportIndex.Entry entry : builder.getIndex().complete(prefix, MAX_COMPLETIONS)) {
+            // The same name can exist in several worlds
+            if (!entry.getName().equals(previous)) {
+                completions.add(entry.getName());
+                previous = entry.getName();
+            }
+        }
+    }
 }
@@ -1,8 +1,12 @@
 package com.aiextractor.commands;
 
 import com.aiextractor.StructureExtractorPlugin;
+import com.aiextractor.detection.LongHashSet;
 import com.aiextractor.detection.StructureDetector;
 import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.detection.StructureTracker;
+import com.aiextractor.detection.TrackedStructure;
+import com.aiextractor.detection.WorldBlockAccess;
 import com.aiextractor.export.StructureExporter;
 import com.aiextractor.export.StructureExporter.ExportResult;
 import com.aiextractor.models.BoundingBox;
@@ -20,17 +24,21 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class CaptureCommand implements CommandExecutor, TabCompleter {
 
     private final StructureExtractorPlugin plugin;
     private final StructureDetector detector;
     private final StructureExporter exporter;
+    private final StructureTracker tracker;
 
     public CaptureCommand(StructureExtractorPlugin plugin) {
         this.plugin = plugin;
         this.detector = plugin.getStructureDetector();
         this.exporter = plugin.getStructureExporter();
+        this.tracker = plugin.getStructureTracker();
     }
 
     @Override
@@ -60,6 +68,8 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
                 return handleAuto(player, name);
             case "block":
                 return handleBlock(player, name);
+            case "update":
+                return handleUpdate(player, name);
             case "selection":
                 return handleSelection(player, name);
             case "pos1":
@@ -78,21 +88,7 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
     private boolean handleAuto(Player player, String name) {
         player.sendMessage(Component.text("Detecting structure near you...", NamedTextColor.YELLOW));
 
-        Location loc = player.getLocation();
-        DetectionResult result = detector.detectFromLocation(loc);
-
-        if (!result.isSuccess()) {
-            player.sendMessage(Component.text("Detection failed: " + result.getMessage(), NamedTextColor.RED));
-            return true;
-        }
-
-        BoundingBox box = result.getBoundingBox();
-        player.sendMessage(Component.text("Structure detected! ", NamedTextColor.GREEN)
-            .append(Component.text("(" + result.getBlockCount() + " blocks, " + 
-                box.getSizeX() + "x" + box.getSizeY() + "x" + box.getSizeZ() + ")", NamedTextColor.GRAY)));
-
-        // Extract and export
-        extractAndExport(player, box, name, "auto");
+        detectAndExport(player, player.getLocation(), name, "auto");
         return true;
     }
 
@@ -110,20 +106,157 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(Component.text("Detecting structure from " + 
             targetBlock.getType().name() + " at " + formatLocation(targetBlock.getLocation()) + "...", NamedTextColor.YELLOW));
 
-        DetectionResult result = detector.detectFromLocation(targetBlock.getLocation());
+        detectAndExport(player, targetBlock.getLocation(), name, "block");
+        return true;
+    }
+
+    /**
+     * Re-capture the player's last detected structure after edits.
+     * Only the changed blocks are re-examined; if that is not conclusive the structure is
+     * detected again from scratch.
+     */
+    private boolean handleUpdate(Player player, String name) {
+        TrackedStructure tracked = tracker.get(player);
+        if (tracked == null) {
+            player.sendMessage(Component.text("No structure to update. Capture one with /capture auto or /capture block first.", NamedTextColor.RED));
+            return true;
+        }
+        if (!tracked.hasBlockData()) {
+            player.sendMessage(Component.text("The last capture is still being extracted, try again in a moment.", NamedTextColor.YELLOW));
+            return true;
+        }
+        if (!tracked.hasChanges()) {
+            player.sendMessage(Component.text("No changes since the last capture.", NamedTextColor.YELLOW));
+            return true;
+        }
 
+        String exportName = name != null ? name : tracked.getName();
+        int changes = tracked.getPendingChanges();
+        DetectionResult result = tracked.update(new WorldBlockAccess(tracked.getWorld()), detector);
+        if (result == null) {
+            player.sendMessage(Component.text("Changes could not be applied incrementally, detecting again...", NamedTextColor.YELLOW));
+            detectAndExport(player, tracked.getOrigin(), exportName, "update");
+            return true;
+        }
         if (!result.isSuccess()) {
             player.sendMessage(Component.text("Detection failed: " + result.getMessage(), NamedTextColor.RED));
             return true;
         }
 
+        BoundingBox box = result.getBoundingBox();
+        player.sendMessage(Component.text("Structure updated! ", NamedTextColor.GREEN)
+            .append(Component.text("(" + changes + " changes, " + result.getBlockCount() + " blocks, " +
+                box.getSizeX() + "x" + box.getSizeY() + "x" + box.getSizeZ() + ")", NamedTextColor.GRAY)));
+
+        boolean includeAir = plugin.getConfig().getBoolean("export.include-air", false);
+        export(player, tracked.toExtractedStructure(exportName, includeAir), "update");
+        return true;
+    }
+
+    /**
+     * Detect the structure at a location, then extract and export it. If the location is
+     * natural terrain, the nearest structure block is searched for off the main thread first.
+     * With parallel detection enabled the labeling runs off the main thread too.
+     */
+    private void detectAndExport(Player player, Location location, String name, String mode) {
+        if (!detector.isNaturalBlock(location.getBlock().getType())) {
+            detectAt(player, location, location, name, mode);
+            return;
+        }
+        detector.findNearestStructureBlockAsync(location, plugin.getAsyncExecutor()).whenComplete((start, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Structure block search failed: " + error);
+                    handleDetection(player, location, new DetectionResult(false, "internal error"),
+                        null, null, name, mode);
+                } else if (start == null) {
+                    handleDetection(player, location, new DetectionResult(false, "No structure found nearby"),
+                        null, null, name, mode);
+                } else {
+                    detectAt(player, location, start.getLocation(), name, mode);
+                }
+            });
+        });
+    }
+
+    /**
+     * Detect the structure from a start block and hand the result to handleDetection
+     * @param location where the capture was requested, kept for /capture update
+     */
+    private void detectAt(Player player, Location location, Location start, String name, String mode) {
+        // Keep the detected component so the structure can be updated incrementally later
+        boolean track = plugin.getConfig().getBoolean("detection.incremental.enabled", true);
+        LongHashSet members = track ? new LongHashSet(4096) : null;
+        LongHashSet parts = track ? new LongHashSet(4096) : null;
+
+        if (!plugin.getConfig().getBoolean("detection.parallel.enabled", true)) {
+            handleDetection(player, location, detector.detectFromLocation(start, members, parts),
+                members, parts, name, mode);
+            return;
+        }
+
+        plugin.getParallelDetector().detectAsync(start, members, parts).whenComplete((result, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Parallel detection failed: " + error);
+                    handleDetection(player, location, new DetectionResult(false, "internal error"),
+                        null, null, name, mode);
+                } else {
+                    handleDetection(player, location, result, members, parts, name, mode);
+                }
+            });
+        });
+    }
+
+    /**
+     * Report a detection result and export the structure if one was found
+     * @param members detected component to track for updates, or null
+     */
+    private void handleDetection(Player player, Location location, DetectionResult result,
+                                 LongHashSet members, LongHashSet parts, String name, String mode) {
+        if (!player.isOnline()) {
+            return;
+        }
+        if (!result.isSuccess()) {
+            player.sendMessage(Component.text("Detection failed: " + result.getMessage(), NamedTextColor.RED));
+            return;
+        }
+
         BoundingBox box = result.getBoundingBox();
         player.sendMessage(Component.text("Structure detected! ", NamedTextColor.GREEN)
             .append(Component.text("(" + result.getBlockCount() + " blocks, " + 
                 box.getSizeX() + "x" + box.getSizeY() + "x" + box.getSizeZ() + ")", NamedTextColor.GRAY)));
 
-        extractAndExport(player, box, name, "block");
-        return true;
+        // Track before extracting so edits made while the extraction runs are recorded
+        TrackedStructure tracked = null;
+        if (members != null) {
+            tracked = new TrackedStructure(box.getWorld(), location, members, parts,
+                plugin.getConfig().getInt("detection.incremental.max-changes", 4096));
+            tracker.track(player, tracked);
+        }
+
+        // Extract and export
+        TrackedStructure extracted = tracked;
+        extractAndExport(player, box, name, mode).whenComplete((structure, error) -> {
+            if (extracted == null) {
+                return;
+            }
+            if (error != null) {
+                // Without block data /capture update could never apply, so forget the structure
+                tracker.untrack(player, extracted);
+                if (player.isOnline()) {
+                    player.sendMessage(Component.text("The structure is not tracked for /capture update; capture it again.", NamedTextColor.GRAY));
+                }
+                return;
+            }
+            extracted.recordExtraction(structure);
+        });
     }
 
     // Store player selections for manual mode
@@ -229,14 +362,44 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
     }
 
     /**
-     * Extract structure and export to file
+     * Extract structure off the main thread and export to file
+     * @return the extracted structure, completed on the main thread
      */
-    private void extractAndExport(Player player, BoundingBox box, String name, String mode) {
+    private CompletableFuture<ExtractedStructure> extractAndExport(Player player, BoundingBox box, String name, String mode) {
         player.sendMessage(Component.text("Extracting structure...", NamedTextColor.YELLOW));
 
         boolean includeAir = plugin.getConfig().getBoolean("export.include-air", false);
-        ExtractedStructure structure = detector.extractStructure(box, name, includeAir);
-        
+        CompletableFuture<ExtractedStructure> extracted = new CompletableFuture<>();
+        CompletableFuture<ExtractedStructure> extraction;
+        try {
+            extraction = detector.extractStructureAsync(box, name, includeAir, plugin.getAsyncExecutor());
+        } catch (RuntimeException e) {
+            extraction = CompletableFuture.failedFuture(e);
+        }
+        extraction.whenComplete((structure, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    plugin.getLogger().warning("Extraction failed: " + cause);
+                    player.sendMessage(Component.text("Extraction failed: " +
+                        (cause.getMessage() != null ? cause.getMessage() : "internal error"), NamedTextColor.RED));
+                    extracted.completeExceptionally(error);
+                    return;
+                }
+                export(player, structure, mode);
+                extracted.complete(structure);
+            });
+        });
+        return extracted;
+    }
+
+    /**
+     * Export an extracted structure to file
+     */
+    private void export(Player player, ExtractedStructure structure, String mode) {
         // Set metadata
         structure.getMetadata().setCaptureMode(mode);
         structure.getMetadata().setCapturedBy(player.getName());
@@ -244,7 +407,10 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
         // Export asynchronously
         exporter.exportAsync(structure).thenAccept(result -> {
             plugin.getServer().getScheduler().runTask(plugin, () -> {
-                if (result.isSuccess()) {
+                if (result.isDuplicate()) {
+                    player.sendMessage(Component.text("An identical structure was already exported, nothing written.", NamedTextColor.YELLOW));
+                    player.sendMessage(Component.text("File: " + result.getOutputFile().getName(), NamedTextColor.GRAY));
+                } else if (result.isSuccess()) {
                     player.sendMessage(Component.text("Structure exported successfully!", NamedTextColor.GREEN));
                     player.sendMessage(Component.text("File: " + result.getOutputFile().getName(), NamedTextColor.GRAY));
                     player.sendMessage(Component.text("Blocks: " + result.getBlockCount(), NamedTextColor.GRAY));
@@ -263,6 +429,7 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(Component.text("=== Capture Commands ===", NamedTextColor.GOLD));
         player.sendMessage(Component.text("/capture auto [name]", NamedTextColor.YELLOW).append(Component.text(" - Detect & export nearest structure", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("/capture block [name]", NamedTextColor.YELLOW).append(Component.text(" - Detect from looked-at block", NamedTextColor.GRAY)));
+        player.sendMessage(Component.text("/capture update [name]", NamedTextColor.YELLOW).append(Component.text(" - Re-capture your last structure after edits", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("/capture selection [name]", NamedTextColor.YELLOW).append(Component.text(" - Export selected region", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("/capture pos1", NamedTextColor.YELLOW).append(Component.text(" - Set selection corner 1", NamedTextColor.GRAY)));
         player.sendMessage(Component.text("/capture pos2", NamedTextColor.YELLOW).append(Component.text(" - Set selection corner 2", NamedTextColor.GRAY)));
@@ -273,7 +440,7 @@ public class CaptureCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("auto", "block", "selection", "pos1", "pos2");
+            List<String> subCommands = Arrays.asList("auto", "block", "update", "selection", "pos1", "pos2");
             for (String sub : subCommands) {
                 if (sub.startsWith(args[0].toLowerCase())) {
                     completions.add(sub);
@@ -1,14 +1,22 @@
 package com.aiextractor.commands;
 
 import com.aiextractor.StructureExtractorPlugin;
+import com.aiextractor.detection.DetectionStrategy;
+import com.aiextractor.detection.SnapshotBlockAccess;
+import com.aiextractor.detection.StrategyBenchmark;
+import com.aiextractor.detection.StructureDetector;
 import com.aiextractor.export.StructureExporter;
 import com.aiextractor.export.StructureExporter.ExportStats;
+import com.aiextractor.export.StructureExporter.PipelineStats;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -16,6 +24,9 @@ import java.util.List;
 
 public class ExtractorCommand implements CommandExecutor, TabCompleter {
 
+    // Chunks /extractor benchmark snapshots per tick
+    private static final int BENCHMARK_CHUNKS_PER_TICK = 16;
+
     private final StructureExtractorPlugin plugin;
     private final StructureExporter exporter;
 
@@ -51,6 +62,9 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
             case "reload":
                 reloadConfig(sender);
                 break;
+            case "benchmark":
+                runBenchmark(sender, args);
+                break;
             default:
                 sendHelp(sender);
         }
@@ -62,9 +76,12 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("========== Structure Extractor Help ==========", NamedTextColor.GOLD));
         sender.sendMessage(Component.empty());
         sender.sendMessage(Component.text("Scanning Commands:", NamedTextColor.YELLOW));
-        sender.sendMessage(Component.text("  /scan start [world]", NamedTextColor.WHITE).append(Component.text(" - Start auto-scanning a world", NamedTextColor.GRAY)));
-        sender.sendMessage(Component.text("  /scan stop", NamedTextColor.WHITE).append(Component.text(" - Stop the current scan", NamedTextColor.GRAY)));
-        sender.sendMessage(Component.text("  /scan status", NamedTextColor.WHITE).append(Component.text(" - Check scan progress", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan start [world] [job]", NamedTextColor.WHITE).append(Component.text(" - Start an auto-scan job", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan resume [job]", NamedTextColor.WHITE).append(Component.text(" - Resume a stopped scan", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan offline <world-folder>", NamedTextColor.WHITE).append(Component.text(" - Scan region files directly", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan stop [job|all]", NamedTextColor.WHITE).append(Component.text(" - Stop a scan job", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan status [job]", NamedTextColor.WHITE).append(Component.text(" - Check scan progress", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /scan list", NamedTextColor.WHITE).append(Component.text(" - List scan jobs", NamedTextColor.GRAY)));
         sender.sendMessage(Component.empty());
         sender.sendMessage(Component.text("Capture Commands:", NamedTextColor.YELLOW));
         sender.sendMessage(Component.text("  /capture auto [name]", NamedTextColor.WHITE).append(Component.text(" - Auto-detect nearest structure", NamedTextColor.GRAY)));
@@ -77,6 +94,7 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("  /extractor stats", NamedTextColor.WHITE).append(Component.text(" - Show export statistics", NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("  /extractor config", NamedTextColor.WHITE).append(Component.text(" - Show current config", NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("  /extractor reload", NamedTextColor.WHITE).append(Component.text(" - Reload configuration", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("  /extractor benchmark [radius] [rounds]", NamedTextColor.WHITE).append(Component.text(" - Compare detection strategies near you", NamedTextColor.GRAY)));
         sender.sendMessage(Component.empty());
         sender.sendMessage(Component.text("Exported structures are saved to:", NamedTextColor.GRAY));
         sender.sendMessage(Component.text("  " + plugin.getExportDirectory().getAbsolutePath(), NamedTextColor.WHITE));
@@ -91,6 +109,17 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("Total file size: ", NamedTextColor.GRAY).append(Component.text(stats.getTotalSizeFormatted(), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Worlds with exports: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getWorldCount()), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Export directory: ", NamedTextColor.GRAY).append(Component.text(plugin.getExportDirectory().getAbsolutePath(), NamedTextColor.WHITE)));
+
+        PipelineStats pipeline = exporter.getPipelineStats();
+        sender.sendMessage(Component.text("Export queue: ", NamedTextColor.GRAY).append(Component.text(
+            pipeline.getQueued() + "/" + pipeline.getCapacity() + " queued, " + pipeline.getActive() + " writing", NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Exported since start: ", NamedTextColor.GRAY).append(Component.text(
+            pipeline.getExports() + " (" + String.format("%.1f MB", pipeline.getBytes() / (1024.0 * 1024.0)) + ")", NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Duplicates skipped: ", NamedTextColor.GRAY).append(Component.text(
+            String.valueOf(pipeline.getDuplicates()), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Export throughput: ", NamedTextColor.GRAY).append(Component.text(String.format(
+            "%.1f ms per write, %d syncs at %.1f ms, ~%.0f exports/min", pipeline.getAverageWriteMillis(),
+            pipeline.getFsyncBatches(), pipeline.getAverageFsyncMillis(), pipeline.getExportsPerMinute()), NamedTextColor.WHITE)));
     }
 
     private void sendConfig(CommandSender sender) {
@@ -98,6 +127,10 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("Pretty JSON: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(plugin.getConfig().getBoolean("export.pretty-json")), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Include air blocks: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(plugin.getConfig().getBoolean("export.include-air")), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Chunks per tick: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(plugin.getConfig().getInt("scanner.chunks-per-tick")), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Adaptive scan budget: ", NamedTextColor.GRAY).append(Component.text(
+            plugin.getConfig().getBoolean("scanner.adaptive.enabled", true)
+                ? "on (max " + plugin.getConfig().getDouble("scanner.adaptive.max-mspt", 45.0) + " MSPT)"
+                : "off", NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Min structure size: ", NamedTextColor.GRAY).append(Component.text(plugin.getConfig().getInt("scanner.min-structure-size") + " blocks", NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Max structure size: ", NamedTextColor.GRAY).append(Component.text(plugin.getConfig().getInt("scanner.max-structure-size") + " blocks", NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Max dimensions: ", NamedTextColor.GRAY).append(Component.text(
@@ -106,10 +139,93 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
             plugin.getConfig().getInt("scanner.max-dimensions.z"), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Flood fill max iterations: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(plugin.getConfig().getInt("detection.max-flood-iterations")), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Search radius: ", NamedTextColor.GRAY).append(Component.text(plugin.getConfig().getInt("detection.search-radius") + " blocks", NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Detection strategy: ", NamedTextColor.GRAY).append(Component.text(plugin.getStructureDetector().getDefaultStrategy().getName(), NamedTextColor.WHITE)));
+    }
+
+    /**
+     * Run every detection strategy from the structure blocks around the player and compare them.
+     * The loaded chunks of the area are snapshotted on the main thread over several ticks; the
+     * strategies run asynchronously.
+     */
+    private void runBenchmark(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage(Component.text("This command can only be used by players.", NamedTextColor.RED));
+            return;
+        }
+
+        int radius;
+        int rounds;
+        try {
+            radius = args.length > 1 ? Math.max(1, Math.min(64, Integer.parseInt(args[1]))) : 32;
+            rounds = args.length > 2 ? Math.max(1, Math.min(20, Integer.parseInt(args[2]))) : 3;
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Usage: /extractor benchmark [radius] [rounds]", NamedTextColor.RED));
+            return;
+        }
+
+        StructureDetector detector = plugin.getStructureDetector();
+        Location location = ((Player) sender).getLocation();
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        // Strategies may follow a structure up to max-dimensions away from its start block
+        int[] maxDims = detector.getMaxDimensions();
+        int reach = radius + Math.max(maxDims[0], maxDims[2]);
+
+        List<DetectionStrategy> strategies = new ArrayList<>();
+        for (String name : DetectionStrategy.NAMES) {
+            strategies.add(detector.createStrategy(name));
+        }
+
+        sender.sendMessage(Component.text("Benchmarking " + strategies.size() + " detection strategies within " + 
+            radius + " blocks...", NamedTextColor.YELLOW));
+
+        SnapshotBlockAccess.captureLoadedGradually(plugin, world, (x - reach) >> 4, (z - reach) >> 4,
+            (x + reach) >> 4, (z + reach) >> 4, BENCHMARK_CHUNKS_PER_TICK).whenComplete((access, error) -> {
+            if (error != null) {
+                sender.sendMessage(Component.text("Benchmark failed: " + error.getMessage(), NamedTextColor.RED));
+                return;
+            }
+            benchmarkSnapshot(sender, detector, access, strategies, world, x, y, z, radius, rounds);
+        });
+    }
+
+    /**
+     * Find start blocks and run the strategies on an async thread, then report on the main thread
+     */
+    private void benchmarkSnapshot(CommandSender sender, StructureDetector detector, SnapshotBlockAccess access,
+                                   List<DetectionStrategy> strategies, World world, int x, int y, int z,
+                                   int radius, int rounds) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            StrategyBenchmark benchmark = new StrategyBenchmark(detector, access);
+            List<int[]> starts = benchmark.findStarts(x - radius, Math.max(world.getMinHeight(), y - radius), z - radius,
+                x + radius, Math.min(world.getMaxHeight() - 1, y + radius), z + radius, 8, 16);
+            List<StrategyBenchmark.Result> results = benchmark.run(strategies, starts, rounds);
+
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (starts.isEmpty()) {
+                    sender.sendMessage(Component.text("No structure blocks found within " + radius + " blocks.", NamedTextColor.RED));
+                    return;
+                }
+                sender.sendMessage(Component.text("=== Detection Benchmark (" + starts.size() + " start blocks, " + 
+                    rounds + " rounds) ===", NamedTextColor.GOLD));
+                for (StrategyBenchmark.Result result : results) {
+                    String overlap = Double.isNaN(result.getBoxOverlap()) ? "n/a" 
+                        : Math.round(result.getBoxOverlap() * 100) + "%";
+                    sender.sendMessage(Component.text(result.getStrategy() + ": ", NamedTextColor.YELLOW)
+                        .append(Component.text(String.format("%.2f ms avg, %d/%d found, box overlap %s", 
+                            result.getAverageMillis(), result.getSuccesses(), starts.size(), overlap), NamedTextColor.WHITE)));
+                }
+                sender.sendMessage(Component.text("Box overlap is measured against " + results.get(0).getStrategy() + ".", NamedTextColor.GRAY));
+            });
+        });
     }
 
     private void reloadConfig(CommandSender sender) {
         plugin.reloadConfig();
+        plugin.getStructureDetector().reload();
         sender.sendMessage(Component.text("Configuration reloaded!", NamedTextColor.GREEN));
         sender.sendMessage(Component.text("Note: Some settings require a server restart to take full effect.", NamedTextColor.YELLOW));
     }
@@ -119,7 +235,7 @@ public class ExtractorCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("help", "stats", "config", "reload");
+            List<String> subCommands = Arrays.asList("help", "stats", "config", "reload", "benchmark");
             for (String sub : subCommands) {
                 if (sub.startsWith(args[0].toLowerCase())) {
                     completions.add(sub);
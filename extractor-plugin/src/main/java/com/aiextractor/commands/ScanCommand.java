@@ -1,6 +1,9 @@
 package com.aiextractor.commands;
 
 import com.aiextractor.StructureExtractorPlugin;
+import com.aiextractor.detection.DetectionStrategy;
+import com.aiextractor.scanner.ScanJob;
+import com.aiextractor.scanner.TickBudgetController;
 import com.aiextractor.scanner.WorldScanner;
 import com.aiextractor.scanner.WorldScanner.ScanStats;
 import net.kyori.adventure.text.Component;
@@ -13,12 +16,15 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class ScanCommand implements CommandExecutor, TabCompleter {
 
+    private static final List<String> FRONTIER_POLICIES = Arrays.asList("bfs", "spiral", "priority");
+
     private final StructureExtractorPlugin plugin;
     private final WorldScanner scanner;
 
@@ -44,10 +50,16 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
         switch (subCommand) {
             case "start":
                 return handleStart(sender, args);
+            case "resume":
+                return handleResume(sender, args);
+            case "offline":
+                return handleOffline(sender, args);
             case "stop":
-                return handleStop(sender);
+                return handleStop(sender, args);
             case "status":
-                return handleStatus(sender);
+                return handleStatus(sender, args);
+            case "list":
+                return handleList(sender);
             default:
                 sendUsage(sender);
                 return true;
@@ -55,18 +67,67 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
     }
 
     private boolean handleStart(CommandSender sender, String[] args) {
-        if (scanner.isScanning()) {
-            sender.sendMessage(Component.text("A scan is already in progress. Use /scan stop first.", NamedTextColor.RED));
-            return true;
+        // Positional: [world] [job-name]; options: weight=<n>, max-chunks=<n>, structures=<n>, order=<policy>,
+        // detect=<strategy>
+        List<String> positional = new ArrayList<>();
+        int weight = 1;
+        int maxChunks = 0;
+        int maxStructures = 0;
+        String frontierPolicy = null;
+        String detectionStrategy = null;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                positional.add(arg);
+                continue;
+            }
+            String key = arg.substring(0, eq).toLowerCase();
+            String value = arg.substring(eq + 1);
+            if (key.equals("order")) {
+                if (!FRONTIER_POLICIES.contains(value.toLowerCase())) {
+                    sender.sendMessage(Component.text("Unknown scan order: " + value + " (use " + 
+                        String.join(", ", FRONTIER_POLICIES) + ")", NamedTextColor.RED));
+                    return true;
+                }
+                frontierPolicy = value.toLowerCase();
+                continue;
+            }
+            if (key.equals("detect")) {
+                if (!DetectionStrategy.NAMES.contains(value.toLowerCase())) {
+                    sender.sendMessage(Component.text("Unknown detection strategy: " + value + " (use " + 
+                        String.join(", ", DetectionStrategy.NAMES) + ")", NamedTextColor.RED));
+                    return true;
+                }
+                detectionStrategy = value.toLowerCase();
+                continue;
+            }
+            int number;
+            try {
+                number = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Invalid number: " + arg, NamedTextColor.RED));
+                return true;
+            }
+            if (key.equals("weight")) {
+                weight = number;
+            } else if (key.equals("max-chunks")) {
+                maxChunks = number;
+            } else if (key.equals("structures")) {
+                maxStructures = number;
+            } else {
+                sender.sendMessage(Component.text("Unknown option: " + key, NamedTextColor.RED));
+                return true;
+            }
         }
 
         World world;
         Location startLocation = null;
         
-        if (args.length > 1) {
-            world = plugin.getServer().getWorld(args[1]);
+        if (!positional.isEmpty()) {
+            world = plugin.getServer().getWorld(positional.get(0));
             if (world == null) {
-                sender.sendMessage(Component.text("World not found: " + args[1], NamedTextColor.RED));
+                sender.sendMessage(Component.text("World not found: " + positional.get(0), NamedTextColor.RED));
                 return true;
             }
         } else if (sender instanceof Player) {
@@ -78,30 +139,140 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        if (scanner.startScan(world, startLocation)) {
+        String jobName = positional.size() > 1 ? positional.get(1) : WorldScanner.sanitizeJobName(world.getName());
+        if (!WorldScanner.isValidJobName(jobName)) {
+            sendInvalidJobName(sender, jobName);
+            return true;
+        }
+        if (scanner.getJob(jobName) != null) {
+            sender.sendMessage(Component.text("Scan job " + jobName + " is already running. Use /scan stop " + jobName + " first.", NamedTextColor.RED));
+            return true;
+        }
+
+        if (scanner.startScan(jobName, world, startLocation, weight, maxChunks, maxStructures, frontierPolicy, detectionStrategy)) {
             String locationInfo = startLocation != null ? 
                 " around your location" : " around spawn";
-            sender.sendMessage(Component.text("Started scanning world: ", NamedTextColor.GREEN)
+            sender.sendMessage(Component.text("Started scan job ", NamedTextColor.GREEN)
+                .append(Component.text(jobName, NamedTextColor.YELLOW))
+                .append(Component.text(" in world ", NamedTextColor.GREEN))
                 .append(Component.text(world.getName(), NamedTextColor.YELLOW))
                 .append(Component.text(locationInfo, NamedTextColor.GRAY)));
-            sender.sendMessage(Component.text("Use /scan status to check progress, /scan stop to cancel.", NamedTextColor.GRAY));
+            sender.sendMessage(Component.text("Use /scan status " + jobName + " to check progress, /scan stop " + jobName + " to cancel.", NamedTextColor.GRAY));
         } else {
-            sender.sendMessage(Component.text("Failed to start scan.", NamedTextColor.RED));
+            sender.sendMessage(Component.text("Failed to start scan (a job with the same name in other case is running, or the limit of " + 
+                plugin.getConfig().getInt("scanner.max-jobs", 4) + " concurrent jobs is reached).", NamedTextColor.RED));
         }
 
         return true;
     }
 
-    private boolean handleStop(CommandSender sender) {
+    private boolean handleResume(CommandSender sender, String[] args) {
+        String jobName;
+        if (args.length > 1) {
+            jobName = args[1];
+        } else if (sender instanceof Player) {
+            jobName = WorldScanner.sanitizeJobName(((Player) sender).getWorld().getName());
+        } else {
+            sender.sendMessage(Component.text("Please specify a scan job name.", NamedTextColor.RED));
+            return true;
+        }
+        if (!WorldScanner.isValidJobName(jobName)) {
+            sendInvalidJobName(sender, jobName);
+            return true;
+        }
+
+        if (scanner.getJob(jobName) != null) {
+            sender.sendMessage(Component.text("Scan job " + jobName + " is already running.", NamedTextColor.RED));
+            return true;
+        }
+
+        if (!scanner.hasCheckpoint(jobName)) {
+            sender.sendMessage(Component.text("No saved scan to resume: " + jobName, NamedTextColor.YELLOW));
+            return true;
+        }
+
+        int queued = scanner.resumeScan(jobName);
+        if (queued >= 0) {
+            sender.sendMessage(Component.text("Resumed scan job: ", NamedTextColor.GREEN)
+                .append(Component.text(jobName, NamedTextColor.YELLOW))
+                .append(Component.text(" (" + queued + " chunks queued)", NamedTextColor.GRAY)));
+            sender.sendMessage(Component.text("Use /scan status " + jobName + " to check progress, /scan stop " + jobName + " to pause.", NamedTextColor.GRAY));
+        } else {
+            sender.sendMessage(Component.text("Failed to resume scan. Check the console for details.", NamedTextColor.RED));
+        }
+
+        return true;
+    }
+
+    private boolean handleOffline(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("Usage: /scan offline <world-folder>", NamedTextColor.RED));
+            return true;
+        }
+
+        File worldFolder = new File(plugin.getServer().getWorldContainer(), args[1]);
+        if (!worldFolder.isDirectory()) {
+            sender.sendMessage(Component.text("World folder not found: " + args[1], NamedTextColor.RED));
+            return true;
+        }
+        if (plugin.getServer().getWorld(args[1]) != null) {
+            sender.sendMessage(Component.text("Warning: world is loaded, region files may not include recent changes.", NamedTextColor.YELLOW));
+        }
+
+        boolean started = scanner.startOfflineScan(worldFolder, stats -> {
+            sender.sendMessage(Component.text("Offline scan finished: ", NamedTextColor.GREEN)
+                .append(Component.text(stats.getChunksScanned() + " chunks, " + 
+                    stats.getStructuresFound() + " structures", NamedTextColor.WHITE)));
+        });
+
+        if (started) {
+            sender.sendMessage(Component.text("Started offline scan of: ", NamedTextColor.GREEN)
+                .append(Component.text(worldFolder.getName(), NamedTextColor.YELLOW)));
+        } else {
+            sender.sendMessage(Component.text("Failed to start offline scan (already running or no region files).", NamedTextColor.RED));
+        }
+        return true;
+    }
+
+    private boolean handleStop(CommandSender sender, String[] args) {
+        boolean offline = scanner.getOfflineStats() != null;
+        if (offline && args.length < 2) {
+            scanner.stopOfflineScan();
+            sender.sendMessage(Component.text("Offline scan stopping.", NamedTextColor.GREEN));
+            if (!scanner.isScanning()) {
+                return true;
+            }
+        }
+
         if (!scanner.isScanning()) {
             sender.sendMessage(Component.text("No scan is currently running.", NamedTextColor.YELLOW));
             return true;
         }
 
-        ScanStats stats = scanner.getStats();
-        scanner.stopScan();
+        if (args.length > 1 && args[1].equalsIgnoreCase("all")) {
+            int count = scanner.getJobs().size();
+            scanner.stopAllScans();
+            sender.sendMessage(Component.text("Stopped " + count + " scan job(s). Progress saved, use /scan resume <job> to continue.", NamedTextColor.GREEN));
+            return true;
+        }
+
+        String jobName;
+        if (args.length > 1) {
+            jobName = args[1];
+        } else if (scanner.getJobs().size() == 1) {
+            jobName = scanner.getJobs().iterator().next().getName();
+        } else {
+            sender.sendMessage(Component.text("Several scans are running. Use /scan stop <job|all>.", NamedTextColor.YELLOW));
+            return true;
+        }
+
+        ScanStats stats = scanner.stopScan(jobName);
+        if (stats == null) {
+            sender.sendMessage(Component.text("No running scan job: " + jobName, NamedTextColor.RED));
+            return true;
+        }
         
-        sender.sendMessage(Component.text("Scan stopped.", NamedTextColor.GREEN));
+        sender.sendMessage(Component.text("Scan " + jobName + " stopped. Progress saved, use /scan resume " + jobName + " to continue.", NamedTextColor.GREEN));
         sender.sendMessage(Component.text("Results:", NamedTextColor.GRAY));
         sender.sendMessage(Component.text("  Chunks scanned: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getChunksScanned()), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("  Structures found: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getStructuresFound()), NamedTextColor.WHITE)));
@@ -109,28 +280,109 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
-    private boolean handleStatus(CommandSender sender) {
+    private boolean handleStatus(CommandSender sender, String[] args) {
+        ScanStats offlineStats = scanner.getOfflineStats();
+        if (offlineStats != null && args.length < 2) {
+            sender.sendMessage(Component.text("=== Offline Scan Status ===", NamedTextColor.GOLD));
+            sender.sendMessage(Component.text("World folder: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(offlineStats.getWorldName()), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("Chunks scanned: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(offlineStats.getChunksScanned()), NamedTextColor.WHITE)));
+            sender.sendMessage(Component.text("Structures found: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(offlineStats.getStructuresFound()), NamedTextColor.GREEN)));
+            if (!scanner.isScanning()) {
+                return true;
+            }
+        }
+
         if (!scanner.isScanning()) {
             sender.sendMessage(Component.text("No scan is currently running.", NamedTextColor.YELLOW));
             return true;
         }
 
-        ScanStats stats = scanner.getStats();
+        ScanJob job;
+        if (args.length > 1) {
+            job = scanner.getJob(args[1]);
+            if (job == null) {
+                sender.sendMessage(Component.text("No running scan job: " + args[1], NamedTextColor.RED));
+                return true;
+            }
+        } else if (scanner.getJobs().size() == 1) {
+            job = scanner.getJobs().iterator().next();
+        } else {
+            return handleList(sender);
+        }
+
+        ScanStats stats = job.getStats();
         
-        sender.sendMessage(Component.text("=== Scan Status ===", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("=== Scan Status: " + job.getName() + " ===", NamedTextColor.GOLD));
         sender.sendMessage(Component.text("World: ", NamedTextColor.GRAY).append(Component.text(stats.getWorldName(), NamedTextColor.WHITE)));
-        sender.sendMessage(Component.text("Chunks scanned: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getChunksScanned()), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Chunks scanned: ", NamedTextColor.GRAY).append(Component.text(stats.getChunksScanned() + 
+            (job.getMaxChunks() > 0 ? " / " + job.getMaxChunks() : ""), NamedTextColor.WHITE)));
         sender.sendMessage(Component.text("Chunks in queue: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getChunksRemaining()), NamedTextColor.WHITE)));
-        sender.sendMessage(Component.text("Structures found: ", NamedTextColor.GRAY).append(Component.text(String.valueOf(stats.getStructuresFound()), NamedTextColor.GREEN)));
+        sender.sendMessage(Component.text("Structures found: ", NamedTextColor.GRAY).append(Component.text(stats.getStructuresFound() + 
+            (job.getMaxStructures() > 0 ? " / " + job.getMaxStructures() : ""), NamedTextColor.GREEN)));
+        sender.sendMessage(Component.text("Scan order: ", NamedTextColor.GRAY).append(Component.text(job.getFrontier().getPolicy(), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Detection: ", NamedTextColor.GRAY).append(Component.text(job.getDetectionStrategy().getName(), NamedTextColor.WHITE)));
+        sender.sendMessage(Component.text("Weight: ", NamedTextColor.GRAY).append(Component.text(job.getWeight() + 
+            " of " + totalWeight(), NamedTextColor.WHITE)));
 
+        sendTickBudget(sender);
         return true;
     }
 
+    private boolean handleList(CommandSender sender) {
+        sender.sendMessage(Component.text("=== Scan Jobs ===", NamedTextColor.GOLD));
+        if (!scanner.isScanning()) {
+            sender.sendMessage(Component.text("No scan is currently running.", NamedTextColor.GRAY));
+        }
+        for (ScanJob job : scanner.getJobs()) {
+            sender.sendMessage(Component.text(job.getName(), NamedTextColor.YELLOW)
+                .append(Component.text(" [" + job.getWorld().getName() + ", weight " + job.getWeight() + "] ", NamedTextColor.GRAY))
+                .append(Component.text(job.getChunksScanned().get() + " scanned, " + job.getQueueSize() + " queued, " + 
+                    job.getStructuresFound().get() + " structures", NamedTextColor.WHITE)));
+        }
+
+        List<String> paused = scanner.getPausedJobs();
+        if (!paused.isEmpty()) {
+            sender.sendMessage(Component.text("Paused (use /scan resume <job>): ", NamedTextColor.GRAY)
+                .append(Component.text(String.join(", ", paused), NamedTextColor.WHITE)));
+        }
+
+        if (scanner.isScanning()) {
+            sendTickBudget(sender);
+        }
+        return true;
+    }
+
+    private void sendTickBudget(CommandSender sender) {
+        TickBudgetController budget = scanner.getTickBudget();
+        if (budget.isAdaptive()) {
+            sender.sendMessage(Component.text("Tick budget: ", NamedTextColor.GRAY).append(Component.text(
+                String.format("%.2f ms (scan %.2f ms/tick, %.2f ms/chunk, server %.1f MSPT)",
+                    budget.getBudgetMillis(), budget.getAverageTickCostMillis(),
+                    budget.getAverageChunkCostMillis(), budget.getLastServerMspt()), NamedTextColor.WHITE)));
+        }
+    }
+
+    private int totalWeight() {
+        int total = 0;
+        for (ScanJob job : scanner.getJobs()) {
+            total += job.getWeight();
+        }
+        return total;
+    }
+
+    private void sendInvalidJobName(CommandSender sender, String jobName) {
+        sender.sendMessage(Component.text("Invalid scan job name: " + jobName, NamedTextColor.RED));
+        sender.sendMessage(Component.text("Use letters, digits, _ and - only (\"all\" is reserved).", NamedTextColor.GRAY));
+    }
+
     private void sendUsage(CommandSender sender) {
         sender.sendMessage(Component.text("=== Scan Commands ===", NamedTextColor.GOLD));
-        sender.sendMessage(Component.text("/scan start [world]", NamedTextColor.YELLOW).append(Component.text(" - Start auto-scanning", NamedTextColor.GRAY)));
-        sender.sendMessage(Component.text("/scan stop", NamedTextColor.YELLOW).append(Component.text(" - Stop scanning", NamedTextColor.GRAY)));
-        sender.sendMessage(Component.text("/scan status", NamedTextColor.YELLOW).append(Component.text(" - Check scan progress", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan start [world] [job] [weight=n] [max-chunks=n] [structures=n] [order=bfs|spiral|priority] [detect=flood-fill|flood-fill-26|estimate]", NamedTextColor.YELLOW).append(Component.text(" - Start an auto-scan job", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan resume [job]", NamedTextColor.YELLOW).append(Component.text(" - Resume a stopped scan", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan offline <world-folder>", NamedTextColor.YELLOW).append(Component.text(" - Scan region files without loading chunks", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan stop [job|all]", NamedTextColor.YELLOW).append(Component.text(" - Stop scanning", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan status [job]", NamedTextColor.YELLOW).append(Component.text(" - Check scan progress", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/scan list", NamedTextColor.YELLOW).append(Component.text(" - List running and paused scan jobs", NamedTextColor.GRAY)));
     }
 
     @Override
@@ -138,7 +390,7 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("start", "stop", "status");
+            List<String> subCommands = Arrays.asList("start", "resume", "offline", "stop", "status", "list");
             for (String sub : subCommands) {
                 if (sub.startsWith(args[0].toLowerCase())) {
                     completions.add(sub);
@@ -150,6 +402,48 @@ public class ScanCommand implements CommandExecutor, TabCompleter {
                     completions.add(world.getName());
                 }
             }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("offline")) {
+            File[] folders = plugin.getServer().getWorldContainer().listFiles(File::isDirectory);
+            if (folders != null) {
+                for (File folder : folders) {
+                    if (folder.getName().toLowerCase().startsWith(args[1].toLowerCase())) {
+                        completions.add(folder.getName());
+                    }
+                }
+            }
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("resume")) {
+            for (String jobName : scanner.getPausedJobs()) {
+                if (jobName.toLowerCase().startsWith(args[1].toLowerCase())) {
+                    completions.add(jobName);
+                }
+            }
+        } else if (args.length == 2 && (args[0].equalsIgnoreCase("stop") || args[0].equalsIgnoreCase("status"))) {
+            List<String> names = new ArrayList<>();
+            for (ScanJob job : scanner.getJobs()) {
+                names.add(job.getName());
+            }
+            if (args[0].equalsIgnoreCase("stop")) {
+                names.add("all");
+            }
+            for (String name : names) {
+                if (name.toLowerCase().startsWith(args[1].toLowerCase())) {
+                    completions.add(name);
+                }
+            }
+        } else if (args.length > 2 && args[0].equalsIgnoreCase("start")) {
+            String last = args[args.length - 1].toLowerCase();
+            List<String> options = new ArrayList<>(Arrays.asList("weight=", "max-chunks=", "structures="));
+            for (String policy : FRONTIER_POLICIES) {
+                options.add("order=" + policy);
+            }
+            for (String strategy : DetectionStrategy.NAMES) {
+                options.add("detect=" + strategy);
+            }
+            for (String option : options) {
+                if (option.startsWith(last)) {
+                    completions.add(option);
+                }
+            }
         }
 
         return completions;
@@ -0,0 +1,32 @@
+package com.aiextractor.detection;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Read-only view of block types used by the detector.
+ * Lets the same detection logic run against a live world or offline region files.
+ */
+public interface BlockAccess {
+
+    /**
+     * Get the material at a position (air for unloaded/empty space)
+     */
+    Material getType(int x, int y, int z);
+
+    /**
+     * Get the complete BlockData string at a position
+     * e.g. "minecraft:oak_door[facing=north,half=lower,hinge=left,open=false,powered=false]"
+     */
+    String getBlockData(int x, int y, int z);
+
+    /**
+     * Name of the world the blocks come from
+     */
+    String getWorldName();
+
+    /**
+     * The live world backing this access, or null for offline sources
+     */
+    World getWorld();
+}
@@ -0,0 +1,133 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.models.BoundingBox;
+import com.aiextractor.models.ExtractedStructure;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts a bounding box from chunk snapshots one 16x16x16 section at a time.
+ * Every cell is stored as an index into a palette of the distinct block states in the box,
+ * so each state's BlockData string is built once and shared by all of its blocks. Sections
+ * that hold only air are filled without reading them. Thread-safe: runs off the main thread
+ * once the snapshots are captured.
+ */
+public final class BulkExtractor {
+
+    // Palette index 0 is always air (ungenerated chunks, empty sections)
+    private static final int AIR = 0;
+    private static final String AIR_DATA = "minecraft:air";
+
+    private final List<String> paletteData = new ArrayList<>();
+    private final List<Boolean> paletteAir = new ArrayList<>();
+    private final Map<BlockData, Integer> stateIndex = new HashMap<>();
+
+    private BulkExtractor() {
+        paletteData.add(AIR_DATA);
+        paletteAir.add(true);
+    }
+
+    /**
+     * Extract a box into the same block list, in the same order, as
+     * {@link StructureDetector#extractStructure}
+     */
+    public static ExtractedStructure extract(SnapshotBlockAccess access, BoundingBox box, String name, boolean includeAir) {
+        return new BulkExtractor().run(access, box, name, includeAir);
+    }
+
+    private ExtractedStructure run(SnapshotBlockAccess access, BoundingBox box, String name, boolean includeAir) {
+        int sizeX = box.getSizeX();
+        int sizeY = box.getSizeY();
+        int sizeZ = box.getSizeZ();
+        // Palette index of every cell, in y-z-x order
+        int[] cells = new int[sizeX * sizeY * sizeZ];
+
+        int minY = Math.max(box.getMinY(), access.getMinY());
+        for (int chunkX = box.getMinX() >> 4; chunkX <= box.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = box.getMinZ() >> 4; chunkZ <= box.getMaxZ() >> 4; chunkZ++) {
+                ChunkSnapshot snapshot = access.getChunk(chunkX, chunkZ);
+                if (snapshot == null) {
+                    continue; // Left as air
+                }
+                int x0 = Math.max(box.getMinX(), chunkX << 4), x1 = Math.min(box.getMaxX(), (chunkX << 4) + 15);
+                int z0 = Math.max(box.getMinZ(), chunkZ << 4), z1 = Math.min(box.getMaxZ(), (chunkZ << 4) + 15);
+                for (int sectionY = minY >> 4; sectionY <= box.getMaxY() >> 4; sectionY++) {
+                    if (snapshot.isSectionEmpty(((sectionY << 4) - access.getMinY()) >> 4)) {
+                        continue;
+                    }
+                    int y0 = Math.max(minY, sectionY << 4), y1 = Math.min(box.getMaxY(), (sectionY << 4) + 15);
+                    copySection(snapshot, box, cells, x0, y0, z0, x1, y1, z1);
+                }
+            }
+        }
+
+        ExtractedStructure structure = new ExtractedStructure(name, sizeX, sizeY, sizeZ);
+        // Structure palette index of each extractor palette state, -1 until first used
+        int[] structureState = new int[paletteData.size()];
+        Arrays.fill(structureState, -1);
+        int index = 0;
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int state = cells[index++];
+                    if (!includeAir && paletteAir.get(state)) {
+                        continue;
+                    }
+                    if (structureState[state] < 0) {
+                        structureState[state] = structure.addState(paletteData.get(state));
+                    }
+                    structure.addBlock(x, y, z, structureState[state]);
+                }
+            }
+        }
+
+        ExtractedStructure.StructureMetadata metadata = structure.getMetadata();
+        metadata.setSourceWorld(access.getWorldName());
+        metadata.setOriginalX(box.getMinX());
+        metadata.setOriginalY(box.getMinY());
+        metadata.setOriginalZ(box.getMinZ());
+        return structure;
+    }
+
+    /**
+     * Copy one section's part of the box into the cell buffer
+     */
+    private void copySection(ChunkSnapshot snapshot, BoundingBox box, int[] cells,
+                             int x0, int y0, int z0, int x1, int y1, int z1) {
+        int sizeX = box.getSizeX();
+        int sizeZ = box.getSizeZ();
+        for (int y = y0; y <= y1; y++) {
+            for (int z = z0; z <= z1; z++) {
+                int row = ((y - box.getMinY()) * sizeZ + (z - box.getMinZ())) * sizeX - box.getMinX();
+                for (int x = x0; x <= x1; x++) {
+                    cells[row + x] = stateOf(snapshot.getBlockData(x & 15, y, z & 15));
+                }
+            }
+        }
+    }
+
+    /**
+     * Palette index of a block state, adding it on first sight
+     */
+    private int stateOf(BlockData data) {
+        Integer index = stateIndex.get(data);
+        if (index != null) {
+            return index;
+        }
+
+        Material material = data.getMaterial();
+        boolean air = material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR;
+        index = paletteData.size();
+        paletteData.add(data.getAsString());
+        paletteAir.add(air);
+        stateIndex.put(data, index);
+        return index;
+    }
+}
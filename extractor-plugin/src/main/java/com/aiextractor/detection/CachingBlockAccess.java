@@ -0,0 +1,79 @@
+package com.aiextractor.detection;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * Block access that remembers every block type it has read, so each position is fetched
+ * from the underlying world at most once per detection run.
+ * The types are kept in a {@link LongHashSet} with values, keyed by packed coordinates, so
+ * {@link #reset(BlockAccess)} is O(1) and the table is reused across runs. Not thread-safe.
+ */
+public final class CachingBlockAccess implements BlockAccess {
+
+    private BlockAccess delegate;
+    private final LongHashSet types;
+
+    public CachingBlockAccess(int expectedSize) {
+        this.types = new LongHashSet(expectedSize, true);
+    }
+
+    /**
+     * Start a new run over a block source, forgetting all cached types
+     */
+    public CachingBlockAccess reset(BlockAccess delegate) {
+        this.delegate = delegate;
+        types.clear();
+        return this;
+    }
+
+    /**
+     * Forget the block source, so an idle cache does not keep its world reachable
+     */
+    public void release() {
+        delegate = null;
+        types.clear();
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        long key = StructureDetector.packCoords(x, y, z);
+        int slot = types.slotOf(key);
+        if (slot >= 0) {
+            return (Material) types.valueAt(slot);
+        }
+
+        Material type = delegate.getType(x, y, z);
+        types.setValueAt(-(types.addSlot(key) + 1), type);
+        return type;
+    }
+
+    @Override
+    public String getBlockData(int x, int y, int z) {
+        return delegate.getBlockData(x, y, z);
+    }
+
+    @Override
+    public String getWorldName() {
+        return delegate.getWorldName();
+    }
+
+    @Override
+    public World getWorld() {
+        return delegate.getWorld();
+    }
+
+    /**
+     * Number of slots currently allocated
+     */
+    public int capacity() {
+        return types.capacity();
+    }
+
+    /**
+     * Number of distinct positions read from the underlying source since the last reset
+     */
+    public int size() {
+        return types.size();
+    }
+}
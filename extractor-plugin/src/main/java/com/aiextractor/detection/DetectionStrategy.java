@@ -0,0 +1,50 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How a structure is found from a start block. Strategies trade accuracy for speed and share
+ * the detector's block classification and size limits. Implementations must be thread-safe:
+ * offline scans call them from worker threads.
+ */
+public interface DetectionStrategy {
+
+    /**
+     * Strategy names accepted by {@link #create}
+     */
+    List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+        FloodFillStrategy.FACES, FloodFillStrategy.ALL_NEIGHBORS, SectionEstimateStrategy.NAME));
+
+    /**
+     * Detect the structure containing the start block
+     */
+    DetectionResult detect(StructureDetector detector, BlockAccess access, int x, int y, int z);
+
+    /**
+     * Strategy name as used in the config, scan commands and checkpoints
+     */
+    String getName();
+
+    /**
+     * Create a strategy by name: "flood-fill", "flood-fill-26" or "estimate"
+     */
+    static DetectionStrategy create(String name, FileConfiguration config) {
+        switch (name.toLowerCase()) {
+            case FloodFillStrategy.FACES:
+                return new FloodFillStrategy(FloodFillStrategy.FACES, StructureDetector.NEIGHBOR_OFFSETS);
+            case FloodFillStrategy.ALL_NEIGHBORS:
+                return new FloodFillStrategy(FloodFillStrategy.ALL_NEIGHBORS, FloodFillStrategy.ALL_NEIGHBOR_OFFSETS);
+            case SectionEstimateStrategy.NAME:
+                return new SectionEstimateStrategy(
+                    config.getInt("detection.estimate.min-section-blocks", 16),
+                    config.getInt("detection.estimate.sample-step", 2));
+            default:
+                throw new IllegalArgumentException("Unknown detection strategy: " + name);
+        }
+    }
+}
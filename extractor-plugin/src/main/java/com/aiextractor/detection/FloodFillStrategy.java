@@ -0,0 +1,49 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+
+/**
+ * Exact detection by flood fill through structure parts and enclosed air.
+ * The face variant only connects blocks that share a face; the 26-neighbor variant also
+ * connects blocks that touch at an edge or corner, so diagonal roofs, stairs and walls are
+ * kept together at the cost of up to 26 lookups per block.
+ */
+public class FloodFillStrategy implements DetectionStrategy {
+
+    static final String FACES = "flood-fill";
+    static final String ALL_NEIGHBORS = "flood-fill-26";
+
+    // Every cell of the surrounding 3x3x3 cube except the center
+    static final int[][] ALL_NEIGHBOR_OFFSETS = new int[26][];
+
+    static {
+        int i = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if (dx != 0 || dy != 0 || dz != 0) {
+                        ALL_NEIGHBOR_OFFSETS[i++] = new int[]{dx, dy, dz};
+                    }
+                }
+            }
+        }
+    }
+
+    private final String name;
+    private final int[][] offsets;
+
+    FloodFillStrategy(String name, int[][] offsets) {
+        this.name = name;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public DetectionResult detect(StructureDetector detector, BlockAccess access, int x, int y, int z) {
+        return detector.floodFill(access, x, y, z, offsets, null, null);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
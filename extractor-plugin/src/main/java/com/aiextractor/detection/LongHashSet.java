@@ -0,0 +1,203 @@
+package com.aiextractor.detection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of primitive longs.
+ * Slots are stamped with a generation number, so {@link #clear()} is O(1) and a set can be
+ * reused across detections without re-allocating or re-zeroing its tables.
+ * A set created with values keeps an object per key as well, which the slot methods expose
+ * for callers that need a long-keyed map (see {@link CachingBlockAccess}).
+ */
+public final class LongHashSet {
+
+    private long[] keys;
+    private Object[] values;
+    private int[] stamps;
+    private int mask;
+    private int size;
+    private int generation = 1;
+
+    /**
+     * @param expectedSize number of entries to size the table for
+     */
+    public LongHashSet(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    /**
+     * @param expectedSize number of entries to size the table for
+     * @param withValues whether to keep a value per key
+     */
+    LongHashSet(int expectedSize, boolean withValues) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = withValues ? new Object[capacity] : null;
+        stamps = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a value
+     * @return false if it was already present
+     */
+    public boolean add(long key) {
+        return addSlot(key) < 0;
+    }
+
+    public boolean contains(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Slot holding a value, or -1 if it is not present
+     */
+    int slotOf(long key) {
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Add a value if it is not present yet
+     * @return its slot, or -(slot + 1) if it was added
+     */
+    int addSlot(long key) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        stamps[slot] = generation;
+        size++;
+        return -(slot + 1);
+    }
+
+    /**
+     * Value kept for the key in a slot (sets created with values only)
+     */
+    Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    void setValueAt(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    /**
+     * Remove a value
+     * @return false if it was not present
+     */
+    public boolean remove(long key) {
+        int slot = slot(key);
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (stamps[slot] != generation) {
+            return false;
+        }
+
+        // Backward-shift deletion: pull later entries of the probe run into the hole so
+        // lookups never stop early at it
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (stamps[next] == generation) {
+            int ideal = slot(keys[next]);
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                if (values != null) {
+                    values[hole] = values[next];
+                }
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        stamps[hole] = 0;
+        if (values != null) {
+            values[hole] = null;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Call the action for every value, in table order
+     */
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (stamps[i] == generation) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Number of slots currently allocated
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all values, keeping the allocated tables
+     */
+    public void clear() {
+        size = 0;
+        if (++generation == 0) {
+            // Generation counter wrapped: stale stamps could collide, so wipe them once
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldStamps = stamps;
+        int oldGeneration = generation;
+
+        keys = new long[oldKeys.length * 2];
+        values = oldValues != null ? new Object[oldKeys.length * 2] : null;
+        stamps = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        generation = 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldStamps[i] == oldGeneration) {
+                int slot = slot(oldKeys[i]);
+                while (stamps[slot] == generation) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                if (oldValues != null) {
+                    values[slot] = oldValues[i];
+                }
+                stamps[slot] = generation;
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
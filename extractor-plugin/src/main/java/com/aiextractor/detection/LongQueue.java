@@ -0,0 +1,66 @@
+package com.aiextractor.detection;
+
+/**
+ * Growable FIFO ring buffer of primitive longs
+ */
+public final class LongQueue {
+
+    private long[] buffer;
+    private int head;
+    private int size;
+
+    public LongQueue(int initialCapacity) {
+        buffer = new long[Integer.highestOneBit(Math.max(16, initialCapacity - 1)) << 1];
+    }
+
+    public void add(long value) {
+        if (size == buffer.length) {
+            grow();
+        }
+        buffer[(head + size) & (buffer.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Remove and return the oldest value; only valid when not empty
+     */
+    public long poll() {
+        long value = buffer[head];
+        head = (head + 1) & (buffer.length - 1);
+        size--;
+        return value;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of slots currently allocated
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all values, keeping the allocated buffer
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        long[] grown = new long[buffer.length * 2];
+        // Unwrap the ring so the values start at index 0
+        int firstPart = Math.min(size, buffer.length - head);
+        System.arraycopy(buffer, head, grown, 0, firstPart);
+        System.arraycopy(buffer, 0, grown, firstPart, size - firstPart);
+        buffer = grown;
+        head = 0;
+    }
+}
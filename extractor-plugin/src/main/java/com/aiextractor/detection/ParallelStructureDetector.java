@@ -0,0 +1,614 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.StructureExtractorPlugin;
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Connected-component structure detection that runs on a fork-join pool.
+ * The search volume is max-dimensions in every direction around the start block, split into
+ * 16x16x16 tiles. Tiles are labeled in parallel, in waves that grow outward from the start tile
+ * through faces that contain structure blocks, and the per-tile labels are merged across tile
+ * borders with union-find. Like the sequential flood fill, labeling is bounded: no new wave
+ * starts once max-flood-iterations cells (structure parts and enclosed air) have been labeled.
+ * Blocks are read from chunk snapshots that start at the chunks around the start block and
+ * grow on the main thread as the waves reach past them. Only loaded chunks are snapshotted;
+ * unloaded ones read as air, so a detection never loads a chunk.
+ */
+public class ParallelStructureDetector {
+
+    private static final int TILE_SIZE = 16;
+    private static final int TILE_VOLUME = TILE_SIZE * TILE_SIZE * TILE_SIZE;
+
+    // Component statistics layout: {structure blocks, minX, minY, minZ, maxX, maxY, maxZ}
+    private static final int STATS = 7;
+
+    // Extra chunks snapshotted around the ones a wave needs, so the waves don't stop every tick
+    private static final int GROW_MARGIN = 2;
+
+    private final StructureExtractorPlugin plugin;
+    private final StructureDetector detector;
+    private final ForkJoinPool pool;
+
+    public ParallelStructureDetector(StructureExtractorPlugin plugin) {
+        this(plugin, plugin.getStructureDetector(), plugin.getConfig().getInt("detection.parallel.threads", 0));
+    }
+
+    /**
+     * Create a detector without a server, for block sources that need no snapshots
+     * (see {@link #detectAsync(BlockAccess, int, int, int, int, int)})
+     */
+    ParallelStructureDetector(StructureDetector detector, int threads) {
+        this(null, detector, threads);
+    }
+
+    private ParallelStructureDetector(StructureExtractorPlugin plugin, StructureDetector detector, int threads) {
+        this.plugin = plugin;
+        this.detector = detector;
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Detect the structure at a location. The start block is resolved on the calling (main)
+     * thread; labeling runs on the pool. The future completes on a pool thread, or on the main
+     * thread if growing the snapshots fails.
+     */
+    public CompletableFuture<DetectionResult> detectAsync(Location location) {
+        return detectAsync(location, null, null);
+    }
+
+    /**
+     * Detect the structure at a location, recording the detected component.
+     * The sets are filled on a pool thread before the future completes.
+     * @param membersOut receives every cell of the component (structure parts and enclosed air), or null
+     * @param partsOut receives the structure-part cells of the component, or null
+     */
+    public CompletableFuture<DetectionResult> detectAsync(Location location, LongHashSet membersOut, LongHashSet partsOut) {
+        World world = location.getWorld();
+        if (world == null) {
+            return CompletableFuture.completedFuture(new DetectionResult(false, "Invalid world"));
+        }
+
+        Block start = detector.resolveStartBlock(location);
+        if (start == null) {
+            return CompletableFuture.completedFuture(new DetectionResult(false, "No structure found nearby"));
+        }
+
+        int[] window = searchWindow(start.getX(), start.getY(), start.getZ(), world.getMinHeight(), world.getMaxHeight() - 1);
+        Detection detection = new Detection(null, start.getX(), start.getY(), start.getZ(), window);
+        int chunkX = start.getX() >> 4;
+        int chunkZ = start.getZ() >> 4;
+        detection.snapshot = SnapshotBlockAccess.captureLoaded(world,
+            Math.max(chunkX - 1, detection.chunkWindow[0]), Math.max(chunkZ - 1, detection.chunkWindow[1]),
+            Math.min(chunkX + 1, detection.chunkWindow[2]), Math.min(chunkZ + 1, detection.chunkWindow[3]));
+        detection.access = detection.snapshot;
+
+        CompletableFuture<DetectionResult> future = new CompletableFuture<>();
+        pool.execute(() -> run(detection, membersOut, partsOut, future));
+        return future;
+    }
+
+    /**
+     * Detect the structure containing a known structure block in a block source that can be read
+     * from any thread and covers the whole search volume, such as a generated test world
+     * @param minY lowest y of the source
+     * @param maxY highest y of the source
+     */
+    CompletableFuture<DetectionResult> detectAsync(BlockAccess access, int x, int y, int z, int minY, int maxY) {
+        Detection detection = new Detection(access, x, y, z, searchWindow(x, y, z, minY, maxY));
+        CompletableFuture<DetectionResult> future = new CompletableFuture<>();
+        pool.execute(() -> run(detection, null, null, future));
+        return future;
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Volume that holds every structure within the dimension limits containing a block,
+     * as {minX, minY, minZ, maxX, maxY, maxZ}
+     */
+    private int[] searchWindow(int x, int y, int z, int minY, int maxY) {
+        int[] maxDims = detector.getMaxDimensions();
+        return new int[]{
+            x - maxDims[0],
+            Math.max(minY, y - maxDims[1]),
+            z - maxDims[2],
+            x + maxDims[0],
+            Math.min(maxY, y + maxDims[1]),
+            z + maxDims[2]
+        };
+    }
+
+    /**
+     * Label waves on a pool thread until the detection is done, or until a wave needs chunks
+     * that aren't snapshotted yet: then snapshot them on the main thread and continue.
+     */
+    private void run(Detection detection, LongHashSet membersOut, LongHashSet partsOut,
+                     CompletableFuture<DetectionResult> future) {
+        try {
+            int[] missing = detection.labelWaves();
+            if (missing == null) {
+                future.complete(detection.result(membersOut, partsOut));
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                try {
+                    detection.snapshot = detection.snapshot.expand(missing[0], missing[1], missing[2], missing[3]);
+                    detection.access = detection.snapshot;
+                    pool.execute(() -> run(detection, membersOut, partsOut, future));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * State of one detection, kept across the pauses for snapshot growth.
+     * Only touched by one thread at a time: a pool thread while labeling, the main thread while
+     * the snapshot grows.
+     */
+    private final class Detection {
+        private final int startX;
+        private final int startY;
+        private final int startZ;
+        private final int[] window;
+        private final int[] tileWindow;
+        // {minChunkX, minChunkZ, maxChunkX, maxChunkZ} of the window
+        private final int[] chunkWindow;
+        private final Map<Long, TileResult> tiles = new HashMap<>();
+        private final Set<Long> scheduled = new HashSet<>();
+        private List<int[]> wave = new ArrayList<>();
+        private int nodes;
+        private BlockAccess access;
+        // Snapshots behind the access, null if the access covers the whole window
+        private SnapshotBlockAccess snapshot;
+
+        private Detection(BlockAccess access, int startX, int startY, int startZ, int[] window) {
+            this.access = access;
+            this.startX = startX;
+            this.startY = startY;
+            this.startZ = startZ;
+            this.window = window;
+            this.tileWindow = new int[]{
+                window[0] >> 4, window[1] >> 4, window[2] >> 4,
+                window[3] >> 4, window[4] >> 4, window[5] >> 4
+            };
+            this.chunkWindow = new int[]{tileWindow[0], tileWindow[2], tileWindow[3], tileWindow[5]};
+            wave.add(new int[]{startX >> 4, startY >> 4, startZ >> 4});
+            scheduled.add(tileKey(startX >> 4, startY >> 4, startZ >> 4));
+        }
+
+        /**
+         * Label tiles outward from the start tile until no wave is left or the iteration limit
+         * is reached. Runs on a pool thread so the tile tasks can be forked.
+         * @return null when done, otherwise the chunk range to snapshot before calling again,
+         *         as {minChunkX, minChunkZ, maxChunkX, maxChunkZ}
+         */
+        private int[] labelWaves() {
+            int maxIterations = detector.getMaxFloodIterations();
+            while (!wave.isEmpty() && nodes < maxIterations) {
+                int[] missing = missingChunks();
+                if (missing != null) {
+                    return missing;
+                }
+
+                List<TileTask> tasks = new ArrayList<>(wave.size());
+                for (int[] tile : wave) {
+                    tasks.add(new TileTask(access, tile[0], tile[1], tile[2], window));
+                }
+                ForkJoinTask.invokeAll(tasks);
+
+                List<int[]> next = new ArrayList<>();
+                for (TileTask task : tasks) {
+                    TileResult result = task.join();
+                    tiles.put(tileKey(result.tileX, result.tileY, result.tileZ), result);
+                    nodes += result.nodes;
+                    if (result.components == 0) {
+                        continue;
+                    }
+                    for (int face = 0; face < 6; face++) {
+                        if (!result.faceHasNodes[face]) {
+                            continue;
+                        }
+                        int nx = result.tileX + FACE_OFFSETS[face][0];
+                        int ny = result.tileY + FACE_OFFSETS[face][1];
+                        int nz = result.tileZ + FACE_OFFSETS[face][2];
+                        if (nx < tileWindow[0] || ny < tileWindow[1] || nz < tileWindow[2] ||
+                            nx > tileWindow[3] || ny > tileWindow[4] || nz > tileWindow[5]) {
+                            continue;
+                        }
+                        if (scheduled.add(tileKey(nx, ny, nz))) {
+                            next.add(new int[]{nx, ny, nz});
+                        }
+                    }
+                }
+                wave = next;
+            }
+            return null;
+        }
+
+        /**
+         * Chunks the current wave reads that the snapshot doesn't cover yet, with a margin, or
+         * null if it covers them all. A tile reads its own chunk and, for enclosed air, the
+         * chunks next to it.
+         */
+        private int[] missingChunks() {
+            if (snapshot == null) {
+                return null;
+            }
+            int[] missing = null;
+            for (int[] tile : wave) {
+                int minX = Math.max(tile[0] - 1, chunkWindow[0]);
+                int minZ = Math.max(tile[2] - 1, chunkWindow[1]);
+                int maxX = Math.min(tile[0] + 1, chunkWindow[2]);
+                int maxZ = Math.min(tile[2] + 1, chunkWindow[3]);
+                if (snapshot.covers(minX, minZ) && snapshot.covers(maxX, maxZ)) {
+                    continue;
+                }
+                if (missing == null) {
+                    missing = new int[]{minX, minZ, maxX, maxZ};
+                } else {
+                    missing[0] = Math.min(missing[0], minX);
+                    missing[1] = Math.min(missing[1], minZ);
+                    missing[2] = Math.max(missing[2], maxX);
+                    missing[3] = Math.max(missing[3], maxZ);
+                }
+            }
+            if (missing != null) {
+                missing[0] = Math.max(missing[0] - GROW_MARGIN, chunkWindow[0]);
+                missing[1] = Math.max(missing[1] - GROW_MARGIN, chunkWindow[1]);
+                missing[2] = Math.min(missing[2] + GROW_MARGIN, chunkWindow[2]);
+                missing[3] = Math.min(missing[3] + GROW_MARGIN, chunkWindow[3]);
+            }
+            return missing;
+        }
+
+        /**
+         * Merge the labeled tiles and measure the start's component
+         */
+        private DetectionResult result(LongHashSet membersOut, LongHashSet partsOut) {
+            TileResult startTile = tiles.get(tileKey(startX >> 4, startY >> 4, startZ >> 4));
+            int startComponent = startTile.components > 0
+                ? startTile.labels[cellIndex(startX & 15, startY & 15, startZ & 15)] : -1;
+            if (startComponent < 0) {
+                return detector.checkLimits(access, 0, startX, startY, startZ, startX, startY, startZ);
+            }
+
+            // Global union-find over every (tile, component) pair
+            int total = 0;
+            for (TileResult tile : tiles.values()) {
+                tile.base = total;
+                total += tile.components;
+            }
+            int[] parent = new int[total];
+            for (int i = 0; i < total; i++) {
+                parent[i] = i;
+            }
+
+            for (TileResult tile : tiles.values()) {
+                if (tile.components == 0) {
+                    continue;
+                }
+                mergeFace(parent, tile, tiles.get(tileKey(tile.tileX + 1, tile.tileY, tile.tileZ)), 0);
+                mergeFace(parent, tile, tiles.get(tileKey(tile.tileX, tile.tileY + 1, tile.tileZ)), 1);
+                mergeFace(parent, tile, tiles.get(tileKey(tile.tileX, tile.tileY, tile.tileZ + 1)), 2);
+            }
+
+            // Sum up every component that ended up in the start's set
+            int root = find(parent, startTile.base + startComponent);
+            int structureBlocks = 0;
+            int minX = startX, minY = startY, minZ = startZ;
+            int maxX = startX, maxY = startY, maxZ = startZ;
+            for (TileResult tile : tiles.values()) {
+                for (int c = 0; c < tile.components; c++) {
+                    if (find(parent, tile.base + c) != root) {
+                        continue;
+                    }
+                    int s = c * STATS;
+                    if (tile.stats[s] == 0) {
+                        continue; // Only enclosed air
+                    }
+                    structureBlocks += tile.stats[s];
+                    minX = Math.min(minX, tile.stats[s + 1]);
+                    minY = Math.min(minY, tile.stats[s + 2]);
+                    minZ = Math.min(minZ, tile.stats[s + 3]);
+                    maxX = Math.max(maxX, tile.stats[s + 4]);
+                    maxY = Math.max(maxY, tile.stats[s + 5]);
+                    maxZ = Math.max(maxZ, tile.stats[s + 6]);
+                }
+            }
+
+            if (membersOut != null || partsOut != null) {
+                collectMembers(parent, root, tiles, membersOut, partsOut);
+            }
+
+            return detector.checkLimits(access, structureBlocks, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    /**
+     * Add every cell whose component is in the root's set to the output sets
+     */
+    private static void collectMembers(int[] parent, int root, Map<Long, TileResult> tiles,
+                                       LongHashSet membersOut, LongHashSet partsOut) {
+        for (TileResult tile : tiles.values()) {
+            if (tile.components == 0) {
+                continue;
+            }
+            boolean[] inRoot = new boolean[tile.components];
+            boolean any = false;
+            for (int c = 0; c < tile.components; c++) {
+                inRoot[c] = find(parent, tile.base + c) == root;
+                any |= inRoot[c];
+            }
+            if (!any) {
+                continue;
+            }
+
+            int baseX = tile.tileX << 4;
+            int baseY = tile.tileY << 4;
+            int baseZ = tile.tileZ << 4;
+            for (int index = 0; index < TILE_VOLUME; index++) {
+                int component = tile.labels[index];
+                if (component < 0 || !inRoot[component]) {
+                    continue;
+                }
+                long packed = StructureDetector.packCoords(baseX + (index & 15), baseY + (index >> 8),
+                    baseZ + ((index >> 4) & 15));
+                if (membersOut != null) {
+                    membersOut.add(packed);
+                }
+                if (partsOut != null && tile.structurePart[index]) {
+                    partsOut.add(packed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Union the components on both sides of a shared tile face
+     * @param axis 0 = +x, 1 = +y, 2 = +z neighbor
+     */
+    private static void mergeFace(int[] parent, TileResult tile, TileResult neighbor, int axis) {
+        if (neighbor == null || neighbor.components == 0) {
+            return;
+        }
+        for (int a = 0; a < TILE_SIZE; a++) {
+            for (int b = 0; b < TILE_SIZE; b++) {
+                int here;
+                int there;
+                if (axis == 0) {
+                    here = cellIndex(TILE_SIZE - 1, a, b);
+                    there = cellIndex(0, a, b);
+                } else if (axis == 1) {
+                    here = cellIndex(a, TILE_SIZE - 1, b);
+                    there = cellIndex(a, 0, b);
+                } else {
+                    here = cellIndex(a, b, TILE_SIZE - 1);
+                    there = cellIndex(a, b, 0);
+                }
+                int c1 = tile.labels[here];
+                int c2 = neighbor.labels[there];
+                if (c1 >= 0 && c2 >= 0) {
+                    union(parent, tile.base + c1, neighbor.base + c2);
+                }
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            // Link the larger index to the smaller so roots stay the lowest member
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    private static int cellIndex(int x, int y, int z) {
+        return (y << 8) | (z << 4) | x;
+    }
+
+    private static long tileKey(int tileX, int tileY, int tileZ) {
+        return ((long) (tileX & 0x1FFFFF) << 42) | ((long) (tileY & 0x1FFFFF) << 21) | (tileZ & 0x1FFFFF);
+    }
+
+    // Face order: -x, +x, -y, +y, -z, +z
+    private static final int[][] FACE_OFFSETS = {
+        {-1, 0, 0}, {1, 0, 0},
+        {0, -1, 0}, {0, 1, 0},
+        {0, 0, -1}, {0, 0, 1}
+    };
+
+    /**
+     * Labels of one tile: connected components of structure parts and enclosed air
+     */
+    private static final class TileResult {
+        private final int tileX;
+        private final int tileY;
+        private final int tileZ;
+        // Component of each cell (-1 = not part of any structure), null if the tile has none
+        private final short[] labels;
+        // Whether each cell is a structure part (not enclosed air), null if the tile has no nodes
+        private final boolean[] structurePart;
+        private final int components;
+        // Cells that are part of any component
+        private final int nodes;
+        private final int[] stats;
+        private final boolean[] faceHasNodes;
+        // Offset of this tile's components in the global union-find
+        private int base;
+
+        private TileResult(int tileX, int tileY, int tileZ, short[] labels, boolean[] structurePart,
+                           int components, int nodes, int[] stats, boolean[] faceHasNodes) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.tileZ = tileZ;
+            this.labels = labels;
+            this.structurePart = structurePart;
+            this.components = components;
+            this.nodes = nodes;
+            this.stats = stats;
+            this.faceHasNodes = faceHasNodes;
+        }
+    }
+
+    /**
+     * Classify and label the cells of one tile
+     */
+    private final class TileTask extends RecursiveTask<TileResult> {
+        private final BlockAccess access;
+        private final int tileX;
+        private final int tileY;
+        private final int tileZ;
+        private final int[] window;
+
+        private TileTask(BlockAccess access, int tileX, int tileY, int tileZ, int[] window) {
+            this.access = access;
+            this.tileX = tileX;
+            this.tileY = tileY;
+            this.tileZ = tileZ;
+            this.window = window;
+        }
+
+        @Override
+        protected TileResult compute() {
+            int baseX = tileX << 4;
+            int baseY = tileY << 4;
+            int baseZ = tileZ << 4;
+
+            // Local union-find over cell indices (-1 = not a node)
+            int[] parent = new int[TILE_VOLUME];
+            boolean[] structurePart = new boolean[TILE_VOLUME];
+            boolean[] faceHasNodes = new boolean[6];
+            int nodes = 0;
+
+            for (int y = 0; y < TILE_SIZE; y++) {
+                for (int z = 0; z < TILE_SIZE; z++) {
+                    for (int x = 0; x < TILE_SIZE; x++) {
+                        int index = cellIndex(x, y, z);
+                        parent[index] = -1;
+
+                        int wx = baseX + x;
+                        int wy = baseY + y;
+                        int wz = baseZ + z;
+                        if (wx < window[0] || wy < window[1] || wz < window[2] ||
+                            wx > window[3] || wy > window[4] || wz > window[5]) {
+                            continue;
+                        }
+
+                        // Same node rules as the flood fill: natural blocks first, then enclosed air
+                        Material material = access.getType(wx, wy, wz);
+                        boolean node;
+                        if (detector.isNaturalBlock(material)) {
+                            node = false;
+                        } else if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
+                            node = detector.isEnclosedAir(access, wx, wy, wz);
+                        } else {
+                            node = detector.isStructurePart(material);
+                            structurePart[index] = node;
+                        }
+                        if (!node) {
+                            continue;
+                        }
+
+                        nodes++;
+                        parent[index] = index;
+                        if (x > 0 && parent[index - 1] >= 0) {
+                            union(parent, index, index - 1);
+                        }
+                        if (z > 0 && parent[index - TILE_SIZE] >= 0) {
+                            union(parent, index, index - TILE_SIZE);
+                        }
+                        if (y > 0 && parent[index - TILE_SIZE * TILE_SIZE] >= 0) {
+                            union(parent, index, index - TILE_SIZE * TILE_SIZE);
+                        }
+
+                        faceHasNodes[0] |= x == 0;
+                        faceHasNodes[1] |= x == TILE_SIZE - 1;
+                        faceHasNodes[2] |= y == 0;
+                        faceHasNodes[3] |= y == TILE_SIZE - 1;
+                        faceHasNodes[4] |= z == 0;
+                        faceHasNodes[5] |= z == TILE_SIZE - 1;
+                    }
+                }
+            }
+
+            if (nodes == 0) {
+                return new TileResult(tileX, tileY, tileZ, null, null, 0, 0, null, faceHasNodes);
+            }
+
+            // Roots are the lowest index of their set, so they are labeled before their members
+            short[] labels = new short[TILE_VOLUME];
+            int[] stats = new int[STATS * 8];
+            int components = 0;
+            for (int index = 0; index < TILE_VOLUME; index++) {
+                if (parent[index] < 0) {
+                    labels[index] = -1;
+                    continue;
+                }
+                int root = find(parent, index);
+                int component;
+                if (root == index) {
+                    component = components++;
+                    if (component * STATS >= stats.length) {
+                        stats = Arrays.copyOf(stats, stats.length * 2);
+                    }
+                    int s = component * STATS;
+                    stats[s + 1] = stats[s + 2] = stats[s + 3] = Integer.MAX_VALUE;
+                    stats[s + 4] = stats[s + 5] = stats[s + 6] = Integer.MIN_VALUE;
+                } else {
+                    component = labels[root];
+                }
+                labels[index] = (short) component;
+
+                if (structurePart[index]) {
+                    int s = component * STATS;
+                    int wx = baseX + (index & 15);
+                    int wy = baseY + (index >> 8);
+                    int wz = baseZ + ((index >> 4) & 15);
+                    stats[s]++;
+                    stats[s + 1] = Math.min(stats[s + 1], wx);
+                    stats[s + 2] = Math.min(stats[s + 2], wy);
+                    stats[s + 3] = Math.min(stats[s + 3], wz);
+                    stats[s + 4] = Math.max(stats[s + 4], wx);
+                    stats[s + 5] = Math.max(stats[s + 5], wy);
+                    stats[s + 6] = Math.max(stats[s + 6], wz);
+                }
+            }
+
+            return new TileResult(tileX, tileY, tileZ, labels, structurePart, components, nodes, stats, faceHasNodes);
+        }
+    }
+}
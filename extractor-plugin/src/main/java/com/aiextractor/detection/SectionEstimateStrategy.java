@@ -0,0 +1,145 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import org.bukkit.Material;
+
+/**
+ * Fast, approximate detection that works on 16x16x16 chunk sections instead of blocks.
+ * Starting at the start block's section, it samples every visited section on a grid, counts
+ * structure parts and indicator blocks, and spreads to the neighbors of every section dense
+ * enough to belong to the structure. Only the bounding box and an estimated block count are
+ * produced: nearby builds that are not connected to the structure are merged into it, and the
+ * box is rounded outward to the sampling grid.
+ */
+public class SectionEstimateStrategy implements DetectionStrategy {
+
+    static final String NAME = "estimate";
+
+    private static final int SECTION_SIZE = 16;
+
+    // Face-adjacent sections
+    private static final int[][] SECTION_OFFSETS = StructureDetector.NEIGHBOR_OFFSETS;
+
+    private final int minSectionBlocks;
+    private final int sampleStep;
+
+    /**
+     * @param minSectionBlocks estimated structure parts a section needs to count as part of the structure
+     *     (a section with an indicator block always counts)
+     * @param sampleStep read every n-th block along each axis (1 = read every block)
+     */
+    SectionEstimateStrategy(int minSectionBlocks, int sampleStep) {
+        this.minSectionBlocks = Math.max(1, minSectionBlocks);
+        this.sampleStep = Math.max(1, Math.min(SECTION_SIZE, sampleStep));
+    }
+
+    @Override
+    public DetectionResult detect(StructureDetector detector, BlockAccess access, int x, int y, int z) {
+        // A structure within the dimension limits that contains the start block lies in this window
+        int[] maxDims = detector.getMaxDimensions();
+        int[] window = {
+            x - maxDims[0], y - maxDims[1], z - maxDims[2],
+            x + maxDims[0], y + maxDims[1], z + maxDims[2]
+        };
+        if (access.getWorld() != null) {
+            window[1] = Math.max(window[1], access.getWorld().getMinHeight());
+            window[4] = Math.min(window[4], access.getWorld().getMaxHeight() - 1);
+        }
+
+        long startSection = StructureDetector.packCoords(x >> 4, y >> 4, z >> 4);
+        LongHashSet visited = new LongHashSet(64);
+        LongQueue queue = new LongQueue(64);
+        visited.add(startSection);
+        queue.add(startSection);
+
+        long structureBlocks = 0;
+        int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+            Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        // {sampled parts, indicators, minX, minY, minZ, maxX, maxY, maxZ}
+        int[] stats = new int[8];
+
+        while (!queue.isEmpty()) {
+            long section = queue.poll();
+            int sx = StructureDetector.unpackX(section);
+            int sy = StructureDetector.unpackY(section);
+            int sz = StructureDetector.unpackZ(section);
+
+            sample(detector, access, sx, sy, sz, window, stats);
+            long estimated = (long) stats[0] * sampleStep * sampleStep * sampleStep;
+            boolean dense = estimated >= minSectionBlocks || stats[1] > 0;
+            if (stats[0] == 0 || (!dense && section != startSection)) {
+                continue;
+            }
+
+            structureBlocks += estimated;
+            for (int i = 0; i < 3; i++) {
+                box[i] = Math.min(box[i], stats[2 + i]);
+                box[3 + i] = Math.max(box[3 + i], stats[5 + i]);
+            }
+
+            for (int[] offset : SECTION_OFFSETS) {
+                int nx = sx + offset[0];
+                int ny = sy + offset[1];
+                int nz = sz + offset[2];
+                if ((nx << 4) > window[3] || (ny << 4) > window[4] || (nz << 4) > window[5] ||
+                    (nx << 4) + SECTION_SIZE - 1 < window[0] || (ny << 4) + SECTION_SIZE - 1 < window[1] ||
+                    (nz << 4) + SECTION_SIZE - 1 < window[2]) {
+                    continue;
+                }
+                long neighbor = StructureDetector.packCoords(nx, ny, nz);
+                if (visited.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            }
+        }
+
+        if (structureBlocks == 0) {
+            return detector.checkLimits(access, 0, x, y, z, x, y, z);
+        }
+        return detector.checkLimits(access, (int) Math.min(Integer.MAX_VALUE, structureBlocks),
+            box[0], box[1], box[2], box[3], box[4], box[5]);
+    }
+
+    /**
+     * Read one section on the sampling grid (clipped to the window) into stats
+     */
+    private void sample(StructureDetector detector, BlockAccess access, int sx, int sy, int sz,
+                        int[] window, int[] stats) {
+        stats[0] = 0;
+        stats[1] = 0;
+        stats[2] = stats[3] = stats[4] = Integer.MAX_VALUE;
+        stats[5] = stats[6] = stats[7] = Integer.MIN_VALUE;
+
+        int x0 = Math.max(sx << 4, window[0]), x1 = Math.min((sx << 4) + SECTION_SIZE - 1, window[3]);
+        int y0 = Math.max(sy << 4, window[1]), y1 = Math.min((sy << 4) + SECTION_SIZE - 1, window[4]);
+        int z0 = Math.max(sz << 4, window[2]), z1 = Math.min((sz << 4) + SECTION_SIZE - 1, window[5]);
+        // A sampled block stands for the cells up to the next sample, so round the box outward
+        int reach = sampleStep - 1;
+
+        for (int y = y0; y <= y1; y += sampleStep) {
+            for (int z = z0; z <= z1; z += sampleStep) {
+                for (int x = x0; x <= x1; x += sampleStep) {
+                    Material material = access.getType(x, y, z);
+                    if (!detector.isStructurePart(material)) {
+                        continue;
+                    }
+                    stats[0]++;
+                    if (detector.isStructureBlock(material)) {
+                        stats[1]++;
+                    }
+                    stats[2] = Math.min(stats[2], x);
+                    stats[3] = Math.min(stats[3], y);
+                    stats[4] = Math.min(stats[4], z);
+                    stats[5] = Math.max(stats[5], Math.min(x + reach, x1));
+                    stats[6] = Math.max(stats[6], Math.min(y + reach, y1));
+                    stats[7] = Math.max(stats[7], Math.min(z + reach, z1));
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
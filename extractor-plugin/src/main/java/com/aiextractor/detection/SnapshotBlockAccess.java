@@ -0,0 +1,202 @@
+package com.aiextractor.detection;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Immutable BlockAccess over chunk snapshots of a rectangular chunk area.
+ * Captured on the main thread, then safe to read from any number of threads.
+ * Positions outside the area, outside the world height or in chunks that were not captured
+ * (ungenerated, or unloaded for {@link #captureLoaded}) read as air.
+ */
+public class SnapshotBlockAccess implements BlockAccess {
+
+    private final World world;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int sizeX;
+    private final int sizeZ;
+    private final int minY;
+    private final int maxY;
+    private final ChunkSnapshot[] snapshots;
+
+    private SnapshotBlockAccess(World world, int minChunkX, int minChunkZ, int sizeX, int sizeZ,
+                                ChunkSnapshot[] snapshots) {
+        this.world = world;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.minY = world.getMinHeight();
+        this.maxY = world.getMaxHeight();
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Snapshot every generated chunk in a chunk range (main thread only)
+     */
+    public static SnapshotBlockAccess capture(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int sizeX = maxChunkX - minChunkX + 1;
+        int sizeZ = maxChunkZ - minChunkZ + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[sizeX * sizeZ];
+        for (int cz = 0; cz < sizeZ; cz++) {
+            for (int cx = 0; cx < sizeX; cx++) {
+                int chunkX = minChunkX + cx;
+                int chunkZ = minChunkZ + cz;
+                if (world.isChunkLoaded(chunkX, chunkZ) || world.isChunkGenerated(chunkX, chunkZ)) {
+                    snapshots[cz * sizeX + cx] = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                }
+            }
+        }
+        return new SnapshotBlockAccess(world, minChunkX, minChunkZ, sizeX, sizeZ, snapshots);
+    }
+
+    /**
+     * Snapshot the loaded chunks in a chunk range (main thread only). Never loads or generates
+     * a chunk; unloaded chunks read as air.
+     */
+    public static SnapshotBlockAccess captureLoaded(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int sizeX = maxChunkX - minChunkX + 1;
+        int sizeZ = maxChunkZ - minChunkZ + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[sizeX * sizeZ];
+        for (int cz = 0; cz < sizeZ; cz++) {
+            for (int cx = 0; cx < sizeX; cx++) {
+                snapshots[cz * sizeX + cx] = snapshotIfLoaded(world, minChunkX + cx, minChunkZ + cz);
+            }
+        }
+        return new SnapshotBlockAccess(world, minChunkX, minChunkZ, sizeX, sizeZ, snapshots);
+    }
+
+    /**
+     * Snapshot the loaded chunks in a chunk range a few at a time, on consecutive ticks of the
+     * main thread (call from the main thread), so a large area doesn't stall a single tick.
+     * Chunks are snapshotted at different ticks, so edits made meanwhile may show up in some
+     * of them. The future completes on the main thread.
+     * @param chunksPerTick chunks to look at per tick
+     */
+    public static CompletableFuture<SnapshotBlockAccess> captureLoadedGradually(Plugin plugin, World world,
+                                                                              int minChunkX, int minChunkZ,
+                                                                              int maxChunkX, int maxChunkZ,
+                                                                              int chunksPerTick) {
+        int sizeX = maxChunkX - minChunkX + 1;
+        int sizeZ = maxChunkZ - minChunkZ + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[sizeX * sizeZ];
+        CompletableFuture<SnapshotBlockAccess> future = new CompletableFuture<>();
+
+        new BukkitRunnable() {
+            private int next;
+
+            @Override
+            public void run() {
+                try {
+                    int end = Math.min(snapshots.length, next + Math.max(1, chunksPerTick));
+                    for (; next < end; next++) {
+                        snapshots[next] = snapshotIfLoaded(world, minChunkX + next % sizeX, minChunkZ + next / sizeX);
+                    }
+                    if (next == snapshots.length) {
+                        cancel();
+                        future.complete(new SnapshotBlockAccess(world, minChunkX, minChunkZ, sizeX, sizeZ, snapshots));
+                    }
+                } catch (RuntimeException e) {
+                    cancel();
+                    future.completeExceptionally(e);
+                }
+            }
+        }.runTaskTimer(plugin, 0L, 1L);
+        return future;
+    }
+
+    /**
+     * A copy of this access grown to also cover a chunk range (main thread only).
+     * Chunks already in the area keep their snapshot; newly covered ones are captured if loaded,
+     * as in {@link #captureLoaded}.
+     */
+    public SnapshotBlockAccess expand(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int newMinX = Math.min(minChunkX, this.minChunkX);
+        int newMinZ = Math.min(minChunkZ, this.minChunkZ);
+        int newSizeX = Math.max(maxChunkX, this.minChunkX + sizeX - 1) - newMinX + 1;
+        int newSizeZ = Math.max(maxChunkZ, this.minChunkZ + sizeZ - 1) - newMinZ + 1;
+        ChunkSnapshot[] grown = new ChunkSnapshot[newSizeX * newSizeZ];
+        for (int cz = 0; cz < newSizeZ; cz++) {
+            for (int cx = 0; cx < newSizeX; cx++) {
+                int chunkX = newMinX + cx;
+                int chunkZ = newMinZ + cz;
+                grown[cz * newSizeX + cx] = covers(chunkX, chunkZ)
+                    ? getChunk(chunkX, chunkZ) : snapshotIfLoaded(world, chunkX, chunkZ);
+            }
+        }
+        return new SnapshotBlockAccess(world, newMinX, newMinZ, newSizeX, newSizeZ, grown);
+    }
+
+    /**
+     * Whether a chunk lies in the captured area (whether or not it was loaded)
+     */
+    public boolean covers(int chunkX, int chunkZ) {
+        int cx = chunkX - minChunkX;
+        int cz = chunkZ - minChunkZ;
+        return cx >= 0 && cz >= 0 && cx < sizeX && cz < sizeZ;
+    }
+
+    private static ChunkSnapshot snapshotIfLoaded(World world, int chunkX, int chunkZ) {
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            return null;
+        }
+        return world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        ChunkSnapshot snapshot = snapshotAt(x, y, z);
+        return snapshot != null ? snapshot.getBlockType(x & 15, y, z & 15) : Material.AIR;
+    }
+
+    @Override
+    public String getBlockData(int x, int y, int z) {
+        ChunkSnapshot snapshot = snapshotAt(x, y, z);
+        return snapshot != null ? snapshot.getBlockData(x & 15, y, z & 15).getAsString() : "minecraft:air";
+    }
+
+    @Override
+    public String getWorldName() {
+        return world.getName();
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Snapshot of a chunk in the captured area, or null if it is outside or was not captured
+     */
+    ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+        if (!covers(chunkX, chunkZ)) {
+            return null;
+        }
+        return snapshots[(chunkZ - minChunkZ) * sizeX + (chunkX - minChunkX)];
+    }
+
+    /**
+     * Lowest block y of the world
+     */
+    int getMinY() {
+        return minY;
+    }
+
+    private ChunkSnapshot snapshotAt(int x, int y, int z) {
+        if (y < minY || y >= maxY) {
+            return null;
+        }
+        int cx = (x >> 4) - minChunkX;
+        int cz = (z >> 4) - minChunkZ;
+        if (cx < 0 || cz < 0 || cx >= sizeX || cz >= sizeZ) {
+            return null;
+        }
+        return snapshots[cz * sizeX + cx];
+    }
+}
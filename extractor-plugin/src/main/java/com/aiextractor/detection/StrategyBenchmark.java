@@ -0,0 +1,161 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.models.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several detection strategies on the same start blocks and block source and compares
+ * their speed and their bounding boxes with those of a reference strategy.
+ * Use an immutable source (chunk snapshots) so every strategy sees the same blocks and the
+ * benchmark can run off the main thread.
+ */
+public class StrategyBenchmark {
+
+    private final StructureDetector detector;
+    private final BlockAccess access;
+
+    public StrategyBenchmark(StructureDetector detector, BlockAccess access) {
+        this.detector = detector;
+        this.access = access;
+    }
+
+    /**
+     * Find up to maxStarts indicator blocks in a box, at least minSpacing blocks apart
+     * @return start positions as {x, y, z}
+     */
+    public List<int[]> findStarts(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                                  int maxStarts, int minSpacing) {
+        List<int[]> starts = new ArrayList<>();
+        for (int y = minY; y <= maxY && starts.size() < maxStarts; y++) {
+            for (int z = minZ; z <= maxZ && starts.size() < maxStarts; z++) {
+                for (int x = minX; x <= maxX && starts.size() < maxStarts; x++) {
+                    if (!detector.isStructureBlock(access.getType(x, y, z)) || isNear(starts, x, y, z, minSpacing)) {
+                        continue;
+                    }
+                    starts.add(new int[]{x, y, z});
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Detect from every start with every strategy, a number of rounds each.
+     * The first strategy is the reference the others' bounding boxes are compared with.
+     */
+    public List<Result> run(List<DetectionStrategy> strategies, List<int[]> starts, int rounds) {
+        List<Result> results = new ArrayList<>();
+        BoundingBox[] reference = new BoundingBox[starts.size()];
+
+        for (int s = 0; s < strategies.size(); s++) {
+            DetectionStrategy strategy = strategies.get(s);
+            // One untimed pass so class loading and cold caches don't count against the first strategy
+            for (int[] start : starts) {
+                strategy.detect(detector, access, start[0], start[1], start[2]);
+            }
+
+            long totalNanos = 0;
+            int successes = 0;
+            int compared = 0;
+            double overlapSum = 0;
+            for (int i = 0; i < starts.size(); i++) {
+                int[] start = starts.get(i);
+                DetectionResult result = null;
+                for (int round = 0; round < rounds; round++) {
+                    long begin = System.nanoTime();
+                    result = strategy.detect(detector, access, start[0], start[1], start[2]);
+                    totalNanos += System.nanoTime() - begin;
+                }
+                if (result == null || !result.isSuccess()) {
+                    continue;
+                }
+                successes++;
+                if (s == 0) {
+                    reference[i] = result.getBoundingBox();
+                } else if (reference[i] != null) {
+                    overlapSum += overlap(reference[i], result.getBoundingBox());
+                    compared++;
+                }
+            }
+
+            int runs = starts.size() * rounds;
+            results.add(new Result(strategy.getName(), runs, successes,
+                runs > 0 ? totalNanos / 1_000_000.0 / runs : 0,
+                s == 0 ? 1.0 : compared > 0 ? overlapSum / compared : Double.NaN));
+        }
+        return results;
+    }
+
+    /**
+     * Intersection over union of two boxes' volumes
+     */
+    private static double overlap(BoundingBox a, BoundingBox b) {
+        long ix = Math.max(0, Math.min(a.getMaxX(), b.getMaxX()) - Math.max(a.getMinX(), b.getMinX()) + 1);
+        long iy = Math.max(0, Math.min(a.getMaxY(), b.getMaxY()) - Math.max(a.getMinY(), b.getMinY()) + 1);
+        long iz = Math.max(0, Math.min(a.getMaxZ(), b.getMaxZ()) - Math.max(a.getMinZ(), b.getMinZ()) + 1);
+        long intersection = ix * iy * iz;
+        long union = volume(a) + volume(b) - intersection;
+        return union > 0 ? (double) intersection / union : 0;
+    }
+
+    private static long volume(BoundingBox box) {
+        return (long) box.getSizeX() * box.getSizeY() * box.getSizeZ();
+    }
+
+    private static boolean isNear(List<int[]> starts, int x, int y, int z, int spacing) {
+        for (int[] start : starts) {
+            if (Math.abs(start[0] - x) < spacing && Math.abs(start[1] - y) < spacing && Math.abs(start[2] - z) < spacing) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Timing and accuracy of one strategy
+     */
+    public static class Result {
+        private final String strategy;
+        private final int runs;
+        private final int successes;
+        private final double averageMillis;
+        private final double boxOverlap;
+
+        public Result(String strategy, int runs, int successes, double averageMillis, double boxOverlap) {
+            this.strategy = strategy;
+            this.runs = runs;
+            this.successes = successes;
+            this.averageMillis = averageMillis;
+            this.boxOverlap = boxOverlap;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        /**
+         * Start blocks from which a structure within the limits was found
+         */
+        public int getSuccesses() {
+            return successes;
+        }
+
+        public double getAverageMillis() {
+            return averageMillis;
+        }
+
+        /**
+         * Mean intersection over union with the reference strategy's boxes (NaN if nothing to compare)
+         */
+        public double getBoxOverlap() {
+            return boxOverlap;
+        }
+    }
+}
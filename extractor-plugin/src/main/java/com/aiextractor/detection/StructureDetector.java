@@ -3,31 +3,98 @@ package com.aiextractor.detection;
 import com.aiextractor.StructureExtractorPlugin;
 import com.aiextractor.models.BoundingBox;
 import com.aiextractor.models.ExtractedStructure;
+import org.bukkit.ChunkSnapshot;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.data.BlockData;
+import org.bukkit.configuration.file.FileConfiguration;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 /**
  * Detects and extracts structures from the world
  */
 public class StructureDetector {
 
-    private final StructureExtractorPlugin plugin;
-    private final Set<Material> naturalBlocks;
-    private final Set<Material> structureIndicatorBlocks;
-    private final int maxFloodIterations;
-    private final int searchRadius;
+    // Per-material classification bits, see classify()
+    private static final byte NATURAL = 1;
+    private static final byte INDICATOR = 1 << 1;
+    private static final byte STRUCTURE_PART = 1 << 2;
+    private static final byte MAN_MADE = 1 << 3;
+
+    // Cell kinds returned by nodeKind()
+    static final int NODE_NONE = 0;
+    static final int NODE_AIR = 1;
+    static final int NODE_PART = 2;
+
+    private final Supplier<FileConfiguration> config;
+    private final Logger logger;
+    // Classification of every material, indexed by Material.ordinal(); swapped whole on reload
+    private volatile byte[] materialFlags;
+    private volatile int maxFloodIterations;
+    private volatile int searchRadius;
+    private volatile DetectionStrategy defaultStrategy;
+    private final ThreadLocal<FloodFillScratch> floodFillScratch = ThreadLocal.withInitial(FloodFillScratch::new);
 
     public StructureDetector(StructureExtractorPlugin plugin) {
-        this.plugin = plugin;
-        this.naturalBlocks = loadMaterialSet("detection.natural-blocks");
-        this.structureIndicatorBlocks = loadMaterialSet("detection.structure-indicator-blocks");
-        this.maxFloodIterations = plugin.getConfig().getInt("detection.max-flood-iterations", 100000);
-        this.searchRadius = plugin.getConfig().getInt("detection.search-radius", 64);
+        this(plugin::getConfig, plugin.getLogger());
+    }
+
+    /**
+     * Create a detector from a standalone configuration (offline tools, no running server)
+     */
+    public StructureDetector(FileConfiguration config, Logger logger) {
+        this(() -> config, logger);
+    }
+
+    private StructureDetector(Supplier<FileConfiguration> config, Logger logger) {
+        this.config = config;
+        this.logger = logger;
+        reload();
+    }
+
+    /**
+     * Re-read the detection settings and rebuild the material classification table
+     */
+    public void reload() {
+        Set<Material> naturalBlocks = loadMaterialSet("detection.natural-blocks");
+        Set<Material> structureIndicatorBlocks = loadMaterialSet("detection.structure-indicator-blocks");
+        
+        Material[] materials = Material.values();
+        byte[] flags = new byte[materials.length];
+        for (Material material : materials) {
+            flags[material.ordinal()] = classify(material, naturalBlocks, structureIndicatorBlocks);
+        }
+        
+        this.materialFlags = flags;
+        this.maxFloodIterations = config.get().getInt("detection.max-flood-iterations", 100000);
+        this.searchRadius = config.get().getInt("detection.search-radius", 64);
+        this.defaultStrategy = createStrategy(config.get().getString("detection.strategy", FloodFillStrategy.FACES));
+    }
+
+    /**
+     * Create a detection strategy by name with the current settings, falling back to the
+     * flood fill for unknown names
+     */
+    public DetectionStrategy createStrategy(String name) {
+        try {
+            return DetectionStrategy.create(name, config.get());
+        } catch (IllegalArgumentException e) {
+            logger.warning(e.getMessage() + ", using " + FloodFillStrategy.FACES);
+            return new FloodFillStrategy(FloodFillStrategy.FACES, NEIGHBOR_OFFSETS);
+        }
+    }
+
+    /**
+     * Strategy used when none is given (detection.strategy)
+     */
+    public DetectionStrategy getDefaultStrategy() {
+        return defaultStrategy;
     }
 
     /**
@@ -35,32 +102,52 @@ public class StructureDetector {
      */
     private Set<Material> loadMaterialSet(String configPath) {
         Set<Material> materials = new HashSet<>();
-        List<String> blockNames = plugin.getConfig().getStringList(configPath);
+        List<String> blockNames = config.get().getStringList(configPath);
         
         for (String name : blockNames) {
             String materialName = name.replace("minecraft:", "").toUpperCase();
             try {
                 materials.add(Material.valueOf(materialName));
             } catch (IllegalArgumentException e) {
-                plugin.getLogger().warning("Unknown material in config: " + name);
+                logger.warning("Unknown material in config: " + name);
             }
         }
         
         return materials;
     }
 
+    /**
+     * Compute the classification bits of one material (only run when building the table)
+     */
+    private static byte classify(Material material, Set<Material> naturalBlocks, Set<Material> structureIndicatorBlocks) {
+        byte flags = 0;
+        if (naturalBlocks.contains(material)) {
+            flags |= NATURAL;
+        }
+        if (structureIndicatorBlocks.contains(material)) {
+            flags |= INDICATOR;
+        }
+        if (computeStructurePart(material, (flags & NATURAL) != 0)) {
+            flags |= STRUCTURE_PART;
+        }
+        if ((flags & INDICATOR) != 0 || computeManMade(material)) {
+            flags |= MAN_MADE;
+        }
+        return flags;
+    }
+
     /**
      * Check if a block is considered natural terrain
      */
     public boolean isNaturalBlock(Material material) {
-        return naturalBlocks.contains(material);
+        return (materialFlags[material.ordinal()] & NATURAL) != 0;
     }
 
     /**
      * Check if a block indicates a structure
      */
     public boolean isStructureBlock(Material material) {
-        return structureIndicatorBlocks.contains(material);
+        return (materialFlags[material.ordinal()] & INDICATOR) != 0;
     }
 
     /**
@@ -68,13 +155,25 @@ public class StructureDetector {
      * This is used during flood fill to determine what to include
      */
     public boolean isStructurePart(Material material) {
+        return (materialFlags[material.ordinal()] & STRUCTURE_PART) != 0;
+    }
+    
+    /**
+     * Check if a block is a "man-made" structure block (placed by builders, not nature)
+     * This is stricter than isStructurePart - used to determine if we should START detection
+     */
+    public boolean isManMadeBlock(Material material) {
+        return (materialFlags[material.ordinal()] & MAN_MADE) != 0;
+    }
+
+    static boolean computeStructurePart(Material material, boolean natural) {
         // Air is never a structure part
         if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
             return false;
         }
         
         // Natural blocks are never structure parts
-        if (isNaturalBlock(material)) {
+        if (natural) {
             return false;
         }
         
@@ -97,17 +196,8 @@ public class StructureDetector {
         
         return true;
     }
-    
-    /**
-     * Check if a block is a "man-made" structure block (placed by builders, not nature)
-     * This is stricter than isStructurePart - used to determine if we should START detection
-     */
-    public boolean isManMadeBlock(Material material) {
-        // Structure indicator blocks are definitely man-made
-        if (isStructureBlock(material)) {
-            return true;
-        }
-        
+
+    static boolean computeManMade(Material material) {
         String name = material.name();
         
         // Common building materials
@@ -146,91 +236,259 @@ public class StructureDetector {
     }
 
     /**
-     * Detect structure from a starting location using flood fill
+     * Detect structure from a starting location with the default strategy
      */
     public DetectionResult detectFromLocation(Location startLocation) {
+        return detectFromLocation(startLocation, defaultStrategy);
+    }
+
+    /**
+     * Detect structure from a starting location with a given strategy
+     */
+    public DetectionResult detectFromLocation(Location startLocation, DetectionStrategy strategy) {
         World world = startLocation.getWorld();
         if (world == null) {
             return new DetectionResult(false, "Invalid world");
         }
 
-        Block startBlock = startLocation.getBlock();
-        
         // If starting block is natural, search nearby for structure blocks
-        if (isNaturalBlock(startBlock.getType())) {
-            startBlock = findNearestStructureBlock(startLocation);
-            if (startBlock == null) {
-                return new DetectionResult(false, "No structure found nearby");
-            }
+        Block startBlock = resolveStartBlock(startLocation);
+        if (startBlock == null) {
+            return new DetectionResult(false, "No structure found nearby");
         }
 
-        return floodFillDetect(startBlock);
+        return strategy.detect(this, new WorldBlockAccess(world), startBlock.getX(), startBlock.getY(), startBlock.getZ());
     }
 
     /**
-     * Find the nearest structure block within search radius
+     * Detect structure from a starting location by face flood fill, recording the detected component
+     * @param membersOut receives every cell of the component (structure parts and enclosed air), or null
+     * @param partsOut receives the structure-part cells of the component, or null
      */
-    private Block findNearestStructureBlock(Location center) {
+    public DetectionResult detectFromLocation(Location startLocation, LongHashSet membersOut, LongHashSet partsOut) {
+        World world = startLocation.getWorld();
+        if (world == null) {
+            return new DetectionResult(false, "Invalid world");
+        }
+
+        Block startBlock = resolveStartBlock(startLocation);
+        if (startBlock == null) {
+            return new DetectionResult(false, "No structure found nearby");
+        }
+
+        return floodFill(new WorldBlockAccess(world), startBlock.getX(), startBlock.getY(), startBlock.getZ(),
+            NEIGHBOR_OFFSETS, membersOut, partsOut);
+    }
+
+    /**
+     * Detect structure starting from a known structure block in any block source, with the default strategy
+     */
+    public DetectionResult detectFrom(BlockAccess access, int x, int y, int z) {
+        return defaultStrategy.detect(this, access, x, y, z);
+    }
+
+    /**
+     * Detect structure starting from a known structure block in any block source
+     */
+    public DetectionResult detectFrom(BlockAccess access, int x, int y, int z, DetectionStrategy strategy) {
+        return strategy.detect(this, access, x, y, z);
+    }
+
+    /**
+     * Block a detection from this location starts at: the block itself, or the nearest
+     * structure block if it is natural terrain. Null if none is in range.
+     */
+    public Block resolveStartBlock(Location location) {
+        Block block = location.getBlock();
+        if (isNaturalBlock(block.getType())) {
+            return findNearestStructureBlock(location);
+        }
+        return block;
+    }
+
+    /**
+     * Find the nearest structure block within search radius without blocking the main thread.
+     * The loaded chunks within the radius are snapshotted on the calling (main) thread and
+     * searched on the executor, as in {@link #extractStructureAsync}.
+     * @return future of the block, or of null if none is in range
+     */
+    public CompletableFuture<Block> findNearestStructureBlockAsync(Location center, Executor executor) {
         World world = center.getWorld();
         int cx = center.getBlockX();
         int cy = center.getBlockY();
         int cz = center.getBlockZ();
+        int radius = searchRadius;
+        SnapshotBlockAccess access = SnapshotBlockAccess.captureLoaded(world,
+            (cx - radius) >> 4, (cz - radius) >> 4, (cx + radius) >> 4, (cz + radius) >> 4);
+        int maxHeight = world.getMaxHeight();
+        return CompletableFuture.supplyAsync(() -> {
+            int[] found = findNearestStructureBlock(access::getChunk, cx, cy, cz, radius, access.getMinY(), maxHeight);
+            return found != null ? world.getBlockAt(found[0], found[1], found[2]) : null;
+        }, executor);
+    }
+
+    /**
+     * Find the nearest structure block within search radius on the calling (main) thread,
+     * snapshotting chunks only as the search reaches them
+     */
+    private Block findNearestStructureBlock(Location center) {
+        World world = center.getWorld();
+        Map<Long, ChunkSnapshot> snapshots = new HashMap<>();
+        ChunkSource chunks = (chunkX, chunkZ) -> {
+            long chunkKey = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+            if (snapshots.containsKey(chunkKey)) {
+                return snapshots.get(chunkKey);
+            }
+            ChunkSnapshot snapshot = world.isChunkLoaded(chunkX, chunkZ)
+                ? world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false) : null;
+            snapshots.put(chunkKey, snapshot);
+            return snapshot;
+        };
+        int[] found = findNearestStructureBlock(chunks, center.getBlockX(), center.getBlockY(), center.getBlockZ(),
+            searchRadius, world.getMinHeight(), world.getMaxHeight());
+        return found != null ? world.getBlockAt(found[0], found[1], found[2]) : null;
+    }
+
+    /**
+     * Chunk snapshots a nearest-block search reads from
+     */
+    private interface ChunkSource {
+        /**
+         * Snapshot of a chunk, or null if it is not loaded
+         */
+        ChunkSnapshot get(int chunkX, int chunkZ);
+    }
+
+    /**
+     * Find the nearest structure block within a radius (Chebyshev distance, ties broken by
+     * straight-line distance). Works per 16x16x16 chunk section: sections are visited nearest
+     * first, sections whose palette holds only air are skipped, and the others are read from
+     * chunk snapshots. The search stops once no remaining section can hold a closer block.
+     * Chunks that are not loaded are skipped rather than loaded.
+     * @return {x, y, z} of the block, or null if none is in range
+     */
+    private int[] findNearestStructureBlock(ChunkSource chunks, int cx, int cy, int cz, int radius,
+                                            int minHeight, int maxHeight) {
+        int minY = Math.max(minHeight, cy - radius);
+        int maxY = Math.min(maxHeight - 1, cy + radius);
+        if (minY > maxY) {
+            return null;
+        }
 
-        // Search in expanding spheres
-        for (int radius = 1; radius <= searchRadius; radius++) {
-            for (int x = -radius; x <= radius; x++) {
-                for (int y = -radius; y <= radius; y++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        // Only check blocks on the surface of this radius sphere
-                        if (Math.abs(x) != radius && Math.abs(y) != radius && Math.abs(z) != radius) {
+        // Every section overlapping the search cube as {distance, sectionX, sectionY, sectionZ}
+        List<int[]> sections = new ArrayList<>();
+        for (int sx = (cx - radius) >> 4; sx <= (cx + radius) >> 4; sx++) {
+            for (int sz = (cz - radius) >> 4; sz <= (cz + radius) >> 4; sz++) {
+                for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+                    int distance = Math.max(axisDistance(cx, sx << 4),
+                        Math.max(axisDistance(cy, sy << 4), axisDistance(cz, sz << 4)));
+                    sections.add(new int[]{distance, sx, sy, sz});
+                }
+            }
+        }
+        sections.sort(Comparator.comparingInt(section -> section[0]));
+
+        int bestDistance = Integer.MAX_VALUE;
+        long bestSquared = Long.MAX_VALUE;
+        int bestX = 0, bestY = 0, bestZ = 0;
+
+        for (int[] section : sections) {
+            if (section[0] > bestDistance) {
+                break;
+            }
+
+            int chunkX = section[1];
+            int chunkZ = section[3];
+            ChunkSnapshot snapshot = chunks.get(chunkX, chunkZ);
+            if (snapshot == null || snapshot.isSectionEmpty(((section[2] << 4) - minHeight) >> 4)) {
+                continue;
+            }
+
+            int x0 = Math.max(chunkX << 4, cx - radius), x1 = Math.min((chunkX << 4) + 15, cx + radius);
+            int y0 = Math.max(section[2] << 4, minY), y1 = Math.min((section[2] << 4) + 15, maxY);
+            int z0 = Math.max(chunkZ << 4, cz - radius), z1 = Math.min((chunkZ << 4) + 15, cz + radius);
+            for (int y = y0; y <= y1; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    for (int x = x0; x <= x1; x++) {
+                        if (!isStructureBlock(snapshot.getBlockType(x & 15, y, z & 15))) {
                             continue;
                         }
-                        
-                        Block block = world.getBlockAt(cx + x, cy + y, cz + z);
-                        if (isStructureBlock(block.getType())) {
-                            return block;
+                        int dx = x - cx, dy = y - cy, dz = z - cz;
+                        int distance = Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+                        long squared = (long) dx * dx + (long) dy * dy + (long) dz * dz;
+                        if (distance == 0 || distance > bestDistance ||
+                            (distance == bestDistance && squared >= bestSquared)) {
+                            continue;
                         }
+                        bestDistance = distance;
+                        bestSquared = squared;
+                        bestX = x;
+                        bestY = y;
+                        bestZ = z;
                     }
                 }
             }
         }
-        
-        return null;
+
+        return bestDistance == Integer.MAX_VALUE ? null : new int[]{bestX, bestY, bestZ};
+    }
+
+    /**
+     * Distance along one axis from a coordinate to the 16-block span starting at min
+     */
+    private static int axisDistance(int coordinate, int min) {
+        if (coordinate < min) {
+            return min - coordinate;
+        }
+        return Math.max(0, coordinate - (min + 15));
     }
 
     /**
      * Flood fill to detect all connected structure blocks
      * Only expands through man-made/structure blocks, not through natural terrain
+     * @param offsets neighbors a node connects to (enclosed air is always judged by face neighbors)
      */
-    private DetectionResult floodFillDetect(Block startBlock) {
-        World world = startBlock.getWorld();
-        Set<Long> visited = new HashSet<>();
-        Set<Long> structureBlocks = new HashSet<>();
-        Queue<int[]> queue = new LinkedList<>();
-        
-        int startX = startBlock.getX();
-        int startY = startBlock.getY();
-        int startZ = startBlock.getZ();
+    DetectionResult floodFill(BlockAccess source, int startX, int startY, int startZ, int[][] offsets,
+                              LongHashSet membersOut, LongHashSet partsOut) {
+        // Reused per thread: positions are packed longs, so the fill allocates nothing per block
+        FloodFillScratch scratch = floodFillScratch.get();
+        try {
+            return floodFill(scratch, source, startX, startY, startZ, offsets, membersOut, partsOut);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    private DetectionResult floodFill(FloodFillScratch scratch, BlockAccess source, int startX, int startY, int startZ,
+                                      int[][] offsets, LongHashSet membersOut, LongHashSet partsOut) {
+        LongHashSet visited = scratch.visited;
+        LongQueue queue = scratch.queue;
+        visited.clear();
+        queue.clear();
+        // Enclosed-air checks re-read the neighbors of every air cell; cache them for this run
+        BlockAccess access = scratch.blockCache.reset(source);
         
-        queue.add(new int[]{startX, startY, startZ});
-        visited.add(packCoords(startX, startY, startZ));
+        long start = packCoords(startX, startY, startZ);
+        queue.add(start);
+        visited.add(start);
         
         // Initialize bounding box
         int minX = startX, maxX = startX;
         int minY = startY, maxY = startY;
         int minZ = startZ, maxZ = startZ;
         
+        // Every position is dequeued at most once, so counting is enough
+        int structureBlocks = 0;
         int iterations = 0;
         
         while (!queue.isEmpty() && iterations < maxFloodIterations) {
             iterations++;
-            int[] coords = queue.poll();
-            int x = coords[0];
-            int y = coords[1];
-            int z = coords[2];
+            long packedPos = queue.poll();
+            int x = unpackX(packedPos);
+            int y = unpackY(packedPos);
+            int z = unpackZ(packedPos);
             
-            Block block = world.getBlockAt(x, y, z);
-            Material material = block.getType();
+            Material material = access.getType(x, y, z);
             
             // Skip natural blocks entirely - don't expand through them
             if (isNaturalBlock(material)) {
@@ -238,16 +496,21 @@ public class StructureDetector {
             }
             
             // Skip air unless it's enclosed
+            boolean enclosedAir = false;
             if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
                 // Only expand through air if it's enclosed by structure blocks
-                if (!isEnclosedAir(world, x, y, z, visited)) {
+                if (!isEnclosedAir(access, x, y, z)) {
                     continue;
                 }
+                enclosedAir = true;
             }
             
             // If it's a structure part (man-made block), add it
             if (isStructurePart(material)) {
-                structureBlocks.add(packCoords(x, y, z));
+                structureBlocks++;
+                if (partsOut != null) {
+                    partsOut.add(packedPos);
+                }
                 
                 // Update bounding box
                 minX = Math.min(minX, x);
@@ -260,64 +523,103 @@ public class StructureDetector {
             
             // Determine if we should expand from this block
             // Only expand from structure parts or enclosed air
-            boolean shouldExpand = isStructurePart(material) || 
-                (material.isAir() && isEnclosedAir(world, x, y, z, visited));
+            boolean shouldExpand = isStructurePart(material) || enclosedAir;
             
             if (shouldExpand) {
+                if (membersOut != null) {
+                    membersOut.add(packedPos);
+                }
+                
                 // Add neighbors to queue
-                for (int[] offset : NEIGHBOR_OFFSETS) {
-                    int nx = x + offset[0];
-                    int ny = y + offset[1];
-                    int nz = z + offset[2];
-                    
-                    long packed = packCoords(nx, ny, nz);
-                    if (!visited.contains(packed)) {
-                        visited.add(packed);
-                        queue.add(new int[]{nx, ny, nz});
+                for (int[] offset : offsets) {
+                    long packed = packCoords(x + offset[0], y + offset[1], z + offset[2]);
+                    if (visited.add(packed)) {
+                        queue.add(packed);
                     }
                 }
             }
         }
         
-        if (structureBlocks.isEmpty()) {
+        return checkLimits(access, structureBlocks, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Apply the configured size and dimension limits to a detected structure
+     */
+    DetectionResult checkLimits(BlockAccess source, int structureBlocks, int minX, int minY, int minZ,
+                                int maxX, int maxY, int maxZ) {
+        if (structureBlocks == 0) {
             return new DetectionResult(false, "No structure blocks found");
         }
         
         // Check minimum size
-        int minSize = plugin.getConfig().getInt("scanner.min-structure-size", 20);
-        if (structureBlocks.size() < minSize) {
-            return new DetectionResult(false, "Structure too small (" + structureBlocks.size() + " blocks)");
+        int minSize = config.get().getInt("scanner.min-structure-size", 20);
+        if (structureBlocks < minSize) {
+            return new DetectionResult(false, "Structure too small (" + structureBlocks + " blocks)");
         }
         
         // Check maximum size
-        int maxSize = plugin.getConfig().getInt("scanner.max-structure-size", 50000);
-        if (structureBlocks.size() > maxSize) {
-            return new DetectionResult(false, "Structure too large (" + structureBlocks.size() + " blocks)");
+        int maxSize = config.get().getInt("scanner.max-structure-size", 50000);
+        if (structureBlocks > maxSize) {
+            return new DetectionResult(false, "Structure too large (" + structureBlocks + " blocks)");
         }
         
-        BoundingBox boundingBox = new BoundingBox(world, minX, minY, minZ, maxX, maxY, maxZ);
+        // Offline sources have no live world, so their boxes only carry the world's name
+        BoundingBox boundingBox = source.getWorld() != null
+            ? new BoundingBox(source.getWorld(), minX, minY, minZ, maxX, maxY, maxZ)
+            : new BoundingBox(source.getWorldName(), minX, minY, minZ, maxX, maxY, maxZ);
         
         // Check dimension limits
-        int maxDimX = plugin.getConfig().getInt("scanner.max-dimensions.x", 128);
-        int maxDimY = plugin.getConfig().getInt("scanner.max-dimensions.y", 128);
-        int maxDimZ = plugin.getConfig().getInt("scanner.max-dimensions.z", 128);
+        int[] maxDims = getMaxDimensions();
         
-        if (boundingBox.getSizeX() > maxDimX || boundingBox.getSizeY() > maxDimY || boundingBox.getSizeZ() > maxDimZ) {
+        if (boundingBox.getSizeX() > maxDims[0] || boundingBox.getSizeY() > maxDims[1] || boundingBox.getSizeZ() > maxDims[2]) {
             return new DetectionResult(false, "Structure dimensions exceed limits");
         }
         
-        return new DetectionResult(true, boundingBox, structureBlocks.size());
+        return new DetectionResult(true, boundingBox, structureBlocks);
+    }
+
+    /**
+     * Maximum number of cells a flood fill visits
+     */
+    int getMaxFloodIterations() {
+        return maxFloodIterations;
+    }
+
+    /**
+     * Configured maximum structure size as {x, y, z}
+     */
+    public int[] getMaxDimensions() {
+        return new int[]{
+            config.get().getInt("scanner.max-dimensions.x", 128),
+            config.get().getInt("scanner.max-dimensions.y", 128),
+            config.get().getInt("scanner.max-dimensions.z", 128)
+        };
+    }
+
+    /**
+     * Classify a cell with the flood fill's rules: {@link #NODE_PART} for a structure part,
+     * {@link #NODE_AIR} for enclosed air, {@link #NODE_NONE} for anything the fill does not expand through
+     */
+    int nodeKind(BlockAccess access, int x, int y, int z) {
+        Material material = access.getType(x, y, z);
+        if (isNaturalBlock(material)) {
+            return NODE_NONE;
+        }
+        if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
+            return isEnclosedAir(access, x, y, z) ? NODE_AIR : NODE_NONE;
+        }
+        return isStructurePart(material) ? NODE_PART : NODE_NONE;
     }
 
     /**
      * Check if an air block is enclosed by structure blocks (interior air)
      */
-    private boolean isEnclosedAir(World world, int x, int y, int z, Set<Long> visited) {
+    boolean isEnclosedAir(BlockAccess access, int x, int y, int z) {
         int structureNeighbors = 0;
         
         for (int[] offset : NEIGHBOR_OFFSETS) {
-            Block neighbor = world.getBlockAt(x + offset[0], y + offset[1], z + offset[2]);
-            if (isStructurePart(neighbor.getType())) {
+            if (isStructurePart(access.getType(x + offset[0], y + offset[1], z + offset[2]))) {
                 structureNeighbors++;
             }
         }
@@ -330,8 +632,26 @@ public class StructureDetector {
      * Extract structure data from a bounding box
      */
     public ExtractedStructure extractStructure(BoundingBox boundingBox, String name, boolean includeAir) {
-        World world = boundingBox.getWorld();
-        
+        return extractStructure(new WorldBlockAccess(boundingBox.getWorld()), boundingBox, name, includeAir);
+    }
+
+    /**
+     * Extract structure data from a bounding box of a loaded world without blocking the main thread.
+     * The chunks under the box are snapshotted on the calling (main) thread; the blocks are
+     * read section by section on the executor.
+     */
+    public CompletableFuture<ExtractedStructure> extractStructureAsync(BoundingBox boundingBox, String name,
+                                                                      boolean includeAir, Executor executor) {
+        SnapshotBlockAccess access = SnapshotBlockAccess.capture(boundingBox.getWorld(),
+            boundingBox.getMinX() >> 4, boundingBox.getMinZ() >> 4,
+            boundingBox.getMaxX() >> 4, boundingBox.getMaxZ() >> 4);
+        return CompletableFuture.supplyAsync(() -> BulkExtractor.extract(access, boundingBox, name, includeAir), executor);
+    }
+
+    /**
+     * Extract structure data from a bounding box in any block source
+     */
+    public ExtractedStructure extractStructure(BlockAccess access, BoundingBox boundingBox, String name, boolean includeAir) {
         ExtractedStructure structure = new ExtractedStructure(
             name,
             boundingBox.getSizeX(),
@@ -342,8 +662,7 @@ public class StructureDetector {
         for (int y = boundingBox.getMinY(); y <= boundingBox.getMaxY(); y++) {
             for (int z = boundingBox.getMinZ(); z <= boundingBox.getMaxZ(); z++) {
                 for (int x = boundingBox.getMinX(); x <= boundingBox.getMaxX(); x++) {
-                    Block block = world.getBlockAt(x, y, z);
-                    Material material = block.getType();
+                    Material material = access.getType(x, y, z);
                     
                     // Skip air unless requested
                     if (!includeAir && (material == Material.AIR || 
@@ -359,8 +678,7 @@ public class StructureDetector {
                     
                     // Get complete BlockData string (includes block type and all properties)
                     // e.g., "minecraft:oak_door[facing=north,half=lower,hinge=left,open=false,powered=false]"
-                    BlockData blockData = block.getBlockData();
-                    String fullBlockData = blockData.getAsString();
+                    String fullBlockData = access.getBlockData(x, y, z);
                     
                     // Store with the full block data string for exact reconstruction
                     // blockId field contains just the material name for compatibility
@@ -373,7 +691,7 @@ public class StructureDetector {
         
         // Set metadata
         ExtractedStructure.StructureMetadata metadata = structure.getMetadata();
-        metadata.setSourceWorld(world.getName());
+        metadata.setSourceWorld(access.getWorldName());
         metadata.setOriginalX(boundingBox.getMinX());
         metadata.setOriginalY(boundingBox.getMinY());
         metadata.setOriginalZ(boundingBox.getMinZ());
@@ -386,17 +704,58 @@ public class StructureDetector {
      */
     public ExtractedStructure extractFromSelection(Location pos1, Location pos2, String name) {
         BoundingBox box = new BoundingBox(pos1, pos2);
-        boolean includeAir = plugin.getConfig().getBoolean("export.include-air", false);
+        boolean includeAir = config.get().getBoolean("export.include-air", false);
         return extractStructure(box, name, includeAir);
     }
 
     // Pack 3D coordinates into a single long for efficient set storage
-    private static long packCoords(int x, int y, int z) {
+    static long packCoords(int x, int y, int z) {
         return ((long)(x & 0x3FFFFFF) << 38) | ((long)(y & 0xFFF) << 26) | (z & 0x3FFFFFF);
     }
 
+    // Sign-extending inverses of packCoords
+    static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    static int unpackY(long packed) {
+        return (int) (packed << 26 >> 52);
+    }
+
+    static int unpackZ(long packed) {
+        return (int) (packed << 38 >> 38);
+    }
+
+    /**
+     * Flood fill working memory, kept per thread (main thread and offline scan workers).
+     * Tables that grew past the retained size for a huge structure are dropped after the fill,
+     * so pool threads don't hold on to them.
+     */
+    private static final class FloodFillScratch {
+        // Slots kept between fills, about 1.5 MB per table
+        private static final int MAX_RETAINED = 1 << 17;
+
+        private LongHashSet visited = new LongHashSet(4096);
+        private LongQueue queue = new LongQueue(1024);
+        private CachingBlockAccess blockCache = new CachingBlockAccess(8192);
+
+        private void release() {
+            // The thread outlives the detection; don't let it pin the world
+            blockCache.release();
+            if (visited.capacity() > MAX_RETAINED) {
+                visited = new LongHashSet(4096);
+            }
+            if (queue.capacity() > MAX_RETAINED) {
+                queue = new LongQueue(1024);
+            }
+            if (blockCache.capacity() > MAX_RETAINED) {
+                blockCache = new CachingBlockAccess(8192);
+            }
+        }
+    }
+
     // 6-directional neighbor offsets
-    private static final int[][] NEIGHBOR_OFFSETS = {
+    static final int[][] NEIGHBOR_OFFSETS = {
         {1, 0, 0}, {-1, 0, 0},
         {0, 1, 0}, {0, -1, 0},
         {0, 0, 1}, {0, 0, -1}
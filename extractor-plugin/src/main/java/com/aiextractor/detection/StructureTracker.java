@@ -0,0 +1,74 @@
+package com.aiextractor.detection;
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps each player's last captured structure and feeds it the block changes made near it,
+ * so /capture update can re-detect it incrementally.
+ * Only placing and breaking blocks is tracked; pistons, explosions, fluids and WorldEdit
+ * edits are not seen.
+ */
+public class StructureTracker implements Listener {
+
+    private final Map<UUID, TrackedStructure> tracked = new HashMap<>();
+
+    /**
+     * Track a player's structure, replacing the one tracked before
+     */
+    public void track(Player player, TrackedStructure structure) {
+        tracked.put(player.getUniqueId(), structure);
+    }
+
+    /**
+     * The player's tracked structure, or null
+     */
+    public TrackedStructure get(Player player) {
+        return tracked.get(player.getUniqueId());
+    }
+
+    public void untrack(Player player) {
+        tracked.remove(player.getUniqueId());
+    }
+
+    /**
+     * Stop tracking a structure, unless the player has tracked another one since
+     */
+    public void untrack(Player player, TrackedStructure structure) {
+        tracked.remove(player.getUniqueId(), structure);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        recordChange(event.getBlockPlaced());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        recordChange(event.getBlock());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        untrack(event.getPlayer());
+    }
+
+    private void recordChange(Block block) {
+        if (tracked.isEmpty()) {
+            return;
+        }
+        for (TrackedStructure structure : tracked.values()) {
+            structure.recordChange(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.models.ExtractedStructure;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * A captured structure whose detected component is kept so later edits can be applied
+ * incrementally. Block changes near the structure are recorded as they happen; {@link #update}
+ * reclassifies only the changed cells and their neighbors, patches membership, bounding box and
+ * the extracted block data, and re-reads nothing else. Main thread only.
+ */
+public class TrackedStructure {
+
+    // Cells a reconnection search may visit before it gives up and asks for a full detection
+    private static final int RECONNECT_BUDGET = 4096;
+    // How far outside the structure an edit can still change what is detected
+    private static final int WATCH_MARGIN = 2;
+
+    private final World world;
+    // Where the capture was started; full re-detection starts here again
+    private final Location origin;
+    private final int maxChanges;
+
+    // Flood fill nodes of the component: structure parts and enclosed air
+    private final LongHashSet members;
+    private final LongHashSet parts;
+    // Structure parts per coordinate on each axis, so the bounding box shrinks without a rescan
+    private final TreeMap<Integer, Integer> partsByX = new TreeMap<>();
+    private final TreeMap<Integer, Integer> partsByY = new TreeMap<>();
+    private final TreeMap<Integer, Integer> partsByZ = new TreeMap<>();
+
+    // Cells changed since the last update
+    private final LongHashSet dirty = new LongHashSet(64);
+    // Bounding box grown by the pending changes: {minX, minY, minZ, maxX, maxY, maxZ}
+    private final int[] watch;
+    // Set when the tracked state can no longer be patched (too many changes, split component)
+    private boolean stale;
+
+    // Block data of every non-air cell in the last extracted box
+    private final Map<Long, String> blockData = new HashMap<>();
+    private int[] coverage;
+    private String name;
+
+    /**
+     * @param members every cell of the detected component
+     * @param parts the structure-part cells of the component
+     * @param maxChanges changes to record before giving up and requiring a full detection
+     */
+    public TrackedStructure(World world, Location origin, LongHashSet members, LongHashSet parts, int maxChanges) {
+        this.world = world;
+        this.origin = origin;
+        this.members = members;
+        this.parts = parts;
+        this.maxChanges = Math.max(1, maxChanges);
+        parts.forEach(cell -> count(cell, 1));
+        this.watch = parts.size() > 0 ? currentBox() : new int[6];
+        this.stale = parts.size() == 0;
+    }
+
+    /**
+     * Remember the blocks of an extraction of this structure, to be patched by later updates
+     */
+    public void recordExtraction(ExtractedStructure structure) {
+        ExtractedStructure.StructureMetadata metadata = structure.getMetadata();
+        int ox = metadata.getOriginalX();
+        int oy = metadata.getOriginalY();
+        int oz = metadata.getOriginalZ();
+
+        blockData.clear();
+        List<String> palette = structure.getPalette();
+        for (int block = 0; block < structure.getBlockCount(); block++) {
+            String state = palette.get(structure.getBlockState(block));
+            if (isAirId(ExtractedStructure.blockIdOf(state))) {
+                continue;
+            }
+            blockData.put(StructureDetector.packCoords(ox + structure.getBlockX(block),
+                oy + structure.getBlockY(block), oz + structure.getBlockZ(block)), state);
+        }
+        coverage = new int[]{ox, oy, oz,
+            ox + structure.getSizeX() - 1, oy + structure.getSizeY() - 1, oz + structure.getSizeZ() - 1};
+        name = structure.getName();
+    }
+
+    /**
+     * Record a block change. Changes too far from the structure to affect it are ignored.
+     */
+    public void recordChange(World world, int x, int y, int z) {
+        if (stale || world != this.world) {
+            return;
+        }
+        if (x < watch[0] - WATCH_MARGIN || y < watch[1] - WATCH_MARGIN || z < watch[2] - WATCH_MARGIN ||
+            x > watch[3] + WATCH_MARGIN || y > watch[4] + WATCH_MARGIN || z > watch[5] + WATCH_MARGIN) {
+            return;
+        }
+        if (dirty.size() >= maxChanges) {
+            stale = true;
+            return;
+        }
+        dirty.add(StructureDetector.packCoords(x, y, z));
+        // A chain of placements can grow the structure away from its last bounding box
+        watch[0] = Math.min(watch[0], x);
+        watch[1] = Math.min(watch[1], y);
+        watch[2] = Math.min(watch[2], z);
+        watch[3] = Math.max(watch[3], x);
+        watch[4] = Math.max(watch[4], y);
+        watch[5] = Math.max(watch[5], z);
+    }
+
+    /**
+     * Whether blocks changed near the structure since the last capture or update
+     */
+    public boolean hasChanges() {
+        return stale || dirty.size() > 0;
+    }
+
+    /**
+     * Apply the recorded changes. Only the changed cells and their neighbors are reclassified,
+     * since those are the only cells whose flood fill classification can change.
+     * @return the detection result for the updated component, or null if the change can't be
+     *     applied incrementally and a full detection is needed
+     */
+    public DetectionResult update(BlockAccess access, StructureDetector detector) {
+        if (stale) {
+            return null;
+        }
+
+        LongQueue affected = new LongQueue(Math.max(16, dirty.size() * 7));
+        LongHashSet affectedSet = new LongHashSet(dirty.size() * 7);
+        dirty.forEach(cell -> {
+            addAffected(affected, affectedSet, cell);
+            int x = StructureDetector.unpackX(cell);
+            int y = StructureDetector.unpackY(cell);
+            int z = StructureDetector.unpackZ(cell);
+            for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+                addAffected(affected, affectedSet,
+                    StructureDetector.packCoords(x + offset[0], y + offset[1], z + offset[2]));
+            }
+        });
+
+        // Reclassify: members that stopped being nodes leave the component first, so that
+        // new nodes only join through members that remain
+        LongHashSet removed = new LongHashSet(16);
+        LongQueue candidates = new LongQueue(16);
+        int[] candidateKinds = new int[affected.size()];
+        int candidateCount = 0;
+        for (int i = affected.size(); i > 0; i--) {
+            long cell = affected.poll();
+            affected.add(cell);
+            int kind = detector.nodeKind(access, StructureDetector.unpackX(cell),
+                StructureDetector.unpackY(cell), StructureDetector.unpackZ(cell));
+            if (members.contains(cell)) {
+                if (kind == StructureDetector.NODE_NONE) {
+                    members.remove(cell);
+                    removed.add(cell);
+                }
+                setPart(cell, kind == StructureDetector.NODE_PART);
+            } else if (kind != StructureDetector.NODE_NONE) {
+                candidates.add(cell);
+                candidateKinds[candidateCount++] = kind;
+            }
+        }
+
+        LongQueue joined = new LongQueue(16);
+        for (int i = 0; i < candidateCount; i++) {
+            long cell = candidates.poll();
+            if (hasMemberNeighbor(cell) && members.add(cell)) {
+                setPart(cell, candidateKinds[i] == StructureDetector.NODE_PART);
+                joined.add(cell);
+            }
+        }
+
+        if (!grow(access, detector, joined) || !staysConnected(removed)) {
+            stale = true;
+            return null;
+        }
+        dirty.clear();
+
+        if (parts.size() == 0) {
+            stale = true;
+            return detector.checkLimits(access, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        int[] box = currentBox();
+        System.arraycopy(box, 0, watch, 0, 6);
+        patchBlockData(access, affected, box);
+
+        return detector.checkLimits(access, parts.size(), box[0], box[1], box[2], box[3], box[4], box[5]);
+    }
+
+    /**
+     * Build the structure from the tracked block data (the box of the last update)
+     */
+    public ExtractedStructure toExtractedStructure(String name, boolean includeAir) {
+        int[] box = coverage;
+        ExtractedStructure structure = new ExtractedStructure(name,
+            box[3] - box[0] + 1, box[4] - box[1] + 1, box[5] - box[2] + 1);
+
+        for (int y = box[1]; y <= box[4]; y++) {
+            for (int z = box[2]; z <= box[5]; z++) {
+                for (int x = box[0]; x <= box[3]; x++) {
+                    String data = blockData.get(StructureDetector.packCoords(x, y, z));
+                    if (data == null) {
+                        if (includeAir) {
+                            structure.addBlock(x - box[0], y - box[1], z - box[2], "minecraft:air");
+                        }
+                        continue;
+                    }
+                    structure.addBlock(x - box[0], y - box[1], z - box[2], data);
+                }
+            }
+        }
+
+        ExtractedStructure.StructureMetadata metadata = structure.getMetadata();
+        metadata.setSourceWorld(world.getName());
+        metadata.setOriginalX(box[0]);
+        metadata.setOriginalY(box[1]);
+        metadata.setOriginalZ(box[2]);
+        return structure;
+    }
+
+    /**
+     * Whether block data from an extraction is available to build from
+     */
+    public boolean hasBlockData() {
+        return coverage != null;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public Location getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Name of the last export of this structure
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getPendingChanges() {
+        return dirty.size();
+    }
+
+    /**
+     * Flood outward from cells that joined the component, the same way the flood fill would
+     * @return false if the growth exceeded the flood fill's iteration limit
+     */
+    private boolean grow(BlockAccess access, StructureDetector detector, LongQueue queue) {
+        int limit = detector.getMaxFloodIterations();
+        while (!queue.isEmpty()) {
+            long cell = queue.poll();
+            int x = StructureDetector.unpackX(cell);
+            int y = StructureDetector.unpackY(cell);
+            int z = StructureDetector.unpackZ(cell);
+            for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+                int nx = x + offset[0];
+                int ny = y + offset[1];
+                int nz = z + offset[2];
+                long neighbor = StructureDetector.packCoords(nx, ny, nz);
+                if (members.contains(neighbor)) {
+                    continue;
+                }
+                int kind = detector.nodeKind(access, nx, ny, nz);
+                if (kind == StructureDetector.NODE_NONE) {
+                    continue;
+                }
+                if (members.size() >= limit) {
+                    return false;
+                }
+                members.add(neighbor);
+                setPart(neighbor, kind == StructureDetector.NODE_PART);
+                queue.add(neighbor);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check that removing cells did not split the component. For every 6-connected cluster of
+     * removed cells, the members around it must still reach each other; if they do, any path
+     * that crossed the cluster can be rerouted. The search is bounded, so an uncertain answer
+     * counts as a split.
+     */
+    private boolean staysConnected(LongHashSet removed) {
+        if (removed.size() == 0) {
+            return true;
+        }
+
+        LongHashSet clustered = new LongHashSet(removed.size());
+        LongQueue cells = new LongQueue(removed.size());
+        removed.forEach(cells::add);
+
+        while (!cells.isEmpty()) {
+            long seed = cells.poll();
+            if (!clustered.add(seed)) {
+                continue;
+            }
+
+            // Collect the cluster and the members bordering it
+            LongHashSet boundary = new LongHashSet(16);
+            LongQueue cluster = new LongQueue(16);
+            cluster.add(seed);
+            while (!cluster.isEmpty()) {
+                long cell = cluster.poll();
+                int x = StructureDetector.unpackX(cell);
+                int y = StructureDetector.unpackY(cell);
+                int z = StructureDetector.unpackZ(cell);
+                for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+                    long neighbor = StructureDetector.packCoords(x + offset[0], y + offset[1], z + offset[2]);
+                    if (members.contains(neighbor)) {
+                        boundary.add(neighbor);
+                    } else if (removed.contains(neighbor) && clustered.add(neighbor)) {
+                        cluster.add(neighbor);
+                    }
+                }
+            }
+
+            if (!reachesAll(boundary)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bounded breadth-first search through members from one cell of the set to all the others
+     */
+    private boolean reachesAll(LongHashSet targets) {
+        if (targets.size() <= 1) {
+            return true;
+        }
+
+        long[] first = new long[1];
+        targets.forEach(cell -> first[0] = cell);
+
+        LongHashSet visited = new LongHashSet(256);
+        LongQueue queue = new LongQueue(256);
+        visited.add(first[0]);
+        queue.add(first[0]);
+        int found = 1;
+        int steps = 0;
+
+        while (!queue.isEmpty()) {
+            if (++steps > RECONNECT_BUDGET) {
+                return false;
+            }
+            long cell = queue.poll();
+            int x = StructureDetector.unpackX(cell);
+            int y = StructureDetector.unpackY(cell);
+            int z = StructureDetector.unpackZ(cell);
+            for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+                long neighbor = StructureDetector.packCoords(x + offset[0], y + offset[1], z + offset[2]);
+                if (!members.contains(neighbor) || !visited.add(neighbor)) {
+                    continue;
+                }
+                if (targets.contains(neighbor) && ++found == targets.size()) {
+                    return true;
+                }
+                queue.add(neighbor);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bring the block data in line with the new bounding box: drop cells that left it, read
+     * cells that entered it, and re-read the changed cells and their neighbors (whose states
+     * follow them, e.g. fence connections, stair shapes and door halves)
+     */
+    private void patchBlockData(BlockAccess access, LongQueue affected, int[] box) {
+        if (coverage == null) {
+            return;
+        }
+        int[] old = coverage;
+        forEachOutside(old, box, blockData::remove);
+        forEachOutside(box, old, cell -> readBlock(access, cell));
+        while (!affected.isEmpty()) {
+            long cell = affected.poll();
+            int x = StructureDetector.unpackX(cell);
+            int y = StructureDetector.unpackY(cell);
+            int z = StructureDetector.unpackZ(cell);
+            if (contains(box, x, y, z) && contains(old, x, y, z)) {
+                readBlock(access, cell);
+            }
+        }
+        coverage = box;
+    }
+
+    private void readBlock(BlockAccess access, long cell) {
+        int x = StructureDetector.unpackX(cell);
+        int y = StructureDetector.unpackY(cell);
+        int z = StructureDetector.unpackZ(cell);
+        Material material = access.getType(x, y, z);
+        if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
+            blockData.remove(cell);
+        } else {
+            blockData.put(cell, access.getBlockData(x, y, z));
+        }
+    }
+
+    /**
+     * Visit every cell of box a that is not in box b, without walking the overlap
+     */
+    private static void forEachOutside(int[] a, int[] b, LongConsumer action) {
+        for (int y = a[1]; y <= a[4]; y++) {
+            for (int z = a[2]; z <= a[5]; z++) {
+                if (y < b[1] || y > b[4] || z < b[2] || z > b[5]) {
+                    for (int x = a[0]; x <= a[3]; x++) {
+                        action.accept(StructureDetector.packCoords(x, y, z));
+                    }
+                    continue;
+                }
+                for (int x = a[0]; x <= Math.min(a[3], b[0] - 1); x++) {
+                    action.accept(StructureDetector.packCoords(x, y, z));
+                }
+                for (int x = Math.max(a[0], b[3] + 1); x <= a[3]; x++) {
+                    action.accept(StructureDetector.packCoords(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static boolean contains(int[] box, int x, int y, int z) {
+        return x >= box[0] && y >= box[1] && z >= box[2] && x <= box[3] && y <= box[4] && z <= box[5];
+    }
+
+    private boolean hasMemberNeighbor(long cell) {
+        int x = StructureDetector.unpackX(cell);
+        int y = StructureDetector.unpackY(cell);
+        int z = StructureDetector.unpackZ(cell);
+        for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+            if (members.contains(StructureDetector.packCoords(x + offset[0], y + offset[1], z + offset[2]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addAffected(LongQueue queue, LongHashSet set, long cell) {
+        if (set.add(cell)) {
+            queue.add(cell);
+        }
+    }
+
+    private void setPart(long cell, boolean part) {
+        if (part ? parts.add(cell) : parts.remove(cell)) {
+            count(cell, part ? 1 : -1);
+        }
+    }
+
+    private void count(long cell, int delta) {
+        adjust(partsByX, StructureDetector.unpackX(cell), delta);
+        adjust(partsByY, StructureDetector.unpackY(cell), delta);
+        adjust(partsByZ, StructureDetector.unpackZ(cell), delta);
+    }
+
+    private static void adjust(TreeMap<Integer, Integer> histogram, int key, int delta) {
+        int count = histogram.getOrDefault(key, 0) + delta;
+        if (count <= 0) {
+            histogram.remove(key);
+        } else {
+            histogram.put(key, count);
+        }
+    }
+
+    private int[] currentBox() {
+        return new int[]{
+            partsByX.firstKey(), partsByY.firstKey(), partsByZ.firstKey(),
+            partsByX.lastKey(), partsByY.lastKey(), partsByZ.lastKey()
+        };
+    }
+
+    private static boolean isAirId(String blockId) {
+        return "minecraft:air".equals(blockId) || "minecraft:cave_air".equals(blockId) ||
+            "minecraft:void_air".equals(blockId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.aiextractor.detection;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+/**
+ * BlockAccess backed by a loaded Bukkit world (main thread only)
+ */
+public class WorldBlockAccess implements BlockAccess {
+
+    private final World world;
+
+    public WorldBlockAccess(World world) {
+        this.world = world;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        return world.getBlockAt(x, y, z).getType();
+    }
+
+    @Override
+    public String getBlockData(int x, int y, int z) {
+        return world.getBlockAt(x, y, z).getBlockData().getAsString();
+    }
+
+    @Override
+    public String getWorldName() {
+        return world.getName();
+    }
+
+    @Override
+    public World getWorld() {
+        return world;
+    }
+}
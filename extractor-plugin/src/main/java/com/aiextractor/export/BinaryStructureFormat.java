@@ -0,0 +1,198 @@
+package com.aiextractor.export;
+
+import com.aibuild.placement.StructureFileReader;
+import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.models.ExtractedStructure.StructureMetadata;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compact binary structure files (.aistruct).
+ * Layout: magic "AIST", version byte, compression byte (0 none, 1 deflate), then the
+ * optionally compressed body: name, size (3 varints), block count, palette (count, strings),
+ * the {@link BlockIndices} stream (byte length, bytes) and the metadata. Strings are a
+ * varint of the UTF-8 byte length + 1 (0 for null) followed by the bytes; metadata
+ * coordinates are zigzag varints.
+ * Files are read by the placement engine's {@link StructureFileReader}, which the AI Build
+ * plugin uses as well.
+ */
+public final class BinaryStructureFormat {
+
+    public static final String EXTENSION = StructureFileReader.EXTENSION;
+    public static final int MAGIC = StructureFileReader.MAGIC;
+    public static final int VERSION = StructureFileReader.VERSION;
+    public static final int COMPRESSION_NONE = StructureFileReader.COMPRESSION_NONE;
+    public static final int COMPRESSION_DEFLATE = StructureFileReader.COMPRESSION_DEFLATE;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinaryStructureFormat() {
+    }
+
+    public static boolean isBinaryFile(File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Write a structure through a buffered file channel
+     * @param compression {@link #COMPRESSION_NONE} or {@link #COMPRESSION_DEFLATE}
+     */
+    public static void write(ExtractedStructure structure, File file, int compression) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(structure, Channels.newOutputStream(channel), compression);
+        }
+    }
+
+    /**
+     * Write a structure to a stream. The stream is closed afterwards.
+     */
+    public static void write(ExtractedStructure structure, OutputStream stream, int compression) throws IOException {
+        DataOutputStream header = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(compression);
+
+        Deflater deflater = compression == COMPRESSION_DEFLATE ? new Deflater(Deflater.DEFAULT_COMPRESSION) : null;
+        try (DataOutputStream out = deflater != null
+                ? new DataOutputStream(new DeflaterOutputStream(header, deflater, BUFFER_SIZE))
+                : header) {
+            writeBody(structure, out);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Write a structure to a byte array
+     */
+    public static byte[] toBytes(ExtractedStructure structure, int compression) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(structure, bytes, compression);
+        return bytes.toByteArray();
+    }
+
+    private static void writeBody(ExtractedStructure structure, DataOutputStream out) throws IOException {
+        writeString(out, structure.getName());
+        writeVarInt(out, structure.getSizeX());
+        writeVarInt(out, structure.getSizeY());
+        writeVarInt(out, structure.getSizeZ());
+        writeVarInt(out, structure.getBlockCount());
+
+        List<String> palette = structure.getPalette();
+        writeVarInt(out, palette.size());
+        for (String state : palette) {
+            writeString(out, state);
+        }
+
+        byte[] indices = BlockIndices.encode(structure);
+        writeVarInt(out, indices.length);
+        out.write(indices);
+
+        StructureMetadata metadata = structure.getMetadata();
+        writeString(out, metadata.getSourceWorld());
+        writeString(out, metadata.getCaptureMode());
+        writeString(out, metadata.getCaptureTime());
+        writeString(out, metadata.getCapturedBy());
+        writeVarInt(out, zigzag(metadata.getOriginalX()));
+        writeVarInt(out, zigzag(metadata.getOriginalY()));
+        writeVarInt(out, zigzag(metadata.getOriginalZ()));
+    }
+
+    /**
+     * Read a structure file, memory-mapped if it is large enough to benefit
+     */
+    public static ExtractedStructure read(File file) throws IOException {
+        StructureBuilder builder = new StructureBuilder();
+        StructureFileReader.read(file, builder);
+        return builder.structure;
+    }
+
+    /**
+     * Read a structure from a stream. The stream is closed afterwards.
+     */
+    public static ExtractedStructure read(InputStream stream) throws IOException {
+        StructureBuilder builder = new StructureBuilder();
+        StructureFileReader.read(stream, builder);
+        return builder.structure;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Builds an ExtractedStructure from a file's parts
+     */
+    private static final class StructureBuilder implements StructureFileReader.Visitor {
+        private ExtractedStructure structure;
+        private int[] states;
+
+        @Override
+        public void header(String name, int sizeX, int sizeY, int sizeZ, int blockCount, List<String> palette)
+                throws IOException {
+            try {
+                structure = new ExtractedStructure(name, sizeX, sizeY, sizeZ);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            // Counted from the index stream, so only as large as the file's blocks
+            structure.ensureCapacity(blockCount);
+            states = new int[palette.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = structure.addState(palette.get(i));
+            }
+        }
+
+        @Override
+        public void block(int x, int y, int z, int state) {
+            structure.addBlock(x, y, z, states[state]);
+        }
+
+        @Override
+        public void metadata(String sourceWorld, String captureMode, String captureTime, String capturedBy,
+                             int originalX, int originalY, int originalZ) {
+            StructureMetadata metadata = structure.getMetadata();
+            metadata.setSourceWorld(sourceWorld);
+            metadata.setCaptureMode(captureMode);
+            metadata.setCaptureTime(captureTime);
+            metadata.setCapturedBy(capturedBy);
+            metadata.setOriginalX(originalX);
+            metadata.setOriginalY(originalY);
+            metadata.setOriginalZ(originalZ);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.aiextractor.export;
+
+import com.aibuild.placement.StructureFileReader;
+import com.aiextractor.models.ExtractedStructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Run-length index stream shared by the JSON and binary export formats.
+ * The stream covers a structure's volume in y-z-x order (x fastest) as pairs of unsigned
+ * varints: a run length, then 0 for cells without a block or the palette index + 1.
+ * Cells after the last run are empty.
+ */
+final class BlockIndices {
+
+    private BlockIndices() {
+    }
+
+    /**
+     * Receives the encoded stream in chunks that each end on a run boundary
+     */
+    interface ChunkSink {
+        void accept(byte[] bytes, int length) throws IOException;
+    }
+
+    /**
+     * Encode the blocks as runs over the volume in y-z-x order. Of several blocks at one
+     * position the last one added wins.
+     */
+    static byte[] encode(ExtractedStructure structure) {
+        VarIntBuffer all = new VarIntBuffer(structure.getBlockCount() * 2 + 16);
+        try {
+            encode(structure, Integer.MAX_VALUE, (bytes, length) -> all.write(bytes, length));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by an in-memory sink
+        }
+        return all.toByteArray();
+    }
+
+    /**
+     * Encode the blocks into chunks of about chunkBytes bytes, so the whole stream is never
+     * held in memory at once
+     */
+    static void encode(ExtractedStructure structure, int chunkBytes, ChunkSink sink) throws IOException {
+        int count = structure.getBlockCount();
+        int[] order = blocksByPosition(structure);
+
+        VarIntBuffer buffer = new VarIntBuffer(Math.min(chunkBytes, count * 2) + 16);
+        int cursor = 0;
+        int runValue = 0;
+        int runLength = 0;
+        for (int i = 0; i < count; i++) {
+            int block = order != null ? order[i] : i;
+            int position = structure.getBlockPosition(block);
+            if (i + 1 < count && structure.getBlockPosition(order != null ? order[i + 1] : i + 1) == position) {
+                continue;
+            }
+            int gap = position - cursor;
+            if (gap > 0) {
+                if (runValue == 0) {
+                    runLength += gap;
+                } else {
+                    buffer.writeRun(runLength, runValue);
+                    runValue = 0;
+                    runLength = gap;
+                }
+            }
+            int value = structure.getBlockState(block) + 1;
+            if (value == runValue) {
+                runLength++;
+            } else {
+                if (runLength > 0) {
+                    buffer.writeRun(runLength, runValue);
+                }
+                runValue = value;
+                runLength = 1;
+            }
+            cursor = position + 1;
+
+            if (buffer.size() >= chunkBytes) {
+                sink.accept(buffer.bytes(), buffer.size());
+                buffer.reset();
+            }
+        }
+        if (runLength > 0 && runValue != 0) {
+            buffer.writeRun(runLength, runValue); // Trailing empty cells are implied
+        }
+        if (buffer.size() > 0) {
+            sink.accept(buffer.bytes(), buffer.size());
+        }
+    }
+
+    /**
+     * Block indices sorted by position (stable, so the last of duplicates stays last),
+     * or null if the blocks are already in position order
+     */
+    private static int[] blocksByPosition(ExtractedStructure structure) {
+        int count = structure.getBlockCount();
+        boolean sorted = true;
+        for (int i = 1; i < count && sorted; i++) {
+            sorted = structure.getBlockPosition(i - 1) <= structure.getBlockPosition(i);
+        }
+        if (sorted) {
+            return null;
+        }
+
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) structure.getBlockPosition(i) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Adds the blocks of a stream that arrives in chunks ending on run boundaries.
+     * The runs are decoded by the shared .aistruct reader.
+     */
+    static final class Decoder {
+        private final StructureFileReader.IndexDecoder decoder;
+
+        Decoder(ExtractedStructure structure, List<String> palette) {
+            int[] states = new int[palette.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = structure.addState(palette.get(i));
+            }
+            this.decoder = new StructureFileReader.IndexDecoder(structure.getSizeX(), structure.getSizeY(),
+                structure.getSizeZ(), states.length, (x, y, z, state) -> structure.addBlock(x, y, z, states[state]));
+        }
+
+        /**
+         * @throws IllegalArgumentException if the chunk does not fit the structure or palette
+         */
+        void decode(byte[] data, int dataLength) {
+            decoder.decode(ByteBuffer.wrap(data, 0, dataLength));
+        }
+    }
+
+    /**
+     * Growable byte buffer of unsigned varints
+     */
+    static final class VarIntBuffer {
+        private byte[] bytes;
+        private int length;
+
+        VarIntBuffer(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void writeRun(int runLength, int value) {
+            writeVarInt(runLength);
+            writeVarInt(value);
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        void write(byte[] data, int dataLength) {
+            ensureCapacity(dataLength);
+            System.arraycopy(data, 0, bytes, length, dataLength);
+            length += dataLength;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return length;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
@@ -0,0 +1,658 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.models.ExtractedStructure.StructureMetadata;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent index of the export directory, so listing, lookup, stats and tab completion
+ * never walk the directory or parse an export.
+ * Entries are kept sorted by structure name in memory and written to a gzip'd snapshot
+ * (export-index.dat) along with each world directory's modification time. On load, only
+ * directories whose modification time changed since the snapshot (exports added or removed
+ * by hand, or a crash before the last save) are listed again and reconciled.
+ * Each entry also carries the export's {@link StructureHash}, so duplicates of an export
+ * can be found before they are written.
+ */
+public class ExportIndex {
+
+    public static final String FILE_NAME = "export-index.dat";
+
+    private static final int MAGIC = 0x41494458; // "AIDX"
+    private static final int VERSION = 2;
+    // Distinct block types kept per entry for the palette summary
+    private static final int SUMMARY_BLOCKS = 5;
+
+    private final File exportDirectory;
+    private final File indexFile;
+    private final Logger logger;
+    private final boolean rotationInvariant;
+    // Keyed by lower-case structure name, world and file name, so prefix queries are range scans
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    private final Map<File, Entry> entriesByFile = new ConcurrentHashMap<>();
+    // First file of each content hash, including exports still being written
+    private final Map<String, File> filesByHash = new ConcurrentHashMap<>();
+    private final Map<String, Integer> worldCounts = new HashMap<>();
+    private final Map<String, Long> directoryTimes = new ConcurrentHashMap<>();
+    private volatile long totalBytes;
+    private volatile int highestNumber;
+    private volatile boolean dirty;
+
+    /**
+     * @param rotationInvariant whether content hashes ignore rotation about the y axis
+     */
+    public ExportIndex(File exportDirectory, Logger logger, boolean rotationInvariant) {
+        this.exportDirectory = exportDirectory;
+        this.indexFile = new File(exportDirectory, FILE_NAME);
+        this.logger = logger;
+        this.rotationInvariant = rotationInvariant;
+    }
+
+    /**
+     * Load the snapshot, if there is one. Call {@link #reconcile()} afterwards to pick up
+     * changes the snapshot doesn't know about.
+     */
+    public void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(indexFile))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an export index");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported export index version " + version);
+            }
+
+            // Version 1 had no hashes; hashes of the other kind are no use either
+            boolean hashesValid = version >= 2 && in.readBoolean() == rotationInvariant;
+            int directories = in.readInt();
+            for (int i = 0; i < directories; i++) {
+                String world = in.readUTF();
+                directoryTimes.put(world, in.readLong());
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                add(Entry.read(in, version, exportDirectory, hashesValid));
+            }
+            dirty = false;
+            if (!hashesValid) {
+                // Reconcile every directory, which hashes the entries again
+                directoryTimes.clear();
+                logger.info("Export index has no matching content hashes, re-reading exports to hash them");
+            }
+        } catch (IOException e) {
+            // A damaged index is rebuilt from the directory
+            logger.warning("Could not read export index, rebuilding it: " + e.getMessage());
+            clear();
+        }
+    }
+
+    /**
+     * Bring the index in line with the export directory. Only directories modified since
+     * they were last indexed are listed; new files in them are read once to index them.
+     * @return the number of entries added or removed
+     */
+    public int reconcile() {
+        int changes = 0;
+        if (!exportDirectory.isDirectory()) {
+            return 0;
+        }
+        changes += reconcileDirectory("", exportDirectory);
+        File[] worldDirs = exportDirectory.listFiles(File::isDirectory);
+        Set<String> worlds = new HashSet<>();
+        if (worldDirs != null) {
+            for (File worldDir : worldDirs) {
+                worlds.add(worldDir.getName());
+                changes += reconcileDirectory(worldDir.getName(), worldDir);
+            }
+        }
+        // World directories that were deleted entirely
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            if (!entry.world.isEmpty() && !worlds.contains(entry.world) && !entry.file.exists()) {
+                remove(entry.file);
+                changes++;
+            }
+        }
+        directoryTimes.keySet().removeIf(world -> !world.isEmpty() && !worlds.contains(world));
+        return changes;
+    }
+
+    private int reconcileDirectory(String world, File directory) {
+        long modified = directory.lastModified();
+        Long indexed = directoryTimes.get(world);
+        if (indexed != null && indexed == modified) {
+            return 0;
+        }
+
+        int changes = 0;
+        String[] names = directory.list((dir, name) -> StructureExporter.isExportFile(name));
+        Set<String> present = new HashSet<>(names != null ? Arrays.asList(names) : Collections.emptyList());
+        for (String name : present) {
+            File file = new File(directory, name);
+            Entry entry = entriesByFile.get(file);
+            if (entry != null && entry.hash != null
+                    && entry.modified == file.lastModified() && entry.length == file.length()) {
+                continue;
+            }
+            try {
+                ExtractedStructure structure = StructureExporter.readExport(file);
+                add(Entry.of(file, world, structure, hashOf(structure), file.length(), file.lastModified()));
+                changes++;
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Could not index " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            // An export committed while listing is in the index but not the listing, so check the file
+            if (entry.world.equals(world) && !present.contains(entry.file.getName()) && !entry.file.exists()) {
+                remove(entry.file);
+                changes++;
+            }
+        }
+        directoryTimes.put(world, modified);
+        dirty = true;
+        return changes;
+    }
+
+    /**
+     * Add or replace the entry of a file
+     */
+    public synchronized void add(Entry entry) {
+        Entry previous = entriesByFile.put(entry.file, entry);
+        if (previous != null) {
+            entries.remove(previous.key());
+            untrack(previous);
+        }
+        entries.put(entry.key(), entry);
+        if (entry.hash != null) {
+            filesByHash.putIfAbsent(entry.hash, entry.file);
+        }
+        totalBytes += entry.length;
+        worldCounts.merge(entry.world, 1, Integer::sum);
+        highestNumber = Math.max(highestNumber, exportNumber(entry.name));
+        dirty = true;
+    }
+
+    /**
+     * Move a written export into place, then add its entry. Snapshots and reconciling never
+     * see the entry before its file exists, and a failed move leaves the index as it was.
+     */
+    public synchronized void commit(File tempFile, Entry entry) throws IOException {
+        Files.move(tempFile.toPath(), entry.file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        add(entry);
+    }
+
+    /**
+     * Remove the entry of a file, if indexed
+     */
+    public synchronized void remove(File file) {
+        Entry previous = entriesByFile.remove(file);
+        if (previous != null) {
+            entries.remove(previous.key());
+            untrack(previous);
+            dirty = true;
+        }
+    }
+
+    private void untrack(Entry entry) {
+        if (entry.hash != null) {
+            filesByHash.remove(entry.hash, entry.file);
+        }
+        totalBytes -= entry.length;
+        worldCounts.computeIfPresent(entry.world, (world, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private synchronized void clear() {
+        entries.clear();
+        entriesByFile.clear();
+        filesByHash.clear();
+        worldCounts.clear();
+        directoryTimes.clear();
+        totalBytes = 0;
+        highestNumber = 0;
+        dirty = true;
+    }
+
+    /**
+     * Write the snapshot atomically (temp file + rename), if anything changed since the last save
+     */
+    public void save() throws IOException {
+        // Writers take turns, so an older snapshot never replaces a newer one
+        synchronized (indexFile) {
+            saveSnapshot();
+        }
+    }
+
+    private void saveSnapshot() throws IOException {
+        List<Entry> snapshot;
+        Map<String, Long> times = new HashMap<>();
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            // Directory times first: an export renamed in after this point changes them again,
+            // so the next load reconciles its directory even if the entry missed the snapshot
+            for (String world : worldCounts.keySet()) {
+                directoryTimes.putIfAbsent(world, 0L);
+            }
+            for (String world : directoryTimes.keySet()) {
+                File directory = world.isEmpty() ? exportDirectory : new File(exportDirectory, world);
+                times.put(world, directory.lastModified());
+            }
+            snapshot = new ArrayList<>(entries.values());
+            dirty = false;
+        }
+
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeBoolean(rotationInvariant);
+                out.writeInt(times.size());
+                for (Map.Entry<String, Long> time : times.entrySet()) {
+                    out.writeUTF(time.getKey());
+                    out.writeLong(time.getValue());
+                }
+                out.writeInt(snapshot.size());
+                for (Entry entry : snapshot) {
+                    entry.write(out);
+                }
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * Content hash of a structure, of the kind this index keeps
+     */
+    public String hashOf(ExtractedStructure structure) {
+        return StructureHash.of(structure, rotationInvariant);
+    }
+
+    /**
+     * The export with a content hash, if any (it may still be being written). An indexed
+     * export whose file has been deleted since is dropped instead of returned.
+     */
+    public File findByHash(String hash) {
+        File file = filesByHash.get(hash);
+        if (file != null && isDeleted(file)) {
+            dropDeleted(hash, file);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Claim a content hash for an export about to be written
+     * @return null if the hash was free, else the file that has it
+     */
+    public File claimHash(String hash, File file) {
+        File existing;
+        while ((existing = filesByHash.putIfAbsent(hash, file)) != null && isDeleted(existing)) {
+            dropDeleted(hash, existing);
+        }
+        return existing;
+    }
+
+    /**
+     * Whether a file was indexed but is gone, as opposed to an export still being written
+     */
+    private boolean isDeleted(File file) {
+        return entriesByFile.containsKey(file) && !file.exists();
+    }
+
+    private void dropDeleted(String hash, File file) {
+        remove(file);
+        filesByHash.remove(hash, file);
+    }
+
+    /**
+     * Give up the claim on a hash of an export that was not written. The hash is kept if the
+     * file's current entry has it.
+     */
+    public synchronized void releaseHash(String hash, File file) {
+        Entry current = entriesByFile.get(file);
+        if (current == null || !hash.equals(current.hash)) {
+            filesByHash.remove(hash, file);
+        }
+    }
+
+    /**
+     * Find a structure by name, with or without its extension
+     */
+    public Entry find(String name) {
+        String lower = name.toLowerCase();
+        Map.Entry<String, Entry> match = entries.ceilingEntry(lower + '\0');
+        if (match != null && match.getKey().startsWith(lower + '\0')) {
+            return match.getValue();
+        }
+        // A file name: look up its structure name and match the file exactly
+        int dot = lower.lastIndexOf('.');
+        if (dot > 0) {
+            String base = lower.substring(0, dot) + '\0';
+            for (Entry entry : entries.subMap(base, base + Character.MAX_VALUE).values()) {
+                if (entry.file.getName().equalsIgnoreCase(name)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Entries whose structure name starts with a prefix, in name order
+     * @param limit the maximum number of entries to return
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        String lower = prefix.toLowerCase();
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries.subMap(lower, lower + Character.MAX_VALUE).values()) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    /**
+     * All entries in name order (a live view)
+     */
+    public Iterable<Entry> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    public int size() {
+        return entriesByFile.size();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getWorldCount() {
+        int worlds = worldCounts.size();
+        return worldCounts.containsKey("") ? worlds - 1 : worlds;
+    }
+
+    /**
+     * Highest number of the structure_NNN exports, to continue numbering
+     */
+    public int getHighestNumber() {
+        return highestNumber;
+    }
+
+    private static int exportNumber(String name) {
+        if (name == null || !name.startsWith("structure_")) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(name.substring(10));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * What the index knows about one export file
+     */
+    public static class Entry {
+        private final File file;
+        private final String world;
+        private final String name;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final int blockCount;
+        private final int paletteSize;
+        private final List<String> topBlocks;
+        private final String sourceWorld;
+        private final String captureMode;
+        private final String capturedBy;
+        private final String captureTime;
+        private final String hash;
+        private final long length;
+        private final long modified;
+
+        public Entry(File file, String world, String name, int sizeX, int sizeY, int sizeZ, int blockCount,
+                     int paletteSize, List<String> topBlocks, String sourceWorld, String captureMode,
+                     String capturedBy, String captureTime, String hash, long length, long modified) {
+            this.file = file;
+            this.world = world;
+            this.name = name;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.blockCount = blockCount;
+            this.paletteSize = paletteSize;
+            this.topBlocks = topBlocks;
+            this.sourceWorld = sourceWorld;
+            this.captureMode = captureMode;
+            this.capturedBy = capturedBy;
+            this.captureTime = captureTime;
+            this.hash = hash;
+            this.length = length;
+            this.modified = modified;
+        }
+
+        /**
+         * Describe an export file
+         * @param world the name of the file's world directory, empty for the export directory itself
+         * @param hash the structure's content hash
+         * @param length the size of the written file
+         * @param modified the modification time of the written file (a rename keeps it)
+         */
+        public static Entry of(File file, String world, ExtractedStructure structure, String hash,
+                               long length, long modified) {
+            StructureMetadata metadata = structure.getMetadata();
+            return new Entry(file, world, StructureExporter.getStructureName(file),
+                structure.getSizeX(), structure.getSizeY(), structure.getSizeZ(), structure.getBlockCount(),
+                structure.getPalette().size(), topBlocks(structure), metadata.getSourceWorld(),
+                metadata.getCaptureMode(), metadata.getCapturedBy(), metadata.getCaptureTime(),
+                hash, length, modified);
+        }
+
+        /**
+         * The most common block types of a structure, most common first
+         */
+        private static List<String> topBlocks(ExtractedStructure structure) {
+            List<String> palette = structure.getPalette();
+            int[] counts = new int[palette.size()];
+            for (int i = 0; i < structure.getBlockCount(); i++) {
+                counts[structure.getBlockState(i)]++;
+            }
+            Map<String, Integer> byBlock = new HashMap<>();
+            for (int state = 0; state < counts.length; state++) {
+                if (counts[state] > 0) {
+                    byBlock.merge(ExtractedStructure.blockIdOf(palette.get(state)), counts[state], Integer::sum);
+                }
+            }
+            List<Map.Entry<String, Integer>> sorted = new ArrayList<>(byBlock.entrySet());
+            sorted.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+            List<String> top = new ArrayList<>();
+            for (int i = 0; i < sorted.size() && i < SUMMARY_BLOCKS; i++) {
+                top.add(sorted.get(i).getKey());
+            }
+            return top;
+        }
+
+        String key() {
+            return name.toLowerCase() + '\0' + world + '\0' + file.getName();
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(world);
+            out.writeUTF(file.getName());
+            out.writeUTF(name);
+            out.writeInt(sizeX);
+            out.writeInt(sizeY);
+            out.writeInt(sizeZ);
+            out.writeInt(blockCount);
+            out.writeInt(paletteSize);
+            out.writeByte(topBlocks.size());
+            for (String block : topBlocks) {
+                out.writeUTF(block);
+            }
+            writeNullable(out, sourceWorld);
+            writeNullable(out, captureMode);
+            writeNullable(out, capturedBy);
+            writeNullable(out, captureTime);
+            writeNullable(out, hash);
+            out.writeLong(length);
+            out.writeLong(modified);
+        }
+
+        static Entry read(DataInputStream in, int version, File exportDirectory, boolean keepHash) throws IOException {
+            String world = in.readUTF();
+            String fileName = in.readUTF();
+            File file = new File(world.isEmpty() ? exportDirectory : new File(exportDirectory, world), fileName);
+            String name = in.readUTF();
+            int sizeX = in.readInt();
+            int sizeY = in.readInt();
+            int sizeZ = in.readInt();
+            int blockCount = in.readInt();
+            int paletteSize = in.readInt();
+            int topCount = in.readUnsignedByte();
+            List<String> topBlocks = new ArrayList<>(topCount);
+            for (int i = 0; i < topCount; i++) {
+                topBlocks.add(in.readUTF());
+            }
+            String sourceWorld = readNullable(in);
+            String captureMode = readNullable(in);
+            String capturedBy = readNullable(in);
+            String captureTime = readNullable(in);
+            String hash = version >= 2 ? readNullable(in) : null;
+            long length = in.readLong();
+            long modified = in.readLong();
+            return new Entry(file, world, name, sizeX, sizeY, sizeZ, blockCount, paletteSize, topBlocks,
+                sourceWorld, captureMode, capturedBy, captureTime, keepHash ? hash : null, length, modified);
+        }
+
+        private static void writeNullable(DataOutputStream out, String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+        }
+
+        private static String readNullable(DataInputStream in) throws IOException {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Name of the world directory the file is in, empty for the export directory itself
+         */
+        public String getWorld() {
+            return world;
+        }
+
+        /**
+         * Structure name: the file name without its extension
+         */
+        public String getName() {
+            return name;
+        }
+
+        public int getSizeX() {
+            return sizeX;
+        }
+
+        public int getSizeY() {
+            return sizeY;
+        }
+
+        public int getSizeZ() {
+            return sizeZ;
+        }
+
+        public int getBlockCount() {
+            return blockCount;
+        }
+
+        /**
+         * Number of distinct block states
+         */
+        public int getPaletteSize() {
+            return paletteSize;
+        }
+
+        /**
+         * Up to five most common block types, most common first
+         */
+        public List<String> getTopBlocks() {
+            return topBlocks;
+        }
+
+        public String getSourceWorld() {
+            return sourceWorld;
+        }
+
+        public String getCaptureMode() {
+            return captureMode;
+        }
+
+        public String getCapturedBy() {
+            return capturedBy;
+        }
+
+        public String getCaptureTime() {
+            return captureTime;
+        }
+
+        /**
+         * Content hash, null until the export has been hashed
+         */
+        public String getContentHash() {
+            return hash;
+        }
+
+        /**
+         * File size in bytes
+         */
+        public long getLength() {
+            return length;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+    }
+}
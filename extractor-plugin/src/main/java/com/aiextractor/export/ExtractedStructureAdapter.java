@@ -0,0 +1,343 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.models.ExtractedStructure.StructureMetadata;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes structures as JSON.
+ * Format 2 stores a palette of the distinct block states and the {@link BlockIndices}
+ * stream in base64, split into an array of strings when it is long. Both directions work
+ * on the stream: the index stream is encoded and decoded a chunk at a time.
+ * Files without a format field are format 1, with one object per block in "blocks". Both are
+ * read; which one is written is chosen per adapter, as older tools only read format 1.
+ */
+public class ExtractedStructureAdapter extends TypeAdapter<ExtractedStructure> {
+
+    public static final int FORMAT = 2;
+    // Index stream bytes per base64 string
+    private static final int INDEX_CHUNK_BYTES = 48 * 1024;
+
+    private final Gson metadataGson = new Gson();
+    private final boolean legacyLayout;
+
+    /**
+     * An adapter that writes format 2
+     */
+    public ExtractedStructureAdapter() {
+        this(false);
+    }
+
+    /**
+     * @param legacyLayout write format 1 (one object per block) instead of format 2
+     */
+    public ExtractedStructureAdapter(boolean legacyLayout) {
+        this.legacyLayout = legacyLayout;
+    }
+
+    @Override
+    public void write(JsonWriter out, ExtractedStructure structure) throws IOException {
+        if (structure == null) {
+            out.nullValue();
+            return;
+        }
+        if (legacyLayout) {
+            writeLegacy(out, structure);
+            return;
+        }
+        out.beginObject();
+        out.name("format").value(FORMAT);
+        out.name("name").value(structure.getName());
+        out.name("size").beginArray()
+            .value(structure.getSizeX()).value(structure.getSizeY()).value(structure.getSizeZ())
+            .endArray();
+        out.name("blockCount").value(structure.getBlockCount());
+        out.name("palette").beginArray();
+        for (String state : structure.getPalette()) {
+            out.value(state);
+        }
+        out.endArray();
+        out.name("indices");
+        writeIndices(out, structure);
+        out.name("metadata");
+        metadataGson.toJson(structure.getMetadata(), StructureMetadata.class, out);
+        out.endObject();
+    }
+
+    /**
+     * Format 1: no format field, every block as {"x", "y", "z", "block", "data"} with the
+     * complete block state as data
+     */
+    private void writeLegacy(JsonWriter out, ExtractedStructure structure) throws IOException {
+        out.beginObject();
+        out.name("name").value(structure.getName());
+        out.name("size").beginArray()
+            .value(structure.getSizeX()).value(structure.getSizeY()).value(structure.getSizeZ())
+            .endArray();
+        out.name("blocks").beginArray();
+        List<String> palette = structure.getPalette();
+        for (int block = 0; block < structure.getBlockCount(); block++) {
+            String state = palette.get(structure.getBlockState(block));
+            out.beginObject();
+            out.name("x").value(structure.getBlockX(block));
+            out.name("y").value(structure.getBlockY(block));
+            out.name("z").value(structure.getBlockZ(block));
+            out.name("block").value(ExtractedStructure.blockIdOf(state));
+            out.name("data").value(state);
+            out.endObject();
+        }
+        out.endArray();
+        out.name("metadata");
+        metadataGson.toJson(structure.getMetadata(), StructureMetadata.class, out);
+        out.endObject();
+    }
+
+    @Override
+    public ExtractedStructure read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        int format = 1;
+        String name = null;
+        int[] size = null;
+        List<String> palette = null;
+        ExtractedStructure structure = null;
+        // Index chunks that came before the size or palette, decoded once both are known
+        List<byte[]> pendingIndices = null;
+        List<ExtractedStructure.BlockEntry> legacyBlocks = null;
+        StructureMetadata metadata = null;
+
+        try {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "format":
+                        format = in.nextInt();
+                        break;
+                    case "name":
+                        name = nextStringOrNull(in);
+                        break;
+                    case "size":
+                        size = readSize(in);
+                        break;
+                    case "palette":
+                        palette = readPalette(in);
+                        break;
+                    case "indices":
+                        if (size != null && palette != null) {
+                            // Usual field order: decode each chunk as it is read
+                            structure = new ExtractedStructure(name, size[0], size[1], size[2]);
+                            BlockIndices.Decoder decoder = new BlockIndices.Decoder(structure, palette);
+                            readIndexChunks(in, chunk -> decoder.decode(chunk, chunk.length));
+                        } else {
+                            List<byte[]> chunks = new ArrayList<>();
+                            readIndexChunks(in, chunks::add);
+                            pendingIndices = chunks;
+                        }
+                        break;
+                    case "blocks":
+                        legacyBlocks = readLegacyBlocks(in);
+                        break;
+                    case "metadata":
+                        metadata = metadataGson.fromJson(in, StructureMetadata.class);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+
+            if (format > FORMAT) {
+                throw new JsonParseException("Unsupported structure format " + format);
+            }
+            if (size == null) {
+                size = legacyBlocks != null ? boundsOf(legacyBlocks) : new int[3];
+            }
+
+            if (structure == null) {
+                structure = new ExtractedStructure(name, size[0], size[1], size[2]);
+                if (pendingIndices != null && palette != null) {
+                    BlockIndices.Decoder decoder = new BlockIndices.Decoder(structure, palette);
+                    for (byte[] chunk : pendingIndices) {
+                        decoder.decode(chunk, chunk.length);
+                    }
+                } else if (legacyBlocks != null) {
+                    for (ExtractedStructure.BlockEntry entry : legacyBlocks) {
+                        if (entry.getX() < 0 || entry.getY() < 0 || entry.getZ() < 0 ||
+                            entry.getX() >= size[0] || entry.getY() >= size[1] || entry.getZ() >= size[2]) {
+                            throw new JsonParseException("Block at " + entry.getX() + "," + entry.getY() + "," +
+                                entry.getZ() + " is outside the structure size " + size[0] + "x" + size[1] + "x" + size[2]);
+                        }
+                        structure.addBlock(entry.getX(), entry.getY(), entry.getZ(), entry.getBlock(), entry.getData());
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+        structure.setName(name);
+        if (metadata != null) {
+            structure.setMetadata(metadata);
+        }
+        return structure;
+    }
+
+    /**
+     * Write the index stream as one base64 string, or as an array of base64 strings
+     * (each a whole number of runs) when it is longer than one chunk
+     */
+    private static void writeIndices(JsonWriter out, ExtractedStructure structure) throws IOException {
+        Base64.Encoder encoder = Base64.getEncoder();
+        String[] pending = {null};
+        boolean[] inArray = {false};
+        BlockIndices.encode(structure, INDEX_CHUNK_BYTES, (bytes, length) -> {
+            String chunk = encoder.encodeToString(Arrays.copyOf(bytes, length));
+            if (pending[0] != null) {
+                if (!inArray[0]) {
+                    out.beginArray();
+                    inArray[0] = true;
+                }
+                out.value(pending[0]);
+            }
+            pending[0] = chunk;
+        });
+        if (inArray[0]) {
+            out.value(pending[0]);
+            out.endArray();
+        } else {
+            out.value(pending[0] != null ? pending[0] : "");
+        }
+    }
+
+    private static void readIndexChunks(JsonReader in, Consumer<byte[]> chunks) throws IOException {
+        Base64.Decoder decoder = Base64.getDecoder();
+        if (in.peek() != JsonToken.BEGIN_ARRAY) {
+            chunks.accept(decoder.decode(in.nextString()));
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            chunks.accept(decoder.decode(in.nextString()));
+        }
+        in.endArray();
+    }
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Size as [x, y, z] or {"x": .., "y": .., "z": ..}
+     */
+    private static int[] readSize(JsonReader in) throws IOException {
+        int[] size = new int[3];
+        if (in.peek() == JsonToken.BEGIN_OBJECT) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "x":
+                        size[0] = in.nextInt();
+                        break;
+                    case "y":
+                        size[1] = in.nextInt();
+                        break;
+                    case "z":
+                        size[2] = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return size;
+        }
+        in.beginArray();
+        for (int i = 0; in.hasNext(); i++) {
+            int value = in.nextInt();
+            if (i < 3) {
+                size[i] = value;
+            }
+        }
+        in.endArray();
+        return size;
+    }
+
+    private static List<String> readPalette(JsonReader in) throws IOException {
+        List<String> palette = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            palette.add(in.nextString());
+        }
+        in.endArray();
+        return palette;
+    }
+
+    private static List<ExtractedStructure.BlockEntry> readLegacyBlocks(JsonReader in) throws IOException {
+        List<ExtractedStructure.BlockEntry> blocks = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            int x = 0, y = 0, z = 0;
+            String block = null;
+            String data = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "x":
+                        x = in.nextInt();
+                        break;
+                    case "y":
+                        y = in.nextInt();
+                        break;
+                    case "z":
+                        z = in.nextInt();
+                        break;
+                    case "block":
+                        block = nextStringOrNull(in);
+                        break;
+                    case "data":
+                        data = nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            if (block != null) {
+                blocks.add(new ExtractedStructure.BlockEntry(x, y, z, block, data));
+            }
+        }
+        in.endArray();
+        return blocks;
+    }
+
+    private static int[] boundsOf(List<ExtractedStructure.BlockEntry> blocks) {
+        int[] size = new int[3];
+        for (ExtractedStructure.BlockEntry entry : blocks) {
+            size[0] = Math.max(size[0], entry.getX() + 1);
+            size[1] = Math.max(size[1], entry.getY() + 1);
+            size[2] = Math.max(size[2], entry.getZ() + 1);
+        }
+        return size;
+    }
+}
@@ -2,79 +2,157 @@ package com.aiextractor.export;
 
 import com.aiextractor.StructureExtractorPlugin;
 import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.models.ExtractedStructure.StructureMetadata;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import org.bukkit.scheduler.BukkitRunnable;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import org.bukkit.configuration.file.FileConfiguration;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 /**
- * Exports structures to JSON files
+ * Exports structures to JSON or binary files
  */
 public class StructureExporter {
 
+    private static final long INDEX_SAVE_INTERVAL_MS = 30_000;
+    private static final Gson READER_GSON = new GsonBuilder()
+        .registerTypeAdapter(ExtractedStructure.class, new ExtractedStructureAdapter())
+        .create();
+
     private final StructureExtractorPlugin plugin;
+    private final File exportDirectory;
+    private final Supplier<FileConfiguration> config;
+    private final Logger logger;
     private final Gson gson;
     private final Gson gsonPretty;
+    private final Gson legacyGson;
+    private final Gson legacyGsonPretty;
     private final AtomicInteger exportCounter;
+    private final ExportIndex index;
+    private volatile long lastIndexSave = System.currentTimeMillis();
+    // Export pipeline: bounded pool and queue (plugin mode only), batched syncs
+    private final ThreadPoolExecutor exportPool;
+    private final int queueCapacity;
+    private final int fsyncBatchSize;
+    private final List<PendingExport> syncBatch = new ArrayList<>();
+    private final Map<String, File> worldDirectories = new ConcurrentHashMap<>();
+    private final Map<File, Set<String>> directoryNames = new ConcurrentHashMap<>();
+    // Throughput counters
+    private final AtomicLong exportsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong fsyncBatches = new AtomicLong();
+    private final AtomicLong fsyncNanos = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final File duplicateLog;
 
     public StructureExporter(StructureExtractorPlugin plugin) {
-        this.plugin = plugin;
-        this.gson = new Gson();
-        this.gsonPretty = new GsonBuilder().setPrettyPrinting().create();
-        this.exportCounter = new AtomicInteger(countExistingExports());
+        this(plugin, plugin.getExportDirectory(), plugin::getConfig, plugin.getLogger());
     }
 
     /**
-     * Count existing export files to continue numbering
+     * Create an exporter without a running plugin (offline tools).
+     * Only {@link #exportSync(ExtractedStructure)} is available in this mode.
      */
-    private int countExistingExports() {
-        File exportDir = plugin.getExportDirectory();
-        int maxNum = 0;
-        
-        if (exportDir.exists()) {
-            File[] worldDirs = exportDir.listFiles(File::isDirectory);
-            if (worldDirs != null) {
-                for (File worldDir : worldDirs) {
-                    File[] jsonFiles = worldDir.listFiles((dir, name) -> name.endsWith(".json"));
-                    if (jsonFiles != null) {
-                        for (File jsonFile : jsonFiles) {
-                            String name = jsonFile.getName();
-                            // Try to extract number from structure_XXX.json pattern
-                            if (name.startsWith("structure_")) {
-                                try {
-                                    String numPart = name.substring(10, name.length() - 5);
-                                    int num = Integer.parseInt(numPart);
-                                    maxNum = Math.max(maxNum, num);
-                                } catch (NumberFormatException ignored) {}
-                            }
-                        }
-                    }
-                }
-            }
+    public StructureExporter(File exportDirectory, FileConfiguration config, Logger logger) {
+        this(null, exportDirectory, () -> config, logger);
+    }
+
+    private StructureExporter(StructureExtractorPlugin plugin, File exportDirectory,
+                              Supplier<FileConfiguration> config, Logger logger) {
+        this.plugin = plugin;
+        this.exportDirectory = exportDirectory;
+        this.config = config;
+        this.logger = logger;
+        this.duplicateLog = new File(exportDirectory, "duplicates.csv");
+        this.gson = createGson(false, false);
+        this.gsonPretty = createGson(false, true);
+        this.legacyGson = createGson(true, false);
+        this.legacyGsonPretty = createGson(true, true);
+        this.index = new ExportIndex(exportDirectory, logger,
+            config.get().getBoolean("export.dedup.rotation-invariant", false));
+        index.load();
+        this.exportCounter = new AtomicInteger(index.getHighestNumber());
+
+        FileConfiguration settings = config.get();
+        this.queueCapacity = Math.max(1, settings.getInt("export.queue-size", 64));
+        this.fsyncBatchSize = settings.getInt("export.fsync-batch", 16);
+        if (plugin != null) {
+            int threads = Math.max(1, settings.getInt("export.threads", 2));
+            AtomicInteger threadCount = new AtomicInteger();
+            this.exportPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "StructureExporter-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            // Catching up on exports added by hand can mean reading many files, so not on the main thread
+            plugin.getAsyncExecutor().execute(this::reconcileIndex);
+        } else {
+            this.exportPool = null;
+            reconcileIndex();
+        }
+    }
+
+    private static Gson createGson(boolean legacyLayout, boolean pretty) {
+        GsonBuilder builder = new GsonBuilder()
+            .registerTypeAdapter(ExtractedStructure.class, new ExtractedStructureAdapter(legacyLayout))
+            .disableHtmlEscaping();
+        if (pretty) {
+            builder.setPrettyPrinting();
+        }
+        return builder.create();
+    }
+
+    private void reconcileIndex() {
+        int changes = index.reconcile();
+        exportCounter.accumulateAndGet(index.getHighestNumber(), Math::max);
+        if (changes > 0) {
+            logger.info("Export index updated with " + changes + " changed files, " + index.size() + " exports indexed");
+            saveIndex();
         }
-        
-        return maxNum;
     }
 
     /**
-     * Export a structure asynchronously
+     * Export a structure on the export pool. Completes once the file is in place (and synced,
+     * with batched fsync enabled), on an export thread. Fails without exporting if the queue
+     * is full.
      */
     public CompletableFuture<ExportResult> exportAsync(ExtractedStructure structure) {
         CompletableFuture<ExportResult> future = new CompletableFuture<>();
-        
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                ExportResult result = exportSync(structure);
-                future.complete(result);
-            }
-        }.runTaskAsynchronously(plugin);
-        
+        try {
+            exportPool.execute(() -> exportBatched(structure, future));
+        } catch (RejectedExecutionException e) {
+            future.complete(new ExportResult(false, null, 0, "Export queue is full"));
+        }
         return future;
     }
 
@@ -83,51 +161,379 @@ public class StructureExporter {
      */
     public ExportResult exportSync(ExtractedStructure structure) {
         try {
-            // Get world directory
-            String worldName = structure.getMetadata().getSourceWorld();
-            if (worldName == null) {
-                worldName = "unknown";
-            }
-            
-            File worldDir = new File(plugin.getExportDirectory(), sanitizeFileName(worldName));
-            if (!worldDir.exists()) {
-                worldDir.mkdirs();
+            PendingExport pending = write(structure);
+            if (pending.duplicateOf != null) {
+                return duplicateResult(pending);
             }
-            
-            // Generate filename
-            String fileName;
-            if (structure.getName() != null && !structure.getName().isEmpty() && 
-                !structure.getName().startsWith("structure_")) {
-                fileName = sanitizeFileName(structure.getName()) + ".json";
+            commit(pending);
+            saveIndexIfDue();
+            return new ExportResult(true, pending.outputFile, pending.entry.getBlockCount());
+        } catch (IOException | JsonIOException e) {
+            logger.severe("Failed to export structure: " + e.getMessage());
+            return new ExportResult(false, null, 0, e.getMessage());
+        }
+    }
+
+    /**
+     * Write a structure to its temp file on an export thread and add it to the sync batch.
+     * The batch is synced and renamed into place once it is full or the queue has run dry,
+     * so the last export of a burst never waits for more.
+     */
+    private void exportBatched(ExtractedStructure structure, CompletableFuture<ExportResult> future) {
+        PendingExport pending = null;
+        try {
+            pending = write(structure);
+            if (pending.duplicateOf != null) {
+                future.complete(duplicateResult(pending));
+                pending = null;
             } else {
-                int num = exportCounter.incrementAndGet();
-                fileName = String.format("structure_%03d.json", num);
-                structure.setName(String.format("structure_%03d", num));
+                pending.future = future;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.severe("Failed to export structure: " + e.getMessage());
+            future.complete(new ExportResult(false, null, 0, e.getMessage()));
+        }
+
+        // Even a failed export must flush the batch when it is the last one queued
+        List<PendingExport> ready = null;
+        synchronized (syncBatch) {
+            if (pending != null) {
+                syncBatch.add(pending);
             }
-            
-            File outputFile = new File(worldDir, fileName);
-            
-            // Avoid overwriting
-            int suffix = 1;
-            while (outputFile.exists()) {
-                String baseName = fileName.substring(0, fileName.length() - 5);
-                outputFile = new File(worldDir, baseName + "_" + suffix + ".json");
-                suffix++;
+            if (!syncBatch.isEmpty() && (fsyncBatchSize <= 0 || syncBatch.size() >= fsyncBatchSize
+                    || exportPool.getQueue().isEmpty())) {
+                ready = new ArrayList<>(syncBatch);
+                syncBatch.clear();
             }
-            
-            // Write JSON
-            boolean prettyPrint = plugin.getConfig().getBoolean("export.pretty-json", true);
-            String json = prettyPrint ? gsonPretty.toJson(structure) : gson.toJson(structure);
-            
-            try (FileWriter writer = new FileWriter(outputFile)) {
-                writer.write(json);
+        }
+        if (ready != null) {
+            commitBatch(ready, fsyncBatchSize > 0);
+        }
+    }
+
+    /**
+     * Pick the output file and write the structure to a temp file next to it, unless an
+     * identical structure was exported before (with deduplication on for its capture mode)
+     */
+    private PendingExport write(ExtractedStructure structure) throws IOException {
+        // Get world directory
+        String worldName = structure.getMetadata().getSourceWorld();
+        if (worldName == null) {
+            worldName = "unknown";
+        }
+        File worldDir = worldDirectory(worldName);
+        
+        FileConfiguration settings = config.get();
+        boolean dedup = settings.getBoolean("export.dedup.enabled", true)
+            && (isScanExport(structure) || settings.getBoolean("export.dedup.captures", false));
+        String hash = index.hashOf(structure);
+        File original = dedup ? index.findByHash(hash) : null;
+        if (original != null) {
+            return PendingExport.duplicate(original, structure);
+        }
+        boolean binary = "binary".equalsIgnoreCase(settings.getString("export.format", "json"));
+        String extension = binary ? BinaryStructureFormat.EXTENSION : ".json";
+        
+        // Generate filename
+        String baseName;
+        if (structure.getName() != null && !structure.getName().isEmpty() && 
+            !structure.getName().startsWith("structure_")) {
+            baseName = sanitizeFileName(structure.getName());
+        } else {
+            int num = exportCounter.incrementAndGet();
+            baseName = String.format("structure_%03d", num);
+            structure.setName(baseName);
+        }
+        
+        // Avoid overwriting: reserve a name no file in the directory has
+        Set<String> names = directoryNames.get(worldDir);
+        String fileName = baseName + extension;
+        for (int suffix = 1; !names.add(fileName); suffix++) {
+            fileName = baseName + "_" + suffix + extension;
+        }
+        File outputFile = new File(worldDir, fileName);
+        if (dedup) {
+            // An identical export may have started since the check above
+            original = index.claimHash(hash, outputFile);
+            if (original != null) {
+                names.remove(fileName);
+                return PendingExport.duplicate(original, structure);
             }
-            
-            return new ExportResult(true, outputFile, structure.getBlockCount());
-            
+        }
+        
+        // Write to a temp file and rename it later, so readers never see a partial export
+        File tempFile = new File(worldDir, fileName + ".tmp");
+        long start = System.nanoTime();
+        try {
+            if (binary) {
+                int compression = "none".equalsIgnoreCase(settings.getString("export.compression", "deflate"))
+                    ? BinaryStructureFormat.COMPRESSION_NONE
+                    : BinaryStructureFormat.COMPRESSION_DEFLATE;
+                BinaryStructureFormat.write(structure, tempFile, compression);
+            } else {
+                // Stream the JSON instead of building the whole document as a string
+                boolean pretty = settings.getBoolean("export.pretty-json", true);
+                Gson writerGson = "palette".equalsIgnoreCase(settings.getString("export.json-layout", "legacy"))
+                    ? (pretty ? gsonPretty : gson)
+                    : (pretty ? legacyGsonPretty : legacyGson);
+                try (JsonWriter writer = writerGson.newJsonWriter(new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)))) {
+                    writerGson.toJson(structure, ExtractedStructure.class, writer);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            names.remove(fileName);
+            index.releaseHash(hash, outputFile);
+            // The directory may have been removed under us; create it again next time
+            worldDirectories.remove(worldName);
+            throw e;
+        }
+        writeNanos.addAndGet(System.nanoTime() - start);
+        bytesWritten.addAndGet(tempFile.length());
+        ExportIndex.Entry entry = ExportIndex.Entry.of(outputFile, worldDir.getName(), structure, hash,
+            tempFile.length(), tempFile.lastModified());
+        return new PendingExport(tempFile, outputFile, entry);
+    }
+
+    /**
+     * Whether a structure was found by an auto or offline scan rather than captured by a player
+     */
+    private static boolean isScanExport(ExtractedStructure structure) {
+        String mode = structure.getMetadata().getCaptureMode();
+        return "auto-scan".equals(mode) || "offline-scan".equals(mode);
+    }
+
+    /**
+     * Result for a structure identical to an existing export. With export.dedup.mode
+     * "reference" the duplicate's origin is added to duplicates.csv in the export directory.
+     */
+    private ExportResult duplicateResult(PendingExport pending) {
+        duplicatesSkipped.incrementAndGet();
+        ExtractedStructure structure = pending.structure;
+        if ("reference".equalsIgnoreCase(config.get().getString("export.dedup.mode", "reference"))) {
+            StructureMetadata metadata = structure.getMetadata();
+            String line = String.join(",", csv(metadata.getCaptureTime()), csv(relativePath(pending.duplicateOf)),
+                csv(metadata.getSourceWorld()), String.valueOf(metadata.getOriginalX()),
+                String.valueOf(metadata.getOriginalY()), String.valueOf(metadata.getOriginalZ()),
+                csv(metadata.getCaptureMode()), csv(structure.getName()));
+            synchronized (duplicateLog) {
+                boolean header = !duplicateLog.exists();
+                try (Writer writer = new OutputStreamWriter(new FileOutputStream(duplicateLog, true), StandardCharsets.UTF_8)) {
+                    if (header) {
+                        writer.write("capture_time,duplicate_of,world,x,y,z,capture_mode,name\n");
+                    }
+                    writer.write(line + "\n");
+                } catch (IOException e) {
+                    logger.warning("Failed to record duplicate export: " + e.getMessage());
+                }
+            }
+        }
+        return new ExportResult(true, pending.duplicateOf, structure.getBlockCount(), null, true);
+    }
+
+    private String relativePath(File file) {
+        return exportDirectory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    /**
+     * Move a written export into place and index it. If the move fails, the file's previous
+     * entry (if any) stays and the content hash is given up.
+     */
+    private void commit(PendingExport pending) throws IOException {
+        try {
+            index.commit(pending.tempFile, pending.entry);
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to export structure: " + e.getMessage());
-            return new ExportResult(false, null, 0, e.getMessage());
+            index.releaseHash(pending.entry.getContentHash(), pending.outputFile);
+            throw e;
+        } finally {
+            Files.deleteIfExists(pending.tempFile.toPath());
+        }
+        exportsWritten.incrementAndGet();
+    }
+
+    /**
+     * Save the index now and then while exporting; it is saved for good on shutdown
+     */
+    private void saveIndexIfDue() {
+        if (System.currentTimeMillis() - lastIndexSave >= INDEX_SAVE_INTERVAL_MS) {
+            saveIndex();
+        }
+    }
+
+    private void saveIndex() {
+        lastIndexSave = System.currentTimeMillis();
+        try {
+            index.save();
+        } catch (IOException e) {
+            logger.warning("Failed to save export index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sync a batch of written exports to disk, move them into place, sync their directories
+     * so the renames are durable, and complete their futures
+     */
+    private void commitBatch(List<PendingExport> batch, boolean fsync) {
+        long start = System.nanoTime();
+        Set<File> directories = new HashSet<>();
+        for (PendingExport pending : batch) {
+            try {
+                if (fsync) {
+                    try (FileChannel channel = FileChannel.open(pending.tempFile.toPath(), StandardOpenOption.WRITE)) {
+                        channel.force(true);
+                    }
+                }
+                commit(pending);
+                directories.add(pending.outputFile.getParentFile());
+                pending.future.complete(new ExportResult(true, pending.outputFile, pending.entry.getBlockCount()));
+            } catch (IOException e) {
+                logger.severe("Failed to export structure: " + e.getMessage());
+                pending.future.complete(new ExportResult(false, null, 0, e.getMessage()));
+            }
+        }
+        if (fsync) {
+            for (File directory : directories) {
+                try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+                    channel.force(true);
+                } catch (IOException ignored) {
+                    // Not every platform can sync a directory
+                }
+            }
+            fsyncBatches.incrementAndGet();
+            fsyncNanos.addAndGet(System.nanoTime() - start);
+        }
+        saveIndexIfDue();
+    }
+
+    /**
+     * The export directory of a world, created on first use. Also loads the names of the
+     * files already in it, so picking a free name needs no file system probing.
+     */
+    private File worldDirectory(String worldName) {
+        return worldDirectories.computeIfAbsent(worldName, name -> {
+            File worldDir = new File(exportDirectory, sanitizeFileName(name));
+            if (!worldDir.exists()) {
+                worldDir.mkdirs();
+            }
+            directoryNames.computeIfAbsent(worldDir, dir -> {
+                Set<String> names = ConcurrentHashMap.newKeySet();
+                String[] existing = dir.list();
+                if (existing != null) {
+                    names.addAll(Arrays.asList(existing));
+                }
+                return names;
+            });
+            return worldDir;
+        });
+    }
+
+    /**
+     * Whether the scanner should hold off extracting more structures: it may fill the export
+     * queue up to a reserve kept free for player captures
+     */
+    public boolean isBacklogged(int scanExportsInFlight) {
+        return scanExportsInFlight >= queueCapacity - Math.max(1, queueCapacity / 4);
+    }
+
+    /**
+     * Wait for queued exports to finish, stop the export threads and save the index
+     */
+    public void shutdown() {
+        if (exportPool != null) {
+            exportPool.shutdown();
+            try {
+                if (!exportPool.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warning("Export queue did not drain in time, " + exportPool.shutdownNow().size() + " exports dropped");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        saveIndex();
+    }
+
+    /**
+     * Index of the exports on disk, for listing and lookup without touching the directory
+     */
+    public ExportIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Queue and throughput counters of the export pipeline
+     */
+    public PipelineStats getPipelineStats() {
+        int queued = exportPool != null ? exportPool.getQueue().size() : 0;
+        int active = exportPool != null ? exportPool.getActiveCount() : 0;
+        return new PipelineStats(queued, active, queueCapacity, exportsWritten.get(), bytesWritten.get(),
+            writeNanos.get(), fsyncBatches.get(), fsyncNanos.get(), duplicatesSkipped.get());
+    }
+
+    /**
+     * An export written to its temp file, waiting to be moved into place
+     */
+    private static class PendingExport {
+        final File tempFile;
+        final File outputFile;
+        final ExportIndex.Entry entry;
+        // Set instead of the above for a structure identical to an existing export
+        File duplicateOf;
+        ExtractedStructure structure;
+        CompletableFuture<ExportResult> future;
+
+        PendingExport(File tempFile, File outputFile, ExportIndex.Entry entry) {
+            this.tempFile = tempFile;
+            this.outputFile = outputFile;
+            this.entry = entry;
+        }
+
+        static PendingExport duplicate(File original, ExtractedStructure structure) {
+            PendingExport pending = new PendingExport(null, null, null);
+            pending.duplicateOf = original;
+            pending.structure = structure;
+            return pending;
+        }
+    }
+
+    /**
+     * Whether a file name is a structure export (JSON or binary)
+     */
+    public static boolean isExportFile(String name) {
+        return name.endsWith(".json") || name.endsWith(BinaryStructureFormat.EXTENSION);
+    }
+
+    /**
+     * File name of an export without its extension
+     */
+    public static String getStructureName(File file) {
+        String name = file.getName();
+        if (BinaryStructureFormat.isBinaryFile(file)) {
+            return name.substring(0, name.length() - BinaryStructureFormat.EXTENSION.length());
+        }
+        return name.endsWith(".json") ? name.substring(0, name.length() - 5) : name;
+    }
+
+    /**
+     * Read an export file (binary, palette-encoded JSON or legacy JSON)
+     */
+    public static ExtractedStructure readExport(File file) throws IOException {
+        if (BinaryStructureFormat.isBinaryFile(file)) {
+            return BinaryStructureFormat.read(file);
+        }
+        try (FileReader reader = new FileReader(file, StandardCharsets.UTF_8)) {
+            ExtractedStructure structure = READER_GSON.fromJson(reader, ExtractedStructure.class);
+            if (structure == null) {
+                throw new IOException("Empty structure file");
+            }
+            return structure;
         }
     }
 
@@ -144,28 +550,7 @@ public class StructureExporter {
      * Get export statistics
      */
     public ExportStats getStats() {
-        File exportDir = plugin.getExportDirectory();
-        int totalFiles = 0;
-        long totalSize = 0;
-        int worldCount = 0;
-        
-        if (exportDir.exists()) {
-            File[] worldDirs = exportDir.listFiles(File::isDirectory);
-            if (worldDirs != null) {
-                worldCount = worldDirs.length;
-                for (File worldDir : worldDirs) {
-                    File[] jsonFiles = worldDir.listFiles((dir, name) -> name.endsWith(".json"));
-                    if (jsonFiles != null) {
-                        totalFiles += jsonFiles.length;
-                        for (File f : jsonFiles) {
-                            totalSize += f.length();
-                        }
-                    }
-                }
-            }
-        }
-        
-        return new ExportStats(totalFiles, totalSize, worldCount);
+        return new ExportStats(index.size(), index.getTotalBytes(), index.getWorldCount());
     }
 
     /**
@@ -176,19 +561,22 @@ public class StructureExporter {
         private final File outputFile;
         private final int blockCount;
         private final String error;
+        private final boolean duplicate;
 
         public ExportResult(boolean success, File outputFile, int blockCount) {
-            this.success = success;
-            this.outputFile = outputFile;
-            this.blockCount = blockCount;
-            this.error = null;
+            this(success, outputFile, blockCount, null, false);
         }
 
         public ExportResult(boolean success, File outputFile, int blockCount, String error) {
+            this(success, outputFile, blockCount, error, false);
+        }
+
+        public ExportResult(boolean success, File outputFile, int blockCount, String error, boolean duplicate) {
             this.success = success;
             this.outputFile = outputFile;
             this.blockCount = blockCount;
             this.error = error;
+            this.duplicate = duplicate;
         }
 
         public boolean isSuccess() {
@@ -206,6 +594,91 @@ public class StructureExporter {
         public String getError() {
             return error;
         }
+
+        /**
+         * Whether the structure was identical to an existing export, the output file, and not written
+         */
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+    }
+
+    /**
+     * Export pipeline statistics since the plugin started
+     */
+    public static class PipelineStats {
+        private final int queued;
+        private final int active;
+        private final int capacity;
+        private final long exports;
+        private final long bytes;
+        private final long writeNanos;
+        private final long fsyncBatches;
+        private final long fsyncNanos;
+        private final long duplicates;
+
+        public PipelineStats(int queued, int active, int capacity, long exports, long bytes,
+                             long writeNanos, long fsyncBatches, long fsyncNanos, long duplicates) {
+            this.queued = queued;
+            this.active = active;
+            this.capacity = capacity;
+            this.exports = exports;
+            this.bytes = bytes;
+            this.writeNanos = writeNanos;
+            this.fsyncBatches = fsyncBatches;
+            this.fsyncNanos = fsyncNanos;
+            this.duplicates = duplicates;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getExports() {
+            return exports;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Average time to encode and write one export, excluding syncs
+         */
+        public double getAverageWriteMillis() {
+            return exports > 0 ? writeNanos / 1_000_000.0 / exports : 0;
+        }
+
+        public long getFsyncBatches() {
+            return fsyncBatches;
+        }
+
+        public double getAverageFsyncMillis() {
+            return fsyncBatches > 0 ? fsyncNanos / 1_000_000.0 / fsyncBatches : 0;
+        }
+
+        /**
+         * Structures not written because they were identical to an existing export
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Exports per minute of busy write time, an estimate of what the disk sustains
+         */
+        public double getExportsPerMinute() {
+            long busy = writeNanos + fsyncNanos;
+            return busy > 0 ? exports * 60_000_000_000.0 / busy : 0;
+        }
     }
 
     /**
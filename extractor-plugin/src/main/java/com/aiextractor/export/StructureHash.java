@@ -0,0 +1,252 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Canonical content hash of a structure, used to recognize exports of identical builds.
+ * The hash covers the blocks trimmed to their bounds (so empty margins of the capture box
+ * don't matter), a palette of the block states actually used in sorted order (so the order
+ * blocks were extracted in doesn't matter) and the blocks in y-z-x order. The rotation-
+ * invariant variant hashes all four rotations about the y axis, with facing, axis, rotation,
+ * side connection and rail shape properties turned along, and keeps the smallest hash.
+ * Mirrored builds hash differently.
+ */
+public final class StructureHash {
+
+    private static final String[] DIRECTIONS = {"north", "east", "south", "west"};
+    // Rail shapes a quarter turn clockwise
+    private static final Map<String, String> RAIL_SHAPES = new HashMap<>();
+
+    static {
+        String[][] turns = {
+            {"north_south", "east_west"}, {"east_west", "north_south"},
+            {"ascending_north", "ascending_east"}, {"ascending_east", "ascending_south"},
+            {"ascending_south", "ascending_west"}, {"ascending_west", "ascending_north"},
+            {"north_east", "south_east"}, {"south_east", "south_west"},
+            {"south_west", "north_west"}, {"north_west", "north_east"}
+        };
+        for (String[] turn : turns) {
+            RAIL_SHAPES.put(turn[0], turn[1]);
+        }
+    }
+
+    private StructureHash() {
+    }
+
+    /**
+     * Hash a structure
+     * @param rotationInvariant whether rotated copies of a build hash the same
+     * @return 32 hex digits (128 bits of SHA-256)
+     */
+    public static String of(ExtractedStructure structure, boolean rotationInvariant) {
+        int count = structure.getBlockCount();
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = -1, maxY = -1, maxZ = -1;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, structure.getBlockX(i));
+            minY = Math.min(minY, structure.getBlockY(i));
+            minZ = Math.min(minZ, structure.getBlockZ(i));
+            maxX = Math.max(maxX, structure.getBlockX(i));
+            maxY = Math.max(maxY, structure.getBlockY(i));
+            maxZ = Math.max(maxZ, structure.getBlockZ(i));
+        }
+        int[] bounds = count > 0
+            ? new int[]{minX, minY, minZ, maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1}
+            : new int[6];
+
+        byte[] best = null;
+        for (int turns = 0; turns < (rotationInvariant ? 4 : 1); turns++) {
+            byte[] digest = digest(structure, bounds, turns);
+            if (best == null || Arrays.compareUnsigned(digest, best) < 0) {
+                best = digest;
+            }
+        }
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            hex.append(Character.forDigit((best[i] >> 4) & 0xF, 16)).append(Character.forDigit(best[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * SHA-256 of the structure turned clockwise (seen from above) a number of quarter turns
+     */
+    private static byte[] digest(ExtractedStructure structure, int[] bounds, int turns) {
+        int count = structure.getBlockCount();
+        List<String> palette = structure.getPalette();
+        boolean odd = (turns & 1) == 1;
+        long sizeX = odd ? bounds[5] : bounds[3];
+        long sizeY = bounds[4];
+        long sizeZ = odd ? bounds[3] : bounds[5];
+
+        // Sort blocks by their turned position; the index breaks ties so the last block added wins
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int x = structure.getBlockX(i) - bounds[0];
+            int z = structure.getBlockZ(i) - bounds[2];
+            for (int turn = 0; turn < turns; turn++) {
+                int width = (turn & 1) == 0 ? bounds[5] : bounds[3]; // Depth along z before this turn
+                int turnedX = width - 1 - z;
+                z = x;
+                x = turnedX;
+            }
+            long position = ((structure.getBlockY(i) - bounds[1]) * sizeZ + z) * sizeX + x;
+            keys[i] = (position << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        // Canonical palette: the turned states in use, sorted
+        String[] turnedStates = new String[palette.size()];
+        TreeSet<String> used = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            int state = structure.getBlockState(i);
+            if (turnedStates[state] == null) {
+                turnedStates[state] = rotateState(palette.get(state), turns);
+                used.add(turnedStates[state]);
+            }
+        }
+        Map<String, Integer> canonical = new HashMap<>();
+        for (String state : used) {
+            canonical.put(state, canonical.size());
+        }
+
+        MessageDigest digest = sha256();
+        Feed feed = new Feed(digest);
+        feed.varLong(sizeX);
+        feed.varLong(sizeY);
+        feed.varLong(sizeZ);
+        feed.varLong(used.size());
+        for (String state : used) {
+            byte[] bytes = state.getBytes(StandardCharsets.UTF_8);
+            feed.varLong(bytes.length);
+            feed.bytes(bytes);
+        }
+        long previous = -1;
+        for (int i = 0; i < count; i++) {
+            long position = keys[i] >>> 32;
+            if (i + 1 < count && keys[i + 1] >>> 32 == position) {
+                continue;
+            }
+            int block = (int) keys[i];
+            feed.varLong(position - previous);
+            feed.varLong(canonical.get(turnedStates[structure.getBlockState(block)]));
+            previous = position;
+        }
+        feed.flush();
+        return digest.digest();
+    }
+
+    /**
+     * Turn a block state's directional properties clockwise a number of quarter turns
+     */
+    static String rotateState(String state, int turns) {
+        int open = state.indexOf('[');
+        if (turns == 0 || open < 0 || !state.endsWith("]")) {
+            return state;
+        }
+        Map<String, String> properties = new TreeMap<>();
+        for (String property : state.substring(open + 1, state.length() - 1).split(",")) {
+            int equals = property.indexOf('=');
+            if (equals < 0) {
+                return state;
+            }
+            String key = property.substring(0, equals);
+            String value = property.substring(equals + 1);
+            for (int turn = 0; turn < turns; turn++) {
+                switch (key) {
+                    case "facing":
+                        value = turnDirection(value);
+                        break;
+                    case "axis":
+                        value = value.equals("x") ? "z" : value.equals("z") ? "x" : value;
+                        break;
+                    case "rotation":
+                        try {
+                            value = String.valueOf((Integer.parseInt(value) + 4) % 16);
+                        } catch (NumberFormatException ignored) {
+                        }
+                        break;
+                    case "shape":
+                        value = RAIL_SHAPES.getOrDefault(value, value);
+                        break;
+                    default:
+                        // Fence, wall, pane and redstone connections are keyed by side
+                        key = turnDirection(key);
+                        break;
+                }
+            }
+            properties.put(key, value);
+        }
+        StringBuilder rotated = new StringBuilder(state.length()).append(state, 0, open + 1);
+        boolean first = true;
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            if (!first) {
+                rotated.append(',');
+            }
+            rotated.append(property.getKey()).append('=').append(property.getValue());
+            first = false;
+        }
+        return rotated.append(']').toString();
+    }
+
+    private static String turnDirection(String value) {
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            if (DIRECTIONS[i].equals(value)) {
+                return DIRECTIONS[(i + 1) % 4];
+            }
+        }
+        return value;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e); // Required of every JVM
+        }
+    }
+
+    /**
+     * Buffers varints on their way into the digest
+     */
+    private static final class Feed {
+        private final MessageDigest digest;
+        private final byte[] buffer = new byte[8192];
+        private int length;
+
+        Feed(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        void varLong(long value) {
+            if (length + 10 > buffer.length) {
+                flush();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes) {
+            flush();
+            digest.update(bytes);
+        }
+
+        void flush() {
+            digest.update(buffer, 0, length);
+            length = 0;
+        }
+    }
+}
@@ -11,9 +11,22 @@ public class BoundingBox {
     private int minX, minY, minZ;
     private int maxX, maxY, maxZ;
     private World world;
+    private String worldName;
     
     public BoundingBox(World world, int x1, int y1, int z1, int x2, int y2, int z2) {
+        this(world, world != null ? world.getName() : null, x1, y1, z1, x2, y2, z2);
+    }
+    
+    /**
+     * Create a bounding box in a world that is not loaded on this server (offline region files)
+     */
+    public BoundingBox(String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+        this(null, worldName, x1, y1, z1, x2, y2, z2);
+    }
+    
+    private BoundingBox(World world, String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
         this.world = world;
+        this.worldName = worldName;
         this.minX = Math.min(x1, x2);
         this.minY = Math.min(y1, y2);
         this.minZ = Math.min(z1, z2);
@@ -27,6 +40,7 @@ public class BoundingBox {
             throw new IllegalArgumentException("Locations must be in the same world");
         }
         this.world = loc1.getWorld();
+        this.worldName = world.getName();
         this.minX = Math.min(loc1.getBlockX(), loc2.getBlockX());
         this.minY = Math.min(loc1.getBlockY(), loc2.getBlockY());
         this.minZ = Math.min(loc1.getBlockZ(), loc2.getBlockZ());
@@ -40,6 +54,7 @@ public class BoundingBox {
      */
     public BoundingBox(Location loc) {
         this.world = loc.getWorld();
+        this.worldName = world != null ? world.getName() : null;
         this.minX = loc.getBlockX();
         this.minY = loc.getBlockY();
         this.minZ = loc.getBlockZ();
@@ -138,10 +153,17 @@ public class BoundingBox {
         return maxZ;
     }
     
+    /**
+     * The live world of this box, or null for boxes in offline region files
+     */
     public World getWorld() {
         return world;
     }
     
+    public String getWorldName() {
+        return worldName;
+    }
+    
     public Location getMinLocation() {
         return new Location(world, minX, minY, minZ);
     }
@@ -1,31 +1,129 @@
 package com.aiextractor.models;
 
+import com.aibuild.placement.VoxelSource;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Represents an extracted structure with all its block data
+ * Represents an extracted structure with all its block data.
+ * Blocks are stored palette-encoded: each distinct block state is kept once in the palette,
+ * and every block is just its position and an index into that palette.
  */
-public class ExtractedStructure {
+public class ExtractedStructure implements VoxelSource {
     
     private String name;
     private int[] size; // [x, y, z]
-    private List<BlockEntry> blocks;
+    // Distinct block states, e.g. "minecraft:oak_door[facing=north,half=lower,hinge=left,open=false,powered=false]"
+    private final List<String> palette;
+    private final Map<String, Integer> paletteIndex;
+    // Per block: position as (y * sizeZ + z) * sizeX + x, and palette index
+    private int[] positions;
+    private int[] states;
+    private int blockCount;
     private StructureMetadata metadata;
     
     public ExtractedStructure(String name, int sizeX, int sizeY, int sizeZ) {
+        if ((long) sizeX * sizeY * sizeZ > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Structure too large: " + sizeX + "x" + sizeY + "x" + sizeZ);
+        }
         this.name = name;
         this.size = new int[]{sizeX, sizeY, sizeZ};
-        this.blocks = new ArrayList<>();
+        this.palette = new ArrayList<>();
+        this.paletteIndex = new HashMap<>();
+        this.positions = new int[16];
+        this.states = new int[16];
         this.metadata = new StructureMetadata();
     }
     
-    public void addBlock(int x, int y, int z, String blockId) {
-        blocks.add(new BlockEntry(x, y, z, blockId));
+    /**
+     * Add a block by its complete block state (or a bare block id)
+     */
+    public void addBlock(int x, int y, int z, String state) {
+        addBlock(x, y, z, addState(state));
     }
     
+    /**
+     * Add a block in the legacy id + data form. The data may be a complete block state,
+     * bracketed properties ("[facing=east]") or bare properties ("facing=east").
+     */
     public void addBlock(int x, int y, int z, String blockId, String blockData) {
-        blocks.add(new BlockEntry(x, y, z, blockId, blockData));
+        addBlock(x, y, z, addState(toState(blockId, blockData)));
+    }
+    
+    /**
+     * Make room for a number of blocks up front, e.g. when the count is known from a file
+     */
+    public void ensureCapacity(int blocks) {
+        if (blocks > positions.length) {
+            positions = Arrays.copyOf(positions, blocks);
+            states = Arrays.copyOf(states, blocks);
+        }
+    }
+    
+    /**
+     * Add a block whose state is already in the palette
+     * @param state index returned by {@link #addState(String)}
+     * @throws IllegalArgumentException if the position is outside the structure's size or the
+     *         state is not in the palette
+     */
+    public void addBlock(int x, int y, int z, int state) {
+        if (x < 0 || y < 0 || z < 0 || x >= size[0] || y >= size[1] || z >= size[2]) {
+            throw new IllegalArgumentException("Block at " + x + "," + y + "," + z + " is outside the structure size " +
+                size[0] + "x" + size[1] + "x" + size[2]);
+        }
+        if (state < 0 || state >= palette.size()) {
+            throw new IllegalArgumentException("Block state " + state + " is not in the palette");
+        }
+        if (blockCount == positions.length) {
+            positions = Arrays.copyOf(positions, blockCount * 2);
+            states = Arrays.copyOf(states, blockCount * 2);
+        }
+        positions[blockCount] = (y * size[2] + z) * size[0] + x;
+        states[blockCount] = state;
+        blockCount++;
+    }
+    
+    /**
+     * Palette index of a block state, adding it to the palette on first use
+     */
+    public int addState(String state) {
+        Integer index = paletteIndex.get(state);
+        if (index == null) {
+            index = palette.size();
+            palette.add(state);
+            paletteIndex.put(state, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Complete block state for a legacy block id + data pair
+     */
+    static String toState(String blockId, String blockData) {
+        if (blockData == null || blockData.isEmpty()) {
+            return blockId;
+        }
+        if (blockData.startsWith("[")) {
+            return blockId + blockData;
+        }
+        if (blockData.indexOf(':') >= 0) {
+            return blockData; // Already complete, property values never contain a namespace
+        }
+        return blockId + "[" + blockData + "]";
+    }
+    
+    /**
+     * Block id of a block state ("minecraft:oak_door" for "minecraft:oak_door[facing=north]")
+     */
+    public static String blockIdOf(String state) {
+        int bracket = state.indexOf('[');
+        return bracket >= 0 ? state.substring(0, bracket) : state;
     }
     
     // Getters and setters
@@ -41,20 +139,79 @@ public class ExtractedStructure {
         return size;
     }
     
+    @Override
     public int getSizeX() {
         return size[0];
     }
     
+    @Override
     public int getSizeY() {
         return size[1];
     }
     
+    @Override
     public int getSizeZ() {
         return size[2];
     }
     
+    /**
+     * Distinct block states of this structure (read-only)
+     */
+    @Override
+    public List<String> getPalette() {
+        return Collections.unmodifiableList(palette);
+    }
+    
+    @Override
+    public int getBlockX(int block) {
+        return positions[block] % size[0];
+    }
+    
+    @Override
+    public int getBlockY(int block) {
+        return positions[block] / size[0] / size[2];
+    }
+    
+    @Override
+    public int getBlockZ(int block) {
+        return positions[block] / size[0] % size[2];
+    }
+    
+    /**
+     * Position of a block as (y * sizeZ + z) * sizeX + x
+     */
+    public int getBlockPosition(int block) {
+        return positions[block];
+    }
+    
+    /**
+     * Palette index of a block's state
+     */
+    @Override
+    public int getBlockState(int block) {
+        return states[block];
+    }
+    
+    /**
+     * Read-only view of the blocks. Entries are created on access and share the palette's
+     * strings; prefer the indexed getters for large structures.
+     */
     public List<BlockEntry> getBlocks() {
-        return blocks;
+        return new AbstractList<BlockEntry>() {
+            @Override
+            public BlockEntry get(int block) {
+                if (block < 0 || block >= blockCount) {
+                    throw new IndexOutOfBoundsException("Block " + block + " of " + blockCount);
+                }
+                String state = palette.get(states[block]);
+                return new BlockEntry(getBlockX(block), getBlockY(block), getBlockZ(block), blockIdOf(state), state);
+            }
+            
+            @Override
+            public int size() {
+                return blockCount;
+            }
+        };
     }
     
     public StructureMetadata getMetadata() {
@@ -65,8 +222,9 @@ public class ExtractedStructure {
         this.metadata = metadata;
     }
     
+    @Override
     public int getBlockCount() {
-        return blocks.size();
+        return blockCount;
     }
     
     /**
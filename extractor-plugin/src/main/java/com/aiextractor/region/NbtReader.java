@@ -0,0 +1,106 @@
+package com.aiextractor.region;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader for Minecraft's NBT format.
+ * Compounds decode to {@code Map<String, Object>}, lists to {@code List<Object>},
+ * arrays to primitive arrays and everything else to boxed primitives / String.
+ */
+public final class NbtReader {
+
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_SHORT = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+
+    private NbtReader() {
+    }
+
+    /**
+     * Read a named root compound tag
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> readRoot(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+        if (type != TAG_COMPOUND) {
+            throw new IOException("Root tag is not a compound (type " + type + ")");
+        }
+        in.readUTF(); // Root name, usually empty
+        return (Map<String, Object>) readPayload(in, TAG_COMPOUND);
+    }
+
+    private static Object readPayload(DataInput in, int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_BYTE_ARRAY: {
+                byte[] array = new byte[in.readInt()];
+                in.readFully(array);
+                return array;
+            }
+            case TAG_STRING:
+                return in.readUTF();
+            case TAG_LIST: {
+                int elementType = in.readUnsignedByte();
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>(Math.max(length, 0));
+                for (int i = 0; i < length; i++) {
+                    list.add(readPayload(in, elementType));
+                }
+                return list;
+            }
+            case TAG_COMPOUND: {
+                Map<String, Object> compound = new HashMap<>();
+                while (true) {
+                    int childType = in.readUnsignedByte();
+                    if (childType == TAG_END) {
+                        return compound;
+                    }
+                    String name = in.readUTF();
+                    compound.put(name, readPayload(in, childType));
+                }
+            }
+            case TAG_INT_ARRAY: {
+                int[] array = new int[in.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readInt();
+                }
+                return array;
+            }
+            case TAG_LONG_ARRAY: {
+                long[] array = new long[in.readInt()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readLong();
+                }
+                return array;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+}
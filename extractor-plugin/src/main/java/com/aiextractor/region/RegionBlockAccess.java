@@ -0,0 +1,82 @@
+package com.aiextractor.region;
+
+import com.aiextractor.detection.BlockAccess;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BlockAccess over a {@link RegionWorld} with a small LRU cache of decoded chunks.
+ * Not thread-safe: create one per worker thread.
+ */
+public class RegionBlockAccess implements BlockAccess {
+
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    private final RegionWorld world;
+    private final Map<Long, RegionChunk> cache;
+    private long lastKey = Long.MIN_VALUE;
+    private RegionChunk lastChunk;
+
+    public RegionBlockAccess(RegionWorld world) {
+        this(world, DEFAULT_CACHE_SIZE);
+    }
+
+    public RegionBlockAccess(RegionWorld world, int cacheSize) {
+        this.world = world;
+        this.cache = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RegionChunk> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get a decoded chunk through the cache, or null if it is not available
+     */
+    public RegionChunk getChunk(int chunkX, int chunkZ) {
+        long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        if (key == lastKey) {
+            return lastChunk;
+        }
+        RegionChunk chunk;
+        if (cache.containsKey(key)) {
+            chunk = cache.get(key);
+        } else {
+            // Missing chunks are cached as null so they are not re-read
+            chunk = world.loadChunk(chunkX, chunkZ);
+            cache.put(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        RegionChunk chunk = getChunk(x >> 4, z >> 4);
+        return chunk != null ? chunk.getType(x & 15, y, z & 15) : Material.AIR;
+    }
+
+    @Override
+    public String getBlockData(int x, int y, int z) {
+        RegionChunk chunk = getChunk(x >> 4, z >> 4);
+        return chunk != null ? chunk.getBlockData(x & 15, y, z & 15) : "minecraft:air";
+    }
+
+    @Override
+    public String getWorldName() {
+        return world.getName();
+    }
+
+    /**
+     * Region files have no live world; boxes detected in them carry {@link #getWorldName()} instead
+     */
+    @Override
+    public World getWorld() {
+        return null;
+    }
+}
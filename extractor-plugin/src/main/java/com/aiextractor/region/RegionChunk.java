@@ -0,0 +1,223 @@
+package com.aiextractor.region;
+
+import org.bukkit.Material;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A chunk decoded from region file NBT (1.18+ format).
+ * Sections keep their block-state palette plus one palette index per block.
+ */
+public class RegionChunk {
+
+    // First data version using the flattened "sections"/"block_states" layout (1.18)
+    private static final int MIN_DATA_VERSION = 2860;
+    private static final String AIR_STATE = "minecraft:air";
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int minSectionY;
+    private final Section[] sections;
+
+    private RegionChunk(int chunkX, int chunkZ, int minSectionY, Section[] sections) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.minSectionY = minSectionY;
+        this.sections = sections;
+    }
+
+    /**
+     * Decode a chunk from its root NBT compound.
+     * Returns null for chunks that are not fully generated or use a pre-1.18 layout.
+     */
+    @SuppressWarnings("unchecked")
+    public static RegionChunk decode(Map<String, Object> root, RegionWorld world) {
+        Object dataVersion = root.get("DataVersion");
+        if (!(dataVersion instanceof Integer) || (Integer) dataVersion < MIN_DATA_VERSION) {
+            return null;
+        }
+
+        Object status = root.get("Status");
+        if (!(status instanceof String) || !((String) status).endsWith("full")) {
+            return null;
+        }
+
+        Object sectionList = root.get("sections");
+        if (!(sectionList instanceof List)) {
+            return null;
+        }
+
+        int chunkX = ((Number) root.get("xPos")).intValue();
+        int chunkZ = ((Number) root.get("zPos")).intValue();
+
+        List<Object> rawSections = (List<Object>) sectionList;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Object raw : rawSections) {
+            int sectionY = ((Number) ((Map<String, Object>) raw).get("Y")).intValue();
+            minY = Math.min(minY, sectionY);
+            maxY = Math.max(maxY, sectionY);
+        }
+        if (minY > maxY) {
+            return new RegionChunk(chunkX, chunkZ, 0, new Section[0]);
+        }
+
+        Section[] sections = new Section[maxY - minY + 1];
+        for (Object raw : rawSections) {
+            Map<String, Object> sectionTag = (Map<String, Object>) raw;
+            Object blockStates = sectionTag.get("block_states");
+            if (!(blockStates instanceof Map)) {
+                continue;
+            }
+            int sectionY = ((Number) sectionTag.get("Y")).intValue();
+            sections[sectionY - minY] = decodeSection((Map<String, Object>) blockStates, world);
+        }
+
+        return new RegionChunk(chunkX, chunkZ, minY, sections);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Section decodeSection(Map<String, Object> blockStates, RegionWorld world) {
+        List<Object> paletteTag = (List<Object>) blockStates.get("palette");
+        if (paletteTag == null || paletteTag.isEmpty()) {
+            return null;
+        }
+
+        String[] states = new String[paletteTag.size()];
+        Material[] materials = new Material[paletteTag.size()];
+        for (int i = 0; i < states.length; i++) {
+            Map<String, Object> entry = (Map<String, Object>) paletteTag.get(i);
+            String name = (String) entry.get("Name");
+            states[i] = world.intern(toStateString(name, (Map<String, Object>) entry.get("Properties")));
+            materials[i] = world.resolveMaterial(name);
+        }
+
+        short[] indices = null;
+        Object data = blockStates.get("data");
+        if (states.length > 1 && data instanceof long[]) {
+            indices = unpack((long[]) data, states.length);
+        }
+
+        return new Section(states, materials, indices);
+    }
+
+    /**
+     * Unpack palette indices; entries never span two longs (1.16+ layout)
+     */
+    private static short[] unpack(long[] data, int paletteSize) {
+        int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(paletteSize - 1));
+        int perLong = 64 / bits;
+        long mask = (1L << bits) - 1;
+        short[] indices = new short[4096];
+        for (int i = 0; i < 4096; i++) {
+            int longIndex = i / perLong;
+            if (longIndex >= data.length) {
+                break;
+            }
+            int shift = (i % perLong) * bits;
+            int index = (int) ((data[longIndex] >>> shift) & mask);
+            indices[i] = (short) (index < paletteSize ? index : 0);
+        }
+        return indices;
+    }
+
+    /**
+     * Build a BlockData string with properties in sorted order, matching BlockData#getAsString
+     */
+    private static String toStateString(String name, Map<String, Object> properties) {
+        if (properties == null || properties.isEmpty()) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder(name).append('[');
+        boolean first = true;
+        for (Map.Entry<String, Object> property : new TreeMap<>(properties).entrySet()) {
+            if (!first) {
+                builder.append(',');
+            }
+            builder.append(property.getKey()).append('=').append(property.getValue());
+            first = false;
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * Material at chunk-local x/z and absolute y
+     */
+    public Material getType(int localX, int y, int localZ) {
+        Section section = getSection(y >> 4);
+        if (section == null) {
+            return Material.AIR;
+        }
+        return section.materials[section.paletteIndex(localX, y & 15, localZ)];
+    }
+
+    /**
+     * BlockData string at chunk-local x/z and absolute y
+     */
+    public String getBlockData(int localX, int y, int localZ) {
+        Section section = getSection(y >> 4);
+        if (section == null) {
+            return AIR_STATE;
+        }
+        return section.states[section.paletteIndex(localX, y & 15, localZ)];
+    }
+
+    /**
+     * Section at an absolute section Y, or null if empty/not stored
+     */
+    public Section getSection(int sectionY) {
+        int index = sectionY - minSectionY;
+        if (index < 0 || index >= sections.length) {
+            return null;
+        }
+        return sections[index];
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    public int getMinSectionY() {
+        return minSectionY;
+    }
+
+    public int getMaxSectionY() {
+        return minSectionY + sections.length - 1;
+    }
+
+    /**
+     * A 16x16x16 section: palette of block states plus per-block palette indices
+     */
+    public static class Section {
+        private final String[] states;
+        private final Material[] materials;
+        private final short[] indices; // null when the palette has a single entry
+
+        Section(String[] states, Material[] materials, short[] indices) {
+            this.states = states;
+            this.materials = materials;
+            this.indices = indices;
+        }
+
+        /**
+         * Palette index for section-local coordinates (YZX order)
+         */
+        public int paletteIndex(int x, int y, int z) {
+            return indices == null ? 0 : indices[(y << 8) | (z << 4) | x];
+        }
+
+        public Material[] getMaterials() {
+            return materials;
+        }
+
+        public String[] getStates() {
+            return states;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.aiextractor.region;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Read-only, memory-mapped Anvil region file (r.X.Z.mca).
+ * Safe to share between threads: all reads use absolute positions on duplicated buffers.
+ */
+public class RegionFile {
+
+    private static final int SECTOR_SIZE = 4096;
+    private static final int COMPRESSION_GZIP = 1;
+    private static final int COMPRESSION_ZLIB = 2;
+    private static final int COMPRESSION_NONE = 3;
+    private static final int EXTERNAL_FLAG = 0x80;
+
+    private final File file;
+    private final int regionX;
+    private final int regionZ;
+    private final MappedByteBuffer buffer;
+
+    public RegionFile(File file, int regionX, int regionZ) throws IOException {
+        this.file = file;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Check if a chunk (local coordinates 0-31) has been saved in this region
+     */
+    public boolean hasChunk(int localX, int localZ) {
+        return buffer.capacity() >= 2 * SECTOR_SIZE && locationEntry(localX, localZ) != 0;
+    }
+
+    /**
+     * Read and decompress a chunk's NBT (local coordinates 0-31), or null if not present
+     */
+    public Map<String, Object> readChunk(int localX, int localZ) throws IOException {
+        if (!hasChunk(localX, localZ)) {
+            return null;
+        }
+
+        int entry = locationEntry(localX, localZ);
+        int offset = (entry >>> 8) * SECTOR_SIZE;
+        if (offset + 5 > buffer.capacity()) {
+            return null; // Corrupt header entry
+        }
+
+        int length = buffer.getInt(offset);
+        int compression = buffer.get(offset + 4) & 0xFF;
+
+        InputStream raw;
+        if ((compression & EXTERNAL_FLAG) != 0) {
+            // Oversized chunks are stored next to the region file as c.X.Z.mcc
+            int chunkX = (regionX << 5) + localX;
+            int chunkZ = (regionZ << 5) + localZ;
+            File external = new File(file.getParentFile(), "c." + chunkX + "." + chunkZ + ".mcc");
+            raw = new BufferedInputStream(new FileInputStream(external));
+            compression &= ~EXTERNAL_FLAG;
+        } else {
+            if (length <= 1 || offset + 4 + length > buffer.capacity()) {
+                return null;
+            }
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(offset + 5).limit(offset + 4 + length);
+            raw = new ByteBufferInputStream(slice.slice());
+        }
+
+        InputStream decompressed;
+        switch (compression) {
+            case COMPRESSION_GZIP:
+                decompressed = new GZIPInputStream(raw);
+                break;
+            case COMPRESSION_ZLIB:
+                decompressed = new InflaterInputStream(raw);
+                break;
+            case COMPRESSION_NONE:
+                decompressed = raw;
+                break;
+            default:
+                raw.close();
+                throw new IOException("Unsupported chunk compression " + compression + " in " + file.getName());
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(decompressed))) {
+            return NbtReader.readRoot(in);
+        }
+    }
+
+    private int locationEntry(int localX, int localZ) {
+        return buffer.getInt(4 * ((localX & 31) + (localZ & 31) * 32));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getRegionX() {
+        return regionX;
+    }
+
+    public int getRegionZ() {
+        return regionZ;
+    }
+
+    /**
+     * InputStream view over a ByteBuffer without copying
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
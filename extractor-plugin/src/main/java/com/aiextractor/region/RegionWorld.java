@@ -0,0 +1,134 @@
+package com.aiextractor.region;
+
+import org.bukkit.Material;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A world folder read directly from its Anvil region files, without a running server.
+ * Region files and decoded palette strings are shared between threads; chunk caching
+ * is left to per-thread {@link RegionBlockAccess} views.
+ */
+public class RegionWorld {
+
+    private static final Pattern REGION_NAME = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    private final String name;
+    private final File regionDirectory;
+    private final Map<Long, Optional<RegionFile>> regions = new ConcurrentHashMap<>();
+    private final Map<String, Material> materials = new ConcurrentHashMap<>();
+    private final Map<String, String> states = new ConcurrentHashMap<>();
+
+    public RegionWorld(String name, File regionDirectory) {
+        this.name = name;
+        this.regionDirectory = regionDirectory;
+    }
+
+    /**
+     * Open a world folder, locating its region directory for any dimension layout
+     * (world/region, world_nether/DIM-1/region, world_the_end/DIM1/region)
+     */
+    public static RegionWorld open(File worldFolder) throws IOException {
+        String[] candidates = {"region", "DIM-1/region", "DIM1/region", "."};
+        for (String candidate : candidates) {
+            File directory = new File(worldFolder, candidate);
+            File[] mcaFiles = directory.listFiles((dir, fileName) -> REGION_NAME.matcher(fileName).matches());
+            if (mcaFiles != null && mcaFiles.length > 0) {
+                return new RegionWorld(worldFolder.getName(), directory);
+            }
+        }
+        throw new IOException("No region files found in " + worldFolder.getAbsolutePath());
+    }
+
+    /**
+     * List all region files in this world
+     */
+    public List<RegionFile> listRegions() {
+        List<RegionFile> result = new ArrayList<>();
+        File[] files = regionDirectory.listFiles((dir, fileName) -> REGION_NAME.matcher(fileName).matches());
+        if (files == null) {
+            return result;
+        }
+        for (File file : files) {
+            Matcher matcher = REGION_NAME.matcher(file.getName());
+            if (matcher.matches()) {
+                RegionFile region = getRegion(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                if (region != null) {
+                    result.add(region);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get (and map on first use) the region file containing region coordinates, or null if absent
+     */
+    public RegionFile getRegion(int regionX, int regionZ) {
+        return regions.computeIfAbsent(packRegion(regionX, regionZ), key -> {
+            File file = new File(regionDirectory, "r." + regionX + "." + regionZ + ".mca");
+            if (!file.isFile() || file.length() == 0) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new RegionFile(file, regionX, regionZ));
+            } catch (IOException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Load and decode a chunk, or null if it is missing, not fully generated or unreadable
+     */
+    public RegionChunk loadChunk(int chunkX, int chunkZ) {
+        RegionFile region = getRegion(chunkX >> 5, chunkZ >> 5);
+        if (region == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> root = region.readChunk(chunkX & 31, chunkZ & 31);
+            return root != null ? RegionChunk.decode(root, this) : null;
+        } catch (IOException | RuntimeException e) {
+            return null; // Treat corrupt chunks like missing ones
+        }
+    }
+
+    /**
+     * Resolve a namespaced block id to a Material; unknown ids resolve to AIR
+     */
+    Material resolveMaterial(String blockId) {
+        return materials.computeIfAbsent(blockId, id -> {
+            Material material = Material.matchMaterial(id);
+            return material != null ? material : Material.AIR;
+        });
+    }
+
+    /**
+     * Share one String instance per distinct block state across all chunks
+     */
+    String intern(String state) {
+        String existing = states.putIfAbsent(state, state);
+        return existing != null ? existing : state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getRegionDirectory() {
+        return regionDirectory;
+    }
+
+    private static long packRegion(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
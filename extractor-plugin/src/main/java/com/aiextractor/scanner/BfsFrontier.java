@@ -0,0 +1,48 @@
+package com.aiextractor.scanner;
+
+import java.util.ArrayDeque;
+
+/**
+ * Breadth-first frontier: chunks are scanned in the order they were discovered
+ */
+public class BfsFrontier implements ScanFrontier {
+
+    static final String POLICY = "bfs";
+
+    private final ArrayDeque<Long> queue = new ArrayDeque<>();
+
+    @Override
+    public void offer(int chunkX, int chunkZ, int parentHits) {
+        queue.add(ScanFrontier.pack(chunkX, chunkZ));
+    }
+
+    @Override
+    public long poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public long[] toArray() {
+        long[] chunks = new long[queue.size()];
+        int i = 0;
+        for (long packed : queue) {
+            chunks[i++] = packed;
+        }
+        return chunks;
+    }
+
+    @Override
+    public String getPolicy() {
+        return POLICY;
+    }
+}
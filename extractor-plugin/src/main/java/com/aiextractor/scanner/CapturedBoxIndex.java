@@ -0,0 +1,118 @@
+package com.aiextractor.scanner;
+
+import com.aiextractor.models.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of bounding boxes that have already been captured during a scan.
+ * Boxes are bucketed by the chunk columns they overlap so point and
+ * center-distance lookups only touch nearby boxes.
+ */
+public class CapturedBoxIndex {
+
+    // Each box is stored as {minX, minY, minZ, maxX, maxY, maxZ}
+    private final List<int[]> boxes = new ArrayList<>();
+    private final Map<Long, List<int[]>> boxesByChunk = new HashMap<>();
+
+    /**
+     * Add a captured bounding box
+     */
+    public void add(BoundingBox box) {
+        add(new int[]{box.getMinX(), box.getMinY(), box.getMinZ(), box.getMaxX(), box.getMaxY(), box.getMaxZ()});
+    }
+
+    /**
+     * Add a captured box in {minX, minY, minZ, maxX, maxY, maxZ} form
+     */
+    public void add(int[] box) {
+        boxes.add(box);
+        for (int cx = box[0] >> 4; cx <= box[3] >> 4; cx++) {
+            for (int cz = box[2] >> 4; cz <= box[5] >> 4; cz++) {
+                boxesByChunk.computeIfAbsent(packChunk(cx, cz), k -> new ArrayList<>()).add(box);
+            }
+        }
+    }
+
+    /**
+     * Check if a block position lies inside any captured box
+     */
+    public boolean contains(int x, int y, int z) {
+        List<int[]> candidates = boxesByChunk.get(packChunk(x >> 4, z >> 4));
+        if (candidates == null) {
+            return false;
+        }
+        for (int[] box : candidates) {
+            if (x >= box[0] && x <= box[3] && y >= box[1] && y <= box[4] && z >= box[2] && z <= box[5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if any captured box has its center closer than the given distance
+     */
+    public boolean hasCenterWithin(int x, int y, int z, double distance) {
+        int reach = (int) Math.ceil(distance);
+        for (int cx = (x - reach) >> 4; cx <= (x + reach) >> 4; cx++) {
+            for (int cz = (z - reach) >> 4; cz <= (z + reach) >> 4; cz++) {
+                List<int[]> candidates = boxesByChunk.get(packChunk(cx, cz));
+                if (candidates == null) {
+                    continue;
+                }
+                for (int[] box : candidates) {
+                    int dx = x - (box[0] + box[3]) / 2;
+                    int dy = y - (box[1] + box[4]) / 2;
+                    int dz = z - (box[2] + box[5]) / 2;
+                    if (Math.sqrt(dx * dx + dy * dy + dz * dz) < distance) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Captured boxes that intersect a box in {minX, minY, minZ, maxX, maxY, maxZ} form, each once
+     */
+    public List<int[]> intersecting(int[] box) {
+        Map<int[], Boolean> found = new IdentityHashMap<>();
+        List<int[]> result = new ArrayList<>();
+        for (int cx = box[0] >> 4; cx <= box[3] >> 4; cx++) {
+            for (int cz = box[2] >> 4; cz <= box[5] >> 4; cz++) {
+                List<int[]> candidates = boxesByChunk.get(packChunk(cx, cz));
+                if (candidates == null) {
+                    continue;
+                }
+                for (int[] other : candidates) {
+                    if (other[0] <= box[3] && other[3] >= box[0] && other[1] <= box[4] && other[4] >= box[1] &&
+                        other[2] <= box[5] && other[5] >= box[2] && found.put(other, Boolean.TRUE) == null) {
+                        result.add(other);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All captured boxes in insertion order
+     */
+    public List<int[]> getBoxes() {
+        return boxes;
+    }
+
+    public int size() {
+        return boxes.size();
+    }
+
+    private static long packChunk(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
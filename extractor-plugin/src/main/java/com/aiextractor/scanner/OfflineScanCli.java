@@ -0,0 +1,95 @@
+package com.aiextractor.scanner;
+
+import com.aiextractor.detection.StructureDetector;
+import com.aiextractor.export.StructureExporter;
+import com.aiextractor.region.RegionWorld;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Standalone entry point for scanning a world folder without a running server.
+ * Usage: java -cp structure-extractor-plugin.jar:paper-api.jar com.aiextractor.scanner.OfflineScanCli
+ *        &lt;world-folder&gt; [--out &lt;dir&gt;] [--config &lt;config.yml&gt;] [--threads &lt;n&gt;]
+ */
+public final class OfflineScanCli {
+
+    private static final String USAGE =
+        "Usage: OfflineScanCli <world-folder> [--out <dir>] [--config <config.yml>] [--threads <n>]";
+
+    private OfflineScanCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        File worldFolder = new File(args[0]);
+        File outputDirectory = new File("exports");
+        File configFile = null;
+        int threads = 0;
+
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                System.err.println("Missing value for " + args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+            switch (args[i]) {
+                case "--out":
+                    outputDirectory = new File(args[i + 1]);
+                    break;
+                case "--config":
+                    configFile = new File(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        FileConfiguration config = configFile != null
+            ? YamlConfiguration.loadConfiguration(configFile)
+            : loadDefaultConfig();
+        if (threads <= 0) {
+            threads = config.getInt("scanner.offline-threads", 0);
+        }
+
+        Logger logger = Logger.getLogger("StructureExtractor");
+        outputDirectory.mkdirs();
+
+        StructureDetector detector = new StructureDetector(config, logger);
+        StructureExporter exporter = new StructureExporter(outputDirectory, config, logger);
+        OfflineScanner scanner = new OfflineScanner(detector, exporter, logger,
+            config.getBoolean("export.include-air", false), threads);
+
+        WorldScanner.ScanStats stats = scanner.scan(RegionWorld.open(worldFolder));
+        exporter.shutdown();
+        System.out.println("Chunks scanned: " + stats.getChunksScanned() +
+            ", Structures found: " + stats.getStructuresFound());
+        System.out.println("Exports written to: " + outputDirectory.getAbsolutePath());
+    }
+
+    /**
+     * Load the config.yml bundled in the plugin jar
+     */
+    private static FileConfiguration loadDefaultConfig() throws IOException {
+        try (InputStream in = OfflineScanCli.class.getResourceAsStream("/config.yml")) {
+            if (in == null) {
+                throw new IOException("Bundled config.yml not found, pass --config");
+            }
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+}
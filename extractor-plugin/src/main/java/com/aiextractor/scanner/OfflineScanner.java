@@ -0,0 +1,283 @@
+package com.aiextractor.scanner;
+
+import com.aiextractor.detection.StructureDetector;
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.export.StructureExporter;
+import com.aiextractor.export.StructureExporter.ExportResult;
+import com.aiextractor.models.BoundingBox;
+import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.region.RegionBlockAccess;
+import com.aiextractor.region.RegionChunk;
+import com.aiextractor.region.RegionFile;
+import com.aiextractor.region.RegionWorld;
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Scans a world folder's region files directly, without loading chunks through the server.
+ * Region files are processed in parallel, each worker with its own chunk cache; the
+ * captured-box index is shared so structures spanning region borders are only exported once.
+ */
+public class OfflineScanner {
+
+    private final StructureDetector detector;
+    private final StructureExporter exporter;
+    private final Logger logger;
+    private final boolean includeAir;
+    private final int threads;
+
+    private final CapturedBoxIndex capturedBoxes = new CapturedBoxIndex();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicInteger chunksScanned = new AtomicInteger(0);
+    private final AtomicInteger structuresFound = new AtomicInteger(0);
+    private final AtomicInteger regionsRemaining = new AtomicInteger(0);
+    private volatile String worldName;
+
+    public OfflineScanner(StructureDetector detector, StructureExporter exporter, Logger logger,
+                          boolean includeAir, int threads) {
+        this.detector = detector;
+        this.exporter = exporter;
+        this.logger = logger;
+        this.includeAir = includeAir;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Scan every region file of a world, blocking until done or cancelled
+     */
+    public WorldScanner.ScanStats scan(RegionWorld world) {
+        worldName = world.getName();
+        List<RegionFile> regions = world.listRegions();
+        regionsRemaining.set(regions.size());
+        logger.info("Offline scan of " + world.getName() + ": " + regions.size() +
+            " region files on " + threads + " threads");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "StructureExtractor-OfflineScan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (RegionFile region : regions) {
+                futures.add(pool.submit(() -> scanRegion(world, region)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.warning("Offline scan worker failed: " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled.set(true);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        logger.info("Offline scan of " + world.getName() + " finished: " + chunksScanned.get() +
+            " chunks scanned, " + structuresFound.get() + " structures found");
+        return getStats();
+    }
+
+    /**
+     * Request the scan to stop after the chunks currently being processed
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public WorldScanner.ScanStats getStats() {
+        return new WorldScanner.ScanStats(chunksScanned.get(), structuresFound.get(),
+            regionsRemaining.get() * 1024, worldName);
+    }
+
+    /**
+     * Scan all chunks stored in one region file
+     */
+    private void scanRegion(RegionWorld world, RegionFile region) {
+        RegionBlockAccess access = new RegionBlockAccess(world);
+        try {
+            for (int localZ = 0; localZ < 32; localZ++) {
+                for (int localX = 0; localX < 32; localX++) {
+                    if (cancelled.get()) {
+                        return;
+                    }
+                    if (!region.hasChunk(localX, localZ)) {
+                        continue;
+                    }
+                    RegionChunk chunk = access.getChunk((region.getRegionX() << 5) + localX,
+                        (region.getRegionZ() << 5) + localZ);
+                    if (chunk != null) {
+                        scanChunk(access, chunk);
+                    }
+                }
+            }
+        } finally {
+            regionsRemaining.decrementAndGet();
+        }
+    }
+
+    /**
+     * Look for structure indicator blocks in a chunk, skipping sections whose palette has none
+     */
+    private void scanChunk(RegionBlockAccess access, RegionChunk chunk) {
+        int scanned = chunksScanned.incrementAndGet();
+        int baseX = chunk.getChunkX() << 4;
+        int baseZ = chunk.getChunkZ() << 4;
+
+        for (int sectionY = chunk.getMinSectionY(); sectionY <= chunk.getMaxSectionY(); sectionY++) {
+            RegionChunk.Section section = chunk.getSection(sectionY);
+            if (section == null || !hasIndicator(section.getMaterials())) {
+                continue;
+            }
+
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        Material material = section.getMaterials()[section.paletteIndex(x, y, z)];
+                        if (!detector.isStructureBlock(material)) {
+                            continue;
+                        }
+                        int worldX = baseX + x;
+                        int worldY = (sectionY << 4) + y;
+                        int worldZ = baseZ + z;
+                        boolean captured;
+                        synchronized (capturedBoxes) {
+                            captured = capturedBoxes.contains(worldX, worldY, worldZ);
+                        }
+                        if (!captured) {
+                            tryExtractStructure(access, worldX, worldY, worldZ);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (scanned % 1000 == 0) {
+            logger.info("Offline scan progress: " + scanned + " chunks scanned, " +
+                structuresFound.get() + " structures found");
+        }
+    }
+
+    /**
+     * Non-air blocks in a box in {minX, minY, minZ, maxX, maxY, maxZ} form
+     */
+    private static int countBlocks(RegionBlockAccess access, int[] box) {
+        int count = 0;
+        for (int x = box[0]; x <= box[3]; x++) {
+            for (int y = box[1]; y <= box[4]; y++) {
+                for (int z = box[2]; z <= box[5]; z++) {
+                    if (!access.getType(x, y, z).isAir()) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Non-air blocks of a box that lie inside any of the given captured boxes, counted once
+     * each by only visiting the intersections
+     */
+    private static int countOverlap(RegionBlockAccess access, int[] box, List<int[]> captured) {
+        int count = 0;
+        for (int i = 0; i < captured.size(); i++) {
+            int[] other = captured.get(i);
+            for (int x = Math.max(box[0], other[0]); x <= Math.min(box[3], other[3]); x++) {
+                for (int y = Math.max(box[1], other[1]); y <= Math.min(box[4], other[4]); y++) {
+                    for (int z = Math.max(box[2], other[2]); z <= Math.min(box[5], other[5]); z++) {
+                        if (!access.getType(x, y, z).isAir() && !inEarlierBox(captured, i, x, y, z)) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean inEarlierBox(List<int[]> boxes, int end, int x, int y, int z) {
+        for (int i = 0; i < end; i++) {
+            int[] box = boxes.get(i);
+            if (x >= box[0] && x <= box[3] && y >= box[1] && y <= box[4] && z >= box[2] && z <= box[5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasIndicator(Material[] palette) {
+        for (Material material : palette) {
+            if (detector.isStructureBlock(material)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Detect, de-duplicate and export a structure (same rules as the live WorldScanner)
+     */
+    private void tryExtractStructure(RegionBlockAccess access, int x, int y, int z) {
+        DetectionResult result = detector.detectFrom(access, x, y, z);
+        if (!result.isSuccess()) {
+            return;
+        }
+
+        BoundingBox box = result.getBoundingBox();
+        int[] bounds = {box.getMinX(), box.getMinY(), box.getMinZ(), box.getMaxX(), box.getMaxY(), box.getMaxZ()};
+        int centerX = (box.getMinX() + box.getMaxX()) / 2;
+        int centerY = (box.getMinY() + box.getMaxY()) / 2;
+        int centerZ = (box.getMinZ() + box.getMaxZ()) / 2;
+
+        // Blocks are counted outside the lock so workers don't wait on each other's large boxes;
+        // only the parts of the box covered by captured boxes are read for the overlap
+        int totalBlocks = countBlocks(access, bounds);
+        List<int[]> overlapping;
+        synchronized (capturedBoxes) {
+            overlapping = capturedBoxes.intersecting(bounds);
+        }
+        while (true) {
+            int overlapCount = countOverlap(access, bounds, overlapping);
+            synchronized (capturedBoxes) {
+                if (capturedBoxes.hasCenterWithin(centerX, centerY, centerZ, WorldScanner.MIN_STRUCTURE_DISTANCE)) {
+                    return;
+                }
+                // Boxes are only ever added, so the same count means no box was captured here meanwhile
+                List<int[]> current = capturedBoxes.intersecting(bounds);
+                if (current.size() == overlapping.size()) {
+                    if (totalBlocks > 0 && (double) overlapCount / totalBlocks > WorldScanner.OVERLAP_THRESHOLD) {
+                        return;
+                    }
+                    capturedBoxes.add(bounds);
+                    break;
+                }
+                overlapping = current;
+            }
+        }
+
+        ExtractedStructure structure = detector.extractStructure(access, box, null, includeAir);
+        structure.getMetadata().setCaptureMode("offline-scan");
+
+        ExportResult exportResult = exporter.exportSync(structure);
+        if (exportResult.isDuplicate()) {
+            logger.fine("Skipped duplicate of " + exportResult.getOutputFile().getName());
+        } else if (exportResult.isSuccess()) {
+            structuresFound.incrementAndGet();
+            logger.info("Offline-exported structure: " + exportResult.getOutputFile().getName() +
+                " (" + exportResult.getBlockCount() + " blocks)");
+        }
+    }
+}
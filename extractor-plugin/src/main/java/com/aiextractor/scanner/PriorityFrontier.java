@@ -0,0 +1,120 @@
+package com.aiextractor.scanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Best-first frontier: chunks next to chunks that contained structure indicator blocks
+ * are scanned first, so a scan follows villages and other built-up areas before it
+ * spends chunk loads on empty terrain. Among chunks without hits the closest to the
+ * origin wins, which degrades to a spiral.
+ */
+public class PriorityFrontier implements ScanFrontier {
+
+    static final String POLICY = "priority";
+
+    private final int originX;
+    private final int originZ;
+    private final double hitWeight;
+    private final double distanceWeight;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    // Current best score of each queued chunk; heap entries with a lower score are stale
+    private final Map<Long, Double> scores = new HashMap<>();
+    private long sequence;
+
+    /**
+     * @param hitWeight score per log-scaled indicator block found in the neighboring chunk
+     * @param distanceWeight score penalty per chunk of distance from the origin
+     */
+    public PriorityFrontier(int originX, int originZ, double hitWeight, double distanceWeight) {
+        this.originX = originX;
+        this.originZ = originZ;
+        this.hitWeight = hitWeight;
+        this.distanceWeight = distanceWeight;
+    }
+
+    @Override
+    public void offer(int chunkX, int chunkZ, int parentHits) {
+        long packed = ScanFrontier.pack(chunkX, chunkZ);
+        double score = score(chunkX, chunkZ, parentHits);
+        scores.put(packed, score);
+        queue.add(new Entry(packed, score, sequence++));
+    }
+
+    @Override
+    public void rediscover(int chunkX, int chunkZ, int parentHits) {
+        long packed = ScanFrontier.pack(chunkX, chunkZ);
+        Double current = scores.get(packed);
+        if (current == null) {
+            return; // Already scanned
+        }
+        double score = score(chunkX, chunkZ, parentHits);
+        if (score > current) {
+            scores.put(packed, score);
+            queue.add(new Entry(packed, score, sequence++));
+        }
+    }
+
+    @Override
+    public long poll() {
+        while (true) {
+            Entry entry = queue.poll();
+            Double current = scores.get(entry.chunk);
+            if (current != null && current == entry.score) {
+                scores.remove(entry.chunk);
+                return entry.chunk;
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return scores.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return scores.size();
+    }
+
+    @Override
+    public long[] toArray() {
+        long[] chunks = new long[scores.size()];
+        int i = 0;
+        for (long packed : scores.keySet()) {
+            chunks[i++] = packed;
+        }
+        return chunks;
+    }
+
+    @Override
+    public String getPolicy() {
+        return POLICY;
+    }
+
+    private double score(int chunkX, int chunkZ, int parentHits) {
+        double distance = Math.sqrt((double) (chunkX - originX) * (chunkX - originX) +
+            (double) (chunkZ - originZ) * (chunkZ - originZ));
+        return hitWeight * Math.log1p(parentHits) - distanceWeight * distance;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long chunk;
+        private final double score;
+        private final long sequence;
+
+        private Entry(long chunk, double score, long sequence) {
+            this.chunk = chunk;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(sequence, other.sequence);
+        }
+    }
+}
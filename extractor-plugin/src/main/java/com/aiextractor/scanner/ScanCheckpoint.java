@@ -0,0 +1,221 @@
+package com.aiextractor.scanner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of a scan's progress that can be written to disk and resumed later.
+ * Stores the chunk frontier, the set of already queued/visited chunks and the
+ * boxes of structures captured so far in a compact gzip'd binary file.
+ */
+public class ScanCheckpoint {
+
+    private static final int MAGIC = 0x53434B50; // "SCKP"
+    private static final int VERSION = 4;
+    // Strategy of checkpoints written before strategies were selectable
+    private static final String DEFAULT_DETECTION_STRATEGY = "flood-fill";
+
+    private final String worldName;
+    private final int chunksScanned;
+    private final int structuresFound;
+    private final long[] frontier;
+    private final long[] visitedChunks;
+    private final List<int[]> capturedBoxes;
+    private final int weight;
+    private final int maxChunks;
+    private final int maxStructures;
+    private final String frontierPolicy;
+    private final int originX;
+    private final int originZ;
+    private final String detectionStrategy;
+
+    public ScanCheckpoint(String worldName, int chunksScanned, int structuresFound,
+                          long[] frontier, long[] visitedChunks, List<int[]> capturedBoxes) {
+        this(worldName, chunksScanned, structuresFound, frontier, visitedChunks, capturedBoxes, 1, 0,
+            0, BfsFrontier.POLICY, 0, 0, DEFAULT_DETECTION_STRATEGY);
+    }
+
+    public ScanCheckpoint(String worldName, int chunksScanned, int structuresFound,
+                          long[] frontier, long[] visitedChunks, List<int[]> capturedBoxes,
+                          int weight, int maxChunks, int maxStructures, String frontierPolicy,
+                          int originX, int originZ, String detectionStrategy) {
+        this.worldName = worldName;
+        this.chunksScanned = chunksScanned;
+        this.structuresFound = structuresFound;
+        this.frontier = frontier;
+        this.visitedChunks = visitedChunks;
+        this.capturedBoxes = capturedBoxes;
+        this.weight = weight;
+        this.maxChunks = maxChunks;
+        this.maxStructures = maxStructures;
+        this.frontierPolicy = frontierPolicy;
+        this.originX = originX;
+        this.originZ = originZ;
+        this.detectionStrategy = detectionStrategy;
+    }
+
+    /**
+     * Write the checkpoint atomically (temp file + rename) so a crash mid-write
+     * never leaves a truncated checkpoint behind
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tempFile))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(worldName);
+            out.writeInt(chunksScanned);
+            out.writeInt(structuresFound);
+            out.writeInt(weight);
+            out.writeInt(maxChunks);
+            out.writeInt(maxStructures);
+            out.writeUTF(frontierPolicy);
+            out.writeInt(originX);
+            out.writeInt(originZ);
+            out.writeUTF(detectionStrategy);
+
+            out.writeInt(frontier.length);
+            for (long chunk : frontier) {
+                out.writeLong(chunk);
+            }
+
+            out.writeInt(visitedChunks.length);
+            for (long chunk : visitedChunks) {
+                out.writeLong(chunk);
+            }
+
+            out.writeInt(capturedBoxes.size());
+            for (int[] box : capturedBoxes) {
+                for (int i = 0; i < 6; i++) {
+                    out.writeInt(box[i]);
+                }
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a checkpoint previously written with {@link #write(File)}.
+     * Older checkpoints are still accepted: version 1 had no weight or chunk limit, version 2
+     * no structure limit or frontier policy (those scans used BFS), version 3 no detection
+     * strategy (those scans used the flood fill).
+     */
+    public static ScanCheckpoint read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a scan checkpoint: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+
+            String worldName = in.readUTF();
+            int chunksScanned = in.readInt();
+            int structuresFound = in.readInt();
+            int weight = version >= 2 ? in.readInt() : 1;
+            int maxChunks = version >= 2 ? in.readInt() : 0;
+            int maxStructures = version >= 3 ? in.readInt() : 0;
+            String frontierPolicy = version >= 3 ? in.readUTF() : BfsFrontier.POLICY;
+            int originX = version >= 3 ? in.readInt() : 0;
+            int originZ = version >= 3 ? in.readInt() : 0;
+            String detectionStrategy = version >= 4 ? in.readUTF() : DEFAULT_DETECTION_STRATEGY;
+
+            long[] frontier = new long[in.readInt()];
+            for (int i = 0; i < frontier.length; i++) {
+                frontier[i] = in.readLong();
+            }
+
+            long[] visited = new long[in.readInt()];
+            for (int i = 0; i < visited.length; i++) {
+                visited[i] = in.readLong();
+            }
+
+            int boxCount = in.readInt();
+            List<int[]> boxes = new ArrayList<>(boxCount);
+            for (int i = 0; i < boxCount; i++) {
+                int[] box = new int[6];
+                for (int j = 0; j < 6; j++) {
+                    box[j] = in.readInt();
+                }
+                boxes.add(box);
+            }
+
+            return new ScanCheckpoint(worldName, chunksScanned, structuresFound, frontier, visited, boxes,
+                weight, maxChunks, maxStructures, frontierPolicy, originX, originZ, detectionStrategy);
+        }
+    }
+
+    public String getWorldName() {
+        return worldName;
+    }
+
+    public int getChunksScanned() {
+        return chunksScanned;
+    }
+
+    public int getStructuresFound() {
+        return structuresFound;
+    }
+
+    public long[] getFrontier() {
+        return frontier;
+    }
+
+    public long[] getVisitedChunks() {
+        return visitedChunks;
+    }
+
+    public List<int[]> getCapturedBoxes() {
+        return capturedBoxes;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public int getMaxStructures() {
+        return maxStructures;
+    }
+
+    public String getFrontierPolicy() {
+        return frontierPolicy;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginZ() {
+        return originZ;
+    }
+
+    public String getDetectionStrategy() {
+        return detectionStrategy;
+    }
+}
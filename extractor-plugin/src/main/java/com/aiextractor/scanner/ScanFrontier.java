@@ -0,0 +1,66 @@
+package com.aiextractor.scanner;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * Order in which a scan job visits the chunks it has queued.
+ * Chunks are passed as packed coordinates ({@code x << 32 | z}). The scan job keeps
+ * track of which chunks were already queued, so a chunk is offered at most once.
+ */
+public interface ScanFrontier {
+
+    /**
+     * Queue a chunk discovered next to a scanned chunk
+     * @param parentHits structure indicator blocks found in the chunk it was discovered from
+     */
+    void offer(int chunkX, int chunkZ, int parentHits);
+
+    /**
+     * A chunk that is still queued was discovered again from another scanned chunk.
+     * Policies that score chunks may raise its priority; the default ignores it.
+     */
+    default void rediscover(int chunkX, int chunkZ, int parentHits) {
+    }
+
+    /**
+     * Remove and return the next chunk to scan (packed); only valid when not empty
+     */
+    long poll();
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * Queued chunks (packed) in no particular order, for checkpoints
+     */
+    long[] toArray();
+
+    /**
+     * Policy name as used in the config and in checkpoints
+     */
+    String getPolicy();
+
+    /**
+     * Create a frontier for a policy name: "bfs", "spiral" or "priority"
+     * @param originX chunk the scan started from, used by distance-based policies
+     */
+    static ScanFrontier create(String policy, int originX, int originZ, FileConfiguration config) {
+        switch (policy.toLowerCase()) {
+            case SpiralFrontier.POLICY:
+                return new SpiralFrontier(originX, originZ);
+            case PriorityFrontier.POLICY:
+                return new PriorityFrontier(originX, originZ,
+                    config.getDouble("scanner.frontier.hit-weight", 4.0),
+                    config.getDouble("scanner.frontier.distance-weight", 0.1));
+            case BfsFrontier.POLICY:
+                return new BfsFrontier();
+            default:
+                throw new IllegalArgumentException("Unknown frontier policy: " + policy);
+        }
+    }
+
+    static long pack(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
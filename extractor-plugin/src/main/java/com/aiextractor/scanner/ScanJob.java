@@ -0,0 +1,225 @@
+package com.aiextractor.scanner;
+
+import com.aiextractor.detection.DetectionStrategy;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of one named scan: its world, chunk frontier, visited chunks, captured boxes,
+ * limits and share of the scanner's per-tick budget.
+ */
+public class ScanJob {
+
+    private final String name;
+    private final World world;
+    private final int weight;
+    private final int maxChunks;
+    private final int maxStructures;
+    // Chunk the scan started from
+    private final int originX;
+    private final int originZ;
+
+    private final ScanFrontier frontier;
+    private final DetectionStrategy detectionStrategy;
+    // Every chunk that was ever queued, scanned or not
+    private final Set<Long> processedChunks = new HashSet<>();
+    private final CapturedBoxIndex capturedBoxes = new CapturedBoxIndex();
+
+    private final AtomicInteger chunksScanned = new AtomicInteger(0);
+    // Successful exports that were not duplicates of an earlier one
+    private final AtomicInteger structuresFound = new AtomicInteger(0);
+    private final AtomicInteger exportsInFlight = new AtomicInteger(0);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final AtomicBoolean checkpointPending = new AtomicBoolean(false);
+
+    // Weighted fair-share clock: advances by 1/weight for every chunk this job is served
+    private double virtualTime;
+
+    /**
+     * @param weight relative share of the per-tick budget (1 = normal)
+     * @param maxChunks stop after scanning this many chunks (0 = unlimited)
+     * @param maxStructures stop after exporting this many structures (0 = unlimited)
+     * @param frontier order in which queued chunks are scanned
+     * @param detectionStrategy how structures are detected from indicator blocks
+     */
+    public ScanJob(String name, World world, int originX, int originZ, int weight, int maxChunks,
+                   int maxStructures, ScanFrontier frontier, DetectionStrategy detectionStrategy) {
+        this.name = name;
+        this.world = world;
+        this.originX = originX;
+        this.originZ = originZ;
+        this.weight = Math.max(1, weight);
+        this.maxChunks = Math.max(0, maxChunks);
+        this.maxStructures = Math.max(0, maxStructures);
+        this.frontier = frontier;
+        this.detectionStrategy = detectionStrategy;
+    }
+
+    /**
+     * Restore a job from a checkpoint.
+     * Queued chunks are re-offered without their hit scores, so a priority frontier
+     * starts over ordering them by distance.
+     * @param frontier empty frontier of the checkpoint's policy
+     * @param detectionStrategy the checkpoint's detection strategy
+     */
+    public static ScanJob fromCheckpoint(String name, World world, ScanCheckpoint checkpoint, ScanFrontier frontier,
+                                         DetectionStrategy detectionStrategy) {
+        ScanJob job = new ScanJob(name, world, checkpoint.getOriginX(), checkpoint.getOriginZ(),
+            checkpoint.getWeight(), checkpoint.getMaxChunks(), checkpoint.getMaxStructures(), frontier,
+            detectionStrategy);
+        job.chunksScanned.set(checkpoint.getChunksScanned());
+        job.structuresFound.set(checkpoint.getStructuresFound());
+        for (long packed : checkpoint.getVisitedChunks()) {
+            job.processedChunks.add(packed);
+        }
+        for (long packed : checkpoint.getFrontier()) {
+            frontier.offer((int) (packed >> 32), (int) packed, 0);
+        }
+        for (int[] box : checkpoint.getCapturedBoxes()) {
+            job.capturedBoxes.add(box);
+        }
+        return job;
+    }
+
+    /**
+     * Queue a chunk unless it has already been queued or scanned
+     * @param parentHits structure indicator blocks found in the chunk it was discovered from
+     */
+    public void addChunk(int chunkX, int chunkZ, int parentHits) {
+        if (processedChunks.add(packChunkCoords(chunkX, chunkZ))) {
+            frontier.offer(chunkX, chunkZ, parentHits);
+        } else if (parentHits > 0) {
+            frontier.rediscover(chunkX, chunkZ, parentHits);
+        }
+    }
+
+    /**
+     * Next chunk to scan as {chunkX, chunkZ}, or null if the frontier is empty
+     */
+    public long[] pollChunk() {
+        virtualTime += 1.0 / weight;
+        if (frontier.isEmpty()) {
+            return null;
+        }
+        long packed = frontier.poll();
+        return new long[]{(int) (packed >> 32), (int) packed};
+    }
+
+    /**
+     * Whether the job still has chunks to scan within its limits
+     */
+    public boolean hasWork() {
+        return !frontier.isEmpty() && !isLimitReached();
+    }
+
+    /**
+     * Whether the job's chunk or structure budget is used up
+     */
+    public boolean isLimitReached() {
+        return (maxChunks > 0 && chunksScanned.get() >= maxChunks) || isStructureLimitReached();
+    }
+
+    /**
+     * Whether the exported structures, plus the exports still in flight, reach the structure
+     * limit. Exports that fail or turn out to be duplicates free their place again.
+     */
+    public boolean isStructureLimitReached() {
+        return maxStructures > 0 && structuresFound.get() + exportsInFlight.get() >= maxStructures;
+    }
+
+    /**
+     * Copy the job state into a checkpoint (main thread)
+     */
+    public ScanCheckpoint createCheckpoint() {
+        long[] visited = new long[processedChunks.size()];
+        int i = 0;
+        for (long packed : processedChunks) {
+            visited[i++] = packed;
+        }
+
+        return new ScanCheckpoint(world.getName(), chunksScanned.get(), structuresFound.get(),
+            frontier.toArray(), visited, new ArrayList<>(capturedBoxes.getBoxes()), weight, maxChunks,
+            maxStructures, frontier.getPolicy(), originX, originZ, detectionStrategy.getName());
+    }
+
+    public WorldScanner.ScanStats getStats() {
+        return new WorldScanner.ScanStats(chunksScanned.get(), structuresFound.get(),
+            frontier.size(), world.getName(), name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public int getMaxStructures() {
+        return maxStructures;
+    }
+
+    public int getQueueSize() {
+        return frontier.size();
+    }
+
+    public ScanFrontier getFrontier() {
+        return frontier;
+    }
+
+    public DetectionStrategy getDetectionStrategy() {
+        return detectionStrategy;
+    }
+
+    public CapturedBoxIndex getCapturedBoxes() {
+        return capturedBoxes;
+    }
+
+    public AtomicInteger getChunksScanned() {
+        return chunksScanned;
+    }
+
+    public AtomicInteger getStructuresFound() {
+        return structuresFound;
+    }
+
+    /**
+     * Structures of this job being extracted or exported
+     */
+    public AtomicInteger getExportsInFlight() {
+        return exportsInFlight;
+    }
+
+    public AtomicBoolean getRunning() {
+        return running;
+    }
+
+    public AtomicBoolean getCheckpointPending() {
+        return checkpointPending;
+    }
+
+    public double getVirtualTime() {
+        return virtualTime;
+    }
+
+    public void setVirtualTime(double virtualTime) {
+        this.virtualTime = virtualTime;
+    }
+
+    private static long packChunkCoords(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}
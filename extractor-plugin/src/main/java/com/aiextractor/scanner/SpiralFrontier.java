@@ -0,0 +1,61 @@
+package com.aiextractor.scanner;
+
+import java.util.PriorityQueue;
+
+/**
+ * Spiral frontier: the queued chunk closest to the scan origin is scanned first,
+ * so the scanned area grows as a disc instead of the diamond BFS produces
+ */
+public class SpiralFrontier implements ScanFrontier {
+
+    static final String POLICY = "spiral";
+
+    private final int originX;
+    private final int originZ;
+    // Entries are {squared distance, packed chunk, sequence}; ties go to the chunk queued first
+    private final PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> a[0] != b[0]
+        ? Long.compare(a[0], b[0]) : Long.compare(a[2], b[2]));
+    private long sequence;
+
+    public SpiralFrontier(int originX, int originZ) {
+        this.originX = originX;
+        this.originZ = originZ;
+    }
+
+    @Override
+    public void offer(int chunkX, int chunkZ, int parentHits) {
+        long dx = chunkX - originX;
+        long dz = chunkZ - originZ;
+        queue.add(new long[]{dx * dx + dz * dz, ScanFrontier.pack(chunkX, chunkZ), sequence++});
+    }
+
+    @Override
+    public long poll() {
+        return queue.poll()[1];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public long[] toArray() {
+        long[] chunks = new long[queue.size()];
+        int i = 0;
+        for (long[] entry : queue) {
+            chunks[i++] = entry[1];
+        }
+        return chunks;
+    }
+
+    @Override
+    public String getPolicy() {
+        return POLICY;
+    }
+}
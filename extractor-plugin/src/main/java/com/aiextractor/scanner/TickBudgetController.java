@@ -0,0 +1,143 @@
+package com.aiextractor.scanner;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * Decides how much scanning work to do each tick.
+ * In adaptive mode the scan gets a per-tick time budget that grows additively while the
+ * server's MSPT has headroom and halves when it goes over the ceiling. The budget is
+ * capped lower while players are online. In fixed mode a constant number of chunks is
+ * processed per tick.
+ */
+public class TickBudgetController {
+
+    // Re-evaluate the budget once per second
+    private static final int ADJUST_INTERVAL_TICKS = 20;
+    // Weight of the newest sample in the moving averages
+    private static final double EWMA_ALPHA = 0.1;
+    // Only grow the budget while MSPT is below this fraction of the ceiling
+    private static final double HEADROOM_RATIO = 0.8;
+
+    private final boolean adaptive;
+    private final int fixedChunksPerTick;
+    private final int maxChunksPerTick;
+    private final double maxMspt;
+    private final long minBudgetNanos;
+    private final long maxBudgetNanos;
+    private final double onlineBudgetFactor;
+    private final long budgetStepNanos;
+
+    private long budgetNanos;
+    private double avgTickCostNanos;
+    private double avgChunkCostNanos;
+    private double lastServerMspt;
+    private int ticksSinceAdjust;
+
+    public TickBudgetController(boolean adaptive, int fixedChunksPerTick, int maxChunksPerTick, double maxMspt,
+                                long minBudgetMicros, long maxBudgetMicros, double onlineBudgetFactor) {
+        this.adaptive = adaptive;
+        this.fixedChunksPerTick = Math.max(1, fixedChunksPerTick);
+        this.maxChunksPerTick = Math.max(1, maxChunksPerTick);
+        this.maxMspt = maxMspt;
+        this.minBudgetNanos = Math.max(1, minBudgetMicros) * 1000L;
+        this.maxBudgetNanos = Math.max(minBudgetMicros, maxBudgetMicros) * 1000L;
+        this.onlineBudgetFactor = onlineBudgetFactor;
+        this.budgetStepNanos = Math.max(1, (maxBudgetNanos - minBudgetNanos) / 20);
+        this.budgetNanos = minBudgetNanos;
+    }
+
+    /**
+     * Create a controller from the scanner section of the config
+     */
+    public static TickBudgetController fromConfig(FileConfiguration config) {
+        return new TickBudgetController(
+            config.getBoolean("scanner.adaptive.enabled", true),
+            config.getInt("scanner.chunks-per-tick", 2),
+            config.getInt("scanner.adaptive.max-chunks-per-tick", 32),
+            config.getDouble("scanner.adaptive.max-mspt", 45.0),
+            config.getLong("scanner.adaptive.min-budget-micros", 500),
+            config.getLong("scanner.adaptive.max-budget-micros", 20000),
+            config.getDouble("scanner.adaptive.online-budget-factor", 0.25)
+        );
+    }
+
+    /**
+     * Whether another chunk may be processed this tick.
+     * At least one chunk is always processed so the scan never stalls.
+     */
+    public boolean shouldContinue(int chunksThisTick, long elapsedNanos) {
+        if (!adaptive) {
+            return chunksThisTick < fixedChunksPerTick;
+        }
+        if (chunksThisTick == 0) {
+            return true;
+        }
+        if (chunksThisTick >= maxChunksPerTick) {
+            return false;
+        }
+        // Don't start a chunk that is expected to overrun the budget
+        return elapsedNanos + avgChunkCostNanos <= budgetNanos;
+    }
+
+    /**
+     * Record the cost of a finished tick and periodically adapt the budget
+     * @param serverMspt the server's recent average tick time in milliseconds
+     * @param playersOnline number of players currently online
+     */
+    public void recordTick(long elapsedNanos, int chunksProcessed, double serverMspt, int playersOnline) {
+        avgTickCostNanos += EWMA_ALPHA * (elapsedNanos - avgTickCostNanos);
+        if (chunksProcessed > 0) {
+            double perChunk = (double) elapsedNanos / chunksProcessed;
+            avgChunkCostNanos = avgChunkCostNanos == 0 ? perChunk
+                : avgChunkCostNanos + EWMA_ALPHA * (perChunk - avgChunkCostNanos);
+        }
+        lastServerMspt = serverMspt;
+
+        if (!adaptive || ++ticksSinceAdjust < ADJUST_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceAdjust = 0;
+
+        long ceiling = playersOnline > 0
+            ? Math.max(minBudgetNanos, (long) (maxBudgetNanos * onlineBudgetFactor))
+            : maxBudgetNanos;
+
+        if (serverMspt > maxMspt) {
+            // Over the ceiling: back off quickly
+            budgetNanos = Math.max(minBudgetNanos, budgetNanos / 2);
+        } else if (serverMspt < maxMspt * HEADROOM_RATIO) {
+            // Headroom: speed up gradually
+            budgetNanos = budgetNanos + budgetStepNanos;
+        }
+        budgetNanos = Math.min(budgetNanos, ceiling);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Current per-tick time budget in milliseconds
+     */
+    public double getBudgetMillis() {
+        return budgetNanos / 1_000_000.0;
+    }
+
+    /**
+     * Average time the scan spends per tick in milliseconds
+     */
+    public double getAverageTickCostMillis() {
+        return avgTickCostNanos / 1_000_000.0;
+    }
+
+    /**
+     * Average time to process one chunk in milliseconds
+     */
+    public double getAverageChunkCostMillis() {
+        return avgChunkCostNanos / 1_000_000.0;
+    }
+
+    public double getLastServerMspt() {
+        return lastServerMspt;
+    }
+}
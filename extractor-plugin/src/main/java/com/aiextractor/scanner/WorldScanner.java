@@ -1,30 +1,37 @@
 package com.aiextractor.scanner;
 
 import com.aiextractor.StructureExtractorPlugin;
+import com.aiextractor.detection.DetectionStrategy;
 import com.aiextractor.detection.StructureDetector;
 import com.aiextractor.detection.StructureDetector.DetectionResult;
 import com.aiextractor.export.StructureExporter;
 import com.aiextractor.models.BoundingBox;
-import com.aiextractor.models.ExtractedStructure;
+import com.aiextractor.region.RegionWorld;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * Scans worlds for structures automatically
+ * Scans worlds for structures automatically.
+ * Several named scan jobs (possibly on different worlds) can run at once; they share one
+ * per-tick budget, divided between them in proportion to their weight.
  */
 public class WorldScanner {
 
@@ -33,28 +40,31 @@ public class WorldScanner {
     private final StructureExporter exporter;
     
     // Minimum distance between structure centers to be considered different structures
-    private static final int MIN_STRUCTURE_DISTANCE = 5;
+    static final int MIN_STRUCTURE_DISTANCE = 5;
     // Overlap threshold - if more than this % of blocks overlap, skip the structure
-    private static final double OVERLAP_THRESHOLD = 0.3;
+    static final double OVERLAP_THRESHOLD = 0.3;
     
     private BukkitTask scanTask;
-    private final AtomicBoolean scanning = new AtomicBoolean(false);
-    private final AtomicInteger structuresFound = new AtomicInteger(0);
-    private final AtomicInteger chunksScanned = new AtomicInteger(0);
+    private final Map<String, ScanJob> jobs = new LinkedHashMap<>();
     
-    private World currentWorld;
-    private Queue<long[]> chunkQueue;
-    private Set<Long> processedChunks;
-    private Set<Long> processedBlocks;  // Track ALL processed block positions
-    private List<int[]> structureCenters;  // Track centers of captured structures
+    private TickBudgetController tickBudget;
+    private int checkpointInterval;
+    private final File checkpointDirectory;
+    private final Object checkpointLock = new Object();
     
-    private int chunksPerTick;
+    private volatile OfflineScanner offlineScanner;
+    
+    // Auto-scan extractions and exports not yet finished, for backpressure
+    private final AtomicInteger scanExportsInFlight = new AtomicInteger();
+    private boolean exportBacklogged;
 
     public WorldScanner(StructureExtractorPlugin plugin) {
         this.plugin = plugin;
         this.detector = plugin.getStructureDetector();
         this.exporter = plugin.getStructureExporter();
-        this.chunksPerTick = plugin.getConfig().getInt("scanner.chunks-per-tick", 2);
+        this.tickBudget = TickBudgetController.fromConfig(plugin.getConfig());
+        this.checkpointInterval = plugin.getConfig().getInt("scanner.checkpoint-interval", 200);
+        this.checkpointDirectory = new File(plugin.getDataFolder(), "scans");
     }
 
     /**
@@ -65,110 +75,290 @@ public class WorldScanner {
     }
     
     /**
-     * Start scanning a world from a specific location (or spawn if null)
+     * Start scanning a world from a specific location (or spawn if null).
+     * The job is named after the world.
      */
     public boolean startScan(World world, Location startLocation) {
-        if (scanning.get()) {
+        return startScan(sanitizeJobName(world.getName()), world, startLocation, 1, 0, 0, null, null);
+    }
+
+    /**
+     * Start a named scan job
+     * @param startLocation center of the initial area, or null for the world spawn
+     * @param weight relative share of the per-tick budget
+     * @param maxChunks stop after this many chunks (0 = unlimited)
+     * @param maxStructures stop after capturing this many structures (0 = unlimited)
+     * @param frontierPolicy "bfs", "spiral" or "priority", or null for the configured default
+     * @param detectionStrategy "flood-fill", "flood-fill-26" or "estimate", or null for the configured default
+     * @return false if the name is not a valid job name, a job with this name is already running
+     *         or the job limit is reached
+     */
+    public boolean startScan(String jobName, World world, Location startLocation, int weight, int maxChunks,
+                             int maxStructures, String frontierPolicy, String detectionStrategy) {
+        if (!canStartJob(jobName)) {
             return false;
         }
         
-        scanning.set(true);
-        structuresFound.set(0);
-        chunksScanned.set(0);
-        
-        currentWorld = world;
-        chunkQueue = new LinkedList<>();
-        processedChunks = new HashSet<>();
-        processedBlocks = new HashSet<>();
-        structureCenters = new ArrayList<>();
-        
         // Start from provided location or spawn
         Location center = startLocation != null ? startLocation : world.getSpawnLocation();
         int startChunkX = center.getBlockX() >> 4;
         int startChunkZ = center.getBlockZ() >> 4;
         
+        String policy = frontierPolicy != null ? frontierPolicy 
+            : plugin.getConfig().getString("scanner.frontier.policy", "bfs");
+        ScanFrontier frontier;
+        try {
+            frontier = ScanFrontier.create(policy, startChunkX, startChunkZ, plugin.getConfig());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning(e.getMessage() + ", using bfs");
+            frontier = new BfsFrontier();
+        }
+        DetectionStrategy strategy = detectionStrategy != null ? detector.createStrategy(detectionStrategy)
+            : detector.getDefaultStrategy();
+        ScanJob job = new ScanJob(jobName, world, startChunkX, startChunkZ, weight, maxChunks, maxStructures,
+            frontier, strategy);
+        
         // Add a larger initial area around center (configurable radius)
         int scanRadius = plugin.getConfig().getInt("scanner.initial-radius", 8);
         for (int dx = -scanRadius; dx <= scanRadius; dx++) {
             for (int dz = -scanRadius; dz <= scanRadius; dz++) {
-                addChunkToQueue(startChunkX + dx, startChunkZ + dz);
+                job.addChunk(startChunkX + dx, startChunkZ + dz, 0);
             }
         }
         
-        plugin.getLogger().info("Queued " + chunkQueue.size() + " chunks for scanning around " + 
-            center.getBlockX() + ", " + center.getBlockZ());
+        plugin.getLogger().info("Queued " + job.getQueueSize() + " chunks for scan job " + jobName + " around " + 
+            center.getBlockX() + ", " + center.getBlockZ() + " (" + frontier.getPolicy() + " order, " +
+            strategy.getName() + " detection)");
+        
+        addJob(job);
+        plugin.getLogger().info("Started scan job " + jobName + " in world: " + world.getName());
+        return true;
+    }
+
+    /**
+     * Resume a scan of a world from its saved checkpoint
+     * @return the number of chunks restored to the queue, or -1 if the scan could not be resumed
+     */
+    public int resumeScan(World world) {
+        return resumeScan(sanitizeJobName(world.getName()));
+    }
+
+    /**
+     * Resume a scan job from its saved checkpoint
+     * @return the number of chunks restored to the queue, or -1 if the scan could not be resumed
+     */
+    public int resumeScan(String jobName) {
+        if (!canStartJob(jobName)) {
+            return -1;
+        }
+        
+        File checkpointFile = getCheckpointFile(jobName);
+        if (!checkpointFile.exists()) {
+            return -1;
+        }
+        
+        ScanCheckpoint checkpoint;
+        try {
+            checkpoint = ScanCheckpoint.read(checkpointFile);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to read scan checkpoint: " + e.getMessage());
+            return -1;
+        }
+        
+        World world = plugin.getServer().getWorld(checkpoint.getWorldName());
+        if (world == null) {
+            plugin.getLogger().warning("Cannot resume scan job " + jobName + ": world " + 
+                checkpoint.getWorldName() + " is not loaded");
+            return -1;
+        }
         
-        // Start the scan task
+        ScanFrontier frontier;
+        try {
+            frontier = ScanFrontier.create(checkpoint.getFrontierPolicy(), checkpoint.getOriginX(),
+                checkpoint.getOriginZ(), plugin.getConfig());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().severe("Failed to resume scan job " + jobName + ": " + e.getMessage());
+            return -1;
+        }
+        
+        ScanJob job = ScanJob.fromCheckpoint(jobName, world, checkpoint, frontier,
+            detector.createStrategy(checkpoint.getDetectionStrategy()));
+        addJob(job);
+        plugin.getLogger().info("Resumed scan job " + jobName + " in world: " + world.getName() + " (" + 
+            job.getQueueSize() + " chunks queued, " + job.getCapturedBoxes().size() + " structures already captured)");
+        return job.getQueueSize();
+    }
+
+    /**
+     * Check if a saved checkpoint exists for a scan job
+     */
+    public boolean hasCheckpoint(String jobName) {
+        return getCheckpointFile(jobName).exists();
+    }
+
+    /**
+     * Names of scan jobs with a saved checkpoint that are not currently running
+     */
+    public List<String> getPausedJobs() {
+        List<String> names = new ArrayList<>();
+        File[] files = checkpointDirectory.listFiles((dir, name) -> name.endsWith(".scan"));
+        if (files == null) {
+            return names;
+        }
+        Set<String> running = new HashSet<>();
+        for (String jobName : jobs.keySet()) {
+            running.add(sanitizeJobName(jobName));
+        }
+        for (File file : files) {
+            String name = file.getName().substring(0, file.getName().length() - ".scan".length());
+            if (!running.contains(name)) {
+                names.add(name);
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private boolean canStartJob(String jobName) {
+        if (!isValidJobName(jobName)) {
+            return false;
+        }
+        // Checkpoint files of names differing only in case collide on case-insensitive file systems
+        for (String running : jobs.keySet()) {
+            if (running.equalsIgnoreCase(jobName)) {
+                return false;
+            }
+        }
+        int maxJobs = plugin.getConfig().getInt("scanner.max-jobs", 4);
+        return maxJobs <= 0 || jobs.size() < maxJobs;
+    }
+
+    /**
+     * Register a job and make sure the scan task is running
+     */
+    private void addJob(ScanJob job) {
+        // Join at the current fair-share clock so a new job doesn't starve the others
+        double minVirtualTime = Double.MAX_VALUE;
+        for (ScanJob other : jobs.values()) {
+            minVirtualTime = Math.min(minVirtualTime, other.getVirtualTime());
+        }
+        job.setVirtualTime(jobs.isEmpty() ? 0 : minVirtualTime);
+        jobs.put(job.getName(), job);
+        
+        if (scanTask == null) {
+            startScanTask();
+        }
+    }
+
+    /**
+     * Start the repeating task that drains the job queues
+     */
+    private void startScanTask() {
+        tickBudget = TickBudgetController.fromConfig(plugin.getConfig());
         scanTask = new BukkitRunnable() {
             @Override
             public void run() {
-                if (!scanning.get() || chunkQueue.isEmpty()) {
-                    stopScan();
+                finishCompletedJobs();
+                if (jobs.isEmpty()) {
+                    cancel();
+                    scanTask = null;
                     return;
                 }
                 
-                // Process chunks this tick
-                for (int i = 0; i < chunksPerTick && !chunkQueue.isEmpty(); i++) {
-                    long[] coords = chunkQueue.poll();
+                // Process chunks this tick, within the tick budget, always serving the job
+                // that is furthest behind its weighted share
+                long tickStart = System.nanoTime();
+                int processed = 0;
+                while (tickBudget.shouldContinue(processed, System.nanoTime() - tickStart)) {
+                    // Never outrun the disk: wait for the export queue to drain
+                    if (isExportBacklogged()) {
+                        break;
+                    }
+                    ScanJob job = nextJob();
+                    if (job == null) {
+                        break;
+                    }
+                    long[] coords = job.pollChunk();
                     if (coords != null) {
-                        processChunk((int) coords[0], (int) coords[1]);
+                        processChunk(job, (int) coords[0], (int) coords[1]);
                     }
+                    processed++;
                 }
+                
+                tickBudget.recordTick(System.nanoTime() - tickStart, processed,
+                    plugin.getServer().getAverageTickTime(), plugin.getServer().getOnlinePlayers().size());
             }
         }.runTaskTimer(plugin, 20L, 1L); // Start after 1 second, run every tick
-        
-        plugin.getLogger().info("Started scanning world: " + world.getName());
-        return true;
     }
 
     /**
-     * Add a chunk to the scan queue
+     * The job with work left that has received the least weighted service so far
      */
-    private void addChunkToQueue(int chunkX, int chunkZ) {
-        long packed = packChunkCoords(chunkX, chunkZ);
-        if (!processedChunks.contains(packed)) {
-            processedChunks.add(packed);
-            chunkQueue.add(new long[]{chunkX, chunkZ});
+    private ScanJob nextJob() {
+        ScanJob next = null;
+        for (ScanJob job : jobs.values()) {
+            if (job.hasWork() && (next == null || job.getVirtualTime() < next.getVirtualTime())) {
+                next = job;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Stop jobs whose frontier is exhausted or whose chunk or structure limit is reached.
+     * A job waits for its exports in flight first, since a failed or duplicate one frees
+     * its place under the structure limit again.
+     */
+    private void finishCompletedJobs() {
+        List<ScanJob> finished = new ArrayList<>();
+        for (ScanJob job : jobs.values()) {
+            if (!job.hasWork() && job.getExportsInFlight().get() == 0) {
+                finished.add(job);
+            }
+        }
+        for (ScanJob job : finished) {
+            plugin.getLogger().info("Scan job " + job.getName() + (job.isLimitReached()
+                ? " reached its chunk or structure limit" : " finished"));
+            stopJob(job, false);
         }
     }
 
     /**
      * Process a single chunk
      */
-    private void processChunk(int chunkX, int chunkZ) {
+    private void processChunk(ScanJob job, int chunkX, int chunkZ) {
+        World world = job.getWorld();
+        
         // Load the chunk if not already loaded (required to scan it)
-        boolean wasLoaded = currentWorld.isChunkLoaded(chunkX, chunkZ);
+        boolean wasLoaded = world.isChunkLoaded(chunkX, chunkZ);
         
         if (!wasLoaded) {
             // Check if chunk exists on disk - if not, skip it
-            if (!currentWorld.isChunkGenerated(chunkX, chunkZ)) {
+            if (!world.isChunkGenerated(chunkX, chunkZ)) {
                 return;
             }
             // Load the chunk temporarily
-            currentWorld.loadChunk(chunkX, chunkZ, false);
+            world.loadChunk(chunkX, chunkZ, false);
         }
         
-        chunksScanned.incrementAndGet();
-        Chunk chunk = currentWorld.getChunkAt(chunkX, chunkZ);
+        int chunksScanned = job.getChunksScanned().incrementAndGet();
+        Chunk chunk = world.getChunkAt(chunkX, chunkZ);
         
         // Scan for structure indicator blocks
         int baseX = chunkX << 4;
         int baseZ = chunkZ << 4;
-        int blocksChecked = 0;
         int indicatorsFound = 0;
         
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
-                for (int y = currentWorld.getMinHeight(); y < currentWorld.getMaxHeight(); y++) {
+                for (int y = world.getMinHeight(); y < world.getMaxHeight(); y++) {
                     Block block = chunk.getBlock(x, y, z);
-                    blocksChecked++;
                     
                     if (detector.isStructureBlock(block.getType())) {
                         indicatorsFound++;
                         // Check if this block has already been processed as part of another structure
-                        long locPacked = packBlockCoords(baseX + x, y, baseZ + z);
-                        if (!processedBlocks.contains(locPacked)) {
-                            tryExtractStructure(block);
+                        if (!isCaptured(world, baseX + x, y, baseZ + z)) {
+                            tryExtractStructure(job, block);
                         }
                     }
                 }
@@ -176,33 +366,66 @@ public class WorldScanner {
         }
         
         // Log progress periodically
-        if (chunksScanned.get() % 50 == 0) {
-            plugin.getLogger().info("Scan progress: " + chunksScanned.get() + " chunks scanned, " + 
-                structuresFound.get() + " structures found, " + chunkQueue.size() + " chunks remaining");
+        if (chunksScanned % 50 == 0) {
+            plugin.getLogger().info("Scan progress [" + job.getName() + "]: " + chunksScanned + " chunks scanned, " + 
+                job.getStructuresFound().get() + " structures found, " + job.getQueueSize() + " chunks remaining");
         }
         
         // Unload chunk if we loaded it
         if (!wasLoaded && plugin.getConfig().getBoolean("scanner.unload-chunks", true)) {
-            currentWorld.unloadChunkRequest(chunkX, chunkZ);
+            world.unloadChunkRequest(chunkX, chunkZ);
         }
         
-        // Add neighboring chunks to queue (spiral outward)
-        addChunkToQueue(chunkX + 1, chunkZ);
-        addChunkToQueue(chunkX - 1, chunkZ);
-        addChunkToQueue(chunkX, chunkZ + 1);
-        addChunkToQueue(chunkX, chunkZ - 1);
+        // Add neighboring chunks to the frontier, scored by what this chunk contained
+        job.addChunk(chunkX + 1, chunkZ, indicatorsFound);
+        job.addChunk(chunkX - 1, chunkZ, indicatorsFound);
+        job.addChunk(chunkX, chunkZ + 1, indicatorsFound);
+        job.addChunk(chunkX, chunkZ - 1, indicatorsFound);
+        
+        // Periodically persist progress so a crash or restart can resume from here
+        if (checkpointInterval > 0 && chunksScanned % checkpointInterval == 0) {
+            saveCheckpointAsync(job);
+        }
+    }
+
+    /**
+     * Whether any job scanning the same world has already captured this block
+     */
+    private boolean isCaptured(World world, int x, int y, int z) {
+        for (ScanJob job : jobs.values()) {
+            if (job.getWorld().equals(world) && job.getCapturedBoxes().contains(x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether any job scanning the same world has captured a structure centered near this point
+     */
+    private boolean hasCenterWithin(World world, int x, int y, int z) {
+        for (ScanJob job : jobs.values()) {
+            if (job.getWorld().equals(world) && job.getCapturedBoxes().hasCenterWithin(x, y, z, MIN_STRUCTURE_DISTANCE)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * Try to extract a structure starting from a block
      */
-    private void tryExtractStructure(Block startBlock) {
-        DetectionResult result = detector.detectFromLocation(startBlock.getLocation());
+    private void tryExtractStructure(ScanJob job, Block startBlock) {
+        if (job.isStructureLimitReached()) {
+            return;
+        }
+        DetectionResult result = detector.detectFromLocation(startBlock.getLocation(), job.getDetectionStrategy());
         
         if (!result.isSuccess()) {
             return;
         }
         
+        World world = job.getWorld();
         BoundingBox box = result.getBoundingBox();
         
         // Calculate structure center
@@ -211,16 +434,8 @@ public class WorldScanner {
         int centerZ = (box.getMinZ() + box.getMaxZ()) / 2;
         
         // Check if this structure's center is too close to an existing one
-        for (int[] existingCenter : structureCenters) {
-            int dx = Math.abs(centerX - existingCenter[0]);
-            int dy = Math.abs(centerY - existingCenter[1]);
-            int dz = Math.abs(centerZ - existingCenter[2]);
-            double distance = Math.sqrt(dx*dx + dy*dy + dz*dz);
-            
-            if (distance < MIN_STRUCTURE_DISTANCE) {
-                // Too close to an existing structure, skip
-                return;
-            }
+        if (hasCenterWithin(world, centerX, centerY, centerZ)) {
+            return;
         }
         
         // Check overlap with already processed blocks
@@ -230,10 +445,10 @@ public class WorldScanner {
         for (int x = box.getMinX(); x <= box.getMaxX(); x++) {
             for (int y = box.getMinY(); y <= box.getMaxY(); y++) {
                 for (int z = box.getMinZ(); z <= box.getMaxZ(); z++) {
-                    Block block = currentWorld.getBlockAt(x, y, z);
+                    Block block = world.getBlockAt(x, y, z);
                     if (!block.getType().isAir()) {
                         totalBlocks++;
-                        if (processedBlocks.contains(packBlockCoords(x, y, z))) {
+                        if (isCaptured(world, x, y, z)) {
                             overlapCount++;
                         }
                     }
@@ -248,94 +463,266 @@ public class WorldScanner {
             return;
         }
         
-        // Mark all blocks in this bounding box as processed
-        markBoundingBoxProcessed(box);
-        
-        // Record this structure's center
-        structureCenters.add(new int[]{centerX, centerY, centerZ});
+        // Mark the bounding box as captured (also records its center)
+        job.getCapturedBoxes().add(box);
         
         // Extract and export
         boolean includeAir = plugin.getConfig().getBoolean("export.include-air", false);
-        ExtractedStructure structure = detector.extractStructure(box, null, includeAir);
-        structure.getMetadata().setCaptureMode("auto-scan");
-        
-        exporter.exportAsync(structure).thenAccept(exportResult -> {
-            if (exportResult.isSuccess()) {
-                structuresFound.incrementAndGet();
+        scanExportsInFlight.incrementAndGet();
+        job.getExportsInFlight().incrementAndGet();
+        detector.extractStructureAsync(box, null, includeAir, plugin.getAsyncExecutor()).thenCompose(structure -> {
+            structure.getMetadata().setCaptureMode("auto-scan");
+            return exporter.exportAsync(structure);
+        }).thenAccept(exportResult -> {
+            if (exportResult.isDuplicate()) {
+                plugin.getLogger().fine("Skipped duplicate of " + exportResult.getOutputFile().getName());
+            } else if (exportResult.isSuccess()) {
+                job.getStructuresFound().incrementAndGet();
                 plugin.getLogger().info("Auto-exported structure: " + 
                     exportResult.getOutputFile().getName() + 
                     " (" + exportResult.getBlockCount() + " blocks)");
+            } else {
+                plugin.getLogger().warning("Auto-export failed: " + exportResult.getError());
+            }
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                plugin.getLogger().warning("Auto-export of the structure at " + centerX + "," + centerY + "," +
+                    centerZ + " failed: " + cause);
             }
+            job.getExportsInFlight().decrementAndGet();
+            scanExportsInFlight.decrementAndGet();
         });
     }
 
     /**
-     * Mark all blocks in a bounding box as processed
+     * Whether scans should pause because their exports are not keeping up. Logs when the
+     * state changes.
      */
-    private void markBoundingBoxProcessed(BoundingBox box) {
-        // Mark ALL non-air blocks in the bounding box as processed
-        for (int x = box.getMinX(); x <= box.getMaxX(); x++) {
-            for (int y = box.getMinY(); y <= box.getMaxY(); y++) {
-                for (int z = box.getMinZ(); z <= box.getMaxZ(); z++) {
-                    Block block = currentWorld.getBlockAt(x, y, z);
-                    if (!block.getType().isAir()) {
-                        processedBlocks.add(packBlockCoords(x, y, z));
-                    }
-                }
-            }
+    private boolean isExportBacklogged() {
+        boolean backlogged = exporter.isBacklogged(scanExportsInFlight.get());
+        if (backlogged != exportBacklogged) {
+            exportBacklogged = backlogged;
+            plugin.getLogger().info(backlogged
+                ? "Scans paused until the export queue drains (" + scanExportsInFlight.get() + " exports in flight)"
+                : "Export queue drained, scans resumed");
         }
+        return backlogged;
     }
 
     /**
-     * Stop the current scan
+     * Stop a scan job, keeping a checkpoint if it has chunks left
+     * @return the final stats of the job, or null if no such job is running
      */
-    public void stopScan() {
-        if (scanTask != null) {
+    public ScanStats stopScan(String jobName) {
+        ScanJob job = jobs.get(jobName);
+        if (job == null) {
+            return null;
+        }
+        ScanStats stats = job.getStats();
+        stopJob(job, true);
+        return stats;
+    }
+
+    /**
+     * Stop every running scan job
+     */
+    public void stopAllScans() {
+        for (ScanJob job : new ArrayList<>(jobs.values())) {
+            stopJob(job, true);
+        }
+    }
+
+    /**
+     * Remove a job, saving its checkpoint if it was interrupted or deleting it if it ran to completion
+     */
+    private void stopJob(ScanJob job, boolean interrupted) {
+        jobs.remove(job.getName());
+        job.getRunning().set(false);
+        
+        synchronized (checkpointLock) {
+            File checkpointFile = getCheckpointFile(job.getName());
+            if (interrupted && job.hasWork()) {
+                try {
+                    job.createCheckpoint().write(checkpointFile);
+                    plugin.getLogger().info("Saved scan checkpoint: " + checkpointFile.getName());
+                } catch (IOException e) {
+                    plugin.getLogger().severe("Failed to save scan checkpoint: " + e.getMessage());
+                }
+            } else if (checkpointFile.exists()) {
+                checkpointFile.delete();
+            }
+        }
+        
+        plugin.getLogger().info("Stopped scan job " + job.getName() + " in world: " + job.getWorld().getName());
+        plugin.getLogger().info("Chunks scanned: " + job.getChunksScanned().get() + 
+                               ", Structures found: " + job.getStructuresFound().get());
+        
+        if (jobs.isEmpty() && scanTask != null) {
             scanTask.cancel();
             scanTask = null;
         }
+    }
+
+    /**
+     * Snapshot a job's state on the main thread and write it to disk asynchronously
+     */
+    private void saveCheckpointAsync(ScanJob job) {
+        if (!job.getCheckpointPending().compareAndSet(false, true)) {
+            return; // Previous checkpoint is still being written
+        }
+        
+        ScanCheckpoint checkpoint = job.createCheckpoint();
+        File checkpointFile = getCheckpointFile(job.getName());
         
-        scanning.set(false);
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    synchronized (checkpointLock) {
+                        // The job may have been stopped (and its final checkpoint written) meanwhile
+                        if (job.getRunning().get()) {
+                            checkpoint.write(checkpointFile);
+                        }
+                    }
+                } catch (IOException e) {
+                    plugin.getLogger().warning("Failed to write scan checkpoint: " + e.getMessage());
+                } finally {
+                    job.getCheckpointPending().set(false);
+                }
+            }
+        }.runTaskAsynchronously(plugin);
+    }
+
+    private File getCheckpointFile(String jobName) {
+        return new File(checkpointDirectory, sanitizeJobName(jobName) + ".scan");
+    }
+
+    /**
+     * Job names double as checkpoint file names
+     */
+    public static String sanitizeJobName(String jobName) {
+        return jobName.replaceAll("[^a-zA-Z0-9_-]", "_");
+    }
+
+    /**
+     * Whether a name can be used for a scan job: letters, digits, '_' and '-' only, so every
+     * job has its own checkpoint file, and not "all", which /scan stop reserves
+     */
+    public static boolean isValidJobName(String jobName) {
+        return jobName.matches("[a-zA-Z0-9_-]{1,64}") && !jobName.equalsIgnoreCase("all");
+    }
+
+    /**
+     * Scan an unloaded world folder directly from its region files on a background thread
+     * @param onComplete called on the main thread with the final stats
+     * @return false if an offline scan is already running or the folder has no region files
+     */
+    public boolean startOfflineScan(File worldFolder, Consumer<ScanStats> onComplete) {
+        if (offlineScanner != null) {
+            return false;
+        }
         
-        if (currentWorld != null) {
-            plugin.getLogger().info("Stopped scanning world: " + currentWorld.getName());
-            plugin.getLogger().info("Chunks scanned: " + chunksScanned.get() + 
-                                   ", Structures found: " + structuresFound.get());
+        RegionWorld regionWorld;
+        try {
+            regionWorld = RegionWorld.open(worldFolder);
+        } catch (IOException e) {
+            plugin.getLogger().warning(e.getMessage());
+            return false;
         }
         
-        currentWorld = null;
-        chunkQueue = null;
-        processedChunks = null;
-        processedBlocks = null;
-        structureCenters = null;
+        OfflineScanner scanner = new OfflineScanner(detector, exporter, plugin.getLogger(),
+            plugin.getConfig().getBoolean("export.include-air", false),
+            plugin.getConfig().getInt("scanner.offline-threads", 0));
+        offlineScanner = scanner;
+        
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                ScanStats stats;
+                try {
+                    stats = scanner.scan(regionWorld);
+                } finally {
+                    offlineScanner = null;
+                }
+                if (plugin.isEnabled()) {
+                    plugin.getServer().getScheduler().runTask(plugin, () -> onComplete.accept(stats));
+                }
+            }
+        }.runTaskAsynchronously(plugin);
+        return true;
+    }
+    
+    /**
+     * Cancel a running offline scan
+     */
+    public void stopOfflineScan() {
+        OfflineScanner scanner = offlineScanner;
+        if (scanner != null) {
+            scanner.cancel();
+        }
+    }
+    
+    /**
+     * Stats of the running offline scan, or null if none is running
+     */
+    public ScanStats getOfflineStats() {
+        OfflineScanner scanner = offlineScanner;
+        return scanner != null ? scanner.getStats() : null;
+    }
+
+    /**
+     * Per-tick budget controller shared by all scan jobs
+     */
+    public TickBudgetController getTickBudget() {
+        return tickBudget;
     }
 
     /**
-     * Check if currently scanning
+     * Check if any scan job is running
      */
     public boolean isScanning() {
-        return scanning.get();
+        return !jobs.isEmpty();
     }
 
     /**
-     * Get scan statistics
+     * Running scan jobs in start order
      */
-    public ScanStats getStats() {
-        return new ScanStats(
-            chunksScanned.get(),
-            structuresFound.get(),
-            chunkQueue != null ? chunkQueue.size() : 0,
-            currentWorld != null ? currentWorld.getName() : null
-        );
+    public Collection<ScanJob> getJobs() {
+        return Collections.unmodifiableCollection(jobs.values());
+    }
+
+    /**
+     * Get a running scan job by name, or null
+     */
+    public ScanJob getJob(String jobName) {
+        return jobs.get(jobName);
     }
 
-    // Coordinate packing utilities
-    private static long packChunkCoords(int x, int z) {
-        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    /**
+     * Get combined statistics of all running scan jobs
+     */
+    public ScanStats getStats() {
+        if (jobs.size() == 1) {
+            return jobs.values().iterator().next().getStats();
+        }
+        int chunksScanned = 0;
+        int structuresFound = 0;
+        int chunksRemaining = 0;
+        for (ScanJob job : jobs.values()) {
+            chunksScanned += job.getChunksScanned().get();
+            structuresFound += job.getStructuresFound().get();
+            chunksRemaining += job.getQueueSize();
+        }
+        return new ScanStats(chunksScanned, structuresFound, chunksRemaining, null);
     }
 
-    private static long packBlockCoords(int x, int y, int z) {
-        return ((long)(x & 0x3FFFFFF) << 38) | ((long)(y & 0xFFF) << 26) | (z & 0x3FFFFFF);
+    /**
+     * Get statistics of one scan job, or null if it isn't running
+     */
+    public ScanStats getStats(String jobName) {
+        ScanJob job = jobs.get(jobName);
+        return job != null ? job.getStats() : null;
     }
 
     /**
@@ -346,12 +733,18 @@ public class WorldScanner {
         private final int structuresFound;
         private final int chunksRemaining;
         private final String worldName;
+        private final String jobName;
 
         public ScanStats(int chunksScanned, int structuresFound, int chunksRemaining, String worldName) {
+            this(chunksScanned, structuresFound, chunksRemaining, worldName, worldName);
+        }
+
+        public ScanStats(int chunksScanned, int structuresFound, int chunksRemaining, String worldName, String jobName) {
             this.chunksScanned = chunksScanned;
             this.structuresFound = structuresFound;
             this.chunksRemaining = chunksRemaining;
             this.worldName = worldName;
+            this.jobName = jobName;
         }
 
         public int getChunksScanned() {
@@ -369,5 +762,9 @@ public class WorldScanner {
         public String getWorldName() {
             return worldName;
         }
+
+        public String getJobName() {
+            return jobName;
+        }
     }
 }
@@ -0,0 +1,30 @@
+package com.aiextractor;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The plugin's bundled config.yml, for tests and benchmarks
+ */
+public final class TestConfig {
+
+    private TestConfig() {
+    }
+
+    /**
+     * A fresh copy of the bundled config, so a test can change settings without affecting others
+     */
+    public static FileConfiguration load() throws IOException {
+        try (InputStream in = TestConfig.class.getResourceAsStream("/config.yml")) {
+            if (in == null) {
+                throw new IOException("Bundled config.yml not found");
+            }
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.TestConfig;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Compares the material classification table with the per-call lookups it replaced (HashSet
+ * membership and the name-based String.contains rules), on the block types of a synthetic
+ * village read in scan order.
+ * Usage, after mvn test-compile: java -cp target/test-classes:target/classes:paper-api.jar
+ *        com.aiextractor.detection.ClassificationBenchmark
+ *        [--size &lt;n&gt;] [--rounds &lt;n&gt;] [--config &lt;config.yml&gt;]
+ */
+public final class ClassificationBenchmark {
+
+    private static final String[] CHECKS = {"natural", "indicator", "structure-part", "man-made"};
+
+    private final StructureDetector detector;
+    // The sets the detector used to look up before the table
+    private final Set<Material> naturalBlocks = new HashSet<>();
+    private final Set<Material> indicatorBlocks = new HashSet<>();
+
+    public ClassificationBenchmark(StructureDetector detector) {
+        this.detector = detector;
+        for (Material material : Material.values()) {
+            if (detector.isNaturalBlock(material)) {
+                naturalBlocks.add(material);
+            }
+            if (detector.isStructureBlock(material)) {
+                indicatorBlocks.add(material);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = 128;
+        int rounds = 10;
+        File configFile = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--config":
+                    configFile = new File(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Usage: ClassificationBenchmark [--size <n>] [--rounds <n>] [--config <config.yml>]");
+                    System.exit(1);
+            }
+        }
+
+        FileConfiguration config = configFile != null
+            ? YamlConfiguration.loadConfiguration(configFile)
+            : TestConfig.load();
+        StructureDetector detector = new StructureDetector(config, Logger.getLogger("StructureExtractor"));
+        SyntheticBlockAccess village = SyntheticBlockAccess.village(1, size, size / 4);
+
+        // Every block of the village plus every material once, so rare names are covered too
+        List<Material> types = new ArrayList<>();
+        for (int y = 0; y < village.getSizeY(); y++) {
+            for (int z = 0; z < village.getSizeZ(); z++) {
+                for (int x = 0; x < village.getSizeX(); x++) {
+                    types.add(village.getType(x, y, z));
+                }
+            }
+        }
+        types.addAll(EnumSet.allOf(Material.class));
+        Material[] sample = types.toArray(new Material[0]);
+
+        ClassificationBenchmark benchmark = new ClassificationBenchmark(detector);
+        System.out.println(sample.length + " lookups per check, " + rounds + " rounds");
+        System.out.println(String.format("%-16s %14s %14s %10s %10s", "check", "before ns/op", "table ns/op",
+            "speedup", "mismatch"));
+        for (Result result : benchmark.run(sample, rounds)) {
+            System.out.println(String.format("%-16s %14.2f %14.2f %9.1fx %10d", result.getCheck(),
+                result.getBeforeNanos(), result.getTableNanos(), result.getBeforeNanos() / result.getTableNanos(),
+                result.getMismatches()));
+        }
+    }
+
+    /**
+     * Time every check over the sample with the old lookups and the table, a number of rounds each
+     */
+    public List<Result> run(Material[] sample, int rounds) {
+        List<Result> results = new ArrayList<>();
+        for (int check = 0; check < CHECKS.length; check++) {
+            int mismatches = 0;
+            for (Material material : sample) {
+                if (before(check, material) != table(check, material)) {
+                    mismatches++;
+                }
+            }
+
+            // One untimed pass each for JIT warm-up; the hit counts keep the loops from being optimized away
+            int hits = count(check, sample, false) + count(check, sample, true);
+            long begin = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                hits += count(check, sample, false);
+            }
+            long beforeNanos = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                hits += count(check, sample, true);
+            }
+            long tableNanos = System.nanoTime() - begin;
+
+            double lookups = (double) sample.length * Math.max(1, rounds);
+            results.add(new Result(CHECKS[check], beforeNanos / lookups, tableNanos / lookups,
+                mismatches, hits));
+        }
+        return results;
+    }
+
+    private int count(int check, Material[] sample, boolean table) {
+        int hits = 0;
+        for (Material material : sample) {
+            if (table ? table(check, material) : before(check, material)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private boolean table(int check, Material material) {
+        switch (check) {
+            case 0:
+                return detector.isNaturalBlock(material);
+            case 1:
+                return detector.isStructureBlock(material);
+            case 2:
+                return detector.isStructurePart(material);
+            default:
+                return detector.isManMadeBlock(material);
+        }
+    }
+
+    private boolean before(int check, Material material) {
+        switch (check) {
+            case 0:
+                return naturalBlocks.contains(material);
+            case 1:
+                return indicatorBlocks.contains(material);
+            case 2:
+                return StructureDetector.computeStructurePart(material, naturalBlocks.contains(material));
+            default:
+                return indicatorBlocks.contains(material) || StructureDetector.computeManMade(material);
+        }
+    }
+
+    /**
+     * Timing of one check
+     */
+    public static class Result {
+        private final String check;
+        private final double beforeNanos;
+        private final double tableNanos;
+        private final int mismatches;
+        private final int hits;
+
+        public Result(String check, double beforeNanos, double tableNanos, int mismatches, int hits) {
+            this.check = check;
+            this.beforeNanos = beforeNanos;
+            this.tableNanos = tableNanos;
+            this.mismatches = mismatches;
+            this.hits = hits;
+        }
+
+        public String getCheck() {
+            return check;
+        }
+
+        /**
+         * Average time per lookup with the sets and name rules
+         */
+        public double getBeforeNanos() {
+            return beforeNanos;
+        }
+
+        /**
+         * Average time per lookup in the table
+         */
+        public double getTableNanos() {
+            return tableNanos;
+        }
+
+        /**
+         * Sampled materials the two lookups classify differently (should be 0)
+         */
+        public int getMismatches() {
+            return mismatches;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.TestConfig;
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.models.BoundingBox;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Measures the flood fill's speed and allocation rate on a synthetic village, next to the
+ * boxed flood fill it replaced (HashSet&lt;Long&gt; and a LinkedList of int[] per cell).
+ * Usage, after mvn test-compile: java -cp target/test-classes:target/classes:paper-api.jar
+ *        com.aiextractor.detection.FloodFillBenchmark
+ *        [--size &lt;n&gt;] [--houses &lt;n&gt;] [--rounds &lt;n&gt;] [--seed &lt;n&gt;] [--config &lt;config.yml&gt;]
+ */
+public final class FloodFillBenchmark {
+
+    private final StructureDetector detector;
+    private final BlockAccess access;
+    private final int maxIterations;
+
+    public FloodFillBenchmark(StructureDetector detector, BlockAccess access) {
+        this.detector = detector;
+        this.access = access;
+        this.maxIterations = detector.getMaxFloodIterations();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = 256;
+        int houses = 60;
+        int rounds = 20;
+        long seed = 1;
+        File configFile = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size":
+                    size = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--houses":
+                    houses = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--rounds":
+                    rounds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--config":
+                    configFile = new File(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Usage: FloodFillBenchmark [--size <n>] [--houses <n>] [--rounds <n>] [--seed <n>] [--config <config.yml>]");
+                    System.exit(1);
+            }
+        }
+
+        FileConfiguration config = configFile != null
+            ? YamlConfiguration.loadConfiguration(configFile)
+            : TestConfig.load();
+        StructureDetector detector = new StructureDetector(config, Logger.getLogger("StructureExtractor"));
+        SyntheticBlockAccess village = SyntheticBlockAccess.village(seed, size, houses);
+
+        FloodFillBenchmark benchmark = new FloodFillBenchmark(detector, village);
+        List<int[]> starts = village.getStarts();
+        System.out.println(size + "x" + village.getSizeY() + "x" + size + " village, " + starts.size() +
+            " start blocks, " + rounds + " rounds");
+        System.out.println(String.format("%-10s %12s %14s %12s %14s %10s", "fill", "iterations", "iterations/s",
+            "MB alloc", "bytes/iter", "mismatch"));
+        for (Result result : benchmark.run(starts, rounds)) {
+            System.out.println(String.format("%-10s %12d %14.0f %12.1f %14s %10d", result.getName(),
+                result.getIterations(), result.getIterationsPerSecond(), result.getAllocatedBytes() / 1048576.0,
+                result.getAllocatedBytes() < 0 ? "n/a" : String.format("%.1f", result.getBytesPerIteration()),
+                result.getMismatches()));
+        }
+    }
+
+    /**
+     * Detect from every start with the boxed and the current flood fill, a number of rounds each
+     */
+    public List<Result> run(List<int[]> starts, int rounds) {
+        // The fills visit the same cells, so the boxed one's count is used for both
+        long iterationsPerRound = 0;
+        DetectionResult[] reference = new DetectionResult[starts.size()];
+        int[] counted = new int[1];
+        for (int i = 0; i < starts.size(); i++) {
+            int[] start = starts.get(i);
+            reference[i] = boxedFloodFill(start[0], start[1], start[2], counted);
+            iterationsPerRound += counted[0];
+        }
+        long iterations = iterationsPerRound * rounds;
+
+        List<Result> results = new ArrayList<>();
+        for (int fill = 0; fill < 2; fill++) {
+            // One untimed pass for class loading, JIT warm-up and the current fill's scratch tables
+            for (int[] start : starts) {
+                detect(fill, start, counted);
+            }
+
+            int mismatches = 0;
+            long allocatedBefore = allocatedBytes();
+            long begin = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int i = 0; i < starts.size(); i++) {
+                    DetectionResult result = detect(fill, starts.get(i), counted);
+                    if (round == 0 && !sameResult(reference[i], result)) {
+                        mismatches++;
+                    }
+                }
+            }
+            long nanos = System.nanoTime() - begin;
+            long allocated = allocatedBefore < 0 ? -1 : allocatedBytes() - allocatedBefore;
+            results.add(new Result(fill == 0 ? "boxed" : "primitive", iterations, nanos, allocated, mismatches));
+        }
+        return results;
+    }
+
+    private DetectionResult detect(int fill, int[] start, int[] counted) {
+        if (fill == 0) {
+            return boxedFloodFill(start[0], start[1], start[2], counted);
+        }
+        return detector.floodFill(access, start[0], start[1], start[2], StructureDetector.NEIGHBOR_OFFSETS, null, null);
+    }
+
+    /**
+     * The flood fill as it was before it moved to primitive collections, for comparison
+     * @param iterationsOut receives the number of cells dequeued
+     */
+    private DetectionResult boxedFloodFill(int startX, int startY, int startZ, int[] iterationsOut) {
+        Set<Long> visited = new HashSet<>();
+        Set<Long> structureBlocks = new HashSet<>();
+        Queue<int[]> queue = new LinkedList<>();
+
+        queue.add(new int[]{startX, startY, startZ});
+        visited.add(StructureDetector.packCoords(startX, startY, startZ));
+
+        int minX = startX, maxX = startX;
+        int minY = startY, maxY = startY;
+        int minZ = startZ, maxZ = startZ;
+        int iterations = 0;
+
+        while (!queue.isEmpty() && iterations < maxIterations) {
+            iterations++;
+            int[] coords = queue.poll();
+            int x = coords[0];
+            int y = coords[1];
+            int z = coords[2];
+
+            Material material = access.getType(x, y, z);
+            if (detector.isNaturalBlock(material)) {
+                continue;
+            }
+            boolean enclosedAir = false;
+            if (material == Material.AIR || material == Material.CAVE_AIR || material == Material.VOID_AIR) {
+                if (!detector.isEnclosedAir(access, x, y, z)) {
+                    continue;
+                }
+                enclosedAir = true;
+            }
+            if (detector.isStructurePart(material)) {
+                structureBlocks.add(StructureDetector.packCoords(x, y, z));
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                minZ = Math.min(minZ, z);
+                maxZ = Math.max(maxZ, z);
+            }
+            if (detector.isStructurePart(material) || enclosedAir) {
+                for (int[] offset : StructureDetector.NEIGHBOR_OFFSETS) {
+                    int nx = x + offset[0];
+                    int ny = y + offset[1];
+                    int nz = z + offset[2];
+                    long packed = StructureDetector.packCoords(nx, ny, nz);
+                    if (!visited.contains(packed)) {
+                        visited.add(packed);
+                        queue.add(new int[]{nx, ny, nz});
+                    }
+                }
+            }
+        }
+
+        iterationsOut[0] = iterations;
+        return detector.checkLimits(access, structureBlocks.size(), minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    private static boolean sameResult(DetectionResult a, DetectionResult b) {
+        if (a.isSuccess() != b.isSuccess()) {
+            return false;
+        }
+        if (!a.isSuccess()) {
+            return a.getMessage().equals(b.getMessage());
+        }
+        BoundingBox x = a.getBoundingBox();
+        BoundingBox y = b.getBoundingBox();
+        return a.getBlockCount() == b.getBlockCount() &&
+            x.getMinX() == y.getMinX() && x.getMinY() == y.getMinY() && x.getMinZ() == y.getMinZ() &&
+            x.getMaxX() == y.getMaxX() && x.getMaxY() == y.getMaxY() && x.getMaxZ() == y.getMaxZ();
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 if the JVM does not report it
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Speed and allocation of one flood fill
+     */
+    public static class Result {
+        private final String name;
+        private final long iterations;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final int mismatches;
+
+        public Result(String name, long iterations, long nanos, long allocatedBytes, int mismatches) {
+            this.name = name;
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.mismatches = mismatches;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Cells dequeued over all rounds
+         */
+        public long getIterations() {
+            return iterations;
+        }
+
+        public double getIterationsPerSecond() {
+            return nanos > 0 ? iterations * 1e9 / nanos : 0;
+        }
+
+        /**
+         * Bytes allocated over all rounds, or -1 if the JVM does not report allocation
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double getBytesPerIteration() {
+            return iterations > 0 ? (double) allocatedBytes / iterations : 0;
+        }
+
+        /**
+         * Start blocks where the result differs from the boxed fill's
+         */
+        public int getMismatches() {
+            return mismatches;
+        }
+    }
+}
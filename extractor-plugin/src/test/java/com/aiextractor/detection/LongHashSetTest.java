@@ -0,0 +1,132 @@
+package com.aiextractor.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    /**
+     * Random adds and removes over a small key range keep long probe runs in the table, so
+     * most removals shift entries back into the hole
+     */
+    @Test
+    void matchesHashSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet(16);
+        Set<Long> model = new HashSet<>();
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(200) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(model.remove(key), set.remove(key), "remove " + key + " at op " + op);
+            } else {
+                assertEquals(model.add(key), set.add(key), "add " + key + " at op " + op);
+            }
+            assertEquals(model.size(), set.size());
+            if (op % 1000 == 0) {
+                assertSameKeys(model, set);
+            }
+        }
+        assertSameKeys(model, set);
+    }
+
+    /**
+     * Keys that all want the same slot form one run; removing any of them must leave the
+     * others reachable, including the run's wrap around the end of the table
+     */
+    @Test
+    void removeFromCollidingRunKeepsOthersReachable() {
+        LongHashSet probe = new LongHashSet(16);
+        int capacity = probe.capacity();
+        long[] colliding = new long[6];
+        int found = 0;
+        for (long key = 0; found < colliding.length; key++) {
+            if (idealSlot(key, capacity) == capacity - 2) {
+                colliding[found++] = key;
+            }
+        }
+        for (int removed = 0; removed < colliding.length; removed++) {
+            LongHashSet set = new LongHashSet(16);
+            for (long key : colliding) {
+                set.add(key);
+            }
+            assertEquals(capacity, set.capacity(), "table grew, the run would be spread out");
+            assertTrue(set.remove(colliding[removed]));
+            assertFalse(set.remove(colliding[removed]));
+            for (int i = 0; i < colliding.length; i++) {
+                assertEquals(i != removed, set.contains(colliding[i]), "key " + i + " after removing " + removed);
+            }
+            assertEquals(colliding.length - 1, set.size());
+        }
+    }
+
+    @Test
+    void valuesMoveWithTheirKeys() {
+        Random random = new Random(2);
+        LongHashSet set = new LongHashSet(16, true);
+        Map<Long, Object> model = new HashMap<>();
+        for (int op = 0; op < 50_000; op++) {
+            long key = random.nextInt(100);
+            if (random.nextBoolean()) {
+                set.remove(key);
+                model.remove(key);
+            } else {
+                int slot = set.addSlot(key);
+                if (slot < 0) {
+                    Object value = "v" + op;
+                    set.setValueAt(-slot - 1, value);
+                    model.put(key, value);
+                }
+            }
+        }
+        assertEquals(model.size(), set.size());
+        for (Map.Entry<Long, Object> entry : model.entrySet()) {
+            int slot = set.slotOf(entry.getKey());
+            assertTrue(slot >= 0, "missing " + entry.getKey());
+            assertEquals(entry.getValue(), set.valueAt(slot));
+        }
+    }
+
+    @Test
+    void clearEmptiesWithoutShrinking() {
+        LongHashSet set = new LongHashSet(16);
+        for (long key = 0; key < 1000; key++) {
+            set.add(key);
+        }
+        int capacity = set.capacity();
+        set.clear();
+        assertEquals(0, set.size());
+        assertEquals(capacity, set.capacity());
+        for (long key = 0; key < 1000; key++) {
+            assertFalse(set.contains(key));
+        }
+        assertTrue(set.add(5));
+        assertTrue(set.contains(5));
+        assertEquals(1, set.size());
+    }
+
+    private static void assertSameKeys(Set<Long> model, LongHashSet set) {
+        Set<Long> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertEquals(model, actual);
+        for (long key : model) {
+            assertTrue(set.contains(key), "missing " + key);
+        }
+    }
+
+    /**
+     * The slot LongHashSet hashes a key to in a table of the given size
+     */
+    private static int idealSlot(long key, int capacity) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.aiextractor.detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongQueueTest {
+
+    /**
+     * Interleaved adds and polls move the head around the ring, so the queue grows while
+     * wrapped and has to unwrap its values in order
+     */
+    @Test
+    void keepsFifoOrderAcrossWrapAndGrow() {
+        Random random = new Random(1);
+        LongQueue queue = new LongQueue(16);
+        ArrayDeque<Long> model = new ArrayDeque<>();
+        long next = 0;
+        for (int op = 0; op < 100_000; op++) {
+            if (!model.isEmpty() && random.nextInt(5) < 2) {
+                assertEquals((long) model.poll(), queue.poll(), "poll at op " + op);
+            } else {
+                queue.add(next);
+                model.add(next++);
+            }
+            assertEquals(model.size(), queue.size());
+        }
+        assertTrue(queue.capacity() > 16);
+        while (!model.isEmpty()) {
+            assertEquals((long) model.poll(), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void growsWhileWrapped() {
+        LongQueue queue = new LongQueue(16);
+        for (long i = 0; i < 10; i++) {
+            queue.add(i);
+        }
+        for (long i = 0; i < 10; i++) {
+            assertEquals(i, queue.poll());
+        }
+        // The head is at slot 10, so these wrap before the buffer grows
+        for (long i = 0; i < 40; i++) {
+            queue.add(i);
+        }
+        assertEquals(64, queue.capacity());
+        for (long i = 0; i < 40; i++) {
+            assertEquals(i, queue.poll());
+        }
+    }
+
+    @Test
+    void clearKeepsBuffer() {
+        LongQueue queue = new LongQueue(16);
+        for (long i = 0; i < 100; i++) {
+            queue.add(i);
+        }
+        int capacity = queue.capacity();
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(capacity, queue.capacity());
+        queue.add(7);
+        assertEquals(7, queue.poll());
+    }
+}
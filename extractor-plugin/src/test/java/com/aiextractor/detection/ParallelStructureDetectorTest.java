@@ -0,0 +1,84 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.TestConfig;
+import com.aiextractor.detection.StructureDetector.DetectionResult;
+import com.aiextractor.models.BoundingBox;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The parallel tile labeling must find the same structures as the sequential flood fill
+ */
+class ParallelStructureDetectorTest {
+
+    private static final int WORLDS = 200;
+    private static final Material[] PALETTE = {
+        Material.OAK_PLANKS, Material.COBBLESTONE, Material.GLASS, Material.STONE, Material.OAK_LEAVES, Material.DIRT
+    };
+
+    /**
+     * Every random world is checked twice: with the configured natural blocks, and with air
+     * removed from them so enclosed air joins the components. The flood fill's iteration
+     * limit is lifted, since the two count iterations differently.
+     */
+    @Test
+    void matchesFloodFillOnRandomWorlds() throws Exception {
+        FileConfiguration config = TestConfig.load();
+        config.set("detection.max-flood-iterations", Integer.MAX_VALUE);
+        List<String> natural = config.getStringList("detection.natural-blocks");
+        List<String> naturalWithoutAir = new ArrayList<>(natural);
+        naturalWithoutAir.removeIf(name -> name.endsWith(":air") || name.endsWith("_air"));
+
+        StructureDetector detector = new StructureDetector(config, Logger.getLogger("StructureExtractor"));
+        ParallelStructureDetector parallel = new ParallelStructureDetector(detector, 0);
+        Random random = new Random(1);
+        int found = 0;
+        List<String> mismatches = new ArrayList<>();
+        try {
+            for (int world = 0; world < WORLDS; world++) {
+                double density = 0.2 + random.nextDouble() * 0.5;
+                SyntheticBlockAccess access = SyntheticBlockAccess.random(random.nextLong(), 64, 48, 64, density, PALETTE, 1);
+                int[] start = access.getStarts().get(0);
+
+                for (int pass = 0; pass < 2; pass++) {
+                    config.set("detection.natural-blocks", pass == 0 ? natural : naturalWithoutAir);
+                    detector.reload();
+                    DetectionResult expected = detector.floodFill(access, start[0], start[1], start[2],
+                        StructureDetector.NEIGHBOR_OFFSETS, null, null);
+                    DetectionResult actual = parallel.detectAsync(access, start[0], start[1], start[2],
+                        0, access.getSizeY() - 1).get();
+
+                    if (expected.isSuccess()) {
+                        found++;
+                    }
+                    if (!describe(expected).equals(describe(actual))) {
+                        mismatches.add("World " + world + (pass == 0 ? "" : " (air not natural)") +
+                            ": flood fill " + describe(expected) + ", parallel " + describe(actual));
+                    }
+                }
+            }
+        } finally {
+            parallel.shutdown();
+        }
+
+        assertTrue(found > 0, "No structure found on any world, the check proves nothing");
+        assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " mismatches:\n" + String.join("\n", mismatches));
+    }
+
+    private static String describe(DetectionResult result) {
+        if (!result.isSuccess()) {
+            return "failed (" + result.getMessage() + ")";
+        }
+        BoundingBox box = result.getBoundingBox();
+        return result.getBlockCount() + " blocks in " + box.getMinX() + "," + box.getMinY() + "," + box.getMinZ() +
+            " to " + box.getMaxX() + "," + box.getMaxY() + "," + box.getMaxZ();
+    }
+}
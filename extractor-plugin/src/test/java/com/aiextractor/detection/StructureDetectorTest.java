@@ -0,0 +1,56 @@
+package com.aiextractor.detection;
+
+import com.aiextractor.TestConfig;
+import org.bukkit.Material;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The flood fill and the material classification table must agree with the boxed flood fill
+ * and the per-call lookups they replaced, on a synthetic village
+ */
+class StructureDetectorTest {
+
+    private static StructureDetector detector;
+    private static SyntheticBlockAccess village;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        detector = new StructureDetector(TestConfig.load(), Logger.getLogger("StructureExtractor"));
+        village = SyntheticBlockAccess.village(1, 128, 30);
+    }
+
+    @Test
+    void floodFillMatchesBoxedFloodFill() {
+        List<int[]> starts = village.getStarts();
+        assertTrue(!starts.isEmpty(), "village has no start blocks");
+        for (FloodFillBenchmark.Result result : new FloodFillBenchmark(detector, village).run(starts, 1)) {
+            assertEquals(0, result.getMismatches(), result.getName() + " fill differs from the boxed fill");
+        }
+    }
+
+    @Test
+    void classificationTableMatchesLookups() {
+        List<Material> types = new ArrayList<>();
+        for (int y = 0; y < village.getSizeY(); y++) {
+            for (int z = 0; z < village.getSizeZ(); z++) {
+                for (int x = 0; x < village.getSizeX(); x++) {
+                    types.add(village.getType(x, y, z));
+                }
+            }
+        }
+        types.addAll(EnumSet.allOf(Material.class));
+        Material[] sample = types.toArray(new Material[0]);
+        for (ClassificationBenchmark.Result result : new ClassificationBenchmark(detector).run(sample, 0)) {
+            assertEquals(0, result.getMismatches(), result.getCheck() + " check differs from the lookups");
+        }
+    }
+}
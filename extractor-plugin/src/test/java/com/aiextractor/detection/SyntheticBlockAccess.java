@@ -0,0 +1,186 @@
+package com.aiextractor.detection;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generated block world held in an array, for benchmarks and checks that run without a server.
+ * Positions outside the generated volume read as air. Immutable once generated, so it can be
+ * read from any number of threads.
+ */
+public final class SyntheticBlockAccess implements BlockAccess {
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final Material[] blocks;
+    private final List<int[]> starts = new ArrayList<>();
+
+    private SyntheticBlockAccess(int sizeX, int sizeY, int sizeZ) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.blocks = new Material[sizeX * sizeY * sizeZ];
+    }
+
+    /**
+     * A village: stone ground with hollow plank houses (glass windows, a door gap and a crafting
+     * table inside), cobblestone paths joining some that stand close together, and trees.
+     * Each house's crafting table is a start block.
+     * @param size width and depth of the world in blocks (the height is 48)
+     */
+    public static SyntheticBlockAccess village(long seed, int size, int houses) {
+        Random random = new Random(seed);
+        SyntheticBlockAccess world = new SyntheticBlockAccess(size, 48, size);
+        int ground = 8;
+        world.fill(0, 0, 0, size - 1, ground - 1, size - 1, Material.STONE);
+        world.fill(0, ground - 1, 0, size - 1, ground - 1, size - 1, Material.GRASS_BLOCK);
+
+        int[] previousDoor = null;
+        for (int i = 0; i < houses; i++) {
+            int width = 5 + random.nextInt(10);
+            int depth = 5 + random.nextInt(10);
+            int height = 4 + random.nextInt(6);
+            if (width + 2 >= size || depth + 2 >= size) {
+                break;
+            }
+            int x0 = 1 + random.nextInt(size - width - 2);
+            int z0 = 1 + random.nextInt(size - depth - 2);
+            int x1 = x0 + width - 1;
+            int z1 = z0 + depth - 1;
+            int y0 = ground;
+            int y1 = ground + height - 1;
+
+            // Walls, floor and roof, then hollow out the inside
+            world.fill(x0, y0, z0, x1, y1, z1, Material.OAK_PLANKS);
+            world.fill(x0 + 1, y0 + 1, z0 + 1, x1 - 1, y1 - 1, z1 - 1, Material.AIR);
+            for (int x = x0 + 2; x < x1 - 1; x += 3) {
+                world.set(x, y0 + 2, z0, Material.GLASS);
+                world.set(x, y0 + 2, z1, Material.GLASS);
+            }
+            int doorX = x0 + width / 2;
+            world.set(doorX, y0 + 1, z0, Material.AIR);
+            world.set(doorX, y0 + 2, z0, Material.AIR);
+            world.set(x0 + 1, y0 + 1, z0 + 1, Material.CRAFTING_TABLE);
+            world.starts.add(new int[]{x0 + 1, y0 + 1, z0 + 1});
+
+            // Join houses close to the previous one with a path
+            int[] door = {doorX, z0 - 1};
+            if (previousDoor != null && Math.abs(door[0] - previousDoor[0]) + Math.abs(door[1] - previousDoor[1]) < 48) {
+                world.path(previousDoor[0], door[0], previousDoor[1], door[1], ground - 1);
+            }
+            previousDoor = door;
+        }
+
+        for (int i = 0; i < houses * 2; i++) {
+            int x = 2 + random.nextInt(size - 4);
+            int z = 2 + random.nextInt(size - 4);
+            if (world.getType(x, ground, z) != Material.AIR) {
+                continue;
+            }
+            int trunk = 3 + random.nextInt(3);
+            world.fill(x - 2, ground + trunk, z - 2, x + 2, ground + trunk + 2, z + 2, Material.OAK_LEAVES);
+            world.fill(x, ground, z, x, ground + trunk, z, Material.OAK_LOG);
+        }
+        return world;
+    }
+
+    /**
+     * Random blocks: every cell is a random material from the list with the given probability,
+     * air otherwise. Start blocks are spread over the middle of the volume.
+     */
+    public static SyntheticBlockAccess random(long seed, int sizeX, int sizeY, int sizeZ, double density,
+                                              Material[] materials, int startCount) {
+        Random random = new Random(seed);
+        SyntheticBlockAccess world = new SyntheticBlockAccess(sizeX, sizeY, sizeZ);
+        for (int i = 0; i < world.blocks.length; i++) {
+            if (random.nextDouble() < density) {
+                world.blocks[i] = materials[random.nextInt(materials.length)];
+            }
+        }
+        for (int i = 0; i < startCount; i++) {
+            world.starts.add(new int[]{
+                sizeX / 4 + random.nextInt(Math.max(1, sizeX / 2)),
+                sizeY / 4 + random.nextInt(Math.max(1, sizeY / 2)),
+                sizeZ / 4 + random.nextInt(Math.max(1, sizeZ / 2))
+            });
+        }
+        return world;
+    }
+
+    /**
+     * Positions detections start from, as {x, y, z}
+     */
+    public List<int[]> getStarts() {
+        return Collections.unmodifiableList(starts);
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    @Override
+    public Material getType(int x, int y, int z) {
+        if (x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {
+            return Material.AIR;
+        }
+        Material material = blocks[(y * sizeZ + z) * sizeX + x];
+        return material != null ? material : Material.AIR;
+    }
+
+    @Override
+    public String getBlockData(int x, int y, int z) {
+        return "minecraft:" + getType(x, y, z).name().toLowerCase();
+    }
+
+    @Override
+    public String getWorldName() {
+        return "synthetic";
+    }
+
+    @Override
+    public World getWorld() {
+        return null;
+    }
+
+    private void set(int x, int y, int z, Material material) {
+        if (x >= 0 && y >= 0 && z >= 0 && x < sizeX && y < sizeY && z < sizeZ) {
+            blocks[(y * sizeZ + z) * sizeX + x] = material == Material.AIR ? null : material;
+        }
+    }
+
+    private void fill(int x0, int y0, int z0, int x1, int y1, int z1, Material material) {
+        for (int y = y0; y <= y1; y++) {
+            for (int z = z0; z <= z1; z++) {
+                for (int x = x0; x <= x1; x++) {
+                    set(x, y, z, material);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cobblestone path in the ground layer, first along x, then along z
+     */
+    private void path(int fromX, int toX, int fromZ, int toZ, int y) {
+        for (int x = Math.min(fromX, toX); x <= Math.max(fromX, toX); x++) {
+            set(x, y, fromZ, Material.COBBLESTONE);
+        }
+        for (int z = Math.min(fromZ, toZ); z <= Math.max(fromZ, toZ); z++) {
+            set(toX, y, z, Material.COBBLESTONE);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips through the block index stream and the .aistruct reader, and rejection of
+ * corrupt files
+ */
+class BinaryStructureFormatTest {
+
+    private static final String[] STATES = {
+        "minecraft:stone", "minecraft:oak_planks", "minecraft:glass",
+        "minecraft:oak_stairs[facing=north,half=bottom]", "minecraft:torch"
+    };
+
+    @Test
+    void streamRoundTrip() throws IOException {
+        ExtractedStructure structure = randomStructure(1, 12, 9, 7, 0.4);
+        for (int compression : new int[]{BinaryStructureFormat.COMPRESSION_NONE, BinaryStructureFormat.COMPRESSION_DEFLATE}) {
+            byte[] bytes = BinaryStructureFormat.toBytes(structure, compression);
+            ExtractedStructure read = BinaryStructureFormat.read(new ByteArrayInputStream(bytes));
+            assertSameStructure(structure, read);
+            assertEquals("Overworld", read.getMetadata().getSourceWorld());
+            assertEquals("scan", read.getMetadata().getCaptureMode());
+            assertEquals(-1234, read.getMetadata().getOriginalX());
+            assertEquals(-64, read.getMetadata().getOriginalY());
+            assertEquals(98765, read.getMetadata().getOriginalZ());
+        }
+    }
+
+    /**
+     * A checkerboard keeps every run one block long, so the uncompressed file is large
+     * enough to be read memory-mapped
+     */
+    @Test
+    void mappedFileRoundTrip() throws IOException {
+        ExtractedStructure structure = new ExtractedStructure("checkerboard", 64, 32, 64);
+        for (int y = 0; y < 32; y++) {
+            for (int z = 0; z < 64; z++) {
+                for (int x = (y + z) & 1; x < 64; x += 2) {
+                    structure.addBlock(x, y, z, STATES[(x + y * 3 + z * 7) % STATES.length]);
+                }
+            }
+        }
+        File file = File.createTempFile("checkerboard", BinaryStructureFormat.EXTENSION);
+        try {
+            for (int compression : new int[]{BinaryStructureFormat.COMPRESSION_NONE, BinaryStructureFormat.COMPRESSION_DEFLATE}) {
+                BinaryStructureFormat.write(structure, file, compression);
+                if (compression == BinaryStructureFormat.COMPRESSION_NONE) {
+                    assertTrue(file.length() >= 64 * 1024, "file too small to be mapped: " + file.length());
+                }
+                assertSameStructure(structure, BinaryStructureFormat.read(file));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Blocks added out of order, and several at one position, where the last one added wins
+     */
+    @Test
+    void indexStreamSortsAndKeepsLastDuplicate() throws IOException {
+        ExtractedStructure structure = new ExtractedStructure("unordered", 4, 4, 4);
+        structure.addBlock(3, 3, 3, STATES[0]);
+        structure.addBlock(0, 0, 0, STATES[1]);
+        structure.addBlock(2, 1, 0, STATES[2]);
+        structure.addBlock(0, 0, 0, STATES[3]);
+
+        ExtractedStructure read = BinaryStructureFormat.read(
+            new ByteArrayInputStream(BinaryStructureFormat.toBytes(structure, BinaryStructureFormat.COMPRESSION_NONE)));
+        Map<String, String> blocks = blocksOf(read);
+        assertEquals(3, blocks.size());
+        assertEquals(STATES[3], blocks.get("0,0,0"));
+        assertEquals(STATES[2], blocks.get("2,1,0"));
+        assertEquals(STATES[0], blocks.get("3,3,3"));
+    }
+
+    /**
+     * The chunked encoder, as the JSON exporter streams it, decodes chunk by chunk to the same blocks
+     */
+    @Test
+    void chunkedIndexStreamRoundTrip() throws IOException {
+        ExtractedStructure structure = randomStructure(2, 20, 10, 20, 0.3);
+        ExtractedStructure decoded = new ExtractedStructure(structure.getName(), 20, 10, 20);
+        BlockIndices.Decoder decoder = new BlockIndices.Decoder(decoded, structure.getPalette());
+        int[] chunks = new int[1];
+        BlockIndices.encode(structure, 32, (bytes, length) -> {
+            decoder.decode(Arrays.copyOf(bytes, length), length);
+            chunks[0]++;
+        });
+        assertTrue(chunks[0] > 1, "stream was not split into chunks");
+        assertEquals(blocksOf(structure), blocksOf(decoded));
+    }
+
+    @Test
+    void rejectsCorruptFiles() throws IOException {
+        byte[] valid = BinaryStructureFormat.toBytes(randomStructure(3, 8, 8, 8, 0.5),
+            BinaryStructureFormat.COMPRESSION_NONE);
+
+        byte[] badMagic = valid.clone();
+        badMagic[0] = 'X';
+        assertUnreadable(badMagic);
+
+        byte[] badVersion = valid.clone();
+        badVersion[4] = 99;
+        assertUnreadable(badVersion);
+
+        byte[] badCompression = valid.clone();
+        badCompression[5] = 7;
+        assertUnreadable(badCompression);
+
+        for (int length = 6; length < valid.length; length += 7) {
+            assertUnreadable(Arrays.copyOf(valid, length));
+        }
+    }
+
+    /**
+     * An index length far past the end of the file is rejected without allocating for it,
+     * both from a stream and from a mapped file
+     */
+    @Test
+    void rejectsHugeIndexLength() throws IOException {
+        byte[] padding = new byte[70 * 1024];
+        byte[] bytes = craft(1, 1, 1, 1, Integer.MAX_VALUE - 8, padding);
+        assertUnreadable(bytes);
+
+        File file = File.createTempFile("huge-index", BinaryStructureFormat.EXTENSION);
+        try {
+            Files.write(file.toPath(), bytes);
+            assertThrows(IOException.class, () -> BinaryStructureFormat.read(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * The stored block count is ignored: blocks are counted from the index stream
+     */
+    @Test
+    void ignoresStoredBlockCount() throws IOException {
+        // Two runs: 1 empty cell, then 3 cells of palette entry 0
+        byte[] indices = {1, 0, 3, 1};
+        ExtractedStructure read = BinaryStructureFormat.read(
+            new ByteArrayInputStream(craft(4, 1, 1, Integer.MAX_VALUE, indices.length, indices)));
+        assertEquals(3, read.getBlockCount());
+    }
+
+    /**
+     * Runs past the end of the volume or palette indices past the palette are corrupt
+     */
+    @Test
+    void rejectsIndicesOutsideVolumeOrPalette() {
+        byte[] pastVolume = {5, 1};
+        assertUnreadable(craft(4, 1, 1, 5, pastVolume.length, pastVolume));
+        byte[] pastPalette = {1, 2};
+        assertUnreadable(craft(4, 1, 1, 1, pastPalette.length, pastPalette));
+    }
+
+    private static void assertUnreadable(byte[] bytes) {
+        assertThrows(IOException.class, () -> BinaryStructureFormat.read(new ByteArrayInputStream(bytes)),
+            "read " + bytes.length + " bytes without an error");
+    }
+
+    /**
+     * An uncompressed file with a one-entry palette and the given index stream, followed by
+     * empty metadata
+     */
+    private static byte[] craft(int sizeX, int sizeY, int sizeZ, int blockCount, int indexLength, byte[] indices) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(BinaryStructureFormat.MAGIC);
+            out.writeByte(BinaryStructureFormat.VERSION);
+            out.writeByte(BinaryStructureFormat.COMPRESSION_NONE);
+            writeString(out, "crafted");
+            writeVarInt(out, sizeX);
+            writeVarInt(out, sizeY);
+            writeVarInt(out, sizeZ);
+            writeVarInt(out, blockCount);
+            writeVarInt(out, 1);
+            writeString(out, STATES[0]);
+            writeVarInt(out, indexLength);
+            out.write(indices);
+            for (int i = 0; i < 4; i++) {
+                writeString(out, null);
+            }
+            for (int i = 0; i < 3; i++) {
+                writeVarInt(out, 0);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static ExtractedStructure randomStructure(long seed, int sizeX, int sizeY, int sizeZ, double density) {
+        Random random = new Random(seed);
+        ExtractedStructure structure = new ExtractedStructure("random-" + seed, sizeX, sizeY, sizeZ);
+        for (int y = 0; y < sizeY; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    if (random.nextDouble() < density) {
+                        // Long runs of one state next to single blocks
+                        String state = random.nextInt(4) == 0 ? STATES[random.nextInt(STATES.length)] : STATES[y % 2];
+                        structure.addBlock(x, y, z, state);
+                    }
+                }
+            }
+        }
+        ExtractedStructure.StructureMetadata metadata = new ExtractedStructure.StructureMetadata();
+        metadata.setSourceWorld("Overworld");
+        metadata.setCaptureMode("scan");
+        metadata.setOriginalX(-1234);
+        metadata.setOriginalY(-64);
+        metadata.setOriginalZ(98765);
+        structure.setMetadata(metadata);
+        return structure;
+    }
+
+    private static void assertSameStructure(ExtractedStructure expected, ExtractedStructure actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getSizeX(), actual.getSizeX());
+        assertEquals(expected.getSizeY(), actual.getSizeY());
+        assertEquals(expected.getSizeZ(), actual.getSizeZ());
+        assertEquals(expected.getBlockCount(), actual.getBlockCount());
+        assertEquals(blocksOf(expected), blocksOf(actual));
+    }
+
+    /**
+     * State by "x,y,z", the last block added at a position winning
+     */
+    private static Map<String, String> blocksOf(ExtractedStructure structure) {
+        Map<String, String> blocks = new TreeMap<>();
+        for (int i = 0; i < structure.getBlockCount(); i++) {
+            blocks.put(structure.getBlockX(i) + "," + structure.getBlockY(i) + "," + structure.getBlockZ(i),
+                structure.getPalette().get(structure.getBlockState(i)));
+        }
+        return blocks;
+    }
+}
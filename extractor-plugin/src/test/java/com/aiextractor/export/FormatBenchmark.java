@@ -0,0 +1,199 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the export formats' file size and encode/decode time on existing exports.
+ * Usage, after mvn test-compile: java -cp target/test-classes:target/classes:paper-api.jar
+ *        com.aiextractor.export.FormatBenchmark
+ *        &lt;file-or-directory&gt;... [--rounds &lt;n&gt;]
+ */
+public final class FormatBenchmark {
+
+    private static final String[] FORMATS = {"json-legacy", "json-pretty", "json", "binary", "binary-deflate"};
+
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapter(ExtractedStructure.class, new ExtractedStructureAdapter())
+        .disableHtmlEscaping()
+        .create();
+    private final Gson gsonPretty = new GsonBuilder()
+        .registerTypeAdapter(ExtractedStructure.class, new ExtractedStructureAdapter())
+        .disableHtmlEscaping()
+        .setPrettyPrinting()
+        .create();
+    private final Gson gsonLegacy = new GsonBuilder()
+        .registerTypeAdapter(ExtractedStructure.class, new ExtractedStructureAdapter(true))
+        .disableHtmlEscaping()
+        .create();
+
+    private FormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        int rounds = 5;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--rounds") && i + 1 < args.length) {
+                rounds = Integer.parseInt(args[++i]);
+            } else {
+                collectFiles(new File(args[i]), files);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: FormatBenchmark <file-or-directory>... [--rounds <n>]");
+            System.exit(1);
+        }
+
+        FormatBenchmark benchmark = new FormatBenchmark();
+        List<ExtractedStructure> structures = new ArrayList<>();
+        long blocks = 0;
+        for (File file : files) {
+            ExtractedStructure structure = benchmark.load(file);
+            structures.add(structure);
+            blocks += structure.getBlockCount();
+        }
+        System.out.println(structures.size() + " structures, " + blocks + " blocks, " + rounds + " rounds");
+        System.out.println(String.format("%-16s %12s %12s %12s", "format", "bytes", "encode ms", "decode ms"));
+        for (Result result : benchmark.run(structures, rounds)) {
+            System.out.println(String.format("%-16s %12d %12.2f %12.2f", result.getFormat(), result.getBytes(),
+                result.getEncodeMillis(), result.getDecodeMillis()));
+        }
+    }
+
+    /**
+     * Encode and decode every structure in every format, a number of rounds each
+     * @return per format the total size and the average time per round over all structures
+     */
+    public List<Result> run(List<ExtractedStructure> structures, int rounds) throws IOException {
+        List<Result> results = new ArrayList<>();
+        for (String format : FORMATS) {
+            // One untimed pass so class loading and JIT warm-up don't count against the first format
+            for (ExtractedStructure structure : structures) {
+                decode(format, encode(format, structure));
+            }
+
+            long bytes = 0;
+            long encodeNanos = 0;
+            long decodeNanos = 0;
+            for (int round = 0; round < rounds; round++) {
+                for (ExtractedStructure structure : structures) {
+                    long begin = System.nanoTime();
+                    byte[] encoded = encode(format, structure);
+                    encodeNanos += System.nanoTime() - begin;
+
+                    begin = System.nanoTime();
+                    decode(format, encoded);
+                    decodeNanos += System.nanoTime() - begin;
+
+                    if (round == 0) {
+                        bytes += encoded.length;
+                    }
+                }
+            }
+            int divisor = Math.max(1, rounds);
+            results.add(new Result(format, bytes,
+                encodeNanos / 1_000_000.0 / divisor, decodeNanos / 1_000_000.0 / divisor));
+        }
+        return results;
+    }
+
+    private byte[] encode(String format, ExtractedStructure structure) throws IOException {
+        switch (format) {
+            case "json-legacy":
+                return gsonLegacy.toJson(structure).getBytes(StandardCharsets.UTF_8);
+            case "json-pretty":
+                return gsonPretty.toJson(structure).getBytes(StandardCharsets.UTF_8);
+            case "json":
+                return gson.toJson(structure).getBytes(StandardCharsets.UTF_8);
+            case "binary":
+                return BinaryStructureFormat.toBytes(structure, BinaryStructureFormat.COMPRESSION_NONE);
+            default:
+                return BinaryStructureFormat.toBytes(structure, BinaryStructureFormat.COMPRESSION_DEFLATE);
+        }
+    }
+
+    private ExtractedStructure decode(String format, byte[] encoded) throws IOException {
+        if (format.startsWith("binary")) {
+            return BinaryStructureFormat.read(new ByteArrayInputStream(encoded));
+        }
+        try (Reader reader = new StringReader(new String(encoded, StandardCharsets.UTF_8))) {
+            return gson.fromJson(reader, ExtractedStructure.class);
+        }
+    }
+
+    private ExtractedStructure load(File file) throws IOException {
+        if (BinaryStructureFormat.isBinaryFile(file)) {
+            return BinaryStructureFormat.read(file);
+        }
+        try (FileReader reader = new FileReader(file)) {
+            return gson.fromJson(reader, ExtractedStructure.class);
+        }
+    }
+
+    private static void collectFiles(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collectFiles(child, files);
+                }
+            }
+        } else if (StructureExporter.isExportFile(file.getName())) {
+            files.add(file);
+        }
+    }
+
+    /**
+     * Size and timing of one format
+     */
+    public static class Result {
+        private final String format;
+        private final long bytes;
+        private final double encodeMillis;
+        private final double decodeMillis;
+
+        public Result(String format, long bytes, double encodeMillis, double decodeMillis) {
+            this.format = format;
+            this.bytes = bytes;
+            this.encodeMillis = encodeMillis;
+            this.decodeMillis = decodeMillis;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * Total encoded size of all structures
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Time to encode all structures once
+         */
+        public double getEncodeMillis() {
+            return encodeMillis;
+        }
+
+        /**
+         * Time to decode all structures once
+         */
+        public double getDecodeMillis() {
+            return decodeMillis;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.aiextractor.export;
+
+import com.aiextractor.models.ExtractedStructure;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class StructureHashTest {
+
+    // An asymmetric little build with directional states of every kind the hash turns
+    private static final Object[][] BUILD = {
+        {0, 0, 0, "minecraft:cobblestone"},
+        {1, 0, 0, "minecraft:oak_log[axis=x]"},
+        {2, 0, 0, "minecraft:oak_log[axis=x]"},
+        {0, 0, 1, "minecraft:oak_stairs[facing=north,half=bottom,shape=straight]"},
+        {0, 1, 0, "minecraft:oak_fence[east=true,north=false,south=true,waterlogged=false,west=false]"},
+        {2, 1, 0, "minecraft:oak_sign[rotation=3]"},
+        {1, 0, 2, "minecraft:rail[shape=ascending_north]"},
+        {2, 0, 2, "minecraft:glass"}
+    };
+
+    @Test
+    void ignoresPositionAndExtractionOrder() {
+        ExtractedStructure original = build(0, false);
+        ExtractedStructure shifted = new ExtractedStructure("shifted", 10, 5, 10);
+        for (int i = BUILD.length - 1; i >= 0; i--) {
+            Object[] block = BUILD[i];
+            shifted.addBlock((int) block[0] + 4, (int) block[1] + 2, (int) block[2] + 3, (String) block[3]);
+        }
+        assertEquals(StructureHash.of(original, false), StructureHash.of(shifted, false));
+        assertEquals(StructureHash.of(original, true), StructureHash.of(shifted, true));
+    }
+
+    @Test
+    void rotatedBuildHashesTheSameOnlyWhenRotationInvariant() {
+        ExtractedStructure original = build(0, false);
+        for (int turns = 1; turns < 4; turns++) {
+            ExtractedStructure rotated = build(turns, false);
+            assertEquals(StructureHash.of(original, true), StructureHash.of(rotated, true), turns + " turns");
+            assertNotEquals(StructureHash.of(original, false), StructureHash.of(rotated, false), turns + " turns");
+        }
+    }
+
+    @Test
+    void mirroredBuildHashesDifferently() {
+        ExtractedStructure original = build(0, false);
+        ExtractedStructure mirrored = build(0, true);
+        assertNotEquals(StructureHash.of(original, true), StructureHash.of(mirrored, true));
+    }
+
+    @Test
+    void differentBlockHashesDifferently() {
+        ExtractedStructure changed = build(0, false);
+        changed.addBlock(2, 0, 2, "minecraft:stone");
+        assertNotEquals(StructureHash.of(build(0, false), true), StructureHash.of(changed, true));
+    }
+
+    @Test
+    void rotateStateTurnsDirectionalProperties() {
+        assertEquals("minecraft:oak_stairs[facing=east,half=bottom]",
+            StructureHash.rotateState("minecraft:oak_stairs[facing=north,half=bottom]", 1));
+        assertEquals("minecraft:oak_stairs[facing=west,half=bottom]",
+            StructureHash.rotateState("minecraft:oak_stairs[facing=north,half=bottom]", 3));
+        assertEquals("minecraft:oak_log[axis=z]", StructureHash.rotateState("minecraft:oak_log[axis=x]", 1));
+        assertEquals("minecraft:oak_log[axis=y]", StructureHash.rotateState("minecraft:oak_log[axis=y]", 1));
+        assertEquals("minecraft:oak_sign[rotation=1]", StructureHash.rotateState("minecraft:oak_sign[rotation=13]", 1));
+        assertEquals("minecraft:rail[shape=east_west]", StructureHash.rotateState("minecraft:rail[shape=north_south]", 1));
+        assertEquals("minecraft:rail[shape=ascending_south]",
+            StructureHash.rotateState("minecraft:rail[shape=ascending_north]", 2));
+        assertEquals("minecraft:oak_fence[east=true,north=false,south=false,waterlogged=false,west=false]",
+            StructureHash.rotateState("minecraft:oak_fence[east=false,north=true,south=false,waterlogged=false,west=false]", 1));
+        assertEquals("minecraft:stone", StructureHash.rotateState("minecraft:stone", 1));
+    }
+
+    /**
+     * The build turned clockwise (seen from above) a number of quarter turns, optionally with
+     * its block positions mirrored along x first
+     */
+    private static ExtractedStructure build(int turns, boolean mirror) {
+        ExtractedStructure structure = new ExtractedStructure("build", 3, 2, 3);
+        for (Object[] block : BUILD) {
+            int x = mirror ? 2 - (int) block[0] : (int) block[0];
+            int z = (int) block[2];
+            String state = (String) block[3];
+            for (int turn = 0; turn < turns; turn++) {
+                int turnedX = 2 - z;
+                z = x;
+                x = turnedX;
+            }
+            structure.addBlock(x, (int) block[1], z, StructureHash.rotateState(state, turns));
+        }
+        return structure;
+    }
+}
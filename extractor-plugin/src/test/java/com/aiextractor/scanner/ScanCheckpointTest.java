@@ -0,0 +1,163 @@
+package com.aiextractor.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScanCheckpointTest {
+
+    private static final int MAGIC = 0x53434B50;
+    private static final long[] FRONTIER = {1L, -5L << 32 | 7, Long.MAX_VALUE};
+    private static final long[] VISITED = {42L, -1L};
+    private static final int[] BOX = {-10, 60, 20, -2, 75, 31};
+
+    @Test
+    void roundTripsCurrentVersion() throws IOException {
+        File file = tempFile();
+        try {
+            List<int[]> boxes = new ArrayList<>();
+            boxes.add(BOX);
+            new ScanCheckpoint("world_nether", 1200, 17, FRONTIER, VISITED, boxes,
+                3, 5000, 25, "nearest", -320, 144, "flood-fill-26").write(file);
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+
+            ScanCheckpoint read = ScanCheckpoint.read(file);
+            assertEquals("world_nether", read.getWorldName());
+            assertEquals(1200, read.getChunksScanned());
+            assertEquals(17, read.getStructuresFound());
+            assertEquals(3, read.getWeight());
+            assertEquals(5000, read.getMaxChunks());
+            assertEquals(25, read.getMaxStructures());
+            assertEquals("nearest", read.getFrontierPolicy());
+            assertEquals(-320, read.getOriginX());
+            assertEquals(144, read.getOriginZ());
+            assertEquals("flood-fill-26", read.getDetectionStrategy());
+            assertSameChunksAndBoxes(read);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void readsVersion1WithDefaults() throws IOException {
+        ScanCheckpoint read = readWritten(1);
+        assertEquals(1, read.getWeight());
+        assertEquals(0, read.getMaxChunks());
+        assertEquals(0, read.getMaxStructures());
+        assertEquals(BfsFrontier.POLICY, read.getFrontierPolicy());
+        assertEquals(0, read.getOriginX());
+        assertEquals(0, read.getOriginZ());
+        assertEquals("flood-fill", read.getDetectionStrategy());
+    }
+
+    @Test
+    void readsVersion2WithDefaults() throws IOException {
+        ScanCheckpoint read = readWritten(2);
+        assertEquals(3, read.getWeight());
+        assertEquals(5000, read.getMaxChunks());
+        assertEquals(0, read.getMaxStructures());
+        assertEquals(BfsFrontier.POLICY, read.getFrontierPolicy());
+        assertEquals("flood-fill", read.getDetectionStrategy());
+    }
+
+    @Test
+    void readsVersion3WithDefaults() throws IOException {
+        ScanCheckpoint read = readWritten(3);
+        assertEquals(3, read.getWeight());
+        assertEquals(25, read.getMaxStructures());
+        assertEquals("nearest", read.getFrontierPolicy());
+        assertEquals(-320, read.getOriginX());
+        assertEquals(144, read.getOriginZ());
+        assertEquals("flood-fill", read.getDetectionStrategy());
+    }
+
+    @Test
+    void rejectsUnknownVersionAndMagic() throws IOException {
+        File file = tempFile();
+        try {
+            write(file, MAGIC, 5);
+            assertThrows(IOException.class, () -> ScanCheckpoint.read(file));
+            write(file, MAGIC, 0);
+            assertThrows(IOException.class, () -> ScanCheckpoint.read(file));
+            write(file, 0x12345678, 4);
+            assertThrows(IOException.class, () -> ScanCheckpoint.read(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a checkpoint the way the given version of the plugin did and read it back
+     */
+    private static ScanCheckpoint readWritten(int version) throws IOException {
+        File file = tempFile();
+        try {
+            write(file, MAGIC, version);
+            ScanCheckpoint read = ScanCheckpoint.read(file);
+            assertEquals("world", read.getWorldName());
+            assertEquals(1200, read.getChunksScanned());
+            assertEquals(17, read.getStructuresFound());
+            assertSameChunksAndBoxes(read);
+            return read;
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void write(File file, int magic, int version) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeUTF("world");
+            out.writeInt(1200);
+            out.writeInt(17);
+            if (version >= 2) {
+                out.writeInt(3);
+                out.writeInt(5000);
+            }
+            if (version >= 3) {
+                out.writeInt(25);
+                out.writeUTF("nearest");
+                out.writeInt(-320);
+                out.writeInt(144);
+            }
+            if (version >= 4) {
+                out.writeUTF("estimate");
+            }
+            out.writeInt(FRONTIER.length);
+            for (long chunk : FRONTIER) {
+                out.writeLong(chunk);
+            }
+            out.writeInt(VISITED.length);
+            for (long chunk : VISITED) {
+                out.writeLong(chunk);
+            }
+            out.writeInt(1);
+            for (int value : BOX) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    private static void assertSameChunksAndBoxes(ScanCheckpoint read) {
+        assertArrayEquals(FRONTIER, read.getFrontier());
+        assertArrayEquals(VISITED, read.getVisitedChunks());
+        assertEquals(1, read.getCapturedBoxes().size());
+        assertArrayEquals(BOX, read.getCapturedBoxes().get(0));
+    }
+
+    private static File tempFile() throws IOException {
+        return File.createTempFile("checkpoint", ".dat");
+    }
+}
@@ -0,0 +1,319 @@
+package com.aibuild.placement;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Pastes palette-indexed structures into the world and undoes them. Pastes and undos run as
+ * jobs of at most one per player, placing blocks over as many ticks as it takes within
+ * tick-budget-micros per tick (under the engine's config section), shared between all
+ * running jobs. Blocks are placed in {@link PlacementOrder}. Each palette state is resolved
+ * to BlockData once per paste, and blocks that already have the target state are left alone.
+ * Replaced blocks are recorded in an {@link UndoHistory}.
+ */
+public class PlacementEngine {
+
+    // Errors listed in a result, the rest are only counted
+    private static final int MAX_ERRORS = 5;
+
+    private final Plugin plugin;
+    private final String configPath;
+    private final StateResolver resolver;
+    private final UndoHistory undoHistory;
+    private final Executor asyncExecutor;
+
+    // Running pastes and undos, at most one per player
+    private final Map<UUID, PlacementJob> jobs = new LinkedHashMap<>();
+    // Players whose undo is reading its level back from disk
+    private final Set<UUID> loadingUndos = new HashSet<>();
+    private BukkitTask placementTask;
+
+    /**
+     * @param configPath config section with the engine settings, e.g. "build"
+     * @param asyncExecutor runs undo spill writes and reads off the main thread
+     * @param resolver turns palette states into BlockData
+     */
+    public PlacementEngine(Plugin plugin, String configPath, Executor asyncExecutor, StateResolver resolver) {
+        this.plugin = plugin;
+        this.configPath = configPath;
+        this.resolver = resolver;
+        this.undoHistory = new UndoHistory(plugin, configPath, asyncExecutor);
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public PlacementEngine(Plugin plugin, String configPath) {
+        this(plugin, configPath, task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task),
+            StateResolver.DEFAULT);
+    }
+
+    /**
+     * Start pasting a source with its (0, 0, 0) at the origin
+     * @param title shown on the progress bar
+     * @param onComplete called on the main thread once the paste has finished or was cancelled
+     * @return false if the player already has a paste or undo running
+     */
+    public boolean startPaste(Player player, Location origin, VoxelSource source, String title,
+                              Consumer<PlacementResult> onComplete) {
+        UUID playerId = player.getUniqueId();
+        if (isBusy(playerId)) {
+            return false;
+        }
+        World world = origin.getWorld();
+        if (world == null) {
+            onComplete.accept(new PlacementResult(false, 0, "Invalid world"));
+            return true;
+        }
+        if (source.getBlockCount() == 0) {
+            onComplete.accept(new PlacementResult(false, 0, "Structure has no blocks"));
+            return true;
+        }
+
+        int originX = origin.getBlockX();
+        int originY = origin.getBlockY();
+        int originZ = origin.getBlockZ();
+        int[] order = PlacementOrder.of(source, originX, originZ);
+
+        List<String> errors = new ArrayList<>();
+        int[] failCount = {0};
+        BlockData[] states = resolveStates(source.getPalette(), errors);
+
+        UndoHistory.Record undo = undoHistory.record(world, originX, originY, originZ,
+            source.getSizeX(), source.getSizeY(), source.getSizeZ());
+        PlacementJob job = new PlacementJob(playerId, title, order.length, i -> {
+            int block = order[i];
+            int x = source.getBlockX(block);
+            int y = source.getBlockY(block);
+            int z = source.getBlockZ(block);
+            BlockData target = states[source.getBlockState(block)];
+            if (target == null) {
+                failCount[0]++;
+                return false;
+            }
+            try {
+                Block worldBlock = world.getBlockAt(originX + x, originY + y, originZ + z);
+                BlockData original = worldBlock.getBlockData();
+                if (original.equals(target)) {
+                    return true;
+                }
+                undo.add(x, y, z, original);
+                worldBlock.setBlockData(target, false);
+                return true;
+            } catch (Exception e) {
+                failCount[0]++;
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add("Error at " + (originX + x) + "," + (originY + y) + "," + (originZ + z) + ": " + e.getMessage());
+                }
+                return false;
+            }
+        }, finished -> {
+            // Store undo data, also for the part of a cancelled paste that was placed
+            undoHistory.push(playerId, undo);
+
+            String errorMsg = errors.isEmpty() ? null : String.join("; ", errors);
+            if (failCount[0] > errors.size()) {
+                errorMsg = (errorMsg != null ? errorMsg + "; " : "") + "... " + failCount[0] + " blocks failed in total";
+            }
+            onComplete.accept(new PlacementResult(failCount[0] == 0 && !finished.isCancelled(),
+                finished.getSucceeded(), errorMsg, finished.isCancelled()));
+        });
+        schedule(job);
+        return true;
+    }
+
+    /**
+     * Resolve each palette state once; states that can't be placed stay null
+     */
+    private BlockData[] resolveStates(List<String> palette, List<String> errors) {
+        BlockData[] states = new BlockData[palette.size()];
+        for (int i = 0; i < states.length; i++) {
+            try {
+                states[i] = resolver.resolve(palette.get(i));
+            } catch (RuntimeException e) {
+                states[i] = null;
+            }
+            if (states[i] == null && errors.size() < MAX_ERRORS) {
+                errors.add("Unknown block: " + palette.get(i));
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Start undoing the last paste of a player, over several ticks like a paste. Blocks are
+     * restored top-down, in the reverse of the order they were placed. A level spilled to
+     * disk is read back on the async executor first.
+     * @param onComplete called on the main thread with the number of blocks restored
+     * @return false if there is nothing to undo or a paste or undo is running
+     */
+    public boolean startUndo(Player player, IntConsumer onComplete) {
+        UUID playerId = player.getUniqueId();
+        if (isBusy(playerId)) {
+            return false;
+        }
+        UndoHistory.Record undo = undoHistory.pop(playerId);
+        if (undo == null) {
+            return false;
+        }
+        if (!undo.needsLoad()) {
+            runUndo(player, undo, onComplete);
+            return true;
+        }
+
+        loadingUndos.add(playerId);
+        asyncExecutor.execute(() -> {
+            IOException error = null;
+            try {
+                undo.load();
+            } catch (IOException e) {
+                error = e;
+            }
+            IOException failure = error;
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (!loadingUndos.remove(playerId)) {
+                    // Shut down in the meantime
+                    return;
+                }
+                if (failure != null) {
+                    plugin.getLogger().warning("Could not read undo data: " + failure.getMessage());
+                    onComplete.accept(0);
+                    return;
+                }
+                runUndo(player, undo, onComplete);
+            });
+        });
+        return true;
+    }
+
+    /**
+     * Run the undo job of a level whose blocks are in memory
+     */
+    private void runUndo(Player player, UndoHistory.Record undo, IntConsumer onComplete) {
+        UUID playerId = player.getUniqueId();
+        World world = undo.getWorld();
+        if (world == null) {
+            plugin.getLogger().warning("Could not undo paste of " + player.getName() + ": its world is not loaded");
+            onComplete.accept(0);
+            return;
+        }
+        int last = undo.size() - 1;
+        PlacementJob job = new PlacementJob(playerId, "Undoing build", undo.size(), i -> {
+            int block = last - i;
+            world.getBlockAt(undo.getX(block), undo.getY(block), undo.getZ(block)).setBlockData(undo.getState(block), false);
+            return true;
+        }, finished -> {
+            if (finished.isCancelled() && finished.getCompleted() < undo.size()) {
+                // Keep what is left to restore, so undo can be run again
+                undoHistory.push(playerId, undo.head(undo.size() - finished.getCompleted()));
+            }
+            onComplete.accept(finished.getSucceeded());
+        });
+        schedule(job);
+    }
+
+    private boolean isBusy(UUID playerId) {
+        return jobs.containsKey(playerId) || loadingUndos.contains(playerId);
+    }
+
+    /**
+     * Add a job and make sure the placement task is running
+     */
+    private void schedule(PlacementJob job) {
+        jobs.put(job.getOwner(), job);
+        if (placementTask == null) {
+            placementTask = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    if (jobs.isEmpty()) {
+                        cancel();
+                        placementTask = null;
+                        return;
+                    }
+
+                    // Share the tick budget between the running jobs
+                    long budgetNanos = Math.max(1, plugin.getConfig().getLong(configPath + ".tick-budget-micros", 5000)) * 1000L;
+                    long share = budgetNanos / jobs.size();
+                    Iterator<PlacementJob> running = jobs.values().iterator();
+                    while (running.hasNext()) {
+                        PlacementJob next = running.next();
+                        if (next.run(System.nanoTime() + share)) {
+                            running.remove();
+                            next.finish();
+                        }
+                    }
+                }
+            }.runTaskTimer(plugin, 1L, 1L);
+        }
+    }
+
+    /**
+     * Cancel a player's running paste or undo. Blocks placed so far stay; a cancelled paste
+     * can still be undone.
+     * @return false if the player had nothing running
+     */
+    public boolean cancel(Player player) {
+        PlacementJob job = jobs.remove(player.getUniqueId());
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        job.finish();
+        return true;
+    }
+
+    /**
+     * The player's running paste or undo, or null
+     */
+    public PlacementJob getJob(Player player) {
+        return jobs.get(player.getUniqueId());
+    }
+
+    /**
+     * Check if player has undo data
+     */
+    public boolean hasUndo(Player player) {
+        return undoHistory.getLevels(player.getUniqueId()) > 0;
+    }
+
+    /**
+     * Number of pastes a player can still undo
+     */
+    public int getUndoLevels(Player player) {
+        return undoHistory.getLevels(player.getUniqueId());
+    }
+
+    /**
+     * Cancel all running jobs and drop the undo history (plugin shutdown)
+     */
+    public void shutdown() {
+        for (PlacementJob job : new ArrayList<>(jobs.values())) {
+            job.cancel();
+            job.finish();
+        }
+        jobs.clear();
+        loadingUndos.clear();
+        if (placementTask != null) {
+            placementTask.cancel();
+            placementTask = null;
+        }
+        undoHistory.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package com.aibuild.placement;
+
+import org.bukkit.Bukkit;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Places (or restores) a fixed sequence of blocks over as many ticks as it takes.
+ * Each tick the job is given a deadline and places blocks in order until it is reached, so
+ * it can stop between any two blocks and pick up where it left off next tick. Jobs that
+ * take more than one tick show their progress on a boss bar.
+ */
+public class PlacementJob {
+
+    // Blocks placed between clock reads
+    private static final int CLOCK_INTERVAL = 16;
+
+    private final UUID owner;
+    private final String title;
+    private final int total;
+    private final IntPredicate step;
+    private final Consumer<PlacementJob> onFinish;
+    private int next;
+    private int succeeded;
+    private int failed;
+    private int ticks;
+    private boolean cancelled;
+    private BossBar progressBar;
+
+    /**
+     * @param owner the player the job belongs to
+     * @param title shown on the progress bar
+     * @param total number of steps
+     * @param step performs step i, returns whether it succeeded
+     * @param onFinish called once the job has completed or was cancelled
+     */
+    public PlacementJob(UUID owner, String title, int total, IntPredicate step, Consumer<PlacementJob> onFinish) {
+        this.owner = owner;
+        this.title = title;
+        this.total = total;
+        this.step = step;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * Perform steps until the deadline. At least one step is performed so the job always
+     * advances.
+     * @return whether the job is done
+     */
+    boolean run(long deadlineNanos) {
+        ticks++;
+        while (next < total) {
+            if (step.test(next)) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            next++;
+            if (next % CLOCK_INTERVAL == 0 && System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+        }
+        if (next < total) {
+            showProgress();
+            return false;
+        }
+        return true;
+    }
+
+    private void showProgress() {
+        if (progressBar == null) {
+            Player player = Bukkit.getPlayer(owner);
+            if (player == null) {
+                return;
+            }
+            progressBar = Bukkit.createBossBar(title, BarColor.GREEN, BarStyle.SOLID);
+            progressBar.addPlayer(player);
+        }
+        progressBar.setProgress((double) next / total);
+        progressBar.setTitle(title + " (" + next + "/" + total + ")");
+    }
+
+    /**
+     * Stop the job where it is; {@link #finish()} still has to be called
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Remove the progress bar and report the outcome
+     */
+    void finish() {
+        if (progressBar != null) {
+            progressBar.removeAll();
+            progressBar = null;
+        }
+        onFinish.accept(this);
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Steps performed so far, successful or not
+     */
+    public int getCompleted() {
+        return next;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Ticks the job has run in
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
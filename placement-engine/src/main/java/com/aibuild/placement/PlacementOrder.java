@@ -0,0 +1,152 @@
+package com.aibuild.placement;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Order in which a paste places its blocks:
+ * 1. By Y-level (bottom to top)
+ * 2. Solid blocks first, then upper parts of multi-block structures (doors, beds, tall
+ *    plants), then physics-dependent blocks, then their upper parts
+ * 3. By chunk section, so consecutive writes stay in the same section
+ * Blocks that tie keep their order in the source. The placement class is worked out once
+ * per palette state, and the blocks are bucketed with two stable counting sorts, so
+ * ordering takes linear time.
+ */
+public final class PlacementOrder {
+
+    // Placement classes per Y-level, see placementClass
+    static final int CLASSES = 4;
+    private static final int PHYSICS = 2;
+    private static final int UPPER = 1;
+
+    // Blocks that need a supporting block below/beside them, by exact id
+    private static final Set<String> PHYSICS_DEPENDENT_BLOCKS = new HashSet<>(Arrays.asList(
+        "torch", "wall_torch", "lantern", "soul_lantern", "chain",
+        "lever", "tripwire_hook", "tripwire", "ladder",
+        "rail", "powered_rail", "detector_rail", "activator_rail",
+        "redstone_wire", "repeater", "comparator",
+        "poppy", "dandelion", "blue_orchid", "allium", "azure_bluet", "torchflower",
+        "oxeye_daisy", "cornflower", "lily_of_the_valley", "wither_rose", "pink_petals",
+        "sunflower", "lilac", "rose_bush", "peony", "tall_grass", "large_fern",
+        "grass", "short_grass", "fern", "dead_bush", "seagrass", "tall_seagrass",
+        "wheat", "carrots", "potatoes", "beetroots", "melon_stem", "pumpkin_stem",
+        "sweet_berry_bush", "nether_wart", "cocoa",
+        "painting", "item_frame", "glow_item_frame",
+        "bell", "scaffolding", "candle_cake",
+        "pointed_dripstone", "spore_blossom", "glow_lichen",
+        "vine", "cave_vines", "cave_vines_plant", "weeping_vines", "weeping_vines_plant",
+        "twisting_vines", "twisting_vines_plant",
+        "snow"
+    ));
+
+    // Families of physics-dependent blocks, by id suffix (oak_button, red_carpet, ...)
+    private static final String[] PHYSICS_DEPENDENT_SUFFIXES = {
+        "_torch", "_button", "_pressure_plate", "_carpet", "_tulip",
+        "_sign", "_banner", "_head", "_skull", "candle"
+    };
+
+    private PlacementOrder() {
+    }
+
+    /**
+     * Order the blocks of a source for pasting at an origin
+     * @return block indices in placement order
+     */
+    public static int[] of(VoxelSource source, int originX, int originZ) {
+        int count = source.getBlockCount();
+        if (count == 0) {
+            return new int[0];
+        }
+        List<String> palette = source.getPalette();
+        int[] classes = new int[palette.size()];
+        for (int state = 0; state < classes.length; state++) {
+            classes[state] = placementClass(palette.get(state));
+        }
+
+        // First by chunk section column, so the second, stable, sort keeps it within each bucket
+        int firstChunkX = originX >> 4;
+        int firstChunkZ = originZ >> 4;
+        int chunksX = ((originX + source.getSizeX() - 1) >> 4) - firstChunkX + 1;
+        int chunksZ = ((originZ + source.getSizeZ() - 1) >> 4) - firstChunkZ + 1;
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            int chunkX = ((originX + source.getBlockX(i)) >> 4) - firstChunkX;
+            int chunkZ = ((originZ + source.getBlockZ(i)) >> 4) - firstChunkZ;
+            keys[i] = chunkZ * chunksX + chunkX;
+        }
+        int[] byChunk = countingSort(keys, null, chunksX * chunksZ);
+
+        for (int i = 0; i < count; i++) {
+            keys[i] = source.getBlockY(i) * CLASSES + classes[source.getBlockState(i)];
+        }
+        return countingSort(keys, byChunk, source.getSizeY() * CLASSES);
+    }
+
+    /**
+     * Stable counting sort of block indices by key
+     * @param input indices to sort, or null for 0 to keys.length - 1
+     */
+    private static int[] countingSort(int[] keys, int[] input, int buckets) {
+        int count = keys.length;
+        // Count per bucket, turn the counts into start offsets, then fill
+        int[] starts = new int[buckets + 1];
+        for (int key : keys) {
+            starts[key + 1]++;
+        }
+        for (int bucket = 1; bucket < starts.length; bucket++) {
+            starts[bucket] += starts[bucket - 1];
+        }
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            int block = input != null ? input[i] : i;
+            order[starts[keys[block]]++] = block;
+        }
+        return order;
+    }
+
+    /**
+     * Placement class of a block state, placed in ascending order within a Y-level:
+     * solid blocks, their upper parts, physics-dependent blocks, their upper parts
+     */
+    public static int placementClass(String state) {
+        return (isPhysicsDependent(state) ? PHYSICS : 0) + (isUpperBlockPart(state) ? UPPER : 0);
+    }
+
+    /**
+     * Check if a block is physics-dependent (needs support block)
+     */
+    public static boolean isPhysicsDependent(String state) {
+        int bracket = state.indexOf('[');
+        String blockName = (bracket >= 0 ? state.substring(0, bracket) : state).toLowerCase();
+        if (blockName.startsWith("minecraft:")) {
+            blockName = blockName.substring(10);
+        }
+
+        if (PHYSICS_DEPENDENT_BLOCKS.contains(blockName)) {
+            return true;
+        }
+        for (String suffix : PHYSICS_DEPENDENT_SUFFIXES) {
+            if (blockName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a block state is the upper part of a multi-block structure
+     */
+    public static boolean isUpperBlockPart(String state) {
+        int bracket = state.indexOf('[');
+        if (bracket < 0) {
+            return false;
+        }
+        String properties = state.substring(bracket).toLowerCase();
+        // Beds: part=head is the upper/second part
+        return properties.contains("half=upper") || properties.contains("half=top")
+            || properties.contains("part=head");
+    }
+}
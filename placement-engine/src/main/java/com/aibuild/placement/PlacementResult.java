@@ -0,0 +1,38 @@
+package com.aibuild.placement;
+
+/**
+ * Result of a paste
+ */
+public class PlacementResult {
+    private final boolean success;
+    private final int blocksPlaced;
+    private final String error;
+    private final boolean cancelled;
+
+    public PlacementResult(boolean success, int blocksPlaced, String error) {
+        this(success, blocksPlaced, error, false);
+    }
+
+    public PlacementResult(boolean success, int blocksPlaced, String error, boolean cancelled) {
+        this.success = success;
+        this.blocksPlaced = blocksPlaced;
+        this.error = error;
+        this.cancelled = cancelled;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public int getBlocksPlaced() {
+        return blocksPlaced;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,44 @@
+package com.aibuild.placement;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Turns a palette state into the BlockData to place. Called once per distinct state of a
+ * paste, on the main thread.
+ */
+@FunctionalInterface
+public interface StateResolver {
+
+    /**
+     * Parses complete block states, falling back to the block id alone when the properties
+     * don't parse
+     */
+    StateResolver DEFAULT = StateResolver::parse;
+
+    /**
+     * @return the BlockData to place, or null if the state can't be placed
+     */
+    BlockData resolve(String state);
+
+    /**
+     * Parse a block state such as "minecraft:oak_door[facing=north,half=lower]". If the
+     * properties are invalid, the block id is placed with its default properties.
+     * @return null if the block id is unknown or not a block
+     */
+    static BlockData parse(String state) {
+        try {
+            return Bukkit.createBlockData(state);
+        } catch (IllegalArgumentException e) {
+            // Fall back to the block id alone
+        }
+        int bracket = state.indexOf('[');
+        String blockId = bracket >= 0 ? state.substring(0, bracket) : state;
+        Material material = Material.matchMaterial(blockId);
+        if (material == null || !material.isBlock()) {
+            return null;
+        }
+        return material.createBlockData();
+    }
+}
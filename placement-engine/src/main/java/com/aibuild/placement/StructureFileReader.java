@@ -0,0 +1,329 @@
+package com.aibuild.placement;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads binary structure files (.aistruct), shared by the plugin that writes them and the
+ * one that builds them. Each caller builds its own structure model through a {@link Visitor}.
+ * Layout: magic "AIST", version byte, compression byte (0 none, 1 deflate), then the
+ * optionally compressed body: name, size (3 varints), block count, palette (count, strings),
+ * the index stream (byte length, bytes) and the metadata. Strings are a varint of the UTF-8
+ * byte length + 1 (0 for null) followed by the bytes; metadata coordinates are zigzag varints.
+ * The index stream walks the size volume in y, z, x order (x fastest) as varint pairs: a run
+ * length, then 0 for empty cells or the palette index + 1.
+ * Larger files are read memory-mapped; uncompressed ones then have their index stream decoded
+ * straight from the mapping, without copying it onto the heap.
+ */
+public final class StructureFileReader {
+
+    public static final String EXTENSION = ".aistruct";
+    public static final int MAGIC = 0x41495354; // "AIST"
+    public static final int VERSION = 1;
+    public static final int COMPRESSION_NONE = 0;
+    public static final int COMPRESSION_DEFLATE = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Files smaller than this are cheaper to read than to map
+    private static final long MAP_THRESHOLD = 64 * 1024;
+
+    private StructureFileReader() {
+    }
+
+    /**
+     * Receives the parts of a structure file in file order
+     */
+    public interface Visitor extends BlockSink {
+
+        /**
+         * The header, before any block
+         * @param blockCount number of blocks in the index stream, counted from the stream itself rather
+         *                   than taken from the count stored in the file, so it is safe to preallocate for
+         */
+        void header(String name, int sizeX, int sizeY, int sizeZ, int blockCount, List<String> palette)
+            throws IOException;
+
+        /**
+         * The metadata after the blocks. Ignored unless overridden.
+         */
+        default void metadata(String sourceWorld, String captureMode, String captureTime, String capturedBy,
+                              int originalX, int originalY, int originalZ) {
+        }
+    }
+
+    /**
+     * Receives decoded blocks
+     */
+    @FunctionalInterface
+    public interface BlockSink {
+
+        /**
+         * @param state palette index of the block's state
+         */
+        void block(int x, int y, int z, int state);
+    }
+
+    /**
+     * Read a structure file, memory-mapped if it is large enough to benefit
+     */
+    public static void read(File file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < MAP_THRESHOLD || size > Integer.MAX_VALUE) {
+                read(Channels.newInputStream(channel), visitor);
+                return;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            read(new DataInputStream(new ByteBufferInputStream(mapped)), mapped, visitor);
+        }
+    }
+
+    /**
+     * Read a structure from a stream. The stream is closed afterwards.
+     */
+    public static void read(InputStream stream, Visitor visitor) throws IOException {
+        read(new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE)), null, visitor);
+    }
+
+    /**
+     * @param mapped the buffer the header stream reads from, unbuffered, or null
+     */
+    private static void read(DataInputStream header, ByteBuffer mapped, Visitor visitor) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a structure file");
+        }
+        int version = header.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported structure file version " + version);
+        }
+        int compression = header.readUnsignedByte();
+        if (compression != COMPRESSION_NONE && compression != COMPRESSION_DEFLATE) {
+            throw new IOException("Unknown compression " + compression);
+        }
+
+        Inflater inflater = compression == COMPRESSION_DEFLATE ? new Inflater() : null;
+        try (DataInputStream in = inflater != null
+                ? new DataInputStream(new InflaterInputStream(header, inflater, BUFFER_SIZE))
+                : header) {
+            readBody(in, inflater == null ? mapped : null, visitor);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    /**
+     * @param mapped the buffer the body stream reads from directly, or null
+     */
+    private static void readBody(DataInputStream in, ByteBuffer mapped, Visitor visitor) throws IOException {
+        String name = readString(in);
+        int sizeX = readVarInt(in);
+        int sizeY = readVarInt(in);
+        int sizeZ = readVarInt(in);
+        readVarInt(in); // Stored block count, only used by older readers to preallocate
+
+        int paletteSize = readVarInt(in);
+        List<String> palette = new ArrayList<>(Math.min(paletteSize, 4096));
+        for (int i = 0; i < paletteSize; i++) {
+            palette.add(readString(in));
+        }
+
+        // The index stream is read whole before the header is passed on, so its length, not a
+        // length or count from the file, bounds what the visitor allocates
+        int indexBytes = readVarInt(in);
+        ByteBuffer indices;
+        if (mapped != null) {
+            if (indexBytes > mapped.remaining()) {
+                throw new IOException("Truncated block indices");
+            }
+            indices = mapped.slice();
+            indices.limit(indexBytes);
+            mapped.position(mapped.position() + indexBytes);
+        } else {
+            // Grows as the bytes arrive, rather than trusting the length up front
+            byte[] bytes = in.readNBytes(indexBytes);
+            if (bytes.length < indexBytes) {
+                throw new IOException("Truncated block indices");
+            }
+            indices = ByteBuffer.wrap(bytes);
+        }
+
+        IndexDecoder decoder = new IndexDecoder(sizeX, sizeY, sizeZ, paletteSize, visitor);
+        try {
+            long blockCount = decoder.count(indices);
+            if (blockCount > Integer.MAX_VALUE) {
+                throw new IOException("Too many blocks: " + blockCount);
+            }
+            visitor.header(name, sizeX, sizeY, sizeZ, (int) blockCount, palette);
+            decoder.decode(indices);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        String sourceWorld = readString(in);
+        String captureMode = readString(in);
+        String captureTime = readString(in);
+        String capturedBy = readString(in);
+        int originalX = unzigzag(readVarInt(in));
+        int originalY = unzigzag(readVarInt(in));
+        int originalZ = unzigzag(readVarInt(in));
+        visitor.metadata(sourceWorld, captureMode, captureTime, capturedBy, originalX, originalY, originalZ);
+    }
+
+    /**
+     * Decodes an index stream that may arrive in chunks ending on run boundaries
+     */
+    public static final class IndexDecoder {
+        private final int sizeX;
+        private final int sizeZ;
+        private final long volume;
+        private final int paletteSize;
+        private final BlockSink sink;
+        private long position;
+
+        public IndexDecoder(int sizeX, int sizeY, int sizeZ, int paletteSize, BlockSink sink) {
+            this.sizeX = sizeX;
+            this.sizeZ = sizeZ;
+            this.volume = (long) sizeX * sizeY * sizeZ;
+            this.paletteSize = paletteSize;
+            this.sink = sink;
+        }
+
+        /**
+         * Count the blocks in the remaining bytes of a buffer without decoding them or moving
+         * the buffer's position
+         * @throws IllegalArgumentException if the stream does not fit the size or palette
+         */
+        public long count(ByteBuffer data) {
+            ByteBuffer runs = data.duplicate();
+            long cell = position;
+            long blocks = 0;
+            while (runs.hasRemaining()) {
+                int length = readVarInt(runs);
+                int value = readVarInt(runs);
+                if (length < 0 || cell + length > volume || value < 0 || value > paletteSize) {
+                    throw new IllegalArgumentException("Corrupt block indices at cell " + cell);
+                }
+                cell += length;
+                if (value != 0) {
+                    blocks += length;
+                }
+            }
+            return blocks;
+        }
+
+        /**
+         * Decode the remaining bytes of a buffer, such as a slice of a mapped file
+         * @throws IllegalArgumentException if the stream does not fit the size or palette
+         */
+        public void decode(ByteBuffer data) {
+            while (data.hasRemaining()) {
+                int length = readVarInt(data);
+                int value = readVarInt(data);
+                if (length < 0 || position + length > volume || value < 0 || value > paletteSize) {
+                    throw new IllegalArgumentException("Corrupt block indices at cell " + position);
+                }
+                if (value == 0) {
+                    position += length;
+                    continue;
+                }
+                int state = value - 1;
+                for (int i = 0; i < length; i++, position++) {
+                    int x = (int) (position % sizeX);
+                    int z = (int) (position / sizeX % sizeZ);
+                    int y = (int) (position / sizeX / sizeZ);
+                    sink.block(x, y, z, state);
+                }
+            }
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readVarInt(ByteBuffer data) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!data.hasRemaining()) {
+                throw new IllegalArgumentException("Truncated block indices");
+            }
+            byte b = data.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in block indices");
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Stream over a buffer, reading straight from it so the buffer's position stays in step
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
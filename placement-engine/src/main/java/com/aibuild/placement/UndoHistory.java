@@ -0,0 +1,433 @@
+package com.aibuild.placement;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-player undo history of pastes. Each level records the blocks a paste replaced as
+ * positions packed relative to the paste origin plus a palette of the distinct prior
+ * states, about 8 bytes per block. Players keep up to undo.levels levels (under the
+ * engine's config section). Once all levels together hold more than undo.memory-blocks
+ * blocks, the oldest levels are written to the plugin's undo folder and read back when
+ * they are undone, or dropped if spilling is disabled. All methods except the spill
+ * writes and {@link Record#load()} run on the main thread.
+ */
+public class UndoHistory {
+
+    private static final int MAGIC = 0x41554E44; // "AUND"
+    private static final int VERSION = 1;
+
+    private final Plugin plugin;
+    private final String configPath;
+    private final Executor asyncExecutor;
+    private final File directory;
+    private final Map<UUID, Deque<Record>> histories = new HashMap<>();
+    // Levels held in memory, oldest first
+    private final LinkedHashSet<Record> inMemory = new LinkedHashSet<>();
+    private long memoryBlocks;
+    private int nextFileId;
+
+    /**
+     * @param configPath config section with the undo settings, e.g. "build"
+     * @param asyncExecutor runs the spill writes off the main thread
+     */
+    public UndoHistory(Plugin plugin, String configPath, Executor asyncExecutor) {
+        this.plugin = plugin;
+        this.configPath = configPath;
+        this.asyncExecutor = asyncExecutor;
+        this.directory = new File(plugin.getDataFolder(), "undo");
+        // Levels spilled before a restart can't be trusted any more
+        deleteSpillFiles();
+    }
+
+    /**
+     * Start recording a paste's prior blocks. The box is the structure's size; positions
+     * are relative to the origin.
+     */
+    public Record record(World world, int originX, int originY, int originZ, int sizeX, int sizeY, int sizeZ) {
+        return new Record(world.getUID(), originX, originY, originZ, sizeX, sizeY, sizeZ);
+    }
+
+    /**
+     * Add a finished level on top of a player's history. Empty records are ignored.
+     */
+    public void push(UUID player, Record record) {
+        if (record.count == 0) {
+            return;
+        }
+        record.finish();
+        Deque<Record> history = histories.computeIfAbsent(player, id -> new ArrayDeque<>());
+        history.addLast(record);
+        inMemory.add(record);
+        memoryBlocks += record.count;
+
+        int levels = Math.max(1, plugin.getConfig().getInt(configPath + ".undo.levels", 10));
+        while (history.size() > levels) {
+            discard(history.removeFirst());
+        }
+        enforceMemoryLimit();
+    }
+
+    /**
+     * Take the newest level off a player's history. A level that was handed to a spill
+     * write has to be read back with {@link Record#load()} off the main thread before use
+     * (see {@link Record#needsLoad()}).
+     * @return null if the player has nothing to undo
+     */
+    public Record pop(UUID player) {
+        Deque<Record> history = histories.get(player);
+        if (history == null || history.isEmpty()) {
+            return null;
+        }
+        Record record = history.removeLast();
+        if (history.isEmpty()) {
+            histories.remove(player);
+        }
+        if (inMemory.remove(record)) {
+            memoryBlocks -= record.count;
+        }
+        // A spill write that hasn't started yet skips the level now
+        record.taken = true;
+        return record;
+    }
+
+    /**
+     * Number of undo levels a player has
+     */
+    public int getLevels(UUID player) {
+        Deque<Record> history = histories.get(player);
+        return history != null ? history.size() : 0;
+    }
+
+    /**
+     * Drop all levels and their spill files (plugin shutdown)
+     */
+    public void clear() {
+        for (Deque<Record> history : histories.values()) {
+            for (Record record : history) {
+                record.discard();
+            }
+        }
+        histories.clear();
+        inMemory.clear();
+        memoryBlocks = 0;
+    }
+
+    private void discard(Record record) {
+        if (inMemory.remove(record)) {
+            memoryBlocks -= record.count;
+        }
+        record.discard();
+    }
+
+    /**
+     * Spill (or drop) the oldest levels until the rest fit the memory limit. The newest
+     * level always stays in memory.
+     */
+    private void enforceMemoryLimit() {
+        long limit = plugin.getConfig().getLong(configPath + ".undo.memory-blocks", 4000000);
+        boolean spill = plugin.getConfig().getBoolean(configPath + ".undo.spill-to-disk", true);
+        Iterator<Record> oldest = inMemory.iterator();
+        while (memoryBlocks > limit && inMemory.size() > 1) {
+            Record record = oldest.next();
+            oldest.remove();
+            memoryBlocks -= record.count;
+            if (spill && !record.spillFailed) {
+                File file = new File(directory, "undo-" + (nextFileId++) + ".dat");
+                record.offloaded = true;
+                asyncExecutor.execute(() -> {
+                    try {
+                        record.spill(file);
+                    } catch (IOException e) {
+                        plugin.getLogger().warning("Could not write undo data to " + file.getName() + ": " + e.getMessage());
+                        plugin.getServer().getScheduler().runTask(plugin, () -> spillFailed(record));
+                    }
+                });
+            } else {
+                dropRecord(record);
+            }
+        }
+    }
+
+    /**
+     * A spill write failed, so the level is still in memory: count it again if it fits the
+     * limit, else drop it. It is not spilled again.
+     */
+    private void spillFailed(Record record) {
+        if (record.taken) {
+            // Undone or dropped in the meantime
+            return;
+        }
+        record.offloaded = false;
+        record.spillFailed = true;
+        long limit = plugin.getConfig().getLong(configPath + ".undo.memory-blocks", 4000000);
+        if (memoryBlocks + record.count <= limit) {
+            inMemory.add(record);
+            memoryBlocks += record.count;
+        } else {
+            dropRecord(record);
+        }
+    }
+
+    /**
+     * Remove a level that no longer fits from whichever history holds it
+     */
+    private void dropRecord(Record record) {
+        Iterator<Deque<Record>> all = histories.values().iterator();
+        while (all.hasNext()) {
+            Deque<Record> history = all.next();
+            if (history.remove(record)) {
+                if (history.isEmpty()) {
+                    all.remove();
+                }
+                break;
+            }
+        }
+        record.discard();
+    }
+
+    private void deleteSpillFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("undo-"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * One undo level: the blocks a paste replaced, in the order they were replaced
+     */
+    public static class Record {
+        private final UUID worldId;
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private int count;
+        // Per block: position as (y * sizeZ + z) * sizeX + x relative to the origin, and palette index
+        private int[] positions;
+        private int[] states;
+        private List<BlockData> palette = new ArrayList<>();
+        // Interns prior states while recording
+        private Map<BlockData, Integer> paletteIndex = new HashMap<>();
+        // Set once a spill write has finished, see discard()
+        private volatile File file;
+        // Undone or dropped; checked by spill writes
+        private volatile boolean taken;
+        // Dropped; a spill write that sees this after writing deletes its own file
+        private volatile boolean discarded;
+        // Handed to a spill write, so its arrays may be gone (main thread only)
+        private boolean offloaded;
+        private boolean spillFailed;
+
+        Record(UUID worldId, int originX, int originY, int originZ, int sizeX, int sizeY, int sizeZ) {
+            if ((long) sizeX * sizeY * sizeZ > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Paste too large to record: " + sizeX + "x" + sizeY + "x" + sizeZ);
+            }
+            this.worldId = worldId;
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.positions = new int[16];
+            this.states = new int[16];
+        }
+
+        /**
+         * Record the state of a block, relative to the origin, before it is replaced
+         */
+        public void add(int x, int y, int z, BlockData prior) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+                states = Arrays.copyOf(states, count * 2);
+            }
+            Integer state = paletteIndex.get(prior);
+            if (state == null) {
+                state = palette.size();
+                palette.add(prior);
+                paletteIndex.put(prior, state);
+            }
+            positions[count] = (y * sizeZ + z) * sizeX + x;
+            states[count] = state;
+            count++;
+        }
+
+        /**
+         * Trim the arrays and let go of the interning map once recording is done
+         */
+        void finish() {
+            positions = Arrays.copyOf(positions, count);
+            states = Arrays.copyOf(states, count);
+            paletteIndex = null;
+        }
+
+        /**
+         * Copy of the first blocks of this level, used to keep what a cancelled undo didn't
+         * restore
+         */
+        public Record head(int blocks) {
+            Record head = new Record(worldId, originX, originY, originZ, sizeX, sizeY, sizeZ);
+            head.count = blocks;
+            head.positions = Arrays.copyOf(positions, blocks);
+            head.states = Arrays.copyOf(states, blocks);
+            head.palette = palette;
+            return head;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * World the level was recorded in, or null if it isn't loaded
+         */
+        public World getWorld() {
+            return Bukkit.getWorld(worldId);
+        }
+
+        public int getX(int block) {
+            return originX + positions[block] % sizeX;
+        }
+
+        public int getY(int block) {
+            return originY + positions[block] / sizeX / sizeZ;
+        }
+
+        public int getZ(int block) {
+            return originZ + positions[block] / sizeX % sizeZ;
+        }
+
+        public BlockData getState(int block) {
+            return palette.get(states[block]);
+        }
+
+        /**
+         * Write the level to a file and free its arrays. Does nothing if it was undone or
+         * dropped in the meantime, and deletes the file again if it was dropped while writing.
+         */
+        synchronized void spill(File file) throws IOException {
+            if (taken || positions == null) {
+                return;
+            }
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(file))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(palette.size());
+                for (BlockData state : palette) {
+                    out.writeUTF(state.getAsString());
+                }
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(positions[i]);
+                    out.writeInt(states[i]);
+                }
+            } catch (IOException e) {
+                file.delete();
+                throw e;
+            }
+            positions = null;
+            states = null;
+            palette = null;
+            this.file = file;
+            // discard() sets the flag before it reads the file, so one of the two deletes it
+            if (discarded) {
+                file.delete();
+            }
+        }
+
+        /**
+         * Whether the level was handed to a spill write and must be {@link #load() loaded}
+         * before its blocks are read. Main thread only.
+         */
+        boolean needsLoad() {
+            return offloaded;
+        }
+
+        /**
+         * Read the level back if it was spilled, waiting for a spill write still in progress.
+         * Parses the prior states, so run it off the main thread.
+         */
+        synchronized void load() throws IOException {
+            taken = true;
+            if (positions != null) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(new FileInputStream(file))))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("Not an undo file: " + file.getName());
+                }
+                int paletteSize = in.readInt();
+                List<BlockData> priorStates = new ArrayList<>(paletteSize);
+                for (int i = 0; i < paletteSize; i++) {
+                    priorStates.add(Bukkit.createBlockData(in.readUTF()));
+                }
+                int blocks = in.readInt();
+                int[] positions = new int[blocks];
+                int[] indices = new int[blocks];
+                for (int i = 0; i < blocks; i++) {
+                    positions[i] = in.readInt();
+                    indices[i] = in.readInt();
+                }
+                this.palette = priorStates;
+                this.positions = positions;
+                this.states = indices;
+            } finally {
+                file.delete();
+                file = null;
+            }
+        }
+
+        /**
+         * Free the level and delete its spill file. Called on the main thread, so it never
+         * waits for a spill write: one still running deletes its file when it is done.
+         */
+        void discard() {
+            taken = true;
+            discarded = true;
+            if (!offloaded) {
+                positions = null;
+                states = null;
+                palette = null;
+            }
+            File spilled = file;
+            if (spilled != null) {
+                spilled.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.aibuild.placement;
+
+import java.util.List;
+
+/**
+ * Palette-indexed blocks to place. Each distinct block state is in the palette once and
+ * every block is a position inside the size box plus an index into the palette. Positions
+ * are relative to the paste origin and run from 0 to size - 1 on each axis.
+ */
+public interface VoxelSource {
+
+    int getSizeX();
+
+    int getSizeY();
+
+    int getSizeZ();
+
+    /**
+     * Distinct block states, e.g. "minecraft:oak_door[facing=north,half=lower]"
+     */
+    List<String> getPalette();
+
+    int getBlockCount();
+
+    int getBlockX(int block);
+
+    int getBlockY(int block);
+
+    int getBlockZ(int block);
+
+    /**
+     * Palette index of a block's state
+     */
+    int getBlockState(int block);
+}
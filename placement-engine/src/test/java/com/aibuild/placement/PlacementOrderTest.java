@@ -0,0 +1,151 @@
+package com.aibuild.placement;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlacementOrderTest {
+
+    private static final String[] STATES = {
+        "minecraft:stone",
+        "minecraft:oak_door[facing=north,half=upper,hinge=left,open=false,powered=false]",
+        "minecraft:torch",
+        "minecraft:sunflower[half=upper]",
+        "minecraft:oak_planks",
+        "minecraft:red_bed[facing=east,occupied=false,part=head]",
+        "minecraft:oak_button[face=wall,facing=north,powered=false]"
+    };
+
+    @Test
+    void classifiesStates() {
+        assertEquals(0, PlacementOrder.placementClass("minecraft:stone"));
+        assertEquals(1, PlacementOrder.placementClass(STATES[1]));
+        assertEquals(2, PlacementOrder.placementClass("minecraft:torch"));
+        assertEquals(3, PlacementOrder.placementClass("minecraft:sunflower[half=upper]"));
+        assertEquals(1, PlacementOrder.placementClass(STATES[5]));
+        assertEquals(2, PlacementOrder.placementClass(STATES[6]));
+        assertEquals(2, PlacementOrder.placementClass("minecraft:white_carpet"));
+    }
+
+    @Test
+    void emptySourceHasEmptyOrder() {
+        assertEquals(0, PlacementOrder.of(new Blocks(4, 4, 4), 0, 0).length);
+    }
+
+    /**
+     * Matches a stable comparison sort by y, then placement class, then chunk column, at
+     * origins on and off chunk borders, including negative ones
+     */
+    @Test
+    void matchesStableSortByLevelClassAndChunk() {
+        Random random = new Random(1);
+        int[][] origins = {{0, 0}, {7, -9}, {-16, 16}, {-100, 37}};
+        for (int[] origin : origins) {
+            Blocks source = new Blocks(40, 12, 35);
+            for (int i = 0; i < 5000; i++) {
+                source.add(random.nextInt(40), random.nextInt(12), random.nextInt(35), random.nextInt(STATES.length));
+            }
+            int originX = origin[0];
+            int originZ = origin[1];
+            int firstChunkX = originX >> 4;
+            int chunksX = ((originX + 39) >> 4) - firstChunkX + 1;
+            Comparator<Integer> order = Comparator
+                .<Integer>comparingInt(block -> source.getBlockY(block))
+                .thenComparingInt(block -> PlacementOrder.placementClass(STATES[source.getBlockState(block)]))
+                .thenComparingInt(block -> (((originZ + source.getBlockZ(block)) >> 4) - (originZ >> 4)) * chunksX
+                    + ((originX + source.getBlockX(block)) >> 4) - firstChunkX)
+                .thenComparingInt(block -> block);
+            Integer[] expected = new Integer[source.getBlockCount()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = i;
+            }
+            Arrays.sort(expected, order);
+
+            assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(),
+                PlacementOrder.of(source, originX, originZ), "origin " + originX + "," + originZ);
+        }
+    }
+
+    @Test
+    void placesSupportBeforeDependentBlocks() {
+        Blocks source = new Blocks(1, 2, 1);
+        source.add(0, 1, 0, 1); // door top
+        source.add(0, 0, 0, 2); // torch
+        source.add(0, 1, 0, 3); // sunflower top
+        source.add(0, 0, 0, 0); // stone
+        source.add(0, 1, 0, 4); // planks
+        assertArrayEquals(new int[]{3, 1, 4, 0, 2}, PlacementOrder.of(source, 0, 0));
+    }
+
+    /**
+     * Blocks by palette index, in the order they were added
+     */
+    private static final class Blocks implements VoxelSource {
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final List<int[]> blocks = new ArrayList<>();
+
+        Blocks(int sizeX, int sizeY, int sizeZ) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+        }
+
+        void add(int x, int y, int z, int state) {
+            blocks.add(new int[]{x, y, z, state});
+        }
+
+        @Override
+        public int getSizeX() {
+            return sizeX;
+        }
+
+        @Override
+        public int getSizeY() {
+            return sizeY;
+        }
+
+        @Override
+        public int getSizeZ() {
+            return sizeZ;
+        }
+
+        @Override
+        public List<String> getPalette() {
+            return Arrays.asList(STATES);
+        }
+
+        @Override
+        public int getBlockCount() {
+            return blocks.size();
+        }
+
+        @Override
+        public int getBlockX(int block) {
+            return blocks.get(block)[0];
+        }
+
+        @Override
+        public int getBlockY(int block) {
+            return blocks.get(block)[1];
+        }
+
+        @Override
+        public int getBlockZ(int block) {
+            return blocks.get(block)[2];
+        }
+
+        @Override
+        public int getBlockState(int block) {
+            return blocks.get(block)[3];
+        }
+    }
+}
@@ -4,15 +4,19 @@ import org.bukkit.plugin.java.JavaPlugin;
 import com.aibuild.commands.AIBuildCommand;
 import com.aibuild.commands.AIHelpCommand;
 import com.aibuild.commands.AIUndoCommand;
-import com.aibuild.models.UndoBuffer;
 import com.aibuild.services.BackendClient;
+import com.aibuild.services.PromptPregenerator;
 import com.aibuild.services.StructureBuilder;
+import com.aibuild.services.StructureCache;
+
+import java.io.File;
 
 public class AIBuildPlugin extends JavaPlugin {
 
     private BackendClient backendClient;
     private StructureBuilder structureBuilder;
-    private UndoBuffer undoBuffer;
+    private StructureCache structureCache;
+    private PromptPregenerator promptPregenerator;
 
     @Override
     public void onEnable() {
@@ -23,12 +27,14 @@ public class AIBuildPlugin extends JavaPlugin {
         int defaultDepth = getConfig().getInt("default-depth", 16);
         int defaultHeight = getConfig().getInt("default-height", 16);
         
-        this.undoBuffer = new UndoBuffer();
         this.backendClient = new BackendClient(backendUrl);
-        this.structureBuilder = new StructureBuilder(this, undoBuffer);
+        this.structureBuilder = new StructureBuilder(this);
+        this.structureCache = new StructureCache(new File(getDataFolder(), "prompt-cache"), getLogger());
+        this.promptPregenerator = new PromptPregenerator(this, backendClient, structureCache, defaultWidth, defaultDepth, defaultHeight);
+        promptPregenerator.start();
         
-        getCommand("aibuild").setExecutor(new AIBuildCommand(this, backendClient, structureBuilder, defaultWidth, defaultDepth, defaultHeight));
-        getCommand("aiundo").setExecutor(new AIUndoCommand(this, undoBuffer));
+        getCommand("aibuild").setExecutor(new AIBuildCommand(this, backendClient, structureBuilder, structureCache, defaultWidth, defaultDepth, defaultHeight));
+        getCommand("aiundo").setExecutor(new AIUndoCommand(this, structureBuilder));
         getCommand("aihelp").setExecutor(new AIHelpCommand());
         
         getLogger().info("AIBuildPlugin has been enabled.");
@@ -37,13 +43,15 @@ public class AIBuildPlugin extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (promptPregenerator != null) {
+            promptPregenerator.stop();
+        }
+        if (structureBuilder != null) {
+            structureBuilder.shutdown();
+        }
         getLogger().info("AIBuildPlugin has been disabled.");
     }
     
-    public UndoBuffer getUndoBuffer() {
-        return undoBuffer;
-    }
-    
     public BackendClient getBackendClient() {
         return backendClient;
     }
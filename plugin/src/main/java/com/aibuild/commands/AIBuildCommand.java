@@ -2,8 +2,10 @@ package com.aibuild.commands;
 
 import com.aibuild.AIBuildPlugin;
 import com.aibuild.models.Structure;
+import com.aibuild.placement.StructureFileReader;
 import com.aibuild.services.BackendClient;
 import com.aibuild.services.StructureBuilder;
+import com.aibuild.services.StructureCache;
 import com.aibuild.utils.JsonParser;
 import com.google.gson.JsonObject;
 
@@ -17,20 +19,30 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class AIBuildCommand implements CommandExecutor {
 
+    private static final String FILE_PREFIX = "file:";
+
     private final AIBuildPlugin plugin;
     private final BackendClient backendClient;
     private final StructureBuilder structureBuilder;
+    private final StructureCache structureCache;
     private final int defaultWidth;
     private final int defaultDepth;
     private final int defaultHeight;
 
     public AIBuildCommand(AIBuildPlugin plugin, BackendClient backendClient, StructureBuilder structureBuilder, 
-                          int defaultWidth, int defaultDepth, int defaultHeight) {
+                          StructureCache structureCache, int defaultWidth, int defaultDepth, int defaultHeight) {
         this.plugin = plugin;
         this.backendClient = backendClient;
         this.structureBuilder = structureBuilder;
+        this.structureCache = structureCache;
         this.defaultWidth = defaultWidth;
         this.defaultDepth = defaultDepth;
         this.defaultHeight = defaultHeight;
@@ -57,6 +69,21 @@ public class AIBuildCommand implements CommandExecutor {
             return true;
         }
 
+        // Reserved before the prompt is parsed, so "cancel" with dimensions or trailing commas
+        // never reaches the backend as a prompt
+        if (isCancel(args)) {
+            if (structureBuilder.cancel(player)) {
+                player.sendMessage(Component.text("Build cancelled.", NamedTextColor.YELLOW));
+            } else {
+                player.sendMessage(Component.text("Nothing to cancel.", NamedTextColor.YELLOW));
+            }
+            return true;
+        }
+
+        if (args.length == 1 && args[0].startsWith(FILE_PREFIX)) {
+            return buildFromFile(player, args[0].substring(FILE_PREFIX.length()));
+        }
+
         // Join args and parse for dimensions
         String fullInput = String.join(" ", args);
         String prompt;
@@ -98,6 +125,15 @@ public class AIBuildCommand implements CommandExecutor {
         final int finalWidth = width;
         final int finalDepth = depth;
         final int finalHeight = height;
+
+        // Hot prompts are pre-generated in the background and can be built right away
+        Structure cached = structureCache.get(prompt, finalWidth, finalDepth, finalHeight);
+        if (cached != null) {
+            player.sendMessage(Component.text("Building structure: ", NamedTextColor.YELLOW).append(Component.text(prompt, NamedTextColor.WHITE)));
+            player.sendMessage(Component.text("Dimensions: " + finalWidth + "x" + finalDepth + "x" + finalHeight + " (pre-generated)", NamedTextColor.GRAY));
+            build(player, targetLocation, cached);
+            return true;
+        }
         
         player.sendMessage(Component.text("Generating structure: ", NamedTextColor.YELLOW).append(Component.text(prompt, NamedTextColor.WHITE)));
         player.sendMessage(Component.text("Dimensions: " + finalWidth + "x" + finalDepth + "x" + finalHeight, NamedTextColor.GRAY));
@@ -122,18 +158,11 @@ public class AIBuildCommand implements CommandExecutor {
                     
                     Structure structure = JsonParser.parseStructure(response);
                     
-                    // Build synchronously on the main thread
+                    // Start the build on the main thread
                     new BukkitRunnable() {
                         @Override
                         public void run() {
-                            try {
-                                structureBuilder.buildStructure(player, targetLocation, structure);
-                                player.sendMessage(Component.text("Structure built successfully!", NamedTextColor.GREEN));
-                                player.sendMessage(Component.text("Use /aiundo to undo.", NamedTextColor.GRAY));
-                            } catch (Exception e) {
-                                player.sendMessage(Component.text("Error building structure: " + e.getMessage(), NamedTextColor.RED));
-                                plugin.getLogger().severe("Build error: " + e.getMessage());
-                            }
+                            build(player, targetLocation, structure);
                         }
                     }.runTask(plugin);
                     
@@ -151,4 +180,136 @@ public class AIBuildCommand implements CommandExecutor {
 
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether the prompt part of the arguments (before any dimensions) is the word "cancel"
+     */
+    private static boolean isCancel(String[] args) {
+        String input = String.join(" ", args);
+        int comma = input.indexOf(',');
+        return (comma < 0 ? input : input.substring(0, comma)).trim().equalsIgnoreCase("cancel");
+    }
+
+    /**
+     * Start building on the main thread and report the outcome when the build is done
+     */
+    private void build(Player player, Location targetLocation, Structure structure) {
+        try {
+            boolean started = structureBuilder.startBuild(player, targetLocation, structure, result -> {
+                if (!player.isOnline()) {
+                    return;
+                }
+                if (result.isCancelled()) {
+                    player.sendMessage(Component.text("Build cancelled after " + result.getBlocksPlaced() + " blocks.", NamedTextColor.YELLOW));
+                    player.sendMessage(Component.text("Use /aiundo to undo.", NamedTextColor.GRAY));
+                } else if (result.isSuccess()) {
+                    player.sendMessage(Component.text("Structure built successfully!", NamedTextColor.GREEN));
+                    player.sendMessage(Component.text("Use /aiundo to undo.", NamedTextColor.GRAY));
+                } else {
+                    player.sendMessage(Component.text("Structure built with some errors (" + result.getBlocksPlaced() + " blocks placed).", NamedTextColor.YELLOW));
+                    if (result.getError() != null) {
+                        player.sendMessage(Component.text("Errors: " + result.getError(), NamedTextColor.RED));
+                    }
+                }
+            });
+            if (!started) {
+                player.sendMessage(Component.text("You already have a build running. Use /aibuild cancel to stop it.", NamedTextColor.RED));
+            }
+        } catch (Exception e) {
+            player.sendMessage(Component.text("Error building structure: " + e.getMessage(), NamedTextColor.RED));
+            plugin.getLogger().severe("Build error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build a structure file exported by the StructureExtractor plugin from the structures directory
+     */
+    private boolean buildFromFile(Player player, String name) {
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.contains("..")) {
+            player.sendMessage(Component.text("Invalid structure file name.", NamedTextColor.RED));
+            return true;
+        }
+        if (!name.endsWith(StructureFileReader.EXTENSION)) {
+            name = name + StructureFileReader.EXTENSION;
+        }
+
+        File directory = new File(plugin.getDataFolder(), plugin.getConfig().getString("structures-directory", "structures"));
+        File file = new File(directory, name);
+        if (!file.isFile()) {
+            player.sendMessage(Component.text("Structure file not found: " + name, NamedTextColor.RED));
+            return true;
+        }
+
+        Location targetLocation = player.getLocation().getBlock().getLocation();
+        player.sendMessage(Component.text("Loading structure: ", NamedTextColor.YELLOW).append(Component.text(name, NamedTextColor.WHITE)));
+
+        // Read the file asynchronously
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    Structure structure = readStructureFile(file);
+
+                    // Start the build on the main thread
+                    new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            build(player, targetLocation, structure);
+                        }
+                    }.runTask(plugin);
+
+                } catch (Exception e) {
+                    new BukkitRunnable() {
+                        @Override
+                        public void run() {
+                            player.sendMessage(Component.text("Error reading structure file: " + e.getMessage(), NamedTextColor.RED));
+                        }
+                    }.runTask(plugin);
+                    plugin.getLogger().severe("Structure file error: " + e.getMessage());
+                }
+            }
+        }.runTaskAsynchronously(plugin);
+
+        return true;
+    }
+
+    /**
+     * Read a structure file into a Structure. Palette keys are the palette indices as strings
+     * and empty cells are null.
+     */
+    private static Structure readStructureFile(File file) throws IOException {
+        Map<String, String> palette = new HashMap<>();
+        Map<Integer, String[][]> layers = new HashMap<>();
+        int[] size = new int[3];
+        String[] name = new String[1];
+        String[][] keys = new String[1][];
+
+        StructureFileReader.read(file, new StructureFileReader.Visitor() {
+            @Override
+            public void header(String structureName, int sizeX, int sizeY, int sizeZ, int blockCount,
+                               List<String> states) {
+                name[0] = structureName;
+                size[0] = sizeX;
+                size[1] = sizeY;
+                size[2] = sizeZ;
+                keys[0] = new String[states.size()];
+                for (int i = 0; i < states.size(); i++) {
+                    keys[0][i] = String.valueOf(i);
+                    palette.put(keys[0][i], states.get(i));
+                }
+                for (int y = 0; y < sizeY; y++) {
+                    layers.put(y, new String[sizeZ][sizeX]);
+                }
+            }
+
+            @Override
+            public void block(int x, int y, int z, int state) {
+                layers.get(y)[z][x] = keys[0][state];
+            }
+        });
+
+        Structure structure = new Structure(size, palette, layers);
+        structure.setName(name[0]);
+        return structure;
+    }
+}
@@ -27,8 +27,15 @@ public class AIHelpCommand implements CommandExecutor {
         sender.sendMessage(Component.text("    /aibuild medieval castle with towers ,48,48,64", NamedTextColor.AQUA));
         sender.sendMessage(Component.text("      (Uses 48 width, 48 depth, 64 height)", NamedTextColor.GRAY));
         sender.sendMessage(Component.empty());
+        sender.sendMessage(Component.text("/aibuild file:<name>", NamedTextColor.YELLOW));
+        sender.sendMessage(Component.text("  Build a .aistruct file exported by StructureExtractor.", NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("  Files are read from the plugin's structures folder.", NamedTextColor.GRAY));
+        sender.sendMessage(Component.empty());
+        sender.sendMessage(Component.text("/aibuild cancel", NamedTextColor.YELLOW));
+        sender.sendMessage(Component.text("  Stop a build or undo that is still placing blocks.", NamedTextColor.GRAY));
+        sender.sendMessage(Component.empty());
         sender.sendMessage(Component.text("/aiundo", NamedTextColor.YELLOW));
-        sender.sendMessage(Component.text("  Undo the last AI-generated structure.", NamedTextColor.GRAY));
+        sender.sendMessage(Component.text("  Undo the last AI-generated structure (repeat for earlier ones).", NamedTextColor.GRAY));
         sender.sendMessage(Component.empty());
         sender.sendMessage(Component.text("/aihelp", NamedTextColor.YELLOW));
         sender.sendMessage(Component.text("  Show this help message.", NamedTextColor.GRAY));
@@ -1,7 +1,7 @@
 package com.aibuild.commands;
 
 import com.aibuild.AIBuildPlugin;
-import com.aibuild.models.UndoBuffer;
+import com.aibuild.services.StructureBuilder;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -13,10 +13,10 @@ import org.bukkit.entity.Player;
 
 public class AIUndoCommand implements CommandExecutor {
 
-    private final UndoBuffer undoBuffer;
+    private final StructureBuilder structureBuilder;
 
-    public AIUndoCommand(AIBuildPlugin plugin, UndoBuffer undoBuffer) {
-        this.undoBuffer = undoBuffer;
+    public AIUndoCommand(AIBuildPlugin plugin, StructureBuilder structureBuilder) {
+        this.structureBuilder = structureBuilder;
     }
 
     @Override
@@ -33,9 +33,18 @@ public class AIUndoCommand implements CommandExecutor {
             return true;
         }
 
-        if (undoBuffer.hasUndo(player)) {
-            int blocksRestored = undoBuffer.undo(player);
-            player.sendMessage(Component.text("Undo successful! " + blocksRestored + " blocks restored.", NamedTextColor.GREEN));
+        if (structureBuilder.getJob(player) != null) {
+            player.sendMessage(Component.text("Wait for your build to finish or use /aibuild cancel first.", NamedTextColor.RED));
+        } else if (structureBuilder.hasUndo(player)) {
+            boolean started = structureBuilder.startUndo(player, blocksRestored -> {
+                if (player.isOnline()) {
+                    player.sendMessage(Component.text("Undo successful! " + blocksRestored + " blocks restored.", NamedTextColor.GREEN));
+                }
+            });
+            if (!started) {
+                // The previous undo is still reading its data back from disk
+                player.sendMessage(Component.text("Wait for your undo to start first.", NamedTextColor.RED));
+            }
         } else {
             player.sendMessage(Component.text("Nothing to undo.", NamedTextColor.YELLOW));
         }
@@ -0,0 +1,132 @@
+package com.aibuild.models;
+
+import com.aibuild.placement.VoxelSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Structure's layers flattened into palette-indexed blocks for the placement engine.
+ * The palette holds each block id the layers use once. The size is taken from the layers
+ * themselves, so rows longer than the declared size are still placed.
+ */
+public class StructureVoxels implements VoxelSource {
+
+    private final List<String> palette = new ArrayList<>();
+    private final Set<String> unknownKeys = new LinkedHashSet<>();
+    private int sizeX;
+    private int sizeY;
+    private int sizeZ;
+    // Per block: x, y, z and palette index
+    private int[] blocks = new int[64];
+    private int blockCount;
+
+    public StructureVoxels(Structure structure) {
+        Map<String, String> keys = structure.getPalette();
+        Map<String, Integer> paletteIndex = new HashMap<>();
+
+        for (Map.Entry<Integer, String[][]> layer : structure.getLayers().entrySet()) {
+            int y = layer.getKey();
+            String[][] layerData = layer.getValue();
+            if (layerData == null || y < 0) continue;
+
+            // Iterate through Z (rows)
+            for (int z = 0; z < layerData.length; z++) {
+                String[] row = layerData[z];
+                if (row == null) continue;
+
+                // Iterate through X (columns)
+                for (int x = 0; x < row.length; x++) {
+                    String paletteKey = row[x];
+                    if (paletteKey == null || paletteKey.isEmpty()) continue;
+
+                    String blockId = keys.get(paletteKey);
+                    if (blockId == null) {
+                        unknownKeys.add(paletteKey);
+                        continue;
+                    }
+                    Integer state = paletteIndex.get(blockId);
+                    if (state == null) {
+                        state = palette.size();
+                        palette.add(blockId);
+                        paletteIndex.put(blockId, state);
+                    }
+                    add(x, y, z, state);
+                }
+            }
+        }
+    }
+
+    private void add(int x, int y, int z, int state) {
+        if (blockCount * 4 == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length * 2);
+        }
+        int offset = blockCount * 4;
+        blocks[offset] = x;
+        blocks[offset + 1] = y;
+        blocks[offset + 2] = z;
+        blocks[offset + 3] = state;
+        blockCount++;
+        sizeX = Math.max(sizeX, x + 1);
+        sizeY = Math.max(sizeY, y + 1);
+        sizeZ = Math.max(sizeZ, z + 1);
+    }
+
+    /**
+     * Palette keys used in the layers but missing from the palette; those cells are skipped
+     */
+    public Set<String> getUnknownKeys() {
+        return unknownKeys;
+    }
+
+    @Override
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    @Override
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    @Override
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    @Override
+    public List<String> getPalette() {
+        return Collections.unmodifiableList(palette);
+    }
+
+    @Override
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    @Override
+    public int getBlockX(int block) {
+        return blocks[block * 4];
+    }
+
+    @Override
+    public int getBlockY(int block) {
+        return blocks[block * 4 + 1];
+    }
+
+    @Override
+    public int getBlockZ(int block) {
+        return blocks[block * 4 + 2];
+    }
+
+    @Override
+    public int getBlockState(int block) {
+        return blocks[block * 4 + 3];
+    }
+}
@@ -11,17 +11,27 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BackendClient {
     private final String backendUrl;
     private final Gson gson;
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
 
     public BackendClient(String backendUrl) {
         this.backendUrl = backendUrl;
         this.gson = new Gson();
     }
 
+    /**
+     * Number of generate requests currently waiting on the backend
+     */
+    public int getRequestsInFlight() {
+        return requestsInFlight.get();
+    }
+
     public JsonObject generateStructure(String prompt, int width, int depth, int height) {
+        requestsInFlight.incrementAndGet();
         try {
             URL url = URI.create(backendUrl + "/generate").toURL();
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -54,6 +64,8 @@ public class BackendClient {
             }
         } catch (Exception e) {
             Bukkit.getLogger().severe("Error communicating with backend: " + e.getMessage());
+        } finally {
+            requestsInFlight.decrementAndGet();
         }
         return null;
     }
@@ -0,0 +1,225 @@
+package com.aibuild.services;
+
+import com.aibuild.AIBuildPlugin;
+import com.google.gson.JsonObject;
+
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps structures for the configured hot prompts generated ahead of time. Every
+ * pregeneration.interval-seconds, if the server is idle (no player request waiting on the
+ * backend and the TPS at least pregeneration.min-tps), one hot prompt that is missing from
+ * the cache or due for a refresh is generated in the background. The interval is the rate
+ * limit: at most one background request is made per interval. A prompt whose request fails
+ * waits twice as many intervals after each failure in a row (up to 64) before it is tried
+ * again, so one failing prompt does not hold up the others.
+ */
+public class PromptPregenerator {
+
+    // Most intervals a failing prompt waits between attempts
+    private static final int MAX_BACKOFF_INTERVALS = 64;
+
+    private final AIBuildPlugin plugin;
+    private final BackendClient backendClient;
+    private final StructureCache cache;
+    private final List<HotPrompt> prompts = new ArrayList<>();
+    private BukkitTask task;
+    private long intervalMillis;
+
+    public PromptPregenerator(AIBuildPlugin plugin, BackendClient backendClient, StructureCache cache,
+                              int defaultWidth, int defaultDepth, int defaultHeight) {
+        this.plugin = plugin;
+        this.backendClient = backendClient;
+        this.cache = cache;
+
+        // Dimension presets apply to hot prompts that don't give their own
+        List<int[]> presets = new ArrayList<>();
+        for (String preset : plugin.getConfig().getStringList("pregeneration.dimension-presets")) {
+            int[] dimensions = parseDimensions(preset.split(","), 0);
+            if (dimensions != null) {
+                presets.add(dimensions);
+            } else {
+                plugin.getLogger().warning("Ignoring invalid dimension preset: " + preset);
+            }
+        }
+        if (presets.isEmpty()) {
+            presets.add(new int[]{defaultWidth, defaultDepth, defaultHeight});
+        }
+
+        // Format: prompt [,width,depth,height], like /aibuild
+        for (String line : plugin.getConfig().getStringList("pregeneration.hot-prompts")) {
+            String[] parts = line.split(",");
+            String prompt = parts[0].trim();
+            if (prompt.isEmpty()) {
+                continue;
+            }
+            if (parts.length > 1) {
+                int[] dimensions = parseDimensions(parts, 1);
+                if (dimensions == null) {
+                    plugin.getLogger().warning("Ignoring hot prompt with invalid dimensions: " + line);
+                    continue;
+                }
+                prompts.add(new HotPrompt(prompt, dimensions));
+            } else {
+                for (int[] preset : presets) {
+                    prompts.add(new HotPrompt(prompt, preset));
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the cache from disk and start generating in the background
+     */
+    public void start() {
+        if (!plugin.getConfig().getBoolean("pregeneration.enabled", true) || prompts.isEmpty()) {
+            return;
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (HotPrompt prompt : prompts) {
+            keys.add(prompt.key);
+        }
+        long interval = Math.max(1, plugin.getConfig().getInt("pregeneration.interval-seconds", 60)) * 20L;
+        intervalMillis = interval * 50L;
+
+        task = new BukkitRunnable() {
+            private boolean loaded;
+
+            @Override
+            public void run() {
+                if (!loaded) {
+                    cache.load(keys);
+                    loaded = true;
+                    plugin.getLogger().info("Loaded " + cache.size() + " of " + prompts.size() + " pre-generated structures.");
+                }
+                if (isIdle()) {
+                    generateNext();
+                }
+            }
+        }.runTaskTimerAsynchronously(plugin, 0L, interval);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Whether the backend and the server have room for a background request
+     */
+    private boolean isIdle() {
+        if (backendClient.getRequestsInFlight() > 0) {
+            return false;
+        }
+        double minTps = plugin.getConfig().getDouble("pregeneration.min-tps", 19.0);
+        return plugin.getServer().getTPS()[0] >= minTps;
+    }
+
+    /**
+     * Generate the hot prompt that needs it most: missing ones first, then the oldest one due
+     * for a refresh. Prompts rank by their last generation or attempt, whichever is later,
+     * so a prompt that just failed goes behind the others.
+     */
+    private void generateNext() {
+        long refreshMillis = plugin.getConfig().getLong("pregeneration.refresh-minutes", 1440) * 60000L;
+        boolean refreshAfterUse = plugin.getConfig().getBoolean("pregeneration.refresh-after-use", false);
+        long now = System.currentTimeMillis();
+
+        HotPrompt next = null;
+        long nextRank = Long.MAX_VALUE;
+        for (HotPrompt prompt : prompts) {
+            long generatedAt = cache.getGeneratedAt(prompt.key);
+            boolean due = generatedAt == 0
+                || (refreshMillis > 0 && now - generatedAt >= refreshMillis)
+                || (refreshAfterUse && cache.getUses(prompt.key) > 0);
+            if (!due || now - prompt.lastAttempt < backoffMillis(prompt.failures)) {
+                continue;
+            }
+            long rank = Math.max(generatedAt, prompt.lastAttempt);
+            if (rank < nextRank) {
+                next = prompt;
+                nextRank = rank;
+            }
+        }
+        if (next == null) {
+            return;
+        }
+
+        next.lastAttempt = now;
+        JsonObject response = backendClient.generateStructure(next.prompt, next.width, next.depth, next.height);
+        if (response == null) {
+            next.failures++;
+            return;
+        }
+        try {
+            cache.put(next.key, response);
+            next.failures = 0;
+            plugin.getLogger().info("Pre-generated structure for \"" + next.prompt + "\" (" + next.width + "x" + next.depth + "x" + next.height + ")");
+        } catch (Exception e) {
+            next.failures++;
+            plugin.getLogger().warning("Could not cache structure for \"" + next.prompt + "\": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Time to wait before trying a prompt again after a number of failures in a row
+     */
+    private long backoffMillis(int failures) {
+        if (failures == 0) {
+            return 0;
+        }
+        return intervalMillis * Math.min(MAX_BACKOFF_INTERVALS, 1L << Math.min(failures, 6));
+    }
+
+    /**
+     * Width, depth and height from parts starting at an index, or null if they are not valid
+     * dimensions for /aibuild
+     */
+    private int[] parseDimensions(String[] parts, int start) {
+        if (parts.length != start + 3) {
+            return null;
+        }
+        int[] dimensions = new int[3];
+        try {
+            for (int i = 0; i < 3; i++) {
+                dimensions[i] = Integer.parseInt(parts[start + i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int width = dimensions[0];
+        int depth = dimensions[1];
+        int height = dimensions[2];
+        if (width < 1 || width > 64 || depth < 1 || depth > 64 || height < 1 || height > 128) {
+            return null;
+        }
+        return dimensions;
+    }
+
+    private static final class HotPrompt {
+        final String prompt;
+        final int width;
+        final int depth;
+        final int height;
+        final String key;
+        // Written by the pregeneration task only, which may run on a different thread each time
+        volatile long lastAttempt;
+        volatile int failures;
+
+        HotPrompt(String prompt, int[] dimensions) {
+            this.prompt = prompt;
+            this.width = dimensions[0];
+            this.depth = dimensions[1];
+            this.height = dimensions[2];
+            this.key = StructureCache.key(prompt, width, depth, height);
+        }
+    }
+}
@@ -2,16 +2,15 @@ package com.aibuild.services;
 
 import com.aibuild.AIBuildPlugin;
 import com.aibuild.models.Structure;
-import com.aibuild.models.UndoBuffer;
-import com.aibuild.models.UndoBuffer.BlockState;
-import com.aibuild.models.UndoBuffer.UndoEntry;
+import com.aibuild.models.StructureVoxels;
+import com.aibuild.placement.PlacementEngine;
+import com.aibuild.placement.PlacementJob;
+import com.aibuild.placement.PlacementResult;
 import com.aibuild.utils.BlockValidator;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.World;
-import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.Bisected;
 import org.bukkit.block.data.BlockData;
@@ -24,260 +23,134 @@ import org.bukkit.block.data.type.*;
 import org.bukkit.entity.Player;
 
 import java.util.*;
-
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds generated structures through the shared placement engine: solid blocks first,
+ * then upper halves, then physics-dependent blocks, spread over several ticks. Block ids
+ * from the backend are resolved to BlockData once per distinct id.
+ */
 public class StructureBuilder {
 
     private final AIBuildPlugin plugin;
-    private final UndoBuffer undoBuffer;
-    
-    // Blocks that need support - place in second pass
-    private static final Set<String> PHYSICS_DEPENDENT = new HashSet<>(Arrays.asList(
-        "TORCH", "WALL_TORCH", "SOUL_TORCH", "SOUL_WALL_TORCH", "REDSTONE_TORCH", "REDSTONE_WALL_TORCH",
-        "LANTERN", "SOUL_LANTERN", "CHAIN",
-        "LEVER", "TRIPWIRE_HOOK", "TRIPWIRE",
-        "STONE_BUTTON", "OAK_BUTTON", "SPRUCE_BUTTON", "BIRCH_BUTTON", "JUNGLE_BUTTON",
-        "ACACIA_BUTTON", "DARK_OAK_BUTTON", "MANGROVE_BUTTON", "CHERRY_BUTTON", "BAMBOO_BUTTON",
-        "CRIMSON_BUTTON", "WARPED_BUTTON", "POLISHED_BLACKSTONE_BUTTON",
-        "STONE_PRESSURE_PLATE", "OAK_PRESSURE_PLATE", "SPRUCE_PRESSURE_PLATE", "BIRCH_PRESSURE_PLATE",
-        "JUNGLE_PRESSURE_PLATE", "ACACIA_PRESSURE_PLATE", "DARK_OAK_PRESSURE_PLATE",
-        "LIGHT_WEIGHTED_PRESSURE_PLATE", "HEAVY_WEIGHTED_PRESSURE_PLATE",
-        "RAIL", "POWERED_RAIL", "DETECTOR_RAIL", "ACTIVATOR_RAIL",
-        "REDSTONE_WIRE", "REPEATER", "COMPARATOR",
-        "LADDER", "VINE", "GLOW_LICHEN",
-        "PAINTING", "ITEM_FRAME", "GLOW_ITEM_FRAME",
-        "BELL", "SCAFFOLDING"
-    ));
+    private final PlacementEngine engine;
 
-    public StructureBuilder(AIBuildPlugin plugin, UndoBuffer undoBuffer) {
+    public StructureBuilder(AIBuildPlugin plugin) {
         this.plugin = plugin;
-        this.undoBuffer = undoBuffer;
+        this.engine = new PlacementEngine(plugin, "build",
+            task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task), this::resolveBlock);
     }
 
     /**
-     * Build a structure at the given location with proper block ordering
-     * Uses two-pass placement: solid blocks first, then physics-dependent blocks
+     * Start building a structure at the given location with proper block ordering
      * @param player The player building the structure
      * @param startLocation The starting location (bottom-left corner)
      * @param structure The structure to build
+     * @param onComplete called on the main thread once the build has finished or was cancelled
+     * @return false if the player already has a build or undo running
      */
-    public void buildStructure(Player player, Location startLocation, Structure structure) {
-        World world = startLocation.getWorld();
-        if (world == null) {
+    public boolean startBuild(Player player, Location startLocation, Structure structure,
+                              Consumer<PlacementResult> onComplete) {
+        if (startLocation.getWorld() == null) {
             throw new IllegalArgumentException("World cannot be null");
         }
 
-        // Get player facing direction for structure orientation
-        BlockFace playerFacing = getPlayerFacing(player);
-
-        Map<String, String> palette = structure.getPalette();
-        Map<Integer, String[][]> layers = structure.getLayers();
-
-        // Start recording for undo
-        UndoEntry undoEntry = undoBuffer.startRecording(player);
-
-        // Collect all blocks to place, organized by placement priority
-        List<BlockPlacement> solidBlocks = new ArrayList<>();
-        List<BlockPlacement> physicsBlocks = new ArrayList<>();
-        List<BlockPlacement> upperBlocks = new ArrayList<>();  // Upper halves of doors, etc.
-
-        // Iterate through each layer (Y level) - process from bottom to top
-        List<Integer> sortedLayers = new ArrayList<>(layers.keySet());
-        Collections.sort(sortedLayers);
-        
-        for (int layerIndex : sortedLayers) {
-            String[][] layerData = layers.get(layerIndex);
-            if (layerData == null) continue;
-
-            // Iterate through Z (rows)
-            for (int z = 0; z < layerData.length; z++) {
-                String[] row = layerData[z];
-                if (row == null) continue;
-
-                // Iterate through X (columns)
-                for (int x = 0; x < row.length; x++) {
-                    String paletteKey = row[x];
-                    if (paletteKey == null || paletteKey.isEmpty()) continue;
-
-                    String blockId = palette.get(paletteKey);
-                    if (blockId == null) {
-                        plugin.getLogger().warning("Unknown palette key: " + paletteKey);
-                        continue;
-                    }
-
-                    // Parse block ID and properties
-                    BlockParseResult parseResult = parseBlockId(blockId);
-                    Material material = parseResult.material;
-                    
-                    if (material == null) {
-                        plugin.getLogger().warning("Unknown block ID: " + blockId);
-                        continue;
-                    }
-
-                    // Validate block is allowed
-                    if (!BlockValidator.isValidBlock(material)) {
-                        plugin.getLogger().warning("Block not allowed: " + material.name());
-                        continue;
-                    }
-
-                    // Calculate world position
-                    int worldX = startLocation.getBlockX() + x;
-                    int worldY = startLocation.getBlockY() + layerIndex;
-                    int worldZ = startLocation.getBlockZ() + z;
-
-                    BlockPlacement placement = new BlockPlacement(
-                        worldX, worldY, worldZ, x, z, layerIndex,
-                        material, parseResult.properties, parseResult.fullBlockData, layerData
-                    );
-                    
-                    // Categorize by placement priority
-                    if (isUpperBlockPart(parseResult.properties)) {
-                        upperBlocks.add(placement);
-                    } else if (isPhysicsDependent(material)) {
-                        physicsBlocks.add(placement);
-                    } else {
-                        solidBlocks.add(placement);
-                    }
-                }
-            }
-        }
-
-        int blocksPlaced = 0;
-
-        // Pass 1: Place solid blocks (bottom to top already sorted by layer)
-        for (BlockPlacement p : solidBlocks) {
-            blocksPlaced += placeBlock(world, p, undoEntry, playerFacing);
-        }
-        
-        // Pass 2: Place upper parts of multi-block structures (doors top half, etc.)
-        for (BlockPlacement p : upperBlocks) {
-            blocksPlaced += placeBlock(world, p, undoEntry, playerFacing);
-        }
-        
-        // Pass 3: Place physics-dependent blocks last
-        for (BlockPlacement p : physicsBlocks) {
-            blocksPlaced += placeBlock(world, p, undoEntry, playerFacing);
+        StructureVoxels voxels = new StructureVoxels(structure);
+        for (String paletteKey : voxels.getUnknownKeys()) {
+            plugin.getLogger().warning("Unknown palette key: " + paletteKey);
         }
 
-        // Save undo entry
-        undoBuffer.saveEntry(player, undoEntry);
+        String title = "Building " + (structure.getName() != null ? structure.getName() : "structure");
+        return engine.startPaste(player, startLocation, voxels, title, result -> {
+            plugin.getLogger().info("Built structure with " + result.getBlocksPlaced() + " blocks for " + player.getName());
+            onComplete.accept(result);
+        });
+    }
 
-        plugin.getLogger().info("Built structure with " + blocksPlaced + " blocks for " + player.getName());
+    /**
+     * Start undoing the player's last build
+     * @param onComplete called on the main thread with the number of blocks restored
+     * @return false if there is nothing to undo or a build or undo is running
+     */
+    public boolean startUndo(Player player, IntConsumer onComplete) {
+        return engine.startUndo(player, onComplete);
     }
-    
+
     /**
-     * Place a single block with proper BlockData
+     * Cancel the player's running build or undo
+     * @return false if the player had nothing running
      */
-    private int placeBlock(World world, BlockPlacement p, UndoEntry undoEntry, BlockFace playerFacing) {
-        Block block = world.getBlockAt(p.worldX, p.worldY, p.worldZ);
-        
-        // Save original state for undo
-        undoEntry.addBlockState(new BlockState(block.getLocation(), block.getType(), block.getBlockData()));
-        
-        try {
-            // If we have a complete BlockData string, use it directly
-            if (p.fullBlockData != null && !p.fullBlockData.isEmpty()) {
-                try {
-                    BlockData blockData = Bukkit.createBlockData(p.fullBlockData);
-                    block.setBlockData(blockData, false);
-                    return 1;
-                } catch (IllegalArgumentException e) {
-                    // Fall through to property-based placement
-                }
-            }
-            
-            // Place the block type first
-            block.setType(p.material, false);
-            
-            // Apply block orientation/properties
-            applyBlockData(block, p.properties, playerFacing, p.relX, p.relZ, p.layerData);
-            
-            return 1;
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to place block at " + p.worldX + "," + p.worldY + "," + p.worldZ + ": " + e.getMessage());
-            return 0;
-        }
+    public boolean cancel(Player player) {
+        return engine.cancel(player);
     }
-    
+
     /**
-     * Check if material is physics-dependent
+     * The player's running build or undo, or null
      */
-    private boolean isPhysicsDependent(Material material) {
-        return PHYSICS_DEPENDENT.contains(material.name());
+    public PlacementJob getJob(Player player) {
+        return engine.getJob(player);
     }
-    
+
+    public boolean hasUndo(Player player) {
+        return engine.hasUndo(player);
+    }
+
     /**
-     * Check if properties indicate upper part of multi-block structure
+     * Number of builds the player can still undo
      */
-    private boolean isUpperBlockPart(Map<String, String> properties) {
-        if (properties == null) return false;
-        String half = properties.get("half");
-        if (half != null && (half.equalsIgnoreCase("upper") || half.equalsIgnoreCase("top"))) {
-            return true;
-        }
-        String part = properties.get("part");
-        if (part != null && part.equalsIgnoreCase("head")) {
-            return true;
-        }
-        return false;
+    public int getUndoCount(Player player) {
+        return engine.getUndoLevels(player);
     }
-    
+
     /**
-     * Temporary storage for block placement info
+     * Cancel running builds and drop the undo history (plugin shutdown)
      */
-    private static class BlockPlacement {
-        final int worldX, worldY, worldZ;
-        final int relX, relZ, layer;
-        final Material material;
-        final Map<String, String> properties;
-        final String fullBlockData;
-        final String[][] layerData;
-        
-        BlockPlacement(int worldX, int worldY, int worldZ, int relX, int relZ, int layer,
-                      Material material, Map<String, String> properties, String fullBlockData, String[][] layerData) {
-            this.worldX = worldX;
-            this.worldY = worldY;
-            this.worldZ = worldZ;
-            this.relX = relX;
-            this.relZ = relZ;
-            this.layer = layer;
-            this.material = material;
-            this.properties = properties;
-            this.fullBlockData = fullBlockData;
-            this.layerData = layerData;
-        }
+    public void shutdown() {
+        engine.shutdown();
     }
 
     /**
-     * Get the cardinal direction the player is facing
+     * Resolve a palette block id to the BlockData to place, or null if it can't be placed
      */
-    private BlockFace getPlayerFacing(Player player) {
-        float yaw = player.getLocation().getYaw();
-        // Normalize yaw to 0-360
-        yaw = (yaw % 360 + 360) % 360;
-        
-        if (yaw >= 315 || yaw < 45) {
-            return BlockFace.SOUTH;
-        } else if (yaw >= 45 && yaw < 135) {
-            return BlockFace.WEST;
-        } else if (yaw >= 135 && yaw < 225) {
-            return BlockFace.NORTH;
-        } else {
-            return BlockFace.EAST;
+    private BlockData resolveBlock(String blockId) {
+        // Parse block ID and properties
+        BlockParseResult parseResult = parseBlockId(blockId);
+        Material material = parseResult.material;
+
+        if (material == null) {
+            plugin.getLogger().warning("Unknown block ID: " + blockId);
+            return null;
+        }
+
+        // Validate block is allowed
+        if (!BlockValidator.isValidBlock(material)) {
+            plugin.getLogger().warning("Block not allowed: " + material.name());
+            return null;
         }
+
+        // If we have a complete BlockData string, use it directly
+        try {
+            return Bukkit.createBlockData(parseResult.fullBlockData);
+        } catch (IllegalArgumentException e) {
+            // Fall through to property-based placement
+        }
+
+        // Start from the block type and apply orientation/properties one by one
+        BlockData blockData = material.createBlockData();
+        applyBlockData(blockData, parseResult.properties);
+        return blockData;
     }
 
     /**
      * Apply block data properties like facing direction, orientation, etc.
      * Handles all major block types: stairs, doors, beds, slabs, trapdoors, etc.
      */
-    private void applyBlockData(Block block, Map<String, String> properties, BlockFace playerFacing, 
-                                 int x, int z, String[][] layerData) {
+    private void applyBlockData(BlockData blockData, Map<String, String> properties) {
         if (properties == null || properties.isEmpty()) {
             return;
         }
         
-        BlockData blockData = block.getBlockData();
-        
         // Handle directional blocks (stairs, ladders, furnaces, doors, etc.)
         if (blockData instanceof Directional) {
             Directional directional = (Directional) blockData;
@@ -289,12 +162,6 @@ public class StructureBuilder {
                         directional.setFacing(face);
                     }
                 } catch (IllegalArgumentException ignored) {}
-            } else {
-                // Auto-orient based on position in structure
-                BlockFace autoFace = determineAutoFacing(x, z, layerData, block.getType());
-                if (autoFace != null && directional.getFaces().contains(autoFace)) {
-                    directional.setFacing(autoFace);
-                }
             }
         }
         
@@ -507,38 +374,6 @@ public class StructureBuilder {
                 chest.setWaterlogged(properties.get("waterlogged").equalsIgnoreCase("true"));
             }
         }
-        
-        block.setBlockData(blockData, false);
-    }
-
-    /**
-     * Determine automatic facing for directional blocks based on position
-     */
-    private BlockFace determineAutoFacing(int x, int z, String[][] layerData, Material material) {
-        // For ladders, face away from adjacent solid block
-        if (material.name().contains("LADDER")) {
-            // Check adjacent positions for solid blocks
-            int maxX = layerData[0].length - 1;
-            int maxZ = layerData.length - 1;
-            
-            if (x == 0) return BlockFace.EAST;
-            if (x == maxX) return BlockFace.WEST;
-            if (z == 0) return BlockFace.SOUTH;
-            if (z == maxZ) return BlockFace.NORTH;
-        }
-        
-        // For doors at edges, face outward
-        if (material.name().contains("DOOR")) {
-            int maxX = layerData[0].length - 1;
-            int maxZ = layerData.length - 1;
-            
-            if (z == 0) return BlockFace.SOUTH;
-            if (z == maxZ) return BlockFace.NORTH;
-            if (x == 0) return BlockFace.EAST;
-            if (x == maxX) return BlockFace.WEST;
-        }
-        
-        return null;
     }
 
     /**
@@ -0,0 +1,156 @@
+package com.aibuild.services;
+
+import com.aibuild.models.Structure;
+import com.aibuild.utils.JsonParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Generated structures kept ready for prompts that are requested often, keyed by the
+ * normalized prompt and the dimensions. Each entry is also written to the cache folder as
+ * the backend's JSON response, so the cache is warm again after a restart. Safe to use
+ * from any thread.
+ */
+public class StructureCache {
+
+    private final File directory;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public StructureCache(File directory, Logger logger) {
+        this.directory = directory;
+        this.logger = logger;
+    }
+
+    /**
+     * Cache key of a prompt: lower case with runs of whitespace collapsed, plus the dimensions
+     */
+    public static String key(String prompt, int width, int depth, int height) {
+        String normalized = prompt.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return normalized + "|" + width + "," + depth + "," + height;
+    }
+
+    /**
+     * The cached structure for a prompt, or null
+     */
+    public Structure get(String prompt, int width, int depth, int height) {
+        Entry entry = entries.get(key(prompt, width, depth, height));
+        if (entry == null) {
+            return null;
+        }
+        entry.uses.incrementAndGet();
+        return entry.structure;
+    }
+
+    /**
+     * When the prompt's entry was generated (epoch millis), or 0 if there is none
+     */
+    public long getGeneratedAt(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.generatedAt : 0;
+    }
+
+    /**
+     * Times the prompt's entry was served since it was generated
+     */
+    public int getUses(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.uses.get() : 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Store a backend response for a prompt and write it to the cache folder
+     */
+    public void put(String key, JsonObject response) throws IOException {
+        Structure structure = JsonParser.parseStructure(response);
+        long now = System.currentTimeMillis();
+        entries.put(key, new Entry(structure, now));
+
+        JsonObject file = new JsonObject();
+        file.addProperty("key", key);
+        file.addProperty("generatedAt", now);
+        file.add("structure", response);
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File target = fileFor(key);
+        File tempFile = new File(target.getPath() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(file, writer);
+        }
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load the entries written before the last restart. Entries whose key is not wanted any
+     * more are deleted.
+     * @param wanted keys to keep
+     */
+    public void load(Set<String> wanted) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                JsonObject cached = gson.fromJson(reader, JsonObject.class);
+                String key = cached.get("key").getAsString();
+                if (!wanted.contains(key)) {
+                    file.delete();
+                    continue;
+                }
+                Structure structure = JsonParser.parseStructure(cached.getAsJsonObject("structure"));
+                entries.put(key, new Entry(structure, cached.get("generatedAt").getAsLong()));
+            } catch (Exception e) {
+                logger.warning("Ignoring unreadable cached structure " + file.getName() + ": " + e.getMessage());
+                file.delete();
+            }
+        }
+    }
+
+    private File fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(40);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return new File(directory, name + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e); // Required of every JVM
+        }
+    }
+
+    private static final class Entry {
+        final Structure structure;
+        final long generatedAt;
+        final AtomicInteger uses = new AtomicInteger();
+
+        Entry(Structure structure, long generatedAt) {
+            this.structure = structure;
+            this.generatedAt = generatedAt;
+        }
+    }
+}